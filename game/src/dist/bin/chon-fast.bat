@@ -0,0 +1,9 @@
+@echo off
+rem Starts the game with the class-data sharing archive built by bin\train-cds.bat,
+rem falling back to a normal start when the archive is missing.
+set DIR=%~dp0..
+if exist "%DIR%\lib\chon.jsa" (
+    "%DIR%\bin\java" -XX:SharedArchiveFile="%DIR%\lib\chon.jsa" -Xshare:auto -m chon.group/chon.group.Engine %*
+) else (
+    "%DIR%\bin\java" -m chon.group/chon.group.Engine %*
+)
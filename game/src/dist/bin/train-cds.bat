@@ -0,0 +1,11 @@
+@echo off
+rem Builds the class-data sharing archives of the packaged runtime.
+rem See bin/train-cds for details.
+set DIR=%~dp0..
+if "%CHON_TRAINING_TICKS%"=="" (set TICKS=600) else (set TICKS=%CHON_TRAINING_TICKS%)
+set SCORES=%DIR%\lib\training-scores.log
+
+"%DIR%\bin\java" -Xshare:dump > nul || exit /b 1
+"%DIR%\bin\java" -XX:ArchiveClassesAtExit="%DIR%\lib\chon.jsa" -Dchon.training.ticks=%TICKS% -Dchon.scores="%SCORES%" -m chon.group/chon.group.Engine || exit /b 1
+del /q "%SCORES%" 2> nul
+echo Arquivo CDS gravado em %DIR%\lib\chon.jsa
@@ -1,16 +1,34 @@
 package chon.group;
 
-import java.util.ArrayList;
-import java.util.Random;
-
-import chon.group.game.domain.agent.Agent;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+import chon.group.game.analytics.SessionAnalytics;
+import chon.group.game.asset.TextureManager;
+import chon.group.game.audio.GameAudio;
+import chon.group.game.domain.environment.AgentScheduler;
+import chon.group.game.domain.environment.Camera;
 import chon.group.game.domain.environment.Environment;
+import chon.group.game.domain.environment.EnvironmentListener;
+import chon.group.game.domain.environment.Simulation;
 import chon.group.game.domain.item.FallingItem;
+import chon.group.game.domain.rewind.RewindBuffer;
+import chon.group.game.drawer.DrawCommandBuffer;
 import chon.group.game.drawer.EnvironmentDrawer;
 import chon.group.game.drawer.JavaFxMediator;
+import chon.group.game.drawer.ProfiledDrawer;
+import chon.group.game.drawer.SoftwareMediator;
 import chon.group.game.drawer.WindowManager;
+import chon.group.game.harness.ScriptedInput;
+import chon.group.game.input.Autopilot;
+import chon.group.game.input.InputQueue;
+import chon.group.game.jfr.SessionRecorder;
+import chon.group.game.jfr.TickEvent;
+import chon.group.game.score.ScoreBoards;
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.EventHandler;
 import javafx.stage.Stage;
 import javafx.scene.Scene;
@@ -40,32 +58,47 @@ public class Engine extends Application {
     /* If the game is paused or not. */
     private boolean isPaused = false;
 
-    // novos atributos
+    /* The audio subsystem, fed from the game loop without blocking. */
+    private GameAudio audio;
 
-    /**
-     * Flag indicating if the game is over.
-     */
-    private boolean gameOver = false; // Novo atributo
+    /* Timestamped key events, sampled once per simulation tick. */
+    private final InputQueue inputQueue = new InputQueue();
 
-    /**
-     * Random number generator for item spawning.
-     */
-    private Random random = new Random();
+    /* The local leaderboards, null when the score log cannot be opened. */
+    private ScoreBoards scoreBoards;
 
-    /**
-     * Timestamp of the last item spawn.
-     */
-    private long lastItemSpawn = 0;
+    /* Runs the other agents' behaviours; reports how many were updated per tick. */
+    private AgentScheduler agentScheduler;
 
-    /**
-     * Delay between item spawns in milliseconds.
-     */
-    private static final long ITEM_SPAWN_DELAY = 650;
+    /* Bot playing the protagonist when started with -Dchon.autopilot=true, or null. */
+    private Autopilot autopilot;
 
-    /**
-     * Maximum number of items allowed on screen simultaneously.
-     */
-    private static final int MAX_ITEMS = 40;
+    /* Frames the autopilot has spent on the game over screen. */
+    private int autopilotGameOverFrames;
+
+    /* Commands batched by the JavaFX renderer, reporting its draw calls. */
+    private DrawCommandBuffer drawCommands;
+
+    /* Flight Recorder session started with -Dchon.jfr, or null. */
+    private SessionRecorder recorder;
+
+    /* Session analytics written with -Dchon.analytics=directory, or null. */
+    private SessionAnalytics analytics;
+
+    /* Frames played by a training run (-Dchon.training.ticks) before exiting, 0 when playing normally. */
+    private final int trainingFrames = Integer.getInteger("chon.training.ticks", 0);
+
+    /* Keys played by a training run. */
+    private final ScriptedInput trainingScript = new ScriptedInput(42);
+
+    /* Frames played so far by a training run. */
+    private int trainingFrame;
+
+    /* Key held by the training script on the previous frame, or null. */
+    private String trainingKey;
+
+    /* Frames the training run has spent on the game over screen. */
+    private int trainingGameOverFrames;
 
     /**
      * Main entry point of the application.
@@ -74,6 +107,7 @@ public class Engine extends Application {
      */
 
     public static void main(String[] args) {
+        StartupTimer.markMain();
         launch(args);
     }
 
@@ -90,34 +124,84 @@ public class Engine extends Application {
     @Override
     public void start(Stage theStage) {
         try {
+            recorder = SessionRecorder.startIfRequested();
+
             /* Initialize the game environment and agents */
-            Environment environment = new Environment(0, 0, 1280, 780, "/images/environment/zaun.png");
-            Agent vi = new Agent(400, 630, 140, 84, 2, 1000, "/images/agents/vi.png", false);
-            Agent jinx = new Agent(920, 35, 145, 135, 2, 3, "/images/agents/jinx.png", true);
+            Environment environment = Simulation.createDefaultEnvironment();
+            Simulation simulation = new Simulation(environment);
+            agentScheduler = simulation.getAgentScheduler();
+            /* Ten seconds of ticks, played backwards while BACK_SPACE is held */
+            simulation.setRewindBuffer(new RewindBuffer(environment, 600, 60));
+            if (Boolean.getBoolean("chon.autopilot")) {
+                autopilot = new Autopilot(environment);
+            }
+            analytics = SessionAnalytics.startIfRequested(environment);
+
+            /* Play a sound for every collision, panned to where it happened on the screen */
+            audio = new GameAudio();
+            audio.start();
+            environment.addListener(new EnvironmentListener() {
+                @Override
+                public void onItemCollision(FallingItem item) {
+                    Camera camera = environment.getCamera();
+                    int pan = (int) (255 * (item.getPosX() + item.getWidth() / 2.0 - camera.getPosX())
+                            / camera.getWidth());
+                    audio.play(item.isBomb() ? audio.getExplosionClip() : audio.getPickupClip(), 220,
+                            Math.max(0, Math.min(255, pan)));
+                }
+
+                @Override
+                public void onProjectileHit(float x, float y) {
+                    Camera camera = environment.getCamera();
+                    int pan = (int) (255 * (x - camera.getPosX()) / camera.getWidth());
+                    audio.play(audio.getExplosionClip(), 90, Math.max(0, Math.min(255, pan)));
+                }
+            });
 
-            /* Set up the graphical canvas */
-            Canvas canvas = new Canvas(environment.getWidth(), environment.getHeight());
+            /* Record every finished game and show its ranks on the game over screen */
+            try {
+                scoreBoards = new ScoreBoards(ScoreBoards.defaultPath());
+            } catch (IOException e) {
+                System.out.println("Erro ao abrir placares: " + e.getMessage());
+            }
+            String playerTag = System.getProperty("chon.player", "");
+            environment.addListener(new EnvironmentListener() {
+                @Override
+                public void onGameOver(int score) {
+                    if (scoreBoards == null)
+                        return;
+                    try {
+                        environment.setRankText(
+                                scoreBoards.submit(score, playerTag, System.currentTimeMillis()).describe());
+                    } catch (IOException e) {
+                        System.out.println("Erro ao gravar placar: " + e.getMessage());
+                    }
+                }
+            });
+
+            /* Set up the graphical canvas at the internal render resolution */
+            WindowManager windowManager = new WindowManager(1000, 625, 640, 390);
+            windowManager.loadRenderSettings();
+            Canvas canvas = windowManager.createCanvas();
             GraphicsContext gc = canvas.getGraphicsContext2D();
-            EnvironmentDrawer mediator = new JavaFxMediator(environment, gc);
+            JavaFxMediator javaFxMediator = new JavaFxMediator(environment, gc);
+            drawCommands = javaFxMediator.getCommands();
+            /* -Dchon.renderer=software composites frames in an int[] framebuffer instead */
+            /* Every phase is reported to Flight Recorder when a recording enables it */
+            EnvironmentDrawer mediator = new ProfiledDrawer("software".equals(System.getProperty("chon.renderer"))
+                    ? new SoftwareMediator(environment, gc)
+                    : javaFxMediator);
 
             /* Set up the scene and stage */
             StackPane root = new StackPane();
-            Scene scene = new Scene(root, environment.getWidth(), environment.getHeight());
+            Scene scene = new Scene(root, environment.getCamera().getWidth(), environment.getCamera().getHeight());
 
-            WindowManager windowManager = new WindowManager(1000, 625, 640, 390);
             windowManager.setupWindow(theStage, scene, root);
 
             theStage.setScene(scene);
             theStage.setTitle("Chon: The Learning Game");
 
-            environment.setProtagonist(vi);
-            environment.getAgents().add(jinx);
-            environment.setPauseImage("/images/environment/pause.png");
-            environment.setScoreImage("/images/environment/score.png");
-
-            root.getChildren().add(canvas);
-
-            JavaFxMediator javaFxMediator = (JavaFxMediator) mediator;
+            root.getChildren().add(windowManager.getCanvasLayer());
 
             // Adiciona container de botões ao root
             root.getChildren().add(javaFxMediator.getButtonContainer());
@@ -125,31 +209,25 @@ public class Engine extends Application {
 
             // Configura ação do botão de voltar
             javaFxMediator.getRestartButton().setOnAction(e -> {
-                gameOver = false;
-                environment.getProtagonist().setHealth(1000); // Reseta vida
-                environment.setScore(0); // Reseta score
-                environment.getFallingItems().clear(); // Limpa itens
+                simulation.restart(); // Reseta vida, score e itens
                 javaFxMediator.getButtonContainer().setVisible(false);
                 isPaused = false;
             });
 
-            /* Handle keyboard input */
-            ArrayList<String> input = new ArrayList<String>();
+            /* Handle keyboard input: events are queued and applied on the next tick */
             scene.setOnKeyPressed(new EventHandler<KeyEvent>() {
                 public void handle(KeyEvent e) {
                     String code = e.getCode().toString();
-                    input.clear();
 
                     System.out.println("Pressed: " + code);
 
                     if (code.equals("P")) {
                         isPaused = !isPaused;
+                        if (!isPaused)
+                            environment.releasePauseImage();
                     }
 
-                    if (!isPaused && !input.contains(code)) {
-                        input.add(code);
-                    }
-
+                    inputQueue.press(code, System.nanoTime());
                 }
             });
 
@@ -157,25 +235,43 @@ public class Engine extends Application {
                 public void handle(KeyEvent e) {
                     String code = e.getCode().toString();
                     System.out.println("Released: " + code);
-                    input.remove(code);
+                    inputQueue.release(code, System.nanoTime());
                 }
             });
 
             /* Start the game loop */
             new AnimationTimer() {
 
+                /** Whether the last pulse drew a frame of the running game, not yet timed as shown. */
+                private boolean frameDrawn;
+
                 /**
                  * The game loop, called on each frame.
                  *
                  * @param now the timestamp of the current frame in nanoseconds.
                  */
                 @Override
-                public void handle(long arg0) {
+                public void handle(long now) {
+                    StartupTimer.firstFrame();
+                    if (frameDrawn) {
+                        /* The toolkit renders a pulse's frame before it starts the next pulse */
+                        inputQueue.frameShown(now);
+                        frameDrawn = false;
+                    }
+                    if (trainingFrames > 0 && !train(simulation)) {
+                        return;
+                    }
+                    if (autopilot != null && simulation.isGameOver() && ++autopilotGameOverFrames > 60) {
+                        simulation.restart();
+                        javaFxMediator.getButtonContainer().setVisible(false);
+                        autopilotGameOverFrames = 0;
+                    }
                     mediator.clearEnvironment();
                     /* Branching the Game Loop */
 
-                    if (gameOver) {
+                    if (simulation.isGameOver()) {
                         mediator.drawGameOverScreen();
+                        mediator.presentFrame();
                         javaFxMediator.getButtonContainer().setVisible(true);
                         return;
                     }
@@ -183,58 +279,41 @@ public class Engine extends Application {
                     if (isPaused) {
                         mediator.drawBackground();
                         mediator.drawAgents();
+                        mediator.drawParticles();
                         mediator.drawScorePanel();
                         /* Rendering the Pause Screen */
                         mediator.drawPauseScreen();
+                        mediator.presentFrame();
                     } else {
 
-                        // Verifique se o protagonista morreu
-                        if (environment.getProtagonist().getHealth() <= 0) {
-                            gameOver = true;
-                        }
-                        /* ChonBota Only Moves if the Player Press Something */
-                        /* Update the protagonist's movements if input exists */
-                        if (!input.isEmpty()) {
-                            /* ChonBota's Movements */
-                            environment.getProtagonist().move(input);
-                            environment.checkBorders();
-                        }
-
-                        // Spawn new items
-                        long currentTime = System.currentTimeMillis();
-                        if (currentTime - lastItemSpawn > ITEM_SPAWN_DELAY &&
-                                environment.getFallingItems().size() < MAX_ITEMS) {
-                            int minGap = 140;
-                            int spawnX = random.nextInt(environment.getWidth() - minGap);
-
-                            boolean isBomb = random.nextDouble() < 0.8;
-                            String imagePath = isBomb ? "/images/items/bomb.png" : "/images/items/hextech.png";
-                            double speed = 2.0; // velocidade padrão
-
-                            if (isBomb && random.nextDouble() < 0.4) { // 40% das bombas serão mais rápidas
-                                speed = 4.5; // velocidade dobrada para bombas rápidas
+                        List<String> input = autopilot != null ? autopilot.decide()
+                                : inputQueue.sample(System.nanoTime());
+                        /* Holding BACK_SPACE goes back a recorded tick instead of playing one */
+                        if (!input.contains("BACK_SPACE") || !simulation.rewind(1)) {
+                            TickEvent tickEvent = new TickEvent();
+                            tickEvent.begin();
+                            simulation.tick(input, System.currentTimeMillis());
+                            tickEvent.end();
+                            if (analytics != null) {
+                                analytics.tick();
+                            }
+                            if (tickEvent.shouldCommit()) {
+                                tickEvent.keys = input.size();
+                                tickEvent.items = environment.getFallingItems().size();
+                                tickEvent.particles = environment.getParticles().size();
+                                tickEvent.projectiles = environment.getProjectiles().size();
+                                tickEvent.agents = agentScheduler.getUpdated();
+                                tickEvent.score = environment.getScore();
+                                tickEvent.commit();
                             }
-
-                            FallingItem item = new FallingItem(spawnX, 60, 60, speed, imagePath, isBomb);
-                            environment.getFallingItems().add(item);
-                            lastItemSpawn = currentTime;
-
                         }
-
-                        // Update falling items
-
-                        environment.getFallingItems().forEach(FallingItem::fall);
-                        environment.detectFallingItemCollision();
-
-                        // Alterado metodo de movimentação da jinx para patrol
-
-                        /* ChonBot's Automatic Movements */
-                        /* Update the other agents' movements */
-                        environment.getAgents().get(0).patrol(50, 1230);
                         /* Render the game environment and agents */
                         mediator.drawBackground();
                         mediator.drawAgents();
+                        mediator.drawParticles();
                         mediator.drawScorePanel();
+                        mediator.presentFrame();
+                        frameDrawn = true;
                     }
                 }
 
@@ -245,4 +324,90 @@ public class Engine extends Application {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Plays one frame of a training run: feeds the scripted keys, restarts
+     * after a short game over and exits once every frame was played, so the
+     * run loads the classes of a typical session.
+     *
+     * @param simulation the running simulation
+     * @return false once the run is over and the application is exiting
+     */
+    private boolean train(Simulation simulation) {
+        if (trainingFrame == trainingFrames) {
+            Platform.exit();
+            return false;
+        }
+        List<String> scripted = trainingScript.inputAt(trainingFrame++);
+        String key = scripted.isEmpty() ? null : scripted.get(0);
+        if (!Objects.equals(key, trainingKey)) {
+            long now = System.nanoTime();
+            if (trainingKey != null)
+                inputQueue.release(trainingKey, now);
+            if (key != null)
+                inputQueue.press(key, now);
+            trainingKey = key;
+        }
+        if (simulation.isGameOver() && ++trainingGameOverFrames > 30) {
+            simulation.restart();
+            trainingGameOverFrames = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Reports the input latency, the agent updates, the autopilot's planning
+     * time, the draw calls and the texture memory, releases the audio output and the score log
+     * and saves the session analytics and the Flight Recorder session when the
+     * application exits.
+     */
+    @Override
+    public void stop() {
+        if (inputQueue.getLatencySamples() > 0) {
+            System.out.printf("Latência entrada-quadro: média %.2f ms, p95 %.1f ms, máx %.2f ms (%d amostras)%n",
+                    inputQueue.getAverageLatencyMillis(), inputQueue.getLatencyPercentileMillis(0.95),
+                    inputQueue.getMaxLatencyMillis(), inputQueue.getLatencySamples());
+        }
+        if (agentScheduler != null && agentScheduler.getTicks() > 0) {
+            System.out.printf("Agentes atualizados por tick: média %.1f, máx %d (%d agentes)%n",
+                    agentScheduler.getAverageUpdated(), agentScheduler.getMaxUpdated(),
+                    agentScheduler.getScheduled());
+        }
+        if (autopilot != null && autopilot.getPlans() > 0) {
+            System.out.printf("Autopiloto: planejamento médio %.1f µs, máx %.1f µs, %d acima de 0,1 ms (%d planos)%n",
+                    autopilot.getAveragePlanMicros(), autopilot.getMaxPlanMicros(),
+                    autopilot.getSlowPlans(), autopilot.getPlans());
+        }
+        if (drawCommands != null && drawCommands.getFrames() > 0) {
+            System.out.printf("Desenho por quadro: média %.1f chamadas, máx %d, média %.1f trocas de estado (%d quadros)%n",
+                    drawCommands.getAverageDrawCalls(), drawCommands.getMaxDrawCalls(),
+                    drawCommands.getAverageStateChanges(), drawCommands.getFrames());
+        }
+        TextureManager textures = TextureManager.getDefault();
+        System.out.printf("Texturas: %.1f MB residentes, %.1f MB em cópias redimensionadas (pico %.1f MB, "
+                + "orçamento %.1f MB), %d carregamentos, %d recarregamentos, %d despejos, %d limpezas de cópias%n",
+                textures.getResidentBytes() / 1048576.0, textures.getCacheBytes() / 1048576.0,
+                textures.getPeakBytes() / 1048576.0, textures.getBudget() / 1048576.0, textures.getLoads(),
+                textures.getReloads(), textures.getEvictions(), textures.getCacheClears());
+        if (audio != null) {
+            audio.close();
+        }
+        if (scoreBoards != null) {
+            try {
+                scoreBoards.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar placares: " + e.getMessage());
+            }
+        }
+        if (analytics != null) {
+            try {
+                analytics.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar análise da sessão: " + e.getMessage());
+            }
+        }
+        if (recorder != null) {
+            recorder.close();
+        }
+    }
 }
\ No newline at end of file
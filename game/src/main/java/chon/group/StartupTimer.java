@@ -0,0 +1,61 @@
+package chon.group;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+
+import chon.group.game.jfr.StartupEvent;
+
+/**
+ * Measures how long the game takes to show its first frame, from the start of
+ * the JVM and from the start of {@code main}, and whether a class-data sharing
+ * archive was used. The result is printed once and emitted as a
+ * {@link StartupEvent}, so packaged builds with and without the archive can
+ * be compared.
+ */
+public class StartupTimer {
+
+    /* Wall-clock time main was entered, in milliseconds. */
+    private static long mainMillis;
+
+    /* Whether the first frame was already reported. */
+    private static boolean reported;
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Records that {@code main} was entered.
+     */
+    public static void markMain() {
+        mainMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Reports the startup time on the first call; later calls do nothing.
+     */
+    public static void firstFrame() {
+        if (reported)
+            return;
+        reported = true;
+        long now = System.currentTimeMillis();
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        long jvmStart = runtime.getStartTime();
+        String archive = "none";
+        for (String argument : runtime.getInputArguments()) {
+            if (argument.startsWith("-XX:SharedArchiveFile="))
+                archive = argument.substring(argument.indexOf('=') + 1);
+            else if (argument.startsWith("-XX:ArchiveClassesAtExit="))
+                archive = "training";
+        }
+
+        StartupEvent event = new StartupEvent();
+        if (event.isEnabled()) {
+            event.toMain = mainMillis - jvmStart;
+            event.toFirstFrame = now - jvmStart;
+            event.archive = archive;
+            event.commit();
+        }
+        System.out.println("Primeiro quadro em " + (now - jvmStart) + " ms desde o início da JVM (main em "
+                + (mainMillis - jvmStart) + " ms, arquivo CDS: " + archive + ")");
+    }
+}
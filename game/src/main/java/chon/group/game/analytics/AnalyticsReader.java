@@ -0,0 +1,346 @@
+package chon.group.game.analytics;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads session analytics files offline and merges them into one summary.
+ * <p>
+ * A file that was closed ends with its summary, which is read directly; the
+ * columns of a file cut short by a crash are replayed to rebuild it, up to
+ * the last complete block. Files are split between the threads of a
+ * fork/join pool, and the summaries of each half are merged as the halves
+ * finish, so thousands of files take little more memory than one.
+ * </p>
+ *
+ * <pre>
+ * java -cp game.jar chon.group.game.analytics.AnalyticsReader dir=analytics threads=8
+ * </pre>
+ */
+public class AnalyticsReader {
+
+    /** Files read one after the other by a task instead of split further. */
+    private static final int FILES_PER_TASK = 8;
+
+    /** Levels of the text drawings, from empty to full. */
+    private static final String SHADES = " .:-=+*#%@";
+
+    /** Number of files that could not be read. */
+    private final AtomicLong failedFiles = new AtomicLong();
+
+    /** Number of files whose summary was rebuilt from the columns. */
+    private final AtomicLong rebuiltFiles = new AtomicLong();
+
+    /**
+     * Reads the summary of a session file.
+     *
+     * @param file the file
+     * @return the summary of the session
+     * @throws IOException if the file cannot be read or is not an analytics file
+     */
+    public SessionSummary read(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (in.remaining() < 16 || in.getInt() != SessionAnalytics.MAGIC)
+            throw new IOException("Not an analytics file: " + file);
+        if (in.getInt() != SessionAnalytics.VERSION)
+            throw new IOException("Unsupported analytics version: " + file);
+        int width = Math.max(1, in.getInt());
+        int height = Math.max(1, in.getInt());
+
+        Inflater inflater = new Inflater();
+        try {
+            /* The summary is the last block; the columns are only decoded without it */
+            int blocks = in.position();
+            ByteBuffer payload = nextBlock(in, SessionAnalytics.BLOCK_SUMMARY);
+            if (payload != null)
+                return readSummary(payload, inflater);
+            in.position(blocks);
+            Replay replay = new Replay(width, height);
+            while ((payload = nextBlock(in, SessionAnalytics.BLOCK_COLUMNS)) != null)
+                replay.add(ColumnBlock.read(payload, inflater));
+            rebuiltFiles.incrementAndGet();
+            return replay.summary;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Malformed analytics file: " + file, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Skips to the next block of a type.
+     *
+     * @return the block's payload, or null when no complete block of the type
+     *         is left
+     */
+    private static ByteBuffer nextBlock(ByteBuffer in, byte type) {
+        while (in.remaining() >= 5) {
+            byte next = in.get();
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining())
+                return null; // the session ended while this block was written
+            ByteBuffer payload = in.slice();
+            payload.limit(length);
+            in.position(in.position() + length);
+            if (next == type)
+                return payload;
+        }
+        return null;
+    }
+
+    /**
+     * Inflates and reads a summary block.
+     */
+    private static SessionSummary readSummary(ByteBuffer payload, Inflater inflater) throws IOException {
+        int rawLength = payload.getInt();
+        if (rawLength < 0)
+            throw new IOException("Invalid summary length");
+        byte[] raw = new byte[rawLength];
+        inflater.reset();
+        inflater.setInput(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+        try {
+            if (inflater.inflate(raw) != rawLength)
+                throw new IOException("Truncated summary");
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt summary", e);
+        }
+        return SessionSummary.read(new DataInputStream(new ByteArrayInputStream(raw)));
+    }
+
+    /**
+     * Reads and merges the summaries of many files in parallel. Files that
+     * cannot be read are counted and skipped.
+     *
+     * @param files   the files
+     * @param threads the number of threads reading them
+     * @return the merged summary
+     */
+    public SessionSummary merge(List<Path> files, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            return pool.invoke(new MergeTask(files, 0, files.size()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Gets the number of files that could not be read.
+     *
+     * @return the failed files
+     */
+    public long getFailedFiles() {
+        return failedFiles.get();
+    }
+
+    /**
+     * Gets the number of files whose summary was rebuilt from the columns.
+     *
+     * @return the rebuilt files
+     */
+    public long getRebuiltFiles() {
+        return rebuiltFiles.get();
+    }
+
+    /**
+     * Rebuilds the summary of a session from its columns, block by block.
+     */
+    private static final class Replay {
+
+        /** Width of the world. */
+        private final int width;
+
+        /** Height of the world. */
+        private final int height;
+
+        /** The summary being rebuilt. */
+        private final SessionSummary summary = new SessionSummary();
+
+        /** Whether the next tick starts a new game. */
+        private boolean newGame = true;
+
+        /** Time the current game started at, in milliseconds. */
+        private long gameStart;
+
+        private Replay(int width, int height) {
+            this.width = width;
+            this.height = height;
+            summary.addSession();
+        }
+
+        /**
+         * Replays the ticks of a block with the events that happened on
+         * them, in the order the session recorded them.
+         */
+        private void add(ColumnBlock block) {
+            int spawn = 0;
+            int collision = 0;
+            for (int row = 0; row < block.rows; row++) {
+                for (; spawn < block.spawns && block.spawnRow[spawn] <= row; spawn++)
+                    summary.addSpawn(block.spawnX[spawn], block.spawnBomb[spawn] != 0, width);
+                for (; collision < block.collisions && block.hitRow[collision] <= row; collision++)
+                    summary.addCollision(block.hitX[collision], block.hitY[collision],
+                            block.hitBomb[collision] != 0, width, height);
+                if (newGame) {
+                    gameStart = block.time[row];
+                    newGame = false;
+                }
+                summary.addTick(block.x[row], block.y[row], width, height);
+                if (block.gameOver[row] != 0) {
+                    summary.addGame(block.time[row] - gameStart);
+                    newGame = true;
+                }
+            }
+            /* Events of a tick recorded in the next block */
+            for (; spawn < block.spawns; spawn++)
+                summary.addSpawn(block.spawnX[spawn], block.spawnBomb[spawn] != 0, width);
+            for (; collision < block.collisions; collision++)
+                summary.addCollision(block.hitX[collision], block.hitY[collision],
+                        block.hitBomb[collision] != 0, width, height);
+        }
+    }
+
+    /**
+     * Reads a range of files, splitting it in halves until it is small, and
+     * merges the summaries.
+     */
+    private final class MergeTask extends RecursiveTask<SessionSummary> {
+
+        /** Tasks are never serialized; declared because fork/join tasks are serializable. */
+        private static final long serialVersionUID = 1L;
+
+        /** The files. */
+        private final List<Path> files;
+
+        /** First file of the range. */
+        private final int from;
+
+        /** End of the range, exclusive. */
+        private final int to;
+
+        private MergeTask(List<Path> files, int from, int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SessionSummary compute() {
+            if (to - from > FILES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                MergeTask left = new MergeTask(files, from, middle);
+                left.fork();
+                SessionSummary right = new MergeTask(files, middle, to).compute();
+                return left.join().merge(right);
+            }
+            SessionSummary summary = new SessionSummary();
+            for (int i = from; i < to; i++) {
+                try {
+                    summary.merge(read(files.get(i)));
+                } catch (IOException | RuntimeException e) {
+                    failedFiles.incrementAndGet();
+                    System.out.println("Erro ao ler análise " + files.get(i) + ": " + e.getMessage());
+                }
+            }
+            return summary;
+        }
+    }
+
+    /**
+     * Entry point: merges every {@code .chan} file of a directory and prints
+     * the totals, the histograms and the heat maps.
+     *
+     * @param args {@code key=value} options: dir, threads
+     * @throws IOException if the directory cannot be listed
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(option(args, "dir", "analytics"));
+        int threads = Integer.parseInt(option(args, "threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.toString().endsWith(".chan")).sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+
+        AnalyticsReader reader = new AnalyticsReader();
+        long start = System.nanoTime();
+        SessionSummary summary = reader.merge(files, threads);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("Sessões: %d em %d ms com %d threads (%d ilegíveis, %d reconstruídas das colunas)%n",
+                summary.getSessions(), millis, threads, reader.getFailedFiles(), reader.getRebuiltFiles());
+        System.out.printf("Ticks: %d, jogos: %d%n", summary.getTicks(), summary.getGames());
+        System.out.printf("Cristais: %d coletados de %d; bombas: %d atingiram de %d%n",
+                summary.getCrystalsCollected(), summary.getCrystalsSpawned(),
+                summary.getBombHits(), summary.getBombsSpawned());
+        System.out.printf("Tempo vivo: mediana %.0f s, p90 %.0f s; cristais por jogo: mediana %.0f%n",
+                summary.getAlive().getPercentile(0.5), summary.getAlive().getPercentile(0.9),
+                summary.getCollected().getPercentile(0.5));
+        System.out.println("Posição do protagonista: |" + shade(summary.getPositions()) + "|");
+        System.out.println("Itens gerados:           |" + shade(summary.getSpawns()) + "|");
+        System.out.println("Bombas que atingiram:");
+        printHeatMap(summary.getHits());
+    }
+
+    /**
+     * Draws a histogram as a line of characters, darker for fuller bins.
+     */
+    private static String shade(Histogram histogram) {
+        long max = 1;
+        for (int i = 0; i < histogram.getBins(); i++)
+            max = Math.max(max, histogram.getCount(i));
+        StringBuilder line = new StringBuilder(histogram.getBins());
+        for (int i = 0; i < histogram.getBins(); i++)
+            line.append(SHADES.charAt((int) (histogram.getCount(i) * (SHADES.length() - 1) / max)));
+        return line.toString();
+    }
+
+    /**
+     * Prints the rows of a heat map that have counts, darker for fuller
+     * cells.
+     */
+    private static void printHeatMap(HeatMap heatMap) {
+        long max = 1;
+        for (int row = 0; row < heatMap.getRows(); row++)
+            for (int column = 0; column < heatMap.getColumns(); column++)
+                max = Math.max(max, heatMap.getCount(column, row));
+        for (int row = 0; row < heatMap.getRows(); row++) {
+            StringBuilder line = new StringBuilder(heatMap.getColumns());
+            boolean empty = true;
+            for (int column = 0; column < heatMap.getColumns(); column++) {
+                long count = heatMap.getCount(column, row);
+                empty &= count == 0;
+                line.append(SHADES.charAt((int) (count * (SHADES.length() - 1) / max)));
+            }
+            if (!empty)
+                System.out.printf("%3d%% |%s|%n", row * 100 / heatMap.getRows(), line);
+        }
+    }
+
+    /**
+     * Reads a {@code key=value} option.
+     */
+    private static String option(String[] args, String key, String fallback) {
+        for (String arg : args) {
+            if (arg.startsWith(key + "="))
+                return arg.substring(key.length() + 1);
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,375 @@
+package chon.group.game.analytics;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A run of consecutive ticks of a session, stored column by column.
+ * <p>
+ * Each tick is a row of the time, the protagonist's position and whether the
+ * game ended on it; spawns and collisions are rows of their own tables,
+ * pointing at the tick they happened on. On disk every column is written on
+ * its own: numbers as the zigzag varint of their difference from the row
+ * before, flags as bytes, each then deflated. Neighbouring ticks barely
+ * differ, so most rows take a bit or two.
+ * </p>
+ * <p>
+ * Layout: first tick (long), tick rows, spawn rows and collision rows (ints),
+ * the number of columns (byte), then per column its id (byte), raw length
+ * and deflated length (ints) and the deflated bytes.
+ * </p>
+ */
+class ColumnBlock {
+
+    /* Column ids */
+    static final byte TIME = 0;
+    static final byte X = 1;
+    static final byte Y = 2;
+    static final byte GAME_OVER = 3;
+    static final byte SPAWN_ROW = 4;
+    static final byte SPAWN_X = 5;
+    static final byte SPAWN_BOMB = 6;
+    static final byte HIT_ROW = 7;
+    static final byte HIT_X = 8;
+    static final byte HIT_Y = 9;
+    static final byte HIT_BOMB = 10;
+
+    /** Number of columns in a block. */
+    private static final int COLUMNS = 11;
+
+    /** Number of the block's first tick in the session. */
+    long firstTick;
+
+    /** Number of tick rows. */
+    int rows;
+
+    /** Simulation time of each tick, in milliseconds. */
+    final long[] time;
+
+    /** Protagonist's X on each tick. */
+    final int[] x;
+
+    /** Protagonist's Y on each tick. */
+    final int[] y;
+
+    /** 1 on the tick the game ended, else 0. */
+    final byte[] gameOver;
+
+    /** Number of spawn rows. */
+    int spawns;
+
+    /** Tick row of each spawn. */
+    final int[] spawnRow;
+
+    /** X of each spawned item. */
+    final int[] spawnX;
+
+    /** 1 when the spawned item is a bomb, else 0. */
+    final byte[] spawnBomb;
+
+    /** Number of collision rows. */
+    int collisions;
+
+    /** Tick row of each collision. */
+    final int[] hitRow;
+
+    /** X of each item hit or collected. */
+    final int[] hitX;
+
+    /** Y of each item hit or collected. */
+    final int[] hitY;
+
+    /** 1 when the item was a bomb, else 0. */
+    final byte[] hitBomb;
+
+    /**
+     * Constructor of an empty block.
+     *
+     * @param capacity the number of tick rows it holds
+     * @param events   the number of spawn rows and of collision rows it holds
+     */
+    ColumnBlock(int capacity, int events) {
+        this.time = new long[capacity];
+        this.x = new int[capacity];
+        this.y = new int[capacity];
+        this.gameOver = new byte[capacity];
+        this.spawnRow = new int[events];
+        this.spawnX = new int[events];
+        this.spawnBomb = new byte[events];
+        this.hitRow = new int[events];
+        this.hitX = new int[events];
+        this.hitY = new int[events];
+        this.hitBomb = new byte[events];
+    }
+
+    /**
+     * Empties the block to fill it again.
+     *
+     * @param firstTick the number of the next tick in the session
+     */
+    void reset(long firstTick) {
+        this.firstTick = firstTick;
+        this.rows = 0;
+        this.spawns = 0;
+        this.collisions = 0;
+    }
+
+    /**
+     * Checks if another tick row fits.
+     *
+     * @return true when the tick table is full
+     */
+    boolean isFull() {
+        return rows == time.length;
+    }
+
+    /**
+     * Checks if another spawn and another collision fit.
+     *
+     * @return true when an event table is full
+     */
+    boolean isEventsFull() {
+        return spawns == spawnRow.length || collisions == hitRow.length;
+    }
+
+    /**
+     * Writes the block's columns, each encoded and deflated on its own.
+     *
+     * @param out      the output
+     * @param deflater the deflater, reset before each column
+     * @param encoder  the encoder holding the scratch buffers
+     * @throws IOException if the output fails
+     */
+    void write(DataOutputStream out, Deflater deflater, Encoder encoder) throws IOException {
+        out.writeLong(firstTick);
+        out.writeInt(rows);
+        out.writeInt(spawns);
+        out.writeInt(collisions);
+        out.writeByte(COLUMNS);
+        encoder.longs(time, rows).flush(out, TIME, deflater);
+        encoder.ints(x, rows).flush(out, X, deflater);
+        encoder.ints(y, rows).flush(out, Y, deflater);
+        encoder.bytes(gameOver, rows).flush(out, GAME_OVER, deflater);
+        encoder.ints(spawnRow, spawns).flush(out, SPAWN_ROW, deflater);
+        encoder.ints(spawnX, spawns).flush(out, SPAWN_X, deflater);
+        encoder.bytes(spawnBomb, spawns).flush(out, SPAWN_BOMB, deflater);
+        encoder.ints(hitRow, collisions).flush(out, HIT_ROW, deflater);
+        encoder.ints(hitX, collisions).flush(out, HIT_X, deflater);
+        encoder.ints(hitY, collisions).flush(out, HIT_Y, deflater);
+        encoder.bytes(hitBomb, collisions).flush(out, HIT_BOMB, deflater);
+    }
+
+    /**
+     * Reads a block written by {@link #write}.
+     *
+     * @param in       the block's bytes
+     * @param inflater the inflater, reset before each column
+     * @return the block
+     * @throws IOException if the block is malformed
+     */
+    static ColumnBlock read(ByteBuffer in, Inflater inflater) throws IOException {
+        long firstTick = in.getLong();
+        int rows = in.getInt();
+        int spawns = in.getInt();
+        int collisions = in.getInt();
+        int columns = in.get();
+        if (rows < 0 || spawns < 0 || collisions < 0 || rows > 1 << 24 || spawns > 1 << 24 || collisions > 1 << 24)
+            throw new IOException("Invalid block size");
+        ColumnBlock block = new ColumnBlock(rows, Math.max(spawns, collisions));
+        block.firstTick = firstTick;
+        block.rows = rows;
+        block.spawns = spawns;
+        block.collisions = collisions;
+        for (int c = 0; c < columns; c++) {
+            byte id = in.get();
+            int rawLength = in.getInt();
+            int length = in.getInt();
+            if (rawLength < 0 || length < 0 || length > in.remaining())
+                throw new IOException("Invalid column length");
+            byte[] raw = new byte[rawLength];
+            inflater.reset();
+            inflater.setInput(in.array(), in.arrayOffset() + in.position(), length);
+            try {
+                if (inflater.inflate(raw) != rawLength)
+                    throw new IOException("Truncated column " + id);
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt column " + id, e);
+            }
+            in.position(in.position() + length);
+            ByteBuffer column = ByteBuffer.wrap(raw);
+            switch (id) {
+                case TIME:
+                    decodeLongs(column, block.time, rows);
+                    break;
+                case X:
+                    decodeInts(column, block.x, rows);
+                    break;
+                case Y:
+                    decodeInts(column, block.y, rows);
+                    break;
+                case GAME_OVER:
+                    column.get(block.gameOver, 0, rows);
+                    break;
+                case SPAWN_ROW:
+                    decodeInts(column, block.spawnRow, spawns);
+                    break;
+                case SPAWN_X:
+                    decodeInts(column, block.spawnX, spawns);
+                    break;
+                case SPAWN_BOMB:
+                    column.get(block.spawnBomb, 0, spawns);
+                    break;
+                case HIT_ROW:
+                    decodeInts(column, block.hitRow, collisions);
+                    break;
+                case HIT_X:
+                    decodeInts(column, block.hitX, collisions);
+                    break;
+                case HIT_Y:
+                    decodeInts(column, block.hitY, collisions);
+                    break;
+                case HIT_BOMB:
+                    column.get(block.hitBomb, 0, collisions);
+                    break;
+                default: break; // columns of later versions are skipped
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Decodes the zigzag varint deltas of a column of ints.
+     */
+    private static void decodeInts(ByteBuffer in, int[] values, int count) throws IOException {
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += readVarLong(in);
+            values[i] = (int) previous;
+        }
+    }
+
+    /**
+     * Decodes the zigzag varint deltas of a column of longs.
+     */
+    private static void decodeLongs(ByteBuffer in, long[] values, int count) throws IOException {
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += readVarLong(in);
+            values[i] = previous;
+        }
+    }
+
+    /**
+     * Reads a zigzag varint.
+     */
+    private static long readVarLong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!in.hasRemaining())
+                throw new IOException("Truncated varint");
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return (value >>> 1) ^ -(value & 1);
+        }
+        throw new IOException("Invalid varint");
+    }
+
+    /**
+     * Encodes columns into a scratch buffer and deflates them, reusing its
+     * buffers from one column and block to the next.
+     */
+    static final class Encoder {
+
+        /** Encoded bytes of the current column. */
+        private byte[] raw = new byte[1 << 16];
+
+        /** Deflated bytes of the current column. */
+        private byte[] deflated = new byte[1 << 16];
+
+        /** Number of encoded bytes. */
+        private int length;
+
+        /**
+         * Encodes a column of ints as zigzag varint deltas.
+         */
+        Encoder ints(int[] values, int count) {
+            length = 0;
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                writeVarLong(values[i] - previous);
+                previous = values[i];
+            }
+            return this;
+        }
+
+        /**
+         * Encodes a column of longs as zigzag varint deltas.
+         */
+        Encoder longs(long[] values, int count) {
+            length = 0;
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                writeVarLong(values[i] - previous);
+                previous = values[i];
+            }
+            return this;
+        }
+
+        /**
+         * Copies a column of bytes.
+         */
+        Encoder bytes(byte[] values, int count) {
+            length = 0;
+            ensure(count);
+            System.arraycopy(values, 0, raw, 0, count);
+            length = count;
+            return this;
+        }
+
+        /**
+         * Deflates the encoded column and writes it with its id and lengths.
+         */
+        void flush(DataOutputStream out, byte id, Deflater deflater) throws IOException {
+            deflater.reset();
+            deflater.setInput(raw, 0, length);
+            deflater.finish();
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == deflated.length)
+                    deflated = Arrays.copyOf(deflated, deflated.length * 2);
+                size += deflater.deflate(deflated, size, deflated.length - size);
+            }
+            out.writeByte(id);
+            out.writeInt(length);
+            out.writeInt(size);
+            out.write(deflated, 0, size);
+        }
+
+        /**
+         * Appends a zigzag varint.
+         */
+        private void writeVarLong(long value) {
+            ensure(length + 10);
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                raw[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            raw[length++] = (byte) zigzag;
+        }
+
+        /**
+         * Grows the scratch buffer to hold a number of bytes.
+         */
+        private void ensure(int capacity) {
+            if (capacity > raw.length)
+                raw = Arrays.copyOf(raw, Math.max(capacity, raw.length * 2));
+        }
+    }
+}
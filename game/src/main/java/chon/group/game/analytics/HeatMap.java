@@ -0,0 +1,136 @@
+package chon.group.game.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Counts of positions in a grid of cells over the world.
+ * <p>
+ * Positions are taken as fractions of the world's size, so sessions played
+ * in worlds of different widths still share the grid and can be merged.
+ * </p>
+ */
+public class HeatMap {
+
+    /** Number of cells across. */
+    private final int columns;
+
+    /** Number of cells down. */
+    private final int rows;
+
+    /** Count of positions in each cell, row by row. */
+    private final long[] counts;
+
+    /**
+     * Constructor of an empty heat map.
+     *
+     * @param columns the number of cells across
+     * @param rows    the number of cells down
+     */
+    public HeatMap(int columns, int rows) {
+        if (columns < 1 || rows < 1)
+            throw new IllegalArgumentException("Invalid heat map size");
+        this.columns = columns;
+        this.rows = rows;
+        this.counts = new long[columns * rows];
+    }
+
+    /**
+     * Counts a position; positions outside the world count at its edge.
+     *
+     * @param x      the X in the world
+     * @param y      the Y in the world
+     * @param width  the width of the world
+     * @param height the height of the world
+     */
+    public void add(double x, double y, double width, double height) {
+        int column = Math.max(0, Math.min(columns - 1, (int) (x / width * columns)));
+        int row = Math.max(0, Math.min(rows - 1, (int) (y / height * rows)));
+        counts[row * columns + column]++;
+    }
+
+    /**
+     * Adds the counts of another heat map with the same grid.
+     *
+     * @param other the heat map to add
+     */
+    public void merge(HeatMap other) {
+        if (other.columns != columns || other.rows != rows)
+            throw new IllegalArgumentException("Heat maps have different grids");
+        for (int i = 0; i < counts.length; i++)
+            counts[i] += other.counts[i];
+    }
+
+    /**
+     * Gets the number of cells across.
+     *
+     * @return the columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the number of cells down.
+     *
+     * @return the rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the count of a cell.
+     *
+     * @param column the column of the cell
+     * @param row    the row of the cell
+     * @return the number of positions in it
+     */
+    public long getCount(int column, int row) {
+        return counts[row * columns + column];
+    }
+
+    /**
+     * Gets the number of positions counted.
+     *
+     * @return the total of every cell
+     */
+    public long getTotal() {
+        long total = 0;
+        for (long count : counts)
+            total += count;
+        return total;
+    }
+
+    /**
+     * Writes the grid and the counts.
+     *
+     * @param out the output
+     * @throws IOException if the output fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(columns);
+        out.writeInt(rows);
+        for (long count : counts)
+            out.writeLong(count);
+    }
+
+    /**
+     * Reads a heat map written by {@link #write(DataOutput)}.
+     *
+     * @param in the input
+     * @return the heat map
+     * @throws IOException if the input fails or is malformed
+     */
+    public static HeatMap read(DataInput in) throws IOException {
+        int columns = in.readInt();
+        int rows = in.readInt();
+        if (columns < 1 || rows < 1 || (long) columns * rows > 1 << 20)
+            throw new IOException("Invalid heat map");
+        HeatMap heatMap = new HeatMap(columns, rows);
+        for (int i = 0; i < heatMap.counts.length; i++)
+            heatMap.counts[i] = in.readLong();
+        return heatMap;
+    }
+}
@@ -0,0 +1,154 @@
+package chon.group.game.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Counts of values in equal bins over a fixed range.
+ * <p>
+ * Values below the range fall in the first bin and values above it in the
+ * last, so nothing is lost and the memory never grows. Histograms with the
+ * same range and bins can be merged, which is how sessions are combined.
+ * </p>
+ */
+public class Histogram {
+
+    /** Lowest value of the first bin. */
+    private final double min;
+
+    /** Highest value of the last bin. */
+    private final double max;
+
+    /** Count of values in each bin. */
+    private final long[] counts;
+
+    /**
+     * Constructor of an empty histogram.
+     *
+     * @param min  the lowest value of the first bin
+     * @param max  the highest value of the last bin
+     * @param bins the number of bins
+     */
+    public Histogram(double min, double max, int bins) {
+        if (bins < 1 || max <= min)
+            throw new IllegalArgumentException("Invalid histogram range or bins");
+        this.min = min;
+        this.max = max;
+        this.counts = new long[bins];
+    }
+
+    /**
+     * Counts a value.
+     *
+     * @param value the value
+     */
+    public void add(double value) {
+        counts[binOf(value)]++;
+    }
+
+    /**
+     * Gets the bin a value falls in.
+     *
+     * @param value the value
+     * @return the index of the bin
+     */
+    public int binOf(double value) {
+        int bin = (int) ((value - min) / (max - min) * counts.length);
+        return Math.max(0, Math.min(counts.length - 1, bin));
+    }
+
+    /**
+     * Adds the counts of another histogram with the same range and bins.
+     *
+     * @param other the histogram to add
+     */
+    public void merge(Histogram other) {
+        if (other.min != min || other.max != max || other.counts.length != counts.length)
+            throw new IllegalArgumentException("Histograms have different bins");
+        for (int i = 0; i < counts.length; i++)
+            counts[i] += other.counts[i];
+    }
+
+    /**
+     * Gets the number of bins.
+     *
+     * @return the bins
+     */
+    public int getBins() {
+        return counts.length;
+    }
+
+    /**
+     * Gets the count of a bin.
+     *
+     * @param bin the index of the bin
+     * @return the number of values in it
+     */
+    public long getCount(int bin) {
+        return counts[bin];
+    }
+
+    /**
+     * Gets the number of values counted.
+     *
+     * @return the total of every bin
+     */
+    public long getTotal() {
+        long total = 0;
+        for (long count : counts)
+            total += count;
+        return total;
+    }
+
+    /**
+     * Gets the value under which a fraction of the counted values fall, at
+     * the resolution of the bins.
+     *
+     * @param fraction the fraction, from 0 to 1
+     * @return the upper edge of the bin holding the fraction
+     */
+    public double getPercentile(double fraction) {
+        long total = getTotal();
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (total > 0 && seen >= fraction * total)
+                return min + (max - min) * (i + 1) / counts.length;
+        }
+        return max;
+    }
+
+    /**
+     * Writes the range and the counts.
+     *
+     * @param out the output
+     * @throws IOException if the output fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(counts.length);
+        for (long count : counts)
+            out.writeLong(count);
+    }
+
+    /**
+     * Reads a histogram written by {@link #write(DataOutput)}.
+     *
+     * @param in the input
+     * @return the histogram
+     * @throws IOException if the input fails or is malformed
+     */
+    public static Histogram read(DataInput in) throws IOException {
+        double min = in.readDouble();
+        double max = in.readDouble();
+        int bins = in.readInt();
+        if (bins < 1 || bins > 1 << 20 || !(max > min))
+            throw new IOException("Invalid histogram");
+        Histogram histogram = new Histogram(min, max, bins);
+        for (int i = 0; i < bins; i++)
+            histogram.counts[i] = in.readLong();
+        return histogram;
+    }
+}
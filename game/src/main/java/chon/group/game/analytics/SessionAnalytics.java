@@ -0,0 +1,331 @@
+package chon.group.game.analytics;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.Deflater;
+
+import chon.group.game.domain.agent.Agent;
+import chon.group.game.domain.environment.Environment;
+import chon.group.game.domain.environment.EnvironmentListener;
+import chon.group.game.domain.item.FallingItem;
+
+/**
+ * Records the analytics of a game session into a file.
+ * <p>
+ * Start the game with {@code -Dchon.analytics=directory} and every session
+ * writes a file there. Each tick stores the protagonist's position, and each
+ * spawn, collision and game over is stored as it happens, into the columns
+ * of a {@link ColumnBlock}. Full blocks are handed to a background thread,
+ * which deflates them and writes them to the file, and the game carries on
+ * in a block from a small pool, so recording allocates nothing per tick and
+ * never waits for the disk. Histograms and heat maps of the whole session
+ * are kept as fixed-size arrays and written once the session is closed.
+ * </p>
+ * <p>
+ * Layout: a 16-byte header (magic, version, world width, world height)
+ * followed by blocks, each a type (byte), the length of its payload (int)
+ * and the payload: a {@link ColumnBlock} or the deflated
+ * {@link SessionSummary}. A session that did not close has no summary, and
+ * {@link AnalyticsReader} rebuilds it from the columns.
+ * </p>
+ */
+public class SessionAnalytics implements EnvironmentListener, AutoCloseable {
+
+    /** Identifies analytics files ("CHAN"). */
+    static final int MAGIC = 0x4348414E;
+
+    /** Version of the file layout. */
+    static final int VERSION = 1;
+
+    /** Type of a block of columns. */
+    static final byte BLOCK_COLUMNS = 1;
+
+    /** Type of the session summary. */
+    static final byte BLOCK_SUMMARY = 2;
+
+    /** Ticks in a block, about a minute of play. */
+    private static final int BLOCK_TICKS = 4096;
+
+    /** Spawns and collisions a block holds before it is written early. */
+    private static final int BLOCK_EVENTS = 1024;
+
+    /** Blocks in the pool, one being filled and the others being written. */
+    private static final int POOL_SIZE = 3;
+
+    /** Marks the end of the blocks for the writer thread. */
+    private static final ColumnBlock END = new ColumnBlock(0, 0);
+
+    /** The environment being recorded. */
+    private final Environment environment;
+
+    /** The output file. */
+    private final DataOutputStream out;
+
+    /** Blocks ready to be filled. */
+    private final BlockingQueue<ColumnBlock> free = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    /** Blocks waiting to be written, in order. */
+    private final BlockingQueue<ColumnBlock> full = new LinkedBlockingQueue<>();
+
+    /** Writes the full blocks. */
+    private final Thread writer;
+
+    /** Totals, histograms and heat maps of the session. */
+    private final SessionSummary summary = new SessionSummary();
+
+    /** The block being filled. */
+    private ColumnBlock block;
+
+    /** Number of ticks recorded. */
+    private long ticks;
+
+    /** Whether the next tick starts a new game. */
+    private boolean newGame = true;
+
+    /** Simulation time the current game started at, in milliseconds. */
+    private long gameStart;
+
+    /** Whether the game ended during the tick being played. */
+    private boolean gameOver;
+
+    /** Blocks created because the writer fell behind and the pool was empty. */
+    private int extraBlocks;
+
+    /** The first error of the writer thread, or null. */
+    private volatile IOException failure;
+
+    /**
+     * Constructor to record an environment into a file. The recorder
+     * registers itself as a listener of the environment.
+     *
+     * @param environment the environment to record
+     * @param file        the file to write
+     * @throws IOException if the file cannot be created
+     */
+    public SessionAnalytics(Environment environment, Path file) throws IOException {
+        this.environment = environment;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(environment.getWidth());
+        out.writeInt(environment.getHeight());
+        for (int i = 0; i < POOL_SIZE - 1; i++)
+            free.add(new ColumnBlock(BLOCK_TICKS, BLOCK_EVENTS));
+        this.block = new ColumnBlock(BLOCK_TICKS, BLOCK_EVENTS);
+        this.summary.addSession();
+        this.writer = new Thread(this::drain, "analytics-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        environment.addListener(this);
+    }
+
+    /**
+     * Starts recording if {@code -Dchon.analytics} names a directory.
+     *
+     * @param environment the environment to record
+     * @return the recorder, or null when no recording was requested or the
+     *         file could not be created
+     */
+    public static SessionAnalytics startIfRequested(Environment environment) {
+        String directory = System.getProperty("chon.analytics");
+        if (directory == null || directory.isEmpty())
+            return null;
+        try {
+            Path path = Files.createDirectories(Paths.get(directory));
+            return new SessionAnalytics(environment,
+                    path.resolve("session-" + System.currentTimeMillis() + ".chan"));
+        } catch (IOException | SecurityException e) {
+            System.out.println("Erro ao iniciar análise da sessão: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Records the tick just played. Called once per tick, after the
+     * simulation advances.
+     */
+    public void tick() {
+        Agent protagonist = environment.getProtagonist();
+        long time = environment.getTime();
+        if (newGame) {
+            gameStart = time;
+            newGame = false;
+        }
+        int row = block.rows++;
+        block.time[row] = time;
+        block.x[row] = protagonist.getPosX();
+        block.y[row] = protagonist.getPosY();
+        block.gameOver[row] = (byte) (gameOver ? 1 : 0);
+        summary.addTick(protagonist.getPosX(), protagonist.getPosY(),
+                environment.getWidth(), environment.getHeight());
+        if (gameOver) {
+            summary.addGame(time - gameStart);
+            gameOver = false;
+            newGame = true;
+        }
+        ticks++;
+        if (block.isFull())
+            handOff();
+    }
+
+    @Override
+    public void onItemSpawned(FallingItem item) {
+        int i = block.spawns++;
+        block.spawnRow[i] = block.rows;
+        block.spawnX[i] = (int) item.getPosX();
+        block.spawnBomb[i] = (byte) (item.isBomb() ? 1 : 0);
+        summary.addSpawn((int) item.getPosX(), item.isBomb(), environment.getWidth());
+        if (block.isEventsFull())
+            handOff();
+    }
+
+    @Override
+    public void onItemCollision(FallingItem item) {
+        int i = block.collisions++;
+        block.hitRow[i] = block.rows;
+        block.hitX[i] = (int) item.getPosX();
+        block.hitY[i] = (int) item.getPosY();
+        block.hitBomb[i] = (byte) (item.isBomb() ? 1 : 0);
+        summary.addCollision((int) item.getPosX(), (int) item.getPosY(), item.isBomb(),
+                environment.getWidth(), environment.getHeight());
+        if (block.isEventsFull())
+            handOff();
+    }
+
+    @Override
+    public void onGameOver(int score) {
+        gameOver = true;
+    }
+
+    /**
+     * Hands the block being filled to the writer and carries on in a free
+     * one, creating a block if the writer fell behind.
+     */
+    private void handOff() {
+        full.add(block);
+        ColumnBlock next = free.poll();
+        if (next == null) {
+            next = new ColumnBlock(BLOCK_TICKS, BLOCK_EVENTS);
+            extraBlocks++;
+        }
+        next.reset(ticks);
+        block = next;
+    }
+
+    /**
+     * Writes the full blocks until the end marker, returning each to the
+     * pool. After an error the blocks are still returned but not written.
+     */
+    private void drain() {
+        Deflater deflater = new Deflater();
+        ColumnBlock.Encoder encoder = new ColumnBlock.Encoder();
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream payloadOut = new DataOutputStream(payload);
+        try {
+            while (true) {
+                ColumnBlock next = full.take();
+                if (next == END)
+                    break;
+                if (failure == null) {
+                    try {
+                        payload.reset();
+                        next.write(payloadOut, deflater, encoder);
+                        writeBlock(BLOCK_COLUMNS, payload);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                free.offer(next);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Writes a block with its type and length.
+     */
+    private void writeBlock(byte type, ByteArrayOutputStream payload) throws IOException {
+        out.writeByte(type);
+        out.writeInt(payload.size());
+        payload.writeTo(out);
+    }
+
+    /**
+     * Gets the totals, histograms and heat maps recorded so far. They are
+     * updated by the game thread.
+     *
+     * @return the summary of the session
+     */
+    public SessionSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * Gets the number of ticks recorded.
+     *
+     * @return the ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the number of blocks created because the writer fell behind.
+     *
+     * @return the extra blocks
+     */
+    public int getExtraBlocks() {
+        return extraBlocks;
+    }
+
+    /**
+     * Writes the last block and the summary and closes the file.
+     *
+     * @throws IOException if the file could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        environment.removeListener(this);
+        if (block.rows > 0 || block.spawns > 0 || block.collisions > 0)
+            full.add(block);
+        full.add(END);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (failure != null)
+                throw failure;
+            ByteArrayOutputStream raw = new ByteArrayOutputStream();
+            summary.write(new DataOutputStream(raw));
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            DataOutputStream payloadOut = new DataOutputStream(payload);
+            payloadOut.writeInt(raw.size());
+            Deflater deflater = new Deflater();
+            try {
+                deflater.setInput(raw.toByteArray());
+                deflater.finish();
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished())
+                    payloadOut.write(buffer, 0, deflater.deflate(buffer));
+            } finally {
+                deflater.end();
+            }
+            writeBlock(BLOCK_SUMMARY, payload);
+        } finally {
+            out.close();
+        }
+    }
+}
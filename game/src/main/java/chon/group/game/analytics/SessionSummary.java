@@ -0,0 +1,330 @@
+package chon.group.game.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The totals, histograms and heat maps of one or more sessions.
+ * <p>
+ * Every histogram and heat map has a fixed size, so a summary takes the same
+ * memory however long the sessions were, and summaries of any number of
+ * sessions can be merged into one.
+ * </p>
+ */
+public class SessionSummary {
+
+    /** Bins of the protagonist's position across the world. */
+    private static final int POSITION_BINS = 64;
+
+    /** Bins of the time alive, five seconds each. */
+    private static final int ALIVE_BINS = 60;
+
+    /** Longest time alive told apart, in seconds. */
+    private static final double MAX_ALIVE_SECONDS = 300;
+
+    /** Bins of the crystals collected in a game, one per crystal. */
+    private static final int COLLECTED_BINS = 100;
+
+    /** Cells across the heat maps. */
+    private static final int HEAT_COLUMNS = 64;
+
+    /** Cells down the heat maps. */
+    private static final int HEAT_ROWS = 32;
+
+    /** Number of sessions summarised. */
+    private long sessions;
+
+    /** Number of ticks played. */
+    private long ticks;
+
+    /** Number of games finished. */
+    private long games;
+
+    /** Number of crystals spawned. */
+    private long crystalsSpawned;
+
+    /** Number of bombs spawned. */
+    private long bombsSpawned;
+
+    /** Number of crystals collected. */
+    private long crystalsCollected;
+
+    /** Number of bombs that hit the protagonist. */
+    private long bombHits;
+
+    /** Crystals collected in the game being played. */
+    private int gameCollected;
+
+    /** Protagonist's position across the world, as a fraction of its width, per tick. */
+    private final Histogram positions = new Histogram(0, 1, POSITION_BINS);
+
+    /** Spawn positions across the world, as a fraction of its width. */
+    private final Histogram spawns = new Histogram(0, 1, POSITION_BINS);
+
+    /** Time alive in each finished game, in seconds. */
+    private final Histogram alive = new Histogram(0, MAX_ALIVE_SECONDS, ALIVE_BINS);
+
+    /** Crystals collected in each finished game. */
+    private final Histogram collected = new Histogram(0, COLLECTED_BINS, COLLECTED_BINS);
+
+    /** Protagonist's positions, per tick. */
+    private final HeatMap presence = new HeatMap(HEAT_COLUMNS, HEAT_ROWS);
+
+    /** Where bombs hit the protagonist. */
+    private final HeatMap hits = new HeatMap(HEAT_COLUMNS, HEAT_ROWS);
+
+    /**
+     * Counts a new session.
+     */
+    public void addSession() {
+        sessions++;
+    }
+
+    /**
+     * Counts a tick with the protagonist at a position.
+     *
+     * @param x      the protagonist's X
+     * @param y      the protagonist's Y
+     * @param width  the width of the world
+     * @param height the height of the world
+     */
+    public void addTick(int x, int y, int width, int height) {
+        ticks++;
+        positions.add((double) x / width);
+        presence.add(x, y, width, height);
+    }
+
+    /**
+     * Counts an item starting to fall.
+     *
+     * @param x     the item's X
+     * @param bomb  whether the item is a bomb
+     * @param width the width of the world
+     */
+    public void addSpawn(int x, boolean bomb, int width) {
+        if (bomb)
+            bombsSpawned++;
+        else
+            crystalsSpawned++;
+        spawns.add((double) x / width);
+    }
+
+    /**
+     * Counts an item colliding with the protagonist.
+     *
+     * @param x      the item's X
+     * @param y      the item's Y
+     * @param bomb   whether the item is a bomb
+     * @param width  the width of the world
+     * @param height the height of the world
+     */
+    public void addCollision(int x, int y, boolean bomb, int width, int height) {
+        if (bomb) {
+            bombHits++;
+            hits.add(x, y, width, height);
+        } else {
+            crystalsCollected++;
+            gameCollected++;
+        }
+    }
+
+    /**
+     * Counts a finished game.
+     *
+     * @param aliveMillis how long the protagonist stayed alive, in milliseconds
+     */
+    public void addGame(long aliveMillis) {
+        games++;
+        alive.add(aliveMillis / 1000.0);
+        collected.add(gameCollected);
+        gameCollected = 0;
+    }
+
+    /**
+     * Adds the counts of another summary.
+     *
+     * @param other the summary to add
+     * @return this summary
+     */
+    public SessionSummary merge(SessionSummary other) {
+        sessions += other.sessions;
+        ticks += other.ticks;
+        games += other.games;
+        crystalsSpawned += other.crystalsSpawned;
+        bombsSpawned += other.bombsSpawned;
+        crystalsCollected += other.crystalsCollected;
+        bombHits += other.bombHits;
+        positions.merge(other.positions);
+        spawns.merge(other.spawns);
+        alive.merge(other.alive);
+        collected.merge(other.collected);
+        presence.merge(other.presence);
+        hits.merge(other.hits);
+        return this;
+    }
+
+    /**
+     * Writes the summary.
+     *
+     * @param out the output
+     * @throws IOException if the output fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(sessions);
+        out.writeLong(ticks);
+        out.writeLong(games);
+        out.writeLong(crystalsSpawned);
+        out.writeLong(bombsSpawned);
+        out.writeLong(crystalsCollected);
+        out.writeLong(bombHits);
+        positions.write(out);
+        spawns.write(out);
+        alive.write(out);
+        collected.write(out);
+        presence.write(out);
+        hits.write(out);
+    }
+
+    /**
+     * Reads a summary written by {@link #write(DataOutput)}.
+     *
+     * @param in the input
+     * @return the summary
+     * @throws IOException if the input fails or is malformed
+     */
+    public static SessionSummary read(DataInput in) throws IOException {
+        SessionSummary summary = new SessionSummary();
+        summary.sessions = in.readLong();
+        summary.ticks = in.readLong();
+        summary.games = in.readLong();
+        summary.crystalsSpawned = in.readLong();
+        summary.bombsSpawned = in.readLong();
+        summary.crystalsCollected = in.readLong();
+        summary.bombHits = in.readLong();
+        summary.positions.merge(Histogram.read(in));
+        summary.spawns.merge(Histogram.read(in));
+        summary.alive.merge(Histogram.read(in));
+        summary.collected.merge(Histogram.read(in));
+        summary.presence.merge(HeatMap.read(in));
+        summary.hits.merge(HeatMap.read(in));
+        return summary;
+    }
+
+    /**
+     * Gets the number of sessions summarised.
+     *
+     * @return the sessions
+     */
+    public long getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Gets the number of ticks played.
+     *
+     * @return the ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the number of games finished.
+     *
+     * @return the games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the number of crystals spawned.
+     *
+     * @return the crystals spawned
+     */
+    public long getCrystalsSpawned() {
+        return crystalsSpawned;
+    }
+
+    /**
+     * Gets the number of bombs spawned.
+     *
+     * @return the bombs spawned
+     */
+    public long getBombsSpawned() {
+        return bombsSpawned;
+    }
+
+    /**
+     * Gets the number of crystals collected.
+     *
+     * @return the crystals collected
+     */
+    public long getCrystalsCollected() {
+        return crystalsCollected;
+    }
+
+    /**
+     * Gets the number of bombs that hit the protagonist.
+     *
+     * @return the bomb hits
+     */
+    public long getBombHits() {
+        return bombHits;
+    }
+
+    /**
+     * Gets the protagonist's position across the world, per tick.
+     *
+     * @return the histogram over fractions of the world's width
+     */
+    public Histogram getPositions() {
+        return positions;
+    }
+
+    /**
+     * Gets the spawn positions across the world.
+     *
+     * @return the histogram over fractions of the world's width
+     */
+    public Histogram getSpawns() {
+        return spawns;
+    }
+
+    /**
+     * Gets the time alive in each finished game.
+     *
+     * @return the histogram in seconds
+     */
+    public Histogram getAlive() {
+        return alive;
+    }
+
+    /**
+     * Gets the crystals collected in each finished game.
+     *
+     * @return the histogram of crystals
+     */
+    public Histogram getCollected() {
+        return collected;
+    }
+
+    /**
+     * Gets the protagonist's positions, per tick.
+     *
+     * @return the heat map
+     */
+    public HeatMap getPresence() {
+        return presence;
+    }
+
+    /**
+     * Gets where bombs hit the protagonist.
+     *
+     * @return the heat map
+     */
+    public HeatMap getHits() {
+        return hits;
+    }
+}
@@ -0,0 +1,28 @@
+package chon.group.game.asset;
+
+/**
+ * A cache of pixels built from the images of a {@link TextureManager}, such
+ * as copies resampled to the size they are drawn at.
+ * <p>
+ * The manager counts the bytes of the caches it tracks with the bytes of its
+ * images, so the memory it reports is the memory the pixels take, and it
+ * clears the caches when evicting every image it may evict does not bring it
+ * within budget. A cache tells the manager when it grows, through
+ * {@link TextureManager#cacheChanged()}, and builds its pixels again on
+ * demand after it is cleared.
+ * </p>
+ */
+public interface PixelCache {
+
+    /**
+     * Gets the memory taken by the pixels held.
+     *
+     * @return the size in bytes
+     */
+    long getBytes();
+
+    /**
+     * Drops every pixel held, to be built again when needed.
+     */
+    void clear();
+}
@@ -0,0 +1,239 @@
+package chon.group.game.asset;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import javax.imageio.ImageIO;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * An image decoded into premultiplied ARGB integers, ready to be blitted into
+ * the software renderer's framebuffer.
+ * <p>
+ * Raster images are decoded with ImageIO and never touch the JavaFX toolkit,
+ * so headless runs can load and draw them. The last resampled copy is kept so
+ * sprites that are always drawn at the same size are only resampled once.
+ * </p>
+ */
+public class RasterImage {
+
+    /** Width of the image in pixels. */
+    private final int width;
+
+    /** Height of the image in pixels. */
+    private final int height;
+
+    /** Premultiplied ARGB pixels, row by row. */
+    private final int[] pixels;
+
+    /** Whether every pixel is fully opaque. */
+    private final boolean opaque;
+
+    /** The last resampled copy of this image. */
+    private RasterImage scaled;
+
+    /**
+     * Constructor to wrap premultiplied ARGB pixels.
+     *
+     * @param width  the image width
+     * @param height the image height
+     * @param pixels the premultiplied ARGB pixels
+     */
+    public RasterImage(int width, int height, int[] pixels) {
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        boolean allOpaque = true;
+        for (int argb : pixels) {
+            if ((argb >>> 24) != 0xFF) {
+                allOpaque = false;
+                break;
+            }
+        }
+        this.opaque = allOpaque;
+    }
+
+    /**
+     * Decodes an image resource with ImageIO.
+     *
+     * @param path the classpath path of the image
+     * @return the decoded raster image
+     * @throws IllegalArgumentException if there is no image at the path
+     * @throws UncheckedIOException     if the image cannot be read
+     */
+    public static RasterImage read(String path) {
+        BufferedImage source;
+        try (InputStream in = RasterImage.class.getResourceAsStream(path)) {
+            if (in == null)
+                throw new IllegalArgumentException("No such image: " + path);
+            source = ImageIO.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + path, e);
+        }
+        if (source == null)
+            throw new IllegalArgumentException("Not an image: " + path);
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BufferedImage decoded = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = decoded.createGraphics();
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        return new RasterImage(width, height, ((DataBufferInt) decoded.getRaster().getDataBuffer()).getData());
+    }
+
+    /**
+     * Creates a single transparent pixel, standing in for an image that
+     * could not be decoded.
+     *
+     * @return the transparent image
+     */
+    public static RasterImage blank() {
+        return new RasterImage(1, 1, new int[1]);
+    }
+
+    /**
+     * Decodes a JavaFX image into a raster image.
+     *
+     * @param image the image to decode
+     * @return the decoded raster image
+     */
+    public static RasterImage fromImage(Image image) {
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        int[] pixels = new int[width * height];
+        image.getPixelReader().getPixels(0, 0, width, height,
+                PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+        return new RasterImage(width, height, pixels);
+    }
+
+    /**
+     * Gets the width of the image.
+     *
+     * @return the width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the image.
+     *
+     * @return the height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the premultiplied ARGB pixels.
+     *
+     * @return the pixel array
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Checks if the image has no transparent pixels.
+     *
+     * @return true if every pixel is opaque
+     */
+    public boolean isOpaque() {
+        return opaque;
+    }
+
+    /**
+     * Gets the memory taken by the pixels of this image and of its last
+     * resampled copy.
+     *
+     * @return the size in bytes
+     */
+    public long getBytes() {
+        RasterImage cached = this.scaled;
+        return (long) pixels.length * 4 + (cached != null ? (long) cached.pixels.length * 4 : 0);
+    }
+
+    /**
+     * Copies this image into a JavaFX image, for the JavaFX renderer.
+     *
+     * @return the new image
+     */
+    public Image toImage() {
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(),
+                pixels, 0, width);
+        return image;
+    }
+
+    /**
+     * Gets a copy of this image mirrored horizontally.
+     *
+     * @return the new image
+     */
+    public RasterImage mirrored() {
+        int[] out = new int[pixels.length];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++)
+                out[row + width - 1 - x] = pixels[row + x];
+        }
+        return new RasterImage(width, height, out);
+    }
+
+    /**
+     * Gets a copy of a rectangle of this image.
+     *
+     * @param x          the left of the rectangle
+     * @param y          the top of the rectangle
+     * @param cropWidth  the width of the rectangle
+     * @param cropHeight the height of the rectangle
+     * @return the new image
+     */
+    public RasterImage region(int x, int y, int cropWidth, int cropHeight) {
+        int[] out = new int[cropWidth * cropHeight];
+        for (int row = 0; row < cropHeight; row++)
+            System.arraycopy(pixels, (y + row) * width + x, out, row * cropWidth, cropWidth);
+        return new RasterImage(cropWidth, cropHeight, out);
+    }
+
+    /**
+     * Gets a copy of this image resampled to the given size with nearest
+     * neighbour filtering. Returns this image when no resampling is needed.
+     *
+     * @param targetWidth  the target width
+     * @param targetHeight the target height
+     * @return the resampled image
+     */
+    public RasterImage scaled(int targetWidth, int targetHeight) {
+        if (targetWidth == width && targetHeight == height)
+            return this;
+        RasterImage cached = this.scaled;
+        if (cached != null && cached.width == targetWidth && cached.height == targetHeight)
+            return cached;
+        int[] out = new int[targetWidth * targetHeight];
+        /* 16.16 fixed point steps through the source image. */
+        int stepX = (width << 16) / targetWidth;
+        int stepY = (height << 16) / targetHeight;
+        int sy = 0;
+        for (int y = 0; y < targetHeight; y++) {
+            int srcRow = (sy >> 16) * width;
+            int sx = 0;
+            int dst = y * targetWidth;
+            for (int x = 0; x < targetWidth; x++) {
+                out[dst + x] = pixels[srcRow + (sx >> 16)];
+                sx += stepX;
+            }
+            sy += stepY;
+        }
+        cached = new RasterImage(targetWidth, targetHeight, out);
+        this.scaled = cached;
+        return cached;
+    }
+}
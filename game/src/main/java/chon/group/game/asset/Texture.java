@@ -0,0 +1,170 @@
+package chon.group.game.asset;
+
+import java.lang.ref.SoftReference;
+import java.util.function.Supplier;
+
+import javafx.scene.image.Image;
+
+/**
+ * A handle to a decoded image owned by a {@link TextureManager}.
+ * <p>
+ * Holders keep the handle instead of the image and call {@link #get()} each
+ * time they draw, so the manager can drop the image when it is over budget
+ * and load it again the next time it is needed. An evicted image stays
+ * reachable through a soft reference until the garbage collector needs the
+ * memory, so getting it back is often free.
+ * </p>
+ * <p>
+ * The image has two forms: a JavaFX {@link Image} for the JavaFX renderer
+ * and a {@link RasterImage} for the software renderer, got with
+ * {@link #getRaster()}. Each form is built on first use, from its own loader
+ * or else from the other form, so a run only decodes the form it draws with.
+ * </p>
+ */
+public final class Texture {
+
+    /** The manager owning the image, or null when the image is fixed. */
+    private final TextureManager manager;
+
+    /** Classpath path of the image, or the key of a derived image. */
+    private final String key;
+
+    /** Loads or builds the JavaFX image again, or null to copy the raster. */
+    final Supplier<Image> loader;
+
+    /** Loads or builds the raster again, or null to decode the JavaFX image. */
+    final Supplier<RasterImage> rasterLoader;
+
+    /** Whether the image is never evicted. */
+    final boolean pinned;
+
+    /** The JavaFX image while it is resident, or null. */
+    Image image;
+
+    /** The raster while it is resident, or null. */
+    RasterImage raster;
+
+    /** The JavaFX image after it was evicted, until the garbage collector clears it. */
+    SoftReference<Image> evicted;
+
+    /** The raster after it was evicted, until the garbage collector clears it. */
+    SoftReference<RasterImage> evictedRaster;
+
+    /** Memory taken by the resident forms of the image. */
+    long bytes;
+
+    /** Whether the image was loaded at least once. */
+    boolean loaded;
+
+    /**
+     * Constructor of a handle owned by a manager.
+     *
+     * @param manager the manager owning the image
+     * @param key     the path of the image, or the key of a derived image
+     * @param loader       loads or builds the JavaFX image, or null to copy
+     *                     the raster
+     * @param rasterLoader loads or builds the raster, or null to decode the
+     *                     JavaFX image
+     * @param pinned       whether the image is never evicted
+     */
+    Texture(TextureManager manager, String key, Supplier<Image> loader, Supplier<RasterImage> rasterLoader,
+            boolean pinned) {
+        this.manager = manager;
+        this.key = key;
+        this.loader = loader;
+        this.rasterLoader = rasterLoader;
+        this.pinned = pinned;
+    }
+
+    /**
+     * Creates a handle to an image that no manager owns. The image is never
+     * evicted nor counted.
+     *
+     * @param image the image
+     * @return the handle
+     */
+    public static Texture of(Image image) {
+        Texture texture = new Texture(null, null, () -> image, null, true);
+        texture.image = image;
+        texture.loaded = true;
+        return texture;
+    }
+
+    /**
+     * Creates a handle to a raster that no manager owns. The raster is never
+     * evicted nor counted.
+     *
+     * @param raster the raster
+     * @return the handle
+     */
+    public static Texture of(RasterImage raster) {
+        Texture texture = new Texture(null, null, null, () -> raster, true);
+        texture.raster = raster;
+        texture.loaded = true;
+        return texture;
+    }
+
+    /**
+     * Gets the JavaFX image, loading it again if it was evicted. The image
+     * should not be kept beyond the current frame.
+     *
+     * @return the image
+     */
+    public Image get() {
+        if (manager != null)
+            return manager.acquire(this);
+        if (image == null)
+            image = raster.toImage();
+        return image;
+    }
+
+    /**
+     * Gets the raster of the image, loading it again if it was evicted. The
+     * raster should not be kept beyond the current frame.
+     *
+     * @return the raster
+     */
+    public RasterImage getRaster() {
+        if (manager != null)
+            return manager.acquireRaster(this);
+        if (raster == null)
+            raster = RasterImage.fromImage(image);
+        return raster;
+    }
+
+    /**
+     * Drops the image until it is needed again, e.g. when a screen that uses
+     * it is closed.
+     */
+    public void release() {
+        if (manager != null)
+            manager.release(this);
+    }
+
+    /**
+     * Gets the path of the image, or the key of a derived image.
+     *
+     * @return the key, or null when no manager owns the image
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Checks if the image is resident.
+     *
+     * @return true if either form of the image is held by its manager
+     */
+    public boolean isResident() {
+        return image != null || raster != null;
+    }
+
+    /**
+     * Gets the memory taken by the resident forms of the image.
+     *
+     * @return the size in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+}
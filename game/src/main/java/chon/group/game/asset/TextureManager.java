@@ -0,0 +1,574 @@
+package chon.group.game.asset;
+
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import chon.group.game.jfr.AssetLoadEvent;
+import javafx.scene.image.Image;
+
+/**
+ * Owns the decoded images of the game and keeps them within a memory budget.
+ * <p>
+ * Each image is reached through a {@link Texture} handle, one per path. The
+ * manager counts the decoded bytes of every resident image and, when a load
+ * goes over the budget, evicts the least recently used images until it fits
+ * again. Evicted images are kept behind soft references and are loaded again
+ * from the classpath, or rebuilt from their source, only once the garbage
+ * collector has claimed them. Pinned images, such as sprite atlases, are
+ * counted but never evicted.
+ * </p>
+ * <p>
+ * The renderers keep copies of the images resampled to the size they are
+ * drawn at, in {@link PixelCache}s the manager tracks. Their bytes are
+ * counted with the images', as is the resampled copy a raster keeps, so the
+ * memory reported is all the memory the pixels take. When evicting every
+ * image that may be evicted is not enough to meet the budget, the caches are
+ * cleared and build their copies again as they are drawn.
+ * </p>
+ * <p>
+ * The budget of the shared manager is read from the system property
+ * {@code chon.texture.budgetMb}. Getting a resident image does not allocate.
+ * </p>
+ * <p>
+ * Headless runs ({@code java.awt.headless}) and the software renderer
+ * ({@code chon.renderer=software}) decode images with ImageIO into
+ * {@link RasterImage}s and never build a JavaFX {@link Image}, so they do not
+ * need the JavaFX toolkit.
+ * </p>
+ */
+public class TextureManager {
+
+    /** Default budget, in megabytes. */
+    private static final int DEFAULT_BUDGET_MB = 256;
+
+    /** The manager shared by the game. */
+    private static final TextureManager DEFAULT = createDefault();
+
+    /** Every handle, by key. */
+    private final Map<String, Texture> textures = new HashMap<>();
+
+    /** The resident handles, least recently used first. */
+    private final LinkedHashMap<String, Texture> resident = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Memory the resident images may take, in bytes. */
+    private long budget;
+
+    /** The caches of pixels built from the images, counted with them. */
+    private final List<PixelCache> caches = new ArrayList<>();
+
+    /** Memory taken by the resident images and the caches, in bytes. */
+    private long residentBytes;
+
+    /** Memory taken by the caches when they were last counted, in bytes. */
+    private long cacheBytes;
+
+    /** Highest memory taken by the resident images and the caches, in bytes. */
+    private long peakBytes;
+
+    /** Whether images are decoded with ImageIO instead of the JavaFX toolkit. */
+    private boolean imageIo;
+
+    /** Images loaded for the first time. */
+    private long loads;
+
+    /** Evicted images loaded again. */
+    private long reloads;
+
+    /** Evicted images recovered from their soft reference. */
+    private long recovered;
+
+    /** Images evicted to stay within the budget. */
+    private long evictions;
+
+    /** Images released by their holders. */
+    private long releases;
+
+    /** Times the caches were cleared to stay within the budget. */
+    private long cacheClears;
+
+    /**
+     * Constructor of a manager with a budget.
+     *
+     * @param budget the memory the resident images may take, in bytes
+     */
+    public TextureManager(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Creates the manager shared by the game from the system properties.
+     *
+     * @return the shared manager
+     */
+    private static TextureManager createDefault() {
+        TextureManager manager = new TextureManager(
+                (long) Integer.getInteger("chon.texture.budgetMb", DEFAULT_BUDGET_MB) << 20);
+        manager.setImageIo(Boolean.getBoolean("java.awt.headless")
+                || "software".equals(System.getProperty("chon.renderer")));
+        return manager;
+    }
+
+    /**
+     * Gets the manager shared by the game.
+     *
+     * @return the shared manager
+     */
+    public static TextureManager getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Gets the handle of an image on the classpath. The image is loaded on
+     * the first {@link Texture#get()}. Getting a known handle does not
+     * allocate.
+     *
+     * @param path the classpath path of the image
+     * @return the handle, the same for every call with the path
+     */
+    public synchronized Texture texture(String path) {
+        Texture texture = textures.get(path);
+        if (texture == null) {
+            texture = imageIo
+                    ? new Texture(this, path, null, () -> loadRaster(path), false)
+                    : new Texture(this, path, () -> AssetLoadEvent.loadImage(path), null, false);
+            textures.put(path, texture);
+        }
+        return texture;
+    }
+
+    /**
+     * Decodes an image resource with ImageIO, recording the load when the
+     * event is enabled. An image that cannot be read is replaced by a
+     * transparent pixel, as JavaFX does with an error image, so a missing
+     * asset does not stop a headless run.
+     *
+     * @param path the classpath path of the image
+     * @return the decoded raster
+     */
+    private RasterImage loadRaster(String path) {
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        RasterImage raster = null;
+        try {
+            raster = RasterImage.read(path);
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            System.out.println("Erro ao carregar imagem " + path + ": " + e.getMessage());
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.failed = raster == null;
+            event.bytes = raster == null ? 0 : raster.getBytes();
+            event.commit();
+        }
+        return raster != null ? raster : RasterImage.blank();
+    }
+
+    /**
+     * Checks whether images are decoded with ImageIO instead of the JavaFX
+     * toolkit.
+     *
+     * @return whether images are decoded with ImageIO
+     */
+    public synchronized boolean isImageIo() {
+        return imageIo;
+    }
+
+    /**
+     * Sets whether images are decoded with ImageIO instead of the JavaFX
+     * toolkit. Handles already created keep their decoder.
+     *
+     * @param imageIo whether images are decoded with ImageIO
+     */
+    public synchronized void setImageIo(boolean imageIo) {
+        this.imageIo = imageIo;
+    }
+
+    /**
+     * Gets the handle of an image built from another one, such as a mirrored
+     * copy. When it is evicted the image is built again from its source.
+     *
+     * @param key       the key of the derived image
+     * @param source    the handle of the source image
+     * @param transform builds the image from the source image
+     * @return the handle, the same for every call with the key
+     */
+    public synchronized Texture derived(String key, Texture source, UnaryOperator<Image> transform) {
+        return derived(key, source, transform, null);
+    }
+
+    /**
+     * Gets the handle of an image built from another one, with a transform
+     * for each form of the image, so the raster of a derived image is built
+     * from the raster of its source.
+     *
+     * @param key             the key of the derived image
+     * @param source          the handle of the source image
+     * @param transform       builds the JavaFX image from the source's
+     * @param rasterTransform builds the raster from the source's, or null to
+     *                        decode the derived JavaFX image
+     * @return the handle, the same for every call with the key
+     */
+    public synchronized Texture derived(String key, Texture source, UnaryOperator<Image> transform,
+            UnaryOperator<RasterImage> rasterTransform) {
+        Texture texture = textures.get(key);
+        if (texture == null) {
+            texture = new Texture(this, key, () -> transform.apply(source.get()),
+                    rasterTransform == null ? null : () -> rasterTransform.apply(source.getRaster()), false);
+            textures.put(key, texture);
+        }
+        return texture;
+    }
+
+    /**
+     * Counts an image that is built once and cannot be evicted, such as a
+     * sprite atlas.
+     *
+     * @param key   the key of the image
+     * @param image the image
+     * @return the handle
+     */
+    public synchronized Texture pin(String key, Image image) {
+        Texture texture = new Texture(this, key, () -> image, null, true);
+        textures.put(key, texture);
+        texture.image = image;
+        admit(texture);
+        loads++;
+        return texture;
+    }
+
+    /**
+     * Counts a raster that is built once and cannot be evicted, such as a
+     * sprite atlas. Unless images are decoded with ImageIO, the raster is
+     * copied into a JavaFX image and dropped, so only the form that is drawn
+     * is kept.
+     *
+     * @param key    the key of the image
+     * @param raster the raster
+     * @return the handle
+     */
+    public synchronized Texture pin(String key, RasterImage raster) {
+        if (!imageIo)
+            return pin(key, raster.toImage());
+        Texture texture = new Texture(this, key, null, () -> raster, true);
+        textures.put(key, texture);
+        texture.raster = raster;
+        admit(texture);
+        loads++;
+        return texture;
+    }
+
+    /**
+     * Gets the JavaFX image of a handle, making it the most recently used
+     * and loading it again when it was evicted.
+     */
+    synchronized Image acquire(Texture texture) {
+        Image image = texture.image;
+        if (image != null) {
+            resident.get(texture.getKey());
+            return image;
+        }
+        image = texture.evicted != null ? texture.evicted.get() : null;
+        if (image != null) {
+            recovered++;
+        } else if (texture.loader == null) {
+            RasterImage raster = acquireRaster(texture);
+            image = raster == null ? null : raster.toImage();
+        } else {
+            image = texture.loader.get();
+            count(texture);
+        }
+        if (image == null)
+            return null;
+        texture.image = image;
+        texture.evicted = null;
+        admit(texture);
+        return image;
+    }
+
+    /**
+     * Gets the raster of a handle, making it the most recently used and
+     * loading it again when it was evicted.
+     */
+    synchronized RasterImage acquireRaster(Texture texture) {
+        RasterImage raster = texture.raster;
+        if (raster != null) {
+            resident.get(texture.getKey());
+            /* A raster keeps its last resampled copy, counted from the draw after it is made */
+            if (bytesOf(texture) != texture.bytes)
+                admit(texture);
+            return raster;
+        }
+        raster = texture.evictedRaster != null ? texture.evictedRaster.get() : null;
+        if (raster != null) {
+            recovered++;
+        } else if (texture.rasterLoader == null) {
+            Image image = acquire(texture);
+            raster = image == null ? null : RasterImage.fromImage(image);
+        } else {
+            raster = texture.rasterLoader.get();
+            count(texture);
+        }
+        if (raster == null)
+            return null;
+        texture.raster = raster;
+        texture.evictedRaster = null;
+        admit(texture);
+        return raster;
+    }
+
+    /**
+     * Counts a load of a handle's image, the first one or a reload.
+     */
+    private void count(Texture texture) {
+        if (texture.loaded)
+            reloads++;
+        else
+            loads++;
+        texture.loaded = true;
+    }
+
+    /**
+     * Drops the image of a handle until it is needed again.
+     */
+    synchronized void release(Texture texture) {
+        if (!texture.isResident() || texture.pinned)
+            return;
+        resident.remove(texture.getKey());
+        unload(texture);
+        releases++;
+    }
+
+    /**
+     * Makes the forms of an image that were just set resident, counting
+     * their memory, and evicts others until the budget is met.
+     */
+    private void admit(Texture texture) {
+        long bytes = bytesOf(texture);
+        residentBytes += bytes - texture.bytes;
+        texture.bytes = bytes;
+        texture.loaded = true;
+        peakBytes = Math.max(peakBytes, residentBytes);
+        resident.put(texture.getKey(), texture);
+        trim(texture);
+    }
+
+    /**
+     * Gets the memory taken by the resident forms of an image.
+     */
+    private static long bytesOf(Texture texture) {
+        long bytes = 0;
+        if (texture.image != null)
+            bytes += (long) texture.image.getWidth() * (long) texture.image.getHeight() * 4;
+        if (texture.raster != null)
+            bytes += texture.raster.getBytes();
+        return bytes;
+    }
+
+    /**
+     * Evicts the least recently used images, except the one just admitted,
+     * until the resident images and the caches fit in the budget, and clears
+     * the caches when that is not enough.
+     */
+    private void trim(Texture keep) {
+        if (residentBytes <= budget)
+            return;
+        Iterator<Texture> iterator = resident.values().iterator();
+        while (residentBytes > budget && iterator.hasNext()) {
+            Texture texture = iterator.next();
+            if (texture == keep || texture.pinned)
+                continue;
+            iterator.remove();
+            unload(texture);
+            evictions++;
+        }
+        if (residentBytes > budget && cacheBytes > 0) {
+            for (int i = 0; i < caches.size(); i++)
+                caches.get(i).clear();
+            cacheClears++;
+            countCaches();
+        }
+    }
+
+    /**
+     * Counts the bytes of a cache of pixels built from the images with the
+     * bytes of the images, from now on.
+     *
+     * @param cache the cache
+     */
+    public synchronized void track(PixelCache cache) {
+        caches.add(cache);
+        cacheChanged();
+    }
+
+    /**
+     * Counts the caches again after one of them made or dropped pixels, and
+     * evicts images until the budget is met.
+     */
+    public synchronized void cacheChanged() {
+        countCaches();
+        trim(null);
+    }
+
+    /**
+     * Counts the bytes of the caches into the resident memory.
+     */
+    private void countCaches() {
+        long bytes = 0;
+        for (int i = 0; i < caches.size(); i++)
+            bytes += caches.get(i).getBytes();
+        residentBytes += bytes - cacheBytes;
+        cacheBytes = bytes;
+        peakBytes = Math.max(peakBytes, residentBytes);
+    }
+
+    /**
+     * Moves the resident forms of an image behind soft references.
+     */
+    private void unload(Texture texture) {
+        if (texture.image != null)
+            texture.evicted = new SoftReference<>(texture.image);
+        if (texture.raster != null)
+            texture.evictedRaster = new SoftReference<>(texture.raster);
+        texture.image = null;
+        texture.raster = null;
+        residentBytes -= texture.bytes;
+        texture.bytes = 0;
+    }
+
+    /**
+     * Sets the memory the resident images may take, evicting images if they
+     * take more.
+     *
+     * @param budget the budget in bytes
+     */
+    public synchronized void setBudget(long budget) {
+        this.budget = budget;
+        trim(null);
+    }
+
+    /**
+     * Gets the memory the resident images may take.
+     *
+     * @return the budget in bytes
+     */
+    public synchronized long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Gets the memory taken by the resident images and the caches built from
+     * them, counting the caches again.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getResidentBytes() {
+        countCaches();
+        return residentBytes;
+    }
+
+    /**
+     * Gets the memory taken by the caches built from the images, part of
+     * {@link #getResidentBytes()}.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getCacheBytes() {
+        countCaches();
+        return cacheBytes;
+    }
+
+    /**
+     * Gets the highest memory taken by the resident images and the caches.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getPeakBytes() {
+        return peakBytes;
+    }
+
+    /**
+     * Gets the number of resident images.
+     *
+     * @return the resident images
+     */
+    public synchronized int getResidentCount() {
+        return resident.size();
+    }
+
+    /**
+     * Gets the number of images loaded for the first time.
+     *
+     * @return the loads
+     */
+    public synchronized long getLoads() {
+        return loads;
+    }
+
+    /**
+     * Gets the number of evicted images that had to be loaded again.
+     *
+     * @return the reloads
+     */
+    public synchronized long getReloads() {
+        return reloads;
+    }
+
+    /**
+     * Gets the number of evicted images recovered before the garbage
+     * collector claimed them.
+     *
+     * @return the recovered images
+     */
+    public synchronized long getRecovered() {
+        return recovered;
+    }
+
+    /**
+     * Gets the number of images evicted to stay within the budget.
+     *
+     * @return the evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of images released by their holders.
+     *
+     * @return the releases
+     */
+    public synchronized long getReleases() {
+        return releases;
+    }
+
+    /**
+     * Gets the number of times the caches were cleared to stay within the
+     * budget.
+     *
+     * @return the clears
+     */
+    public synchronized long getCacheClears() {
+        return cacheClears;
+    }
+
+    /**
+     * Gets the memory taken by each resident image, least recently used
+     * first.
+     *
+     * @return a copy of the sizes in bytes, by key
+     */
+    public synchronized Map<String, Long> getUsage() {
+        Map<String, Long> usage = new LinkedHashMap<>();
+        for (Texture texture : resident.values())
+            usage.put(texture.getKey(), texture.bytes);
+        return usage;
+    }
+}
@@ -0,0 +1,198 @@
+package chon.group.game.audio;
+
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * The game's audio subsystem.
+ * <p>
+ * Clips are decoded when the subsystem is created. Game code triggers them
+ * with {@link #play(int, int, int)}, which only writes a command into a
+ * lock-free queue and never blocks the tick. A dedicated thread mixes small
+ * blocks and writes them to a {@link SourceDataLine} whose buffer holds just a
+ * few blocks, which keeps the output latency low. Without a sound card the
+ * same mixer can be driven offline with {@link #renderOffline(int)}.
+ * </p>
+ */
+public class GameAudio implements AutoCloseable {
+
+    /** Number of stereo frames mixed per block (about 5.8 ms at 44.1 kHz). */
+    public static final int BLOCK_FRAMES = 256;
+
+    /** Number of blocks held by the output line's buffer. */
+    private static final int LINE_BLOCKS = 3;
+
+    /** Capacity of the command queue. */
+    private static final int QUEUE_CAPACITY = 256;
+
+    /** Commands sent from the game to the mixer. */
+    private final SoundCommandQueue queue = new SoundCommandQueue(QUEUE_CAPACITY);
+
+    /** The mixer summing the voices. */
+    private final SoundMixer mixer = new SoundMixer(queue);
+
+    /** Clip played when a bomb explodes. */
+    private final int explosionClip;
+
+    /** Clip played when a hextech crystal is collected. */
+    private final int pickupClip;
+
+    /** The output line, null when running offline or silent. */
+    private SourceDataLine line;
+
+    /** The thread feeding the output line. */
+    private Thread mixerThread;
+
+    /** Whether the mixer thread should keep running. */
+    private volatile boolean running;
+
+    /**
+     * Constructor to decode the game clips, falling back to synthesized ones
+     * when the sound resources are missing.
+     */
+    public GameAudio() {
+        this.explosionClip = mixer.register(loadOr("/sounds/explosion.wav", PcmClip.explosion(0.6)));
+        this.pickupClip = mixer.register(loadOr("/sounds/pickup.wav", PcmClip.chime(0.25)));
+    }
+
+    /**
+     * Gets the id of the explosion clip.
+     *
+     * @return the clip id
+     */
+    public int getExplosionClip() {
+        return explosionClip;
+    }
+
+    /**
+     * Gets the id of the pickup clip.
+     *
+     * @return the clip id
+     */
+    public int getPickupClip() {
+        return pickupClip;
+    }
+
+    /**
+     * Gets the mixer, which reports mixing cost and latency.
+     *
+     * @return the mixer
+     */
+    public SoundMixer getMixer() {
+        return mixer;
+    }
+
+    /**
+     * Opens the default output line and starts the mixer thread. When no line
+     * is available the game keeps running without sound.
+     */
+    public void start() {
+        try {
+            int blockBytes = BLOCK_FRAMES * PcmClip.CHANNELS * 2;
+            line = AudioSystem.getSourceDataLine(PcmClip.FORMAT);
+            line.open(PcmClip.FORMAT, blockBytes * LINE_BLOCKS);
+            line.start();
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            System.out.println("Audio indisponível: " + e.getMessage());
+            line = null;
+            return;
+        }
+        running = true;
+        mixerThread = new Thread(this::runMixer, "audio-mixer");
+        mixerThread.setDaemon(true);
+        mixerThread.setPriority(Thread.MAX_PRIORITY);
+        mixerThread.start();
+    }
+
+    /**
+     * Triggers a clip without blocking. Ignored when no output is running.
+     *
+     * @param clip   the clip id
+     * @param volume the volume, from 0 to 255
+     * @param pan    the stereo position, from 0 (left) to 255 (right)
+     */
+    public void play(int clip, int volume, int pan) {
+        if (running)
+            queue.offer(SoundMixer.command(clip, volume, pan), System.nanoTime());
+    }
+
+    /**
+     * Queues a clip for offline rendering.
+     *
+     * @param clip   the clip id
+     * @param volume the volume, from 0 to 255
+     * @param pan    the stereo position, from 0 (left) to 255 (right)
+     */
+    public void playOffline(int clip, int volume, int pan) {
+        queue.offer(SoundMixer.command(clip, volume, pan), System.nanoTime());
+    }
+
+    /**
+     * Mixes audio into memory instead of an output line, block by block as
+     * the mixer thread would.
+     *
+     * @param frames the number of stereo frames to render
+     * @return the interleaved stereo samples
+     */
+    public short[] renderOffline(int frames) {
+        short[] out = new short[frames * PcmClip.CHANNELS];
+        short[] block = new short[BLOCK_FRAMES * PcmClip.CHANNELS];
+        for (int frame = 0; frame < frames; frame += BLOCK_FRAMES) {
+            int count = Math.min(BLOCK_FRAMES, frames - frame);
+            mixer.mix(block, count, System.nanoTime());
+            System.arraycopy(block, 0, out, frame * PcmClip.CHANNELS, count * PcmClip.CHANNELS);
+        }
+        return out;
+    }
+
+    /**
+     * Mixes blocks and writes them to the line; the write blocks once the small
+     * line buffer is full, which paces the thread.
+     */
+    private void runMixer() {
+        short[] block = new short[BLOCK_FRAMES * PcmClip.CHANNELS];
+        byte[] bytes = new byte[block.length * 2];
+        while (running) {
+            mixer.mix(block, BLOCK_FRAMES, System.nanoTime());
+            for (int i = 0; i < block.length; i++) {
+                bytes[2 * i] = (byte) block[i];
+                bytes[2 * i + 1] = (byte) (block[i] >> 8);
+            }
+            line.write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Stops the mixer thread and releases the output line.
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (mixerThread != null) {
+            try {
+                mixerThread.join(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (line != null) {
+            line.stop();
+            line.close();
+        }
+    }
+
+    /**
+     * Decodes a clip resource, or returns the fallback when it is missing.
+     */
+    private static PcmClip loadOr(String path, PcmClip fallback) {
+        if (GameAudio.class.getResource(path) == null)
+            return fallback;
+        try {
+            return PcmClip.load(path);
+        } catch (Exception e) {
+            System.out.println("Erro ao carregar som " + path + ": " + e.getMessage());
+            return fallback;
+        }
+    }
+}
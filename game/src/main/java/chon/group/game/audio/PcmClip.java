@@ -0,0 +1,128 @@
+package chon.group.game.audio;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * A sound decoded once, at load time, into interleaved 16-bit stereo PCM at
+ * the mixer's sample rate, so playing it never touches a decoder.
+ */
+public class PcmClip {
+
+    /** Sample rate shared by every clip and by the mixer. */
+    public static final float SAMPLE_RATE = 44100f;
+
+    /** Number of interleaved channels. */
+    public static final int CHANNELS = 2;
+
+    /** Format every clip is converted to. */
+    public static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+
+    /** Interleaved samples, left then right. */
+    private final short[] samples;
+
+    /**
+     * Constructor to wrap decoded samples.
+     *
+     * @param samples the interleaved stereo samples
+     */
+    public PcmClip(short[] samples) {
+        this.samples = samples;
+    }
+
+    /**
+     * Decodes an audio resource into PCM in the mixer's format.
+     *
+     * @param path the classpath path of the resource
+     * @return the decoded clip
+     * @throws IOException                   if the resource cannot be read
+     * @throws UnsupportedAudioFileException if the format cannot be decoded
+     */
+    public static PcmClip load(String path) throws IOException, UnsupportedAudioFileException {
+        InputStream resource = PcmClip.class.getResourceAsStream(path);
+        if (resource == null)
+            throw new IOException("Missing audio resource " + path);
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(new BufferedInputStream(resource));
+                AudioInputStream converted = AudioSystem.getAudioInputStream(FORMAT, source)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = converted.read(chunk)) > 0)
+                bytes.write(chunk, 0, read);
+            byte[] data = bytes.toByteArray();
+            short[] samples = new short[data.length / 2];
+            for (int i = 0; i < samples.length; i++)
+                samples[i] = (short) ((data[2 * i] & 0xFF) | (data[2 * i + 1] << 8));
+            return new PcmClip(samples);
+        }
+    }
+
+    /**
+     * Synthesizes a short decaying noise burst, used for explosions.
+     *
+     * @param seconds the clip duration
+     * @return the synthesized clip
+     */
+    public static PcmClip explosion(double seconds) {
+        int frames = (int) (seconds * SAMPLE_RATE);
+        short[] samples = new short[frames * CHANNELS];
+        Random random = new Random(7);
+        double lowPass = 0;
+        for (int i = 0; i < frames; i++) {
+            double envelope = Math.exp(-5.0 * i / frames);
+            lowPass += 0.08 * (random.nextDouble() * 2 - 1 - lowPass);
+            short value = (short) (lowPass * envelope * 32000);
+            samples[2 * i] = value;
+            samples[2 * i + 1] = value;
+        }
+        return new PcmClip(samples);
+    }
+
+    /**
+     * Synthesizes a bright rising chime, used for pickups.
+     *
+     * @param seconds the clip duration
+     * @return the synthesized clip
+     */
+    public static PcmClip chime(double seconds) {
+        int frames = (int) (seconds * SAMPLE_RATE);
+        short[] samples = new short[frames * CHANNELS];
+        double phase = 0;
+        for (int i = 0; i < frames; i++) {
+            double t = (double) i / frames;
+            double frequency = 880 + 880 * t;
+            phase += 2 * Math.PI * frequency / SAMPLE_RATE;
+            double envelope = Math.min(1.0, i / 200.0) * (1 - t);
+            short value = (short) (Math.sin(phase) * envelope * 12000);
+            samples[2 * i] = value;
+            samples[2 * i + 1] = value;
+        }
+        return new PcmClip(samples);
+    }
+
+    /**
+     * Gets the interleaved stereo samples.
+     *
+     * @return the samples
+     */
+    public short[] getSamples() {
+        return samples;
+    }
+
+    /**
+     * Gets the number of stereo frames.
+     *
+     * @return the length in frames
+     */
+    public int getFrames() {
+        return samples.length / CHANNELS;
+    }
+}
@@ -0,0 +1,104 @@
+package chon.group.game.audio;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free single-producer single-consumer queue of play commands.
+ * <p>
+ * The game thread offers commands and the mixer thread polls them. Both
+ * sides only publish their own index, so neither ever blocks; when the queue
+ * is full the command is dropped, which is preferable to stalling a tick.
+ * </p>
+ */
+public class SoundCommandQueue {
+
+    /** Packed clip, volume and pan of each command. */
+    private final int[] commands;
+
+    /** Time each command was offered, for latency measurement. */
+    private final long[] offeredAt;
+
+    /** Capacity minus one; the capacity is a power of two. */
+    private final int mask;
+
+    /** Number of commands offered so far, written by the producer. */
+    private final AtomicLong head = new AtomicLong();
+
+    /** Number of commands polled so far, written by the consumer. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Commands dropped because the queue was full. */
+    private long dropped;
+
+    /**
+     * Constructor to allocate the queue.
+     *
+     * @param capacity the minimum capacity, rounded up to a power of two
+     */
+    public SoundCommandQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.commands = new int[size];
+        this.offeredAt = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Offers a command without blocking.
+     *
+     * @param command the packed command
+     * @param nanos   the time the command was issued
+     * @return false if the queue was full and the command was dropped
+     */
+    public boolean offer(int command, long nanos) {
+        long position = head.get();
+        if (position - tail.get() > mask) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) position & mask;
+        commands[slot] = command;
+        offeredAt[slot] = nanos;
+        head.lazySet(position + 1);
+        return true;
+    }
+
+    /**
+     * Checks if a command is waiting.
+     *
+     * @return true if {@link #poll()} would return a command
+     */
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+
+    /**
+     * Gets the time the next command was offered. Only valid when the queue is
+     * not empty.
+     *
+     * @return the time in nanoseconds
+     */
+    public long peekOfferedAt() {
+        return offeredAt[(int) tail.get() & mask];
+    }
+
+    /**
+     * Removes the next command. Only valid when the queue is not empty.
+     *
+     * @return the packed command
+     */
+    public int poll() {
+        long position = tail.get();
+        int command = commands[(int) position & mask];
+        tail.lazySet(position + 1);
+        return command;
+    }
+
+    /**
+     * Gets the number of commands dropped because the queue was full.
+     *
+     * @return the number of dropped commands
+     */
+    public long getDropped() {
+        return dropped;
+    }
+}
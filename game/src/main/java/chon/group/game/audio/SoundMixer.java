@@ -0,0 +1,219 @@
+package chon.group.game.audio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sums the active voices into blocks of 16-bit stereo samples.
+ * <p>
+ * The mixer owns a fixed number of voices stored in primitive arrays. Before
+ * each block it drains the play commands waiting in its
+ * {@link SoundCommandQueue}, so a sound starts at most one block after it was
+ * triggered. Mixing does not allocate and does not depend on an audio device,
+ * which lets it run offline as well as on the playback thread.
+ * </p>
+ */
+public class SoundMixer {
+
+    /** Maximum number of sounds playing at the same time. */
+    public static final int MAX_VOICES = 32;
+
+    /** Registered clips, indexed by clip id. */
+    private final List<PcmClip> clips = new ArrayList<>();
+
+    /** Commands waiting to start a voice. */
+    private final SoundCommandQueue queue;
+
+    /** Clip played by each voice, -1 when the voice is free. */
+    private final int[] voiceClip = new int[MAX_VOICES];
+
+    /** Next sample index of each voice. */
+    private final int[] voicePosition = new int[MAX_VOICES];
+
+    /** Left gain of each voice, in 1/256 units. */
+    private final int[] voiceGainLeft = new int[MAX_VOICES];
+
+    /** Right gain of each voice, in 1/256 units. */
+    private final int[] voiceGainRight = new int[MAX_VOICES];
+
+    /** Wide accumulator, so summing voices cannot overflow before clamping. */
+    private int[] accumulator = new int[0];
+
+    /** Number of blocks mixed so far. */
+    private long blocks;
+
+    /** Total time spent mixing, in nanoseconds. */
+    private long mixNanos;
+
+    /** Number of commands started so far. */
+    private long started;
+
+    /** Total time between a command being offered and its block, in nanoseconds. */
+    private long latencyNanos;
+
+    /** Longest time between a command being offered and its block, in nanoseconds. */
+    private long maxLatencyNanos;
+
+    /**
+     * Constructor to initialize the mixer.
+     *
+     * @param queue the queue the play commands are read from
+     */
+    public SoundMixer(SoundCommandQueue queue) {
+        this.queue = queue;
+        Arrays.fill(voiceClip, -1);
+    }
+
+    /**
+     * Registers a clip. Must be called before mixing starts.
+     *
+     * @param clip the decoded clip
+     * @return the id used to play the clip
+     */
+    public int register(PcmClip clip) {
+        clips.add(clip);
+        return clips.size() - 1;
+    }
+
+    /**
+     * Packs a play command.
+     *
+     * @param clip   the clip id
+     * @param volume the volume, from 0 to 255
+     * @param pan    the stereo position, from 0 (left) to 255 (right)
+     * @return the packed command
+     */
+    public static int command(int clip, int volume, int pan) {
+        return (clip & 0xFFFF) | ((volume & 0xFF) << 16) | ((pan & 0xFF) << 24);
+    }
+
+    /**
+     * Mixes one block of interleaved stereo samples.
+     *
+     * @param out        the destination, at least {@code frames * 2} long
+     * @param frames     the number of stereo frames to mix
+     * @param blockNanos the time the block is being mixed, for latency figures
+     */
+    public void mix(short[] out, int frames, long blockNanos) {
+        long start = System.nanoTime();
+        while (!queue.isEmpty()) {
+            long offeredAt = queue.peekOfferedAt();
+            startVoice(queue.poll());
+            long latency = Math.max(0, blockNanos - offeredAt);
+            latencyNanos += latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            started++;
+        }
+
+        int samples = frames * PcmClip.CHANNELS;
+        if (accumulator.length < samples)
+            accumulator = new int[samples];
+        Arrays.fill(accumulator, 0, samples, 0);
+        for (int voice = 0; voice < MAX_VOICES; voice++) {
+            int clip = voiceClip[voice];
+            if (clip < 0)
+                continue;
+            short[] source = clips.get(clip).getSamples();
+            int position = voicePosition[voice];
+            int count = Math.min(samples, source.length - position);
+            int left = voiceGainLeft[voice];
+            int right = voiceGainRight[voice];
+            for (int i = 0; i < count; i += 2) {
+                accumulator[i] += (source[position + i] * left) >> 8;
+                accumulator[i + 1] += (source[position + i + 1] * right) >> 8;
+            }
+            position += count;
+            if (position >= source.length)
+                voiceClip[voice] = -1;
+            voicePosition[voice] = position;
+        }
+        for (int i = 0; i < samples; i++) {
+            int value = accumulator[i];
+            out[i] = (short) (value > Short.MAX_VALUE ? Short.MAX_VALUE
+                    : value < Short.MIN_VALUE ? Short.MIN_VALUE : value);
+        }
+        blocks++;
+        mixNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Starts a voice for a command, stealing the most advanced voice when all
+     * of them are busy.
+     */
+    private void startVoice(int command) {
+        int clip = command & 0xFFFF;
+        if (clip >= clips.size())
+            return;
+        int volume = (command >>> 16) & 0xFF;
+        int pan = command >>> 24;
+        int voice = -1;
+        int mostAdvanced = 0;
+        for (int i = 0; i < MAX_VOICES; i++) {
+            if (voiceClip[i] < 0) {
+                voice = i;
+                break;
+            }
+            if (voicePosition[i] > voicePosition[mostAdvanced])
+                mostAdvanced = i;
+        }
+        if (voice < 0)
+            voice = mostAdvanced;
+        voiceClip[voice] = clip;
+        voicePosition[voice] = 0;
+        voiceGainLeft[voice] = volume * Math.min(255, 2 * (255 - pan)) / 255;
+        voiceGainRight[voice] = volume * Math.min(255, 2 * pan) / 255;
+    }
+
+    /**
+     * Gets the number of voices currently playing.
+     *
+     * @return the number of active voices
+     */
+    public int getActiveVoices() {
+        int active = 0;
+        for (int clip : voiceClip) {
+            if (clip >= 0)
+                active++;
+        }
+        return active;
+    }
+
+    /**
+     * Gets the number of blocks mixed so far.
+     *
+     * @return the number of blocks
+     */
+    public long getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Gets the average time spent mixing a block.
+     *
+     * @return the average time in nanoseconds
+     */
+    public long getAverageMixNanos() {
+        return blocks == 0 ? 0 : mixNanos / blocks;
+    }
+
+    /**
+     * Gets the average time between a sound being triggered and the block it
+     * starts in being mixed.
+     *
+     * @return the average latency in nanoseconds
+     */
+    public long getAverageLatencyNanos() {
+        return started == 0 ? 0 : latencyNanos / started;
+    }
+
+    /**
+     * Gets the longest time between a sound being triggered and the block it
+     * starts in being mixed.
+     *
+     * @return the maximum latency in nanoseconds
+     */
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+}
@@ -1,12 +1,17 @@
 package chon.group.game.domain.agent;
 
-import java.util.ArrayList;
 import java.util.List;
 
-import javafx.scene.SnapshotParameters;
+import chon.group.game.asset.RasterImage;
+import chon.group.game.asset.Texture;
+import chon.group.game.asset.TextureManager;
+import chon.group.game.domain.sprite.SpriteAnimator;
+import chon.group.game.domain.sprite.Sprites;
+import chon.group.game.jfr.FlipImageEvent;
 import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.scene.paint.Color;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
 
 /**
  * Represents an agent in the game, with properties such as position, size,
@@ -30,8 +35,11 @@ public class Agent {
     /** Agent speed. */
     private int speed;
 
-    /** Image representing the agent. */
-    private Image image;
+    /** Image representing the agent, in the orientation it is facing. */
+    private Texture image;
+
+    /** The other orientation of the image, mirrored when it is first drawn. */
+    private Texture otherImage;
 
     /** Indicates if the agent is facing left. */
     private boolean flipped = false;
@@ -45,12 +53,31 @@ public class Agent {
     /* The time of the last hit taken. */
     private long lastHitTime = 0;
 
+    /* The simulation time of the last hit taken, or -1, choosing the hit animation. */
+    private long hitTime = -1;
+
     /* Flag to control the invulnerability status of the agent. */
     private boolean invulnerable;
 
     /* Invulnerability (in milliseconds) */
     private final long INVULNERABILITY_COOLDOWN = 500;
 
+    /** What the agent does on its own, or null when it only moves on input. */
+    private Behaviour behaviour;
+
+    /** Tick of the agent's last behaviour update, kept by the scheduler. */
+    private long lastUpdateTick;
+
+    /** Plays the agent's animations, or null when the still image is drawn. */
+    private SpriteAnimator animator;
+
+    /** Whether the agent moved since the last {@link #animate(long)}. */
+    private boolean moved;
+
+    /* Movement commands used by patrol, shared so patrolling does not allocate. */
+    private static final List<String> MOVE_LEFT = List.of("LEFT");
+    private static final List<String> MOVE_RIGHT = List.of("RIGHT");
+
     /**
      * Constructor to initialize the agent properties.
      *
@@ -70,7 +97,7 @@ public class Agent {
         this.speed = speed;
         this.health = health;
         this.fullHealth = health;
-        this.image = new Image(getClass().getResource(pathImage).toExternalForm());
+        this.image = TextureManager.getDefault().texture(pathImage);
         this.lastHitTime = 0;
         this.invulnerable = false;
     }
@@ -95,10 +122,33 @@ public class Agent {
         this.speed = speed;
         this.health = health;
         this.fullHealth = health;
-        this.image = new Image(getClass().getResource(pathImage).toExternalForm());
+        this.image = TextureManager.getDefault().texture(pathImage);
         this.flipped = flipped;
     }
 
+    /**
+     * Constructor to create an agent like another one at a new position. The
+     * images of both orientations are shared, so hundreds of copies cost no
+     * more image memory than one.
+     *
+     * @param prototype the agent to copy
+     * @param posX      the new agent's X (horizontal) position
+     * @param posY      the new agent's Y (vertical) position
+     */
+    public Agent(Agent prototype, int posX, int posY) {
+        this.posX = posX;
+        this.posY = posY;
+        this.height = prototype.height;
+        this.width = prototype.width;
+        this.speed = prototype.speed;
+        this.health = prototype.fullHealth;
+        this.fullHealth = prototype.fullHealth;
+        this.image = prototype.image;
+        this.otherImage = prototype.mirroredImage();
+        this.flipped = prototype.flipped;
+        this.animator = prototype.animator != null ? new SpriteAnimator(prototype.animator) : null;
+    }
+
     /**
      * Gets the X (horizontal) position of the agent.
      *
@@ -231,6 +281,15 @@ public class Agent {
      * @return the agent image
      */
     public Image getImage() {
+        return image.get();
+    }
+
+    /**
+     * Gets the handle of the agent image, for renderers that draw its raster.
+     *
+     * @return the handle of the image facing the current way
+     */
+    public Texture getTexture() {
         return image;
     }
 
@@ -240,7 +299,8 @@ public class Agent {
      * @param image the new image
      */
     public void setImage(Image image) {
-        this.image = image;
+        this.image = Texture.of(image);
+        this.otherImage = null;
     }
 
     /**
@@ -261,6 +321,17 @@ public class Agent {
         this.flipped = flipped;
     }
 
+    /**
+     * Turns the agent to face a side, mirroring its image if it was facing
+     * the other one.
+     *
+     * @param flipped whether the agent should be flipped
+     */
+    public void face(boolean flipped) {
+        if (this.flipped != flipped)
+            flipImage();
+    }
+
     /**
      * Gets the last hit taken.
      */
@@ -305,15 +376,134 @@ public class Agent {
     }
 
     /**
-     * Flips the Image horizontally.
+     * Gets what the agent does on its own.
+     *
+     * @return the behaviour, or null when the agent only moves on input
+     */
+    public Behaviour getBehaviour() {
+        return behaviour;
+    }
+
+    /**
+     * Sets what the agent does on its own.
+     *
+     * @param behaviour the new behaviour, or null to stand still
+     */
+    public void setBehaviour(Behaviour behaviour) {
+        this.behaviour = behaviour;
+    }
+
+    /**
+     * Gets the tick of the agent's last behaviour update.
+     *
+     * @return the tick number
+     */
+    public long getLastUpdateTick() {
+        return lastUpdateTick;
+    }
+
+    /**
+     * Sets the tick of the agent's last behaviour update.
+     *
+     * @param lastUpdateTick the tick number
+     */
+    public void setLastUpdateTick(long lastUpdateTick) {
+        this.lastUpdateTick = lastUpdateTick;
+    }
+
+    /**
+     * Gets the animator playing the agent's animations.
+     *
+     * @return the animator, or null when the still image is drawn
+     */
+    public SpriteAnimator getAnimator() {
+        return animator;
+    }
+
+    /**
+     * Sets the animator playing the agent's animations. Its sheet should have
+     * the clips of {@link Sprites#character(String, int, int)}.
+     *
+     * @param animator the animator, or null to draw the still image
+     */
+    public void setAnimator(SpriteAnimator animator) {
+        this.animator = animator;
+    }
+
+    /**
+     * Chooses the animation for what the agent did since the last call: dying,
+     * being hit, walking or standing still. Called once per tick.
+     *
+     * @param time the simulation time, in milliseconds
+     */
+    public void animate(long time) {
+        if (animator == null)
+            return;
+        if (health <= 0)
+            animator.play(Sprites.DEATH, time);
+        else if (hitTime >= 0 && time >= hitTime && time - hitTime < INVULNERABILITY_COOLDOWN)
+            animator.play(Sprites.HIT, time);
+        else
+            animator.play(moved ? Sprites.WALK : Sprites.IDLE, time);
+        moved = false;
+    }
+
+    /**
+     * Gets the image facing the other way. Images of the texture manager are
+     * mirrored by it, once for every agent using the path, and only when
+     * they are first drawn.
+     *
+     * @return the mirrored image
+     */
+    private Texture mirroredImage() {
+        if (otherImage == null) {
+            String key = image.getKey();
+            otherImage = key != null
+                    ? TextureManager.getDefault().derived(key + "#mirrored", image, Agent::mirror,
+                            RasterImage::mirrored)
+                    : Texture.of(mirror(image.get()));
+        }
+        return otherImage;
+    }
+
+    /**
+     * Mirrors an image horizontally.
+     * The pixels are mirrored directly instead of taking a scene graph
+     * snapshot, so it also works in headless sessions without a live scene.
+     *
+     * @param image the image to mirror
+     * @return the mirrored copy
+     */
+    private static Image mirror(Image image) {
+        FlipImageEvent event = new FlipImageEvent();
+        event.begin();
+        int imageWidth = (int) image.getWidth();
+        int imageHeight = (int) image.getHeight();
+        PixelReader reader = image.getPixelReader();
+        WritableImage flippedImage = new WritableImage(imageWidth, imageHeight);
+        PixelWriter writer = flippedImage.getPixelWriter();
+        for (int y = 0; y < imageHeight; y++) {
+            for (int x = 0; x < imageWidth; x++) {
+                writer.setArgb(imageWidth - 1 - x, y, reader.getArgb(x, y));
+            }
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = imageWidth;
+            event.height = imageHeight;
+            event.commit();
+        }
+        return flippedImage;
+    }
+
+    /**
+     * Flips the Image horizontally, swapping between the two orientations.
      */
     private void flipImage() {
-        ImageView flippedImage = new ImageView(image);
-        flippedImage.setScaleX(-1);
-        SnapshotParameters params = new SnapshotParameters();
-        params.setFill(Color.TRANSPARENT);
+        Texture current = this.image;
         this.flipped = !this.flipped;
-        this.image = flippedImage.snapshot(params, null);
+        this.image = mirroredImage();
+        this.otherImage = current;
     }
 
     /**
@@ -323,14 +513,23 @@ public class Agent {
      *                  "DOWN")
      */
     public void move(List<String> movements) {  // Retirada as movimentações UP and DOWN
-        if (movements.contains("RIGHT")) {
+        // A lista vem ordenada pelo toque mais recente, que tem prioridade
+        String direction = null;
+        for (int i = 0; i < movements.size() && direction == null; i++) {
+            String movement = movements.get(i);
+            if ("RIGHT".equals(movement) || "LEFT".equals(movement))
+                direction = movement;
+        }
+        if ("RIGHT".equals(direction)) {
             if (flipped)
                 this.flipImage();
             setPosX(posX += speed);
-        } else if (movements.contains("LEFT")) {
+            moved = true;
+        } else if ("LEFT".equals(direction)) {
             if (!flipped)
                 this.flipImage();
             setPosX(posX -= speed);
+            moved = true;
         }
     }
 
@@ -340,20 +539,20 @@ public class Agent {
         if (!flipped) {
             if (posX >= maxX - width) {
                 // Chegou no limite direito, inverte direção
-                this.move(new ArrayList<String>(List.of("LEFT")));
+                this.move(MOVE_LEFT);
             } else {
                 // Continua movendo para direita
-                this.move(new ArrayList<String>(List.of("RIGHT")));
+                this.move(MOVE_RIGHT);
             }
         } 
         // Se estiver indo para a esquerda
         else {
             if (posX <= minX) {
                 // Chegou no limite esquerdo, inverte direção
-                this.move(new ArrayList<String>(List.of("RIGHT")));
+                this.move(MOVE_RIGHT);
             } else {
                 // Continua movendo para esquerda
-                this.move(new ArrayList<String>(List.of("LEFT")));
+                this.move(MOVE_LEFT);
             }
         }
     }
@@ -363,8 +562,9 @@ public class Agent {
      * If health reaches 0, the game must end.
      *
      * @param damage the amount of damage to be applied
+     * @param time   the simulation time, in milliseconds, of the hit
      */
-    public void takeDamage(int damage) {
+    public void takeDamage(int damage, long time) {
         this.invulnerable = this.updateInvulnerability();
         if (!this.invulnerable && this.health > 0) {
             /* Decrease health. */
@@ -372,8 +572,10 @@ public class Agent {
             /* After taking the damage, the health must not be negative. */
             if (this.health < 0)
                 this.health = 0;
-            else
+            else {
                 this.lastHitTime = System.currentTimeMillis();
+                this.hitTime = time;
+            }
         }
     }
 
@@ -0,0 +1,20 @@
+package chon.group.game.domain.agent;
+
+/**
+ * What an agent does on its own each tick, such as patrolling or chasing.
+ * <p>
+ * Agents far from the camera are not updated every tick, so a behaviour is
+ * told how many ticks passed since its last update and catches up on all of
+ * them at once.
+ * </p>
+ */
+public interface Behaviour {
+
+    /**
+     * Advances the agent by a number of ticks.
+     *
+     * @param agent the agent to move
+     * @param ticks the ticks since the last update, at least 1
+     */
+    void update(Agent agent, int ticks);
+}
@@ -0,0 +1,63 @@
+package chon.group.game.domain.agent;
+
+import java.util.List;
+
+/**
+ * Follows another agent horizontally while it is within range, and otherwise
+ * patrols like {@link PatrolBehaviour}.
+ */
+public class ChaseBehaviour extends PatrolBehaviour {
+
+    /* Movement commands, shared so chasing does not allocate. */
+    private static final List<String> MOVE_LEFT = List.of("LEFT");
+    private static final List<String> MOVE_RIGHT = List.of("RIGHT");
+
+    /** The agent being chased. */
+    private final Agent target;
+
+    /** The horizontal distance within which the target is chased. */
+    private final int range;
+
+    /**
+     * Constructor to chase an agent.
+     *
+     * @param target the agent to chase, usually the protagonist
+     * @param range  the horizontal distance within which the target is chased
+     * @param minX   the leftmost X position
+     * @param maxX   the rightmost X position, including the agent's width
+     */
+    public ChaseBehaviour(Agent target, int range, int minX, int maxX) {
+        super(minX, maxX);
+        this.target = target;
+        this.range = range;
+    }
+
+    @Override
+    public void update(Agent agent, int ticks) {
+        /* The target does not move while the agent catches up, so neither does the X centring the agent on it */
+        int centred = target.getPosX() + target.getWidth() / 2 - agent.getWidth() / 2;
+        int speed = agent.getSpeed();
+        int right = maxX - agent.getWidth();
+        while (ticks > 0) {
+            int distance = centred - agent.getPosX();
+            if (Math.abs(distance) > range) {
+                ticks = walk(agent, ticks, centred - range, centred + range);
+                continue;
+            }
+            if (Math.abs(distance) <= speed)
+                return;
+            agent.move(distance > 0 ? MOVE_RIGHT : MOVE_LEFT);
+            agent.setPosX(Math.max(minX, Math.min(agent.getPosX(), right)));
+            ticks--;
+            /* Within the limits, the agent closes in a step a tick until a step away or held by a limit */
+            int posX = agent.getPosX();
+            int left = centred - posX;
+            if (ticks > 0 && speed > 0 && posX >= minX && posX <= right && Math.abs(left) > speed
+                    && Math.abs(left) <= range && Integer.signum(left) == Integer.signum(distance)) {
+                int steps = Math.min(ticks, ceilDiv(Math.abs(left) - speed, speed));
+                agent.setPosX(Math.max(minX, Math.min(posX + Integer.signum(left) * steps * speed, right)));
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package chon.group.game.domain.agent;
+
+/**
+ * Patrols like {@link PatrolBehaviour} while bobbing up and down around the
+ * height the agent started at.
+ */
+public class HoverBehaviour extends PatrolBehaviour {
+
+    /** The Y position the agent bobs around. */
+    private final int baseY;
+
+    /** The largest distance from the base height, in pixels. */
+    private final int amplitude;
+
+    /** The ticks taken by one full bob. */
+    private final int period;
+
+    /** Ticks played so far, giving the phase of the bob. */
+    private long phase;
+
+    /**
+     * Constructor to hover between two limits.
+     *
+     * @param minX      the leftmost X position
+     * @param maxX      the rightmost X position, including the agent's width
+     * @param baseY     the Y position the agent bobs around
+     * @param amplitude the largest distance from the base height
+     * @param period    the ticks taken by one full bob
+     */
+    public HoverBehaviour(int minX, int maxX, int baseY, int amplitude, int period) {
+        super(minX, maxX);
+        this.baseY = baseY;
+        this.amplitude = amplitude;
+        this.period = period;
+    }
+
+    @Override
+    public void update(Agent agent, int ticks) {
+        super.update(agent, ticks);
+        phase += ticks;
+        agent.setPosY(baseY + (int) Math.round(amplitude * Math.sin(2 * Math.PI * (phase % period) / period)));
+    }
+}
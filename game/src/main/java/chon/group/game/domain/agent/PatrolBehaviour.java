@@ -0,0 +1,116 @@
+package chon.group.game.domain.agent;
+
+import java.util.List;
+
+/**
+ * Walks back and forth between two horizontal limits, turning at each end.
+ * <p>
+ * A patrol is a triangle wave: the agent walks a run of steps one way, turns
+ * and walks a run back, so catching up on many ticks crosses each run at
+ * once instead of stepping through it, and skips the whole laps once the
+ * runs repeat. Only the last step is taken by the agent itself, so it faces
+ * and animates as if it had walked every tick.
+ * </p>
+ */
+public class PatrolBehaviour implements Behaviour {
+
+    /* Movement commands, shared so patrolling does not allocate. */
+    private static final List<String> MOVE_LEFT = List.of("LEFT");
+    private static final List<String> MOVE_RIGHT = List.of("RIGHT");
+
+    /** The leftmost X position. */
+    protected final int minX;
+
+    /** The rightmost X position, including the agent's width. */
+    protected final int maxX;
+
+    /**
+     * Constructor to patrol between two limits.
+     *
+     * @param minX the leftmost X position
+     * @param maxX the rightmost X position, including the agent's width
+     */
+    public PatrolBehaviour(int minX, int maxX) {
+        this.minX = minX;
+        this.maxX = maxX;
+    }
+
+    @Override
+    public void update(Agent agent, int ticks) {
+        walk(agent, ticks, 1, 0);
+    }
+
+    /**
+     * Moves an agent as that many calls of {@link Agent#patrol(int, int)}
+     * would, stopping early after the first tick that leaves it within a
+     * window of X positions.
+     *
+     * @param agent     the agent to move
+     * @param ticks     the ticks to walk
+     * @param windowMin the leftmost X position of the window
+     * @param windowMax the rightmost X position of the window, below
+     *                  windowMin for no window
+     * @return the ticks left when the agent stopped in the window, or 0
+     */
+    protected int walk(Agent agent, int ticks, int windowMin, int windowMax) {
+        if (ticks <= 0)
+            return 0;
+        int speed = agent.getSpeed();
+        if (speed <= 0) {
+            /* Standing still, the agent only turns, which repeats every two ticks */
+            for (int i = 1 + (ticks - 1) % 2; i > 0; i--)
+                agent.patrol(minX, maxX);
+            return 0;
+        }
+        int right = maxX - agent.getWidth();
+        int posX = agent.getPosX();
+        boolean facingRight = !agent.isFlipped();
+        int direction = 0;
+        int runs = 0;
+        int markX = 0;
+        boolean markFacingRight = false;
+        int markTicks = 0;
+        while (ticks > 0) {
+            /* The way of the next step, as Agent.patrol chooses it, and the steps before it turns */
+            direction = facingRight ? (posX >= right ? -1 : 1) : (posX <= minX ? 1 : -1);
+            int run = Math.min(ticks, direction > 0 ? Math.max(1, ceilDiv(right - posX, speed))
+                    : Math.max(1, ceilDiv(posX - minX, speed)));
+            int entry = direction > 0 ? Math.max(1, ceilDiv(windowMin - posX, speed))
+                    : Math.max(1, ceilDiv(posX - windowMax, speed));
+            int entryX = posX + direction * entry * speed;
+            if (entry <= run && entryX >= windowMin && entryX <= windowMax) {
+                place(agent, entryX, direction);
+                return ticks - entry;
+            }
+            posX += direction * run * speed;
+            facingRight = direction > 0;
+            ticks -= run;
+            /* Two runs make a lap; a lap ending where the one before did repeats forever */
+            if (++runs % 2 == 0) {
+                if (runs > 2 && posX == markX && facingRight == markFacingRight)
+                    ticks %= markTicks - ticks;
+                markX = posX;
+                markFacingRight = facingRight;
+                markTicks = ticks;
+            }
+        }
+        place(agent, posX, direction);
+        return 0;
+    }
+
+    /**
+     * Puts an agent a step short of a position and takes that step, so it
+     * faces and animates as a walking agent.
+     */
+    private static void place(Agent agent, int posX, int direction) {
+        agent.setPosX(posX - direction * agent.getSpeed());
+        agent.move(direction > 0 ? MOVE_RIGHT : MOVE_LEFT);
+    }
+
+    /**
+     * Divides rounding up, by a positive divisor.
+     */
+    static int ceilDiv(int dividend, int divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+}
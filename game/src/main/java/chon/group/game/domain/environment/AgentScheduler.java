@@ -0,0 +1,207 @@
+package chon.group.game.domain.environment;
+
+import java.util.Arrays;
+import java.util.List;
+
+import chon.group.game.domain.agent.Agent;
+import chon.group.game.domain.agent.Behaviour;
+
+/**
+ * Runs the behaviours of the environment's agents with a level of detail
+ * that depends on their distance from the camera.
+ * <p>
+ * Agents near the camera are updated every tick. Agents within a screen of
+ * it are due every {@link #MID_INTERVAL} ticks, and the rest every
+ * {@link #FAR_INTERVAL} ticks; behaviours catch up on the ticks they missed.
+ * Due agents away from the camera share a budget of updates per tick and are
+ * visited round robin, so when many fall due together the work is spread
+ * over the following ticks instead of landing on one.
+ * </p>
+ */
+public class AgentScheduler {
+
+    /** Ticks between updates of agents within a screen of the camera. */
+    public static final int MID_INTERVAL = 4;
+
+    /** Ticks between updates of agents farther away. */
+    public static final int FAR_INTERVAL = 16;
+
+    /** The environment whose agents are updated. */
+    private final Environment environment;
+
+    /** Updates per tick left for agents away from the camera. */
+    private final int budget;
+
+    /** Number of ticks run so far. */
+    private long tick;
+
+    /** Index where the next round robin pass over the agents starts. */
+    private int cursor;
+
+    /** Agents with a behaviour during the last tick. */
+    private int scheduled;
+
+    /** Agents updated during the last tick. */
+    private int updated;
+
+    /** Indices of the agents updated during the last tick, the first {@link #updated} of them in use. */
+    private int[] updatedAgents = new int[16];
+
+    /** Agents near the camera during the last tick. */
+    private int near;
+
+    /** Due agents left for later ticks during the last tick. */
+    private int deferred;
+
+    /** Agents updated over every tick. */
+    private long totalUpdated;
+
+    /** Largest number of agents updated in one tick. */
+    private int maxUpdated;
+
+    /**
+     * Constructor to schedule the agents of an environment.
+     *
+     * @param environment the environment whose agents are updated
+     * @param budget      the updates per tick shared by the agents away from
+     *                    the camera
+     */
+    public AgentScheduler(Environment environment, int budget) {
+        this.environment = environment;
+        this.budget = budget;
+    }
+
+    /**
+     * Updates the agents due this tick.
+     */
+    public void tick() {
+        tick++;
+        List<Agent> agents = environment.getAgents();
+        Camera camera = environment.getCamera();
+        int count = agents.size();
+        int left = budget;
+        scheduled = 0;
+        updated = 0;
+        near = 0;
+        deferred = 0;
+        if (cursor >= count)
+            cursor = 0;
+        for (int n = 0; n < count; n++) {
+            int i = cursor + n < count ? cursor + n : cursor + n - count;
+            Agent agent = agents.get(i);
+            Behaviour behaviour = agent.getBehaviour();
+            if (behaviour == null)
+                continue;
+            scheduled++;
+            /* Kept within an int for agents never updated, and at least the tick behaviours expect */
+            int elapsed = (int) Math.max(1, Math.min(tick - agent.getLastUpdateTick(), Integer.MAX_VALUE));
+            if (camera.isVisible(agent.getPosX(), agent.getPosY(), agent.getWidth(), agent.getHeight())) {
+                near++;
+            } else {
+                int interval = isWithinScreen(camera, agent) ? MID_INTERVAL : FAR_INTERVAL;
+                if (elapsed < interval)
+                    continue;
+                if (left == 0) {
+                    deferred++;
+                    continue;
+                }
+                left--;
+                if (left == 0)
+                    cursor = i + 1;
+            }
+            behaviour.update(agent, elapsed);
+            agent.setLastUpdateTick(tick);
+            if (updated == updatedAgents.length)
+                updatedAgents = Arrays.copyOf(updatedAgents, updated * 2);
+            updatedAgents[updated++] = i;
+        }
+        totalUpdated += updated;
+        maxUpdated = Math.max(maxUpdated, updated);
+    }
+
+    /**
+     * Checks if an agent is less than a screen away from the viewport.
+     */
+    private boolean isWithinScreen(Camera camera, Agent agent) {
+        int center = agent.getPosX() + agent.getWidth() / 2;
+        return center > camera.getPosX() - camera.getWidth()
+                && center < camera.getPosX() + 2 * camera.getWidth();
+    }
+
+    /**
+     * Gets the number of agents with a behaviour during the last tick.
+     *
+     * @return the agents scheduled
+     */
+    public int getScheduled() {
+        return scheduled;
+    }
+
+    /**
+     * Gets the number of agents updated during the last tick.
+     *
+     * @return the agents updated
+     */
+    public int getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Gets an agent updated during the last tick. Only those agents were
+     * changed by the tick, so a recording of the agents can leave the others
+     * out.
+     *
+     * @param n the agent, below {@link #getUpdated()}
+     * @return the agent's index in the environment's list
+     */
+    public int getUpdatedAgent(int n) {
+        return updatedAgents[n];
+    }
+
+    /**
+     * Gets the number of agents near the camera during the last tick, all of
+     * which were updated.
+     *
+     * @return the agents near the camera
+     */
+    public int getNear() {
+        return near;
+    }
+
+    /**
+     * Gets the number of due agents left for later ticks by the budget during
+     * the last tick.
+     *
+     * @return the agents deferred
+     */
+    public int getDeferred() {
+        return deferred;
+    }
+
+    /**
+     * Gets the number of ticks run so far.
+     *
+     * @return the ticks
+     */
+    public long getTicks() {
+        return tick;
+    }
+
+    /**
+     * Gets the average number of agents updated per tick.
+     *
+     * @return the average, 0 before the first tick
+     */
+    public double getAverageUpdated() {
+        return tick == 0 ? 0 : (double) totalUpdated / tick;
+    }
+
+    /**
+     * Gets the largest number of agents updated in one tick.
+     *
+     * @return the maximum
+     */
+    public int getMaxUpdated() {
+        return maxUpdated;
+    }
+}
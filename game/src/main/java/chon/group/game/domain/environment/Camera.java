@@ -0,0 +1,168 @@
+package chon.group.game.domain.environment;
+
+import chon.group.game.domain.agent.Agent;
+
+/**
+ * The part of the world shown on the screen.
+ * <p>
+ * The environment is measured in world coordinates and may be many screens
+ * wide; the camera is a viewport of the screen's size placed over it. Drawers
+ * subtract the camera position to get screen coordinates and skip whatever
+ * does not intersect the viewport, and the simulation updates entities far
+ * from it less often.
+ * </p>
+ */
+public class Camera {
+
+    /** Margin used when none is given, about half the size of an item. */
+    private static final int DEFAULT_MARGIN = 64;
+
+    /** The X (horizontal) world position of the viewport's left edge. */
+    private int posX;
+
+    /** The Y (vertical) world position of the viewport's top edge. */
+    private int posY;
+
+    /** The width of the viewport, equal to the screen's logical width. */
+    private final int width;
+
+    /** The height of the viewport, equal to the screen's logical height. */
+    private final int height;
+
+    /** Distance around the viewport within which entities still count as visible. */
+    private final int margin;
+
+    /**
+     * Constructor to create a camera at the world's origin with the default
+     * margin.
+     *
+     * @param width  the width of the viewport
+     * @param height the height of the viewport
+     */
+    public Camera(int width, int height) {
+        this(width, height, DEFAULT_MARGIN);
+    }
+
+    /**
+     * Constructor to create a camera at the world's origin.
+     *
+     * @param width  the width of the viewport
+     * @param height the height of the viewport
+     * @param margin the distance around the viewport that still counts as
+     *               visible
+     */
+    public Camera(int width, int height, int margin) {
+        this.width = width;
+        this.height = height;
+        this.margin = margin;
+    }
+
+    /**
+     * Gets the X (horizontal) world position of the viewport.
+     *
+     * @return the world X of the viewport's left edge
+     */
+    public int getPosX() {
+        return posX;
+    }
+
+    /**
+     * Gets the Y (vertical) world position of the viewport.
+     *
+     * @return the world Y of the viewport's top edge
+     */
+    public int getPosY() {
+        return posY;
+    }
+
+    /**
+     * Gets the width of the viewport.
+     *
+     * @return the viewport width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the viewport.
+     *
+     * @return the viewport height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the distance around the viewport that still counts as visible.
+     *
+     * @return the margin in pixels
+     */
+    public int getMargin() {
+        return margin;
+    }
+
+    /**
+     * Moves the viewport to a world position, keeping it inside the world.
+     *
+     * @param posX        the world X of the left edge
+     * @param posY        the world Y of the top edge
+     * @param worldWidth  the width of the world
+     * @param worldHeight the height of the world
+     */
+    public void moveTo(int posX, int posY, int worldWidth, int worldHeight) {
+        this.posX = Math.max(0, Math.min(posX, worldWidth - width));
+        this.posY = Math.max(0, Math.min(posY, worldHeight - height));
+    }
+
+    /**
+     * Follows an agent, scrolling only when it leaves the middle third of the
+     * viewport, so small movements do not shake the screen.
+     *
+     * @param target      the agent to follow
+     * @param worldWidth  the width of the world
+     * @param worldHeight the height of the world
+     */
+    public void follow(Agent target, int worldWidth, int worldHeight) {
+        int deadZoneX = width / 3;
+        int deadZoneY = height / 3;
+        int newX = posX;
+        int newY = posY;
+        if (target.getPosX() < posX + deadZoneX)
+            newX = target.getPosX() - deadZoneX;
+        else if (target.getPosX() + target.getWidth() > posX + width - deadZoneX)
+            newX = target.getPosX() + target.getWidth() - width + deadZoneX;
+        if (target.getPosY() < posY + deadZoneY)
+            newY = target.getPosY() - deadZoneY;
+        else if (target.getPosY() + target.getHeight() > posY + height - deadZoneY)
+            newY = target.getPosY() + target.getHeight() - height + deadZoneY;
+        moveTo(newX, newY, worldWidth, worldHeight);
+    }
+
+    /**
+     * Centres the viewport on an agent at once, as when a level starts.
+     *
+     * @param target      the agent to centre on
+     * @param worldWidth  the width of the world
+     * @param worldHeight the height of the world
+     */
+    public void centerOn(Agent target, int worldWidth, int worldHeight) {
+        moveTo(target.getPosX() + (target.getWidth() - width) / 2,
+                target.getPosY() + (target.getHeight() - height) / 2,
+                worldWidth, worldHeight);
+    }
+
+    /**
+     * Checks if a world rectangle intersects the viewport grown by the margin.
+     *
+     * @param x      the world X of the rectangle
+     * @param y      the world Y of the rectangle
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     * @return true if the rectangle may be seen on the screen
+     */
+    public boolean isVisible(double x, double y, int width, int height) {
+        return x + width > posX - margin && x < posX + this.width + margin
+                && y + height > posY - margin && y < posY + this.height + margin;
+    }
+}
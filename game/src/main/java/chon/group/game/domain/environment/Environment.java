@@ -1,18 +1,26 @@
 package chon.group.game.domain.environment;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Iterator;
+import chon.group.game.asset.Texture;
+import chon.group.game.asset.TextureManager;
 import chon.group.game.domain.agent.Agent;
 import chon.group.game.domain.item.FallingItem;
+import chon.group.game.domain.level.Level;
+import chon.group.game.domain.particle.ParticleSystem;
+import chon.group.game.domain.projectile.Emitter;
+import chon.group.game.domain.projectile.ProjectileSystem;
+import chon.group.game.jfr.CollisionEvent;
+import chon.group.game.jfr.ItemDespawnEvent;
 import javafx.scene.image.Image;
 
 /**
  * Represents the game environment, including properties such as dimensions,
  * position,
  * background image, agents, and the protagonist.
+ * Positions and dimensions are in world coordinates; the {@link Camera} tells
+ * which part of the world is on the screen.
  * The environment also controls rendering, restricts the environment area,
  * prints an agent's coordinates, and detects collisions between the protagonist
  * and agents.
@@ -32,10 +40,13 @@ public class Environment {
     private int height;
 
     /** The background image of the environment. */
-    private Image image;
+    private Texture image;
 
-    /** The background image of the pause. */
-    private Image pauseImage;
+    /** The tile-map level drawn instead of the background image, or null. */
+    private Level level;
+
+    /** The background image of the pause, loaded while the game is paused. */
+    private Texture pauseImage;
 
     /** The protagonist instance. */
     private Agent protagonist;
@@ -50,16 +61,77 @@ public class Environment {
     private int score;
 
     /** Image for the score panel display. */
-    private Image scoreImage;
+    private Texture scoreImage;
 
-    /** Image for the score panel display. */
-    private static final Map<String, Image> IMAGE_CACHE = new HashMap<>();
+    /** Ranks of the finished game shown on the game over screen, or null. */
+    private String rankText;
+
+    /** Distance from the bottom of the environment at which falling items are removed. */
+    public static final int GROUND_OFFSET = 100;
+
+    /** Buckets of the item schedules, about the ticks an item takes to fall. */
+    private static final int SCHEDULE_BUCKETS = 256;
+
+    /** Items by the tick they may reach the ground on, only looked at then. */
+    private final TickWheel despawns = new TickWheel(SCHEDULE_BUCKETS);
+
+    /** Items by the tick they may reach the protagonist's band on, only looked at then. */
+    private final TickWheel bandEntries = new TickWheel(SCHEDULE_BUCKETS);
+
+    /** Items overlapping the protagonist's band, the only ones tested against the protagonist. */
+    private FallingItem[] inBand = new FallingItem[16];
+
+    /** Number of items overlapping the protagonist's band. */
+    private int inBandCount;
+
+    /** Y of the band's top the items were scheduled for, or none yet. */
+    private int bandTop = Integer.MIN_VALUE;
+
+    /** Height of the band the items were scheduled for. */
+    private int bandHeight;
+
+    /** Maximum number of live particles in the environment. */
+    private static final int PARTICLE_CAPACITY = 16384;
+
+    /** Number of particles emitted when a bomb hits the protagonist. */
+    private static final int EXPLOSION_PARTICLES = 600;
+
+    /** Number of particles emitted when a hextech crystal is collected. */
+    private static final int SPARKLE_PARTICLES = 200;
+
+    /** Particle effects spawned by item collisions. */
+    private final ParticleSystem particles = new ParticleSystem(PARTICLE_CAPACITY);
+
+    /** Maximum number of live enemy projectiles. */
+    private static final int PROJECTILE_CAPACITY = 8192;
+
+    /** Damage dealt to the protagonist by each projectile. */
+    private static final int PROJECTILE_DAMAGE = 100;
+
+    /** Number of particles emitted when a projectile hits the protagonist. */
+    private static final int PROJECTILE_PARTICLES = 40;
+
+    /** Projectiles fired by the enemies. */
+    private final ProjectileSystem projectiles = new ProjectileSystem(PROJECTILE_CAPACITY);
+
+    /** Emitters firing the enemies' projectiles. */
+    private final List<Emitter> emitters = new ArrayList<>();
+
+    /** The viewport showing part of the environment, the whole of it by default. */
+    private Camera camera;
+
+    /** Simulation time of the last tick, in milliseconds, which animations are played at. */
+    private long time;
+
+    /** Listeners notified of the environment's events. */
+    private final List<EnvironmentListener> listeners = new ArrayList<>();
 
     /**
      * Default constructor to create an empty environment.
      */
     public Environment() {
         this.fallingItems = new ArrayList<>();
+        this.camera = new Camera(0, 0);
     }
 
     /**
@@ -79,6 +151,7 @@ public class Environment {
         this.width = width;
         this.setImage(pathImage);
         this.agents = new ArrayList<Agent>();
+        this.camera = new Camera(width, height);
     }
 
     /**
@@ -99,6 +172,7 @@ public class Environment {
         this.width = width;
         this.setImage(pathImage);
         this.setAgents(agents);
+        this.camera = new Camera(width, height);
     }
 
     /**
@@ -171,6 +245,54 @@ public class Environment {
      */
     public void setHeight(int height) {
         this.height = height;
+        /* The ground moved, so every item's landing did */
+        for (int i = 0; i < fallingItems.size(); i++)
+            scheduleDespawn(fallingItems.get(i));
+    }
+
+    /**
+     * Gets the camera showing part of the environment.
+     *
+     * @return the camera
+     */
+    public Camera getCamera() {
+        return camera;
+    }
+
+    /**
+     * Sets the camera showing part of the environment.
+     *
+     * @param camera the new camera, sized to the screen
+     */
+    public void setCamera(Camera camera) {
+        this.camera = camera;
+    }
+
+    /**
+     * Gets the simulation time of the last tick.
+     *
+     * @return the time in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Sets the simulation time of the current tick.
+     *
+     * @param time the time in milliseconds
+     */
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    /**
+     * Gets how many screens wide the environment is.
+     *
+     * @return the number of viewports needed to cover the width, at least 1
+     */
+    public int getScreens() {
+        return Math.max(1, (width + camera.getWidth() - 1) / Math.max(1, camera.getWidth()));
     }
 
     /**
@@ -179,6 +301,16 @@ public class Environment {
      * @return the background image of the environment
      */
     public Image getImage() {
+        return image != null ? image.get() : null;
+    }
+
+    /**
+     * Gets the handle of the background image, for renderers that draw its
+     * raster.
+     *
+     * @return the handle, or null when there is no background image
+     */
+    public Texture getImageTexture() {
         return image;
     }
 
@@ -188,15 +320,51 @@ public class Environment {
      * @param pathImage the path to the new background image
      */
     public void setImage(String pathImage) {
-        this.image = new Image(getClass().getResource(pathImage).toExternalForm());
+        this.image = TextureManager.getDefault().texture(pathImage);
+    }
+
+    /**
+     * Gets the tile-map level of the environment.
+     *
+     * @return the level, or null when the background image is drawn instead
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Sets the tile-map level of the environment.
+     *
+     * @param level the level, or null to draw the background image
+     */
+    public void setLevel(Level level) {
+        this.level = level;
     }
 
     public Image getPauseImage() {
+        return pauseImage != null ? pauseImage.get() : null;
+    }
+
+    /**
+     * Gets the handle of the pause image, for renderers that draw its raster.
+     *
+     * @return the handle, or null when there is no pause image
+     */
+    public Texture getPauseTexture() {
         return pauseImage;
     }
 
     public void setPauseImage(String pathImage) {
-        this.pauseImage = new Image(getClass().getResource(pathImage).toExternalForm());
+        this.pauseImage = TextureManager.getDefault().texture(pathImage);
+    }
+
+    /**
+     * Releases the pause image once the game is resumed; it is loaded again
+     * on the next pause.
+     */
+    public void releasePauseImage() {
+        if (pauseImage != null)
+            pauseImage.release();
     }
 
     /**
@@ -236,7 +404,11 @@ public class Environment {
     }
 
     /**
-     * Gets the list of falling items in the environment.
+     * Gets the list of falling items in the environment. Items are added and
+     * removed with {@link #addFallingItem(FallingItem)},
+     * {@link #removeFallingItem(FallingItem)} and
+     * {@link #clearFallingItems()}, which keep their removal at the ground
+     * scheduled.
      *
      * @return the list of falling items
      */
@@ -251,6 +423,105 @@ public class Environment {
      */
     public void setFallingItems(List<FallingItem> fallingItems) {
         this.fallingItems = fallingItems;
+        despawns.clear();
+        for (int i = 0; i < fallingItems.size(); i++) {
+            fallingItems.get(i).setIndex(i);
+            scheduleDespawn(fallingItems.get(i));
+        }
+        /* Scheduled again for the band by the next collision test */
+        bandTop = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Adds an item at the end of the falling items, schedules its removal at
+     * the ground and notifies the listeners.
+     *
+     * @param item the item spawned
+     */
+    public void addFallingItem(FallingItem item) {
+        item.setIndex(fallingItems.size());
+        fallingItems.add(item);
+        scheduleDespawn(item);
+        scheduleBandEntry(item);
+        notifyItemSpawned(item);
+    }
+
+    /**
+     * Removes a falling item and notifies the listeners. The last item takes
+     * its place in the list, so the removal costs the same wherever the item
+     * is.
+     *
+     * @param item the item removed
+     */
+    public void removeFallingItem(FallingItem item) {
+        int index = item.getIndex();
+        int last = fallingItems.size() - 1;
+        FallingItem moved = fallingItems.remove(last);
+        if (index != last) {
+            fallingItems.set(index, moved);
+            moved.setIndex(index);
+        }
+        item.setIndex(-1);
+        notifyItemRemoved(item);
+    }
+
+    /**
+     * Removes every falling item, notifying the listeners of each.
+     */
+    public void clearFallingItems() {
+        for (int i = 0; i < fallingItems.size(); i++) {
+            fallingItems.get(i).setIndex(-1);
+            notifyItemRemoved(fallingItems.get(i));
+        }
+        fallingItems.clear();
+        despawns.clear();
+        bandEntries.clear();
+        Arrays.fill(inBand, 0, inBandCount, null);
+        inBandCount = 0;
+    }
+
+    /**
+     * Changes the falling speed of an item, reschedules its removal at the
+     * ground and its arrival at the protagonist's band, which a faster item
+     * reaches sooner, and notifies the listeners.
+     *
+     * @param item  the item
+     * @param speed the new falling speed
+     */
+    public void setItemSpeed(FallingItem item, double speed) {
+        item.setSpeed(speed);
+        if (item.getIndex() < 0)
+            return;
+        scheduleDespawn(item);
+        if (item.getBandTick() >= 0)
+            scheduleBandEntry(item);
+        notifyItemSpeedChanged(item);
+    }
+
+    /**
+     * Replaces every falling item with others, as when an earlier state is
+     * restored. The listeners are not told of each item removed and added,
+     * which did not leave or start falling, but once that the items were
+     * restored.
+     *
+     * @param items the items falling from now on
+     */
+    public void restoreFallingItems(List<FallingItem> items) {
+        for (int i = 0; i < fallingItems.size(); i++)
+            fallingItems.get(i).setIndex(-1);
+        fallingItems.clear();
+        despawns.clear();
+        bandEntries.clear();
+        Arrays.fill(inBand, 0, inBandCount, null);
+        inBandCount = 0;
+        for (int i = 0; i < items.size(); i++) {
+            FallingItem item = items.get(i);
+            item.setIndex(i);
+            fallingItems.add(item);
+            scheduleDespawn(item);
+            scheduleBandEntry(item);
+        }
+        notifyItemsRestored();
     }
 
     /**
@@ -271,23 +542,95 @@ public class Environment {
         this.score = score;
     }
 
+    /**
+     * Gets the particle system holding the collision effects.
+     *
+     * @return the particle system
+     */
+    public ParticleSystem getParticles() {
+        return particles;
+    }
+
+    /**
+     * Gets the projectiles fired by the enemies.
+     *
+     * @return the projectile system
+     */
+    public ProjectileSystem getProjectiles() {
+        return projectiles;
+    }
+
+    /**
+     * Gets the emitters firing the enemies' projectiles.
+     *
+     * @return the list of emitters
+     */
+    public List<Emitter> getEmitters() {
+        return emitters;
+    }
+
+    /**
+     * Registers a listener for the environment's events.
+     *
+     * @param listener the listener to notify
+     */
+    public void addListener(EnvironmentListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops notifying a listener of the environment's events.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(EnvironmentListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets the ranks of the finished game.
+     *
+     * @return the ranks as text, or null when they are not known
+     */
+    public String getRankText() {
+        return rankText;
+    }
+
+    /**
+     * Sets the ranks of the finished game.
+     *
+     * @param rankText the ranks as text, or null to hide them
+     */
+    public void setRankText(String rankText) {
+        this.rankText = rankText;
+    }
+
     /**
      * Gets the score panel image.
      *
      * @return the score panel image
      */
     public Image getScoreImage() {
+        return scoreImage != null ? scoreImage.get() : null;
+    }
+
+    /**
+     * Gets the handle of the score panel image, for renderers that draw its
+     * raster.
+     *
+     * @return the handle, or null when there is no score panel image
+     */
+    public Texture getScoreTexture() {
         return scoreImage;
     }
 
     /**
-     * Sets the score panel image, using image caching for better performance.
+     * Sets the score panel image, shared through the texture manager.
      *
      * @param pathImage the path to the score panel image
      */
     public void setScoreImage(String pathImage) {
-        this.scoreImage = IMAGE_CACHE.computeIfAbsent(pathImage,
-                path -> new Image(getClass().getResource(path).toExternalForm()));
+        this.scoreImage = TextureManager.getDefault().texture(pathImage);
     }
 
     /**
@@ -307,36 +650,262 @@ public class Environment {
     }
 
     /**
-     * Removes falling items that have reached the ground level.
+     * Chooses the animation of the protagonist and of every agent for what
+     * they did during the tick.
+     */
+    public void animateAgents() {
+        protagonist.animate(time);
+        for (int i = 0; i < agents.size(); i++) {
+            agents.get(i).animate(time);
+        }
+    }
+
+    /**
+     * Notifies the listeners that the protagonist died.
+     */
+    public void notifyGameOver() {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onGameOver(score);
+        }
+    }
+
+    /**
+     * Notifies the listeners that an item started falling.
+     *
+     * @param item the item spawned
+     */
+    public void notifyItemSpawned(FallingItem item) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onItemSpawned(item);
+        }
+    }
+
+    /**
+     * Notifies the listeners that an item left the environment.
+     *
+     * @param item the item removed
+     */
+    public void notifyItemRemoved(FallingItem item) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onItemRemoved(item);
+        }
+    }
+
+    /**
+     * Notifies the listeners that a falling item changed speed.
+     *
+     * @param item the item
+     */
+    public void notifyItemSpeedChanged(FallingItem item) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onItemSpeedChanged(item);
+        }
+    }
+
+    /**
+     * Notifies the listeners that every falling item was replaced.
+     */
+    public void notifyItemsRestored() {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onItemsRestored();
+        }
+    }
+
+    /**
+     * Removes falling items that have reached the ground level. Only the
+     * items scheduled on this tick are looked at; one still above the ground,
+     * having skipped falls away from the camera or slowed down, is scheduled
+     * again.
      */
     public void cleanupItems() {
-        int groundOffset = 100;
-        fallingItems.removeIf(item -> item.getPosY() > (height - groundOffset));
+        int due = despawns.advance();
+        long tick = despawns.getTick();
+        for (int i = 0; i < due; i++) {
+            FallingItem item = despawns.getExpired(i);
+            /* Entries of items removed or rescheduled since are stale */
+            if (item.getIndex() < 0 || item.getDespawnTick() != tick)
+                continue;
+            if (item.getPosY() <= (height - GROUND_OFFSET)) {
+                scheduleDespawn(item);
+                continue;
+            }
+            removeFallingItem(item);
+            ItemDespawnEvent event = new ItemDespawnEvent();
+            if (event.isEnabled()) {
+                event.reason = ItemDespawnEvent.GROUND;
+                event.bomb = item.isBomb();
+                event.posY = (int) item.getPosY();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Schedules an item on the first tick it can pass the ground level on.
+     */
+    private void scheduleDespawn(FallingItem item) {
+        item.setDespawnTick(despawns.schedule(item, despawns.getTick() + ticksToPass(item, height - GROUND_OFFSET)));
+    }
+
+    /**
+     * Schedules an item on the first tick its bottom can pass the top of the
+     * protagonist's band on.
+     */
+    private void scheduleBandEntry(FallingItem item) {
+        if (bandTop == Integer.MIN_VALUE)
+            return;
+        item.setBandTick(bandEntries.schedule(item,
+                bandEntries.getTick() + ticksToPass(item, bandTop - item.getHeight())));
+    }
+
+    /**
+     * Gets the soonest number of ticks after which an item's Y can be past a
+     * line. Its next fall catches up the ticks it skipped, so the soonest fall
+     * passing the line is found from its position, speed and skipped falls;
+     * the tick before it is taken, as rounding may land the item a hair
+     * early. An item that does not fall is looked at again a wheel later.
+     */
+    private static long ticksToPass(FallingItem item, double line) {
+        if (item.getSpeed() <= 0)
+            return SCHEDULE_BUCKETS;
+        long ticks = (long) Math.floor((line - item.getPosY()) / item.getSpeed()) - item.getSkippedFalls();
+        return Math.max(1, ticks);
+    }
+
+    /**
+     * Schedules every item again when the protagonist's band moved or
+     * changed height since the items were scheduled. The protagonist only
+     * moves sideways, so this happens when it is placed, not while playing.
+     */
+    private void updateBand() {
+        if (protagonist.getPosY() == bandTop && protagonist.getHeight() == bandHeight)
+            return;
+        bandTop = protagonist.getPosY();
+        bandHeight = protagonist.getHeight();
+        bandEntries.clear();
+        Arrays.fill(inBand, 0, inBandCount, null);
+        inBandCount = 0;
+        for (int i = 0; i < fallingItems.size(); i++)
+            scheduleBandEntry(fallingItems.get(i));
+    }
+
+    /**
+     * Moves the items due on this tick into the band, or schedules them
+     * again while they are still above it, and drops the items that left
+     * the band or the environment. Items only fall, so an item below the
+     * band never comes back to it.
+     *
+     * @return the item of the band hitting the protagonist that comes first
+     *         in the list, as a scan of the list would find it, or null
+     */
+    private FallingItem updateInBand() {
+        int bandBottom = bandTop + bandHeight;
+        int due = bandEntries.advance();
+        long tick = bandEntries.getTick();
+        for (int i = 0; i < due; i++) {
+            FallingItem item = bandEntries.getExpired(i);
+            /* Entries of items removed or rescheduled since are stale */
+            if (item.getIndex() < 0 || item.getBandTick() != tick)
+                continue;
+            if (item.getPosY() + item.getHeight() <= bandTop) {
+                scheduleBandEntry(item);
+                continue;
+            }
+            item.setBandTick(-1);
+            if (item.getPosY() >= bandBottom)
+                continue;
+            if (inBandCount == inBand.length)
+                inBand = Arrays.copyOf(inBand, inBandCount * 2);
+            inBand[inBandCount++] = item;
+        }
+        FallingItem hit = null;
+        int kept = 0;
+        for (int i = 0; i < inBandCount; i++) {
+            FallingItem item = inBand[i];
+            if (item.getIndex() < 0 || item.getBandTick() >= 0 || item.getPosY() >= bandBottom)
+                continue;
+            inBand[kept++] = item;
+            if ((hit == null || item.getIndex() < hit.getIndex()) && intersectWithItem(protagonist, item))
+                hit = item;
+        }
+        Arrays.fill(inBand, kept, inBandCount, null);
+        inBandCount = kept;
+        return hit;
     }
 
     /**
      * Checks for collisions between the protagonist and falling items.
      * Updates score and protagonist health based on item type.
+     * <p>
+     * The protagonist never moves vertically and items fall at a constant
+     * speed, so the tick each item can reach the protagonist's band is known
+     * in advance; only the items overlapping the band are tested, and the
+     * test costs as much as the items that can hit, not all the items.
+     * </p>
      */
     public void detectFallingItemCollision() {
-        // Usar um iterator para remover itens de forma mais eficiente
-        Iterator<FallingItem> iterator = fallingItems.iterator();
-        while (iterator.hasNext()) {
-            FallingItem item = iterator.next();
-            if (intersectWithItem(protagonist, item)) {
-                if (item.isBomb()) {
-                    protagonist.takeDamage(1000);
-                } else {
-                    score++;
-                }
-                iterator.remove();
-                break; // Sai do loop após primeira colisão
+        updateBand();
+        FallingItem item = updateInBand();
+        if (item != null) {
+            double centerX = item.getPosX() + item.getWidth() / 2.0;
+            double centerY = item.getPosY() + item.getHeight() / 2.0;
+            if (item.isBomb()) {
+                protagonist.takeDamage(1000, time);
+                particles.emitExplosion(centerX, centerY, EXPLOSION_PARTICLES);
+            } else {
+                score++;
+                particles.emitSparkle(centerX, centerY, SPARKLE_PARTICLES);
+            }
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onItemCollision(item);
             }
+            recordCollision(item);
+            removeFallingItem(item);
         }
         // Limpa itens fora da tela
         cleanupItems();
     }
 
+    /**
+     * Removes the projectiles hitting the protagonist, which takes damage
+     * from them. Only the projectiles near the protagonist are tested.
+     */
+    public void detectProjectileCollision() {
+        int hits = projectiles.collide(protagonist.getPosX(), protagonist.getPosY(),
+                protagonist.getWidth(), protagonist.getHeight());
+        for (int n = 0; n < hits; n++) {
+            float x = projectiles.getHitX(n);
+            float y = projectiles.getHitY(n);
+            protagonist.takeDamage(PROJECTILE_DAMAGE, time);
+            particles.emitExplosion(x, y, PROJECTILE_PARTICLES);
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onProjectileHit(x, y);
+            }
+        }
+    }
+
+    /**
+     * Emits the collision and despawn events of an item hit by the protagonist.
+     *
+     * @param item the item hit or collected
+     */
+    private void recordCollision(FallingItem item) {
+        CollisionEvent collision = new CollisionEvent();
+        if (collision.isEnabled()) {
+            collision.outcome = item.isBomb() ? CollisionEvent.DAMAGE : CollisionEvent.PICKUP;
+            collision.health = protagonist.getHealth();
+            collision.score = score;
+            collision.commit();
+        }
+        ItemDespawnEvent despawn = new ItemDespawnEvent();
+        if (despawn.isEnabled()) {
+            despawn.reason = ItemDespawnEvent.COLLISION;
+            despawn.bomb = item.isBomb();
+            despawn.posY = (int) item.getPosY();
+            despawn.commit();
+        }
+    }
+
     /**
      * Checks if an agent intersects with a falling item.
      *
@@ -0,0 +1,73 @@
+package chon.group.game.domain.environment;
+
+import chon.group.game.domain.item.FallingItem;
+
+/**
+ * Receives the events happening in an {@link Environment}, so subsystems such
+ * as audio can react to them without the environment knowing about them.
+ * Every method has an empty default implementation.
+ */
+public interface EnvironmentListener {
+
+    /**
+     * Called when the protagonist collides with a falling item, before the
+     * item is removed.
+     *
+     * @param item the item hit or collected
+     */
+    default void onItemCollision(FallingItem item) {
+    }
+
+    /**
+     * Called when an item starts falling, after it is added to the
+     * environment.
+     *
+     * @param item the item spawned
+     */
+    default void onItemSpawned(FallingItem item) {
+    }
+
+    /**
+     * Called when an item leaves the environment, because it was hit or
+     * collected, reached the ground or the game restarted.
+     *
+     * @param item the item removed
+     */
+    default void onItemRemoved(FallingItem item) {
+    }
+
+    /**
+     * Called when a falling item changes speed, after it changed.
+     *
+     * @param item the item
+     */
+    default void onItemSpeedChanged(FallingItem item) {
+    }
+
+    /**
+     * Called when every falling item was replaced at once, as when a rewind
+     * restores an earlier state. The items replaced are neither removed nor
+     * spawned; a listener keeping something for each item builds it again
+     * from {@link Environment#getFallingItems()}.
+     */
+    default void onItemsRestored() {
+    }
+
+    /**
+     * Called when an enemy projectile hits the protagonist, after it is
+     * removed.
+     *
+     * @param x the X where it hit
+     * @param y the Y where it hit
+     */
+    default void onProjectileHit(float x, float y) {
+    }
+
+    /**
+     * Called once when the protagonist dies.
+     *
+     * @param score the final score
+     */
+    default void onGameOver(int score) {
+    }
+}
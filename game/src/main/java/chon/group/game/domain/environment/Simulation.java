@@ -0,0 +1,449 @@
+package chon.group.game.domain.environment;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import chon.group.game.domain.agent.Agent;
+import chon.group.game.domain.agent.ChaseBehaviour;
+import chon.group.game.domain.agent.HoverBehaviour;
+import chon.group.game.domain.agent.PatrolBehaviour;
+import chon.group.game.domain.item.FallingItem;
+import chon.group.game.domain.item.ItemCatalogue;
+import chon.group.game.domain.item.ItemType;
+import chon.group.game.domain.level.Level;
+import chon.group.game.domain.projectile.Emitter;
+import chon.group.game.domain.projectile.Pattern;
+import chon.group.game.domain.projectile.ProjectileSystem;
+import chon.group.game.domain.rewind.RewindBuffer;
+import chon.group.game.domain.sprite.SpriteAnimator;
+import chon.group.game.domain.sprite.Sprites;
+import chon.group.game.jfr.ItemSpawnEvent;
+
+/**
+ * Advances the game state one tick at a time.
+ * <p>
+ * The simulation holds everything the game loop needs besides rendering and
+ * input handling: item spawning, falling, collisions, particle updates, the
+ * enemies' projectiles and the other agents' movements. Time is passed in by the caller, so the same code
+ * runs inside the JavaFX {@code AnimationTimer} and in headless sessions
+ * driven by a virtual clock.
+ * </p>
+ */
+public class Simulation {
+
+    /**
+     * Delay between item spawns in milliseconds.
+     */
+    private static final long ITEM_SPAWN_DELAY = 650;
+
+    /**
+     * Maximum number of items allowed on screen simultaneously.
+     */
+    private static final int MAX_ITEMS = 40;
+
+    /** Logical width of the screen, and of one screen of the world. */
+    private static final int SCREEN_WIDTH = 1280;
+
+    /** Logical height of the screen and of the world. */
+    private static final int SCREEN_HEIGHT = 780;
+
+    /**
+     * Ticks between the updates of items away from the camera. Their falls are
+     * caught up in one step, so they stay where a full update would put them.
+     */
+    private static final int OFFSCREEN_STRIDE = 4;
+
+    /**
+     * Agent updates per tick shared by the agents away from the camera, set
+     * with {@code -Dchon.agents.budget}.
+     */
+    private static final int AGENT_BUDGET = Integer.getInteger("chon.agents.budget", 32);
+
+    /** The environment being simulated. */
+    private final Environment environment;
+
+    /**
+     * Random number generator for item spawning, owned by this simulation.
+     */
+    private final SplittableRandom random;
+
+    /** The item types and their spawn weights. */
+    private final ItemCatalogue catalogue;
+
+    /** Runs the other agents' behaviours. */
+    private final AgentScheduler agentScheduler;
+
+    /**
+     * Timestamp of the last item spawn.
+     */
+    private long lastItemSpawn = 0;
+
+    /**
+     * Flag indicating if the game is over.
+     */
+    private boolean gameOver = false;
+
+    /** Number of items kept falling by a stress test, or 0 to spawn normally. */
+    private int stressItems;
+
+    /** Records the last ticks so they can be rewound, or null. */
+    private RewindBuffer rewindBuffer;
+
+    /**
+     * Constructor to simulate an environment with a random seed.
+     *
+     * @param environment the environment to simulate
+     */
+    public Simulation(Environment environment) {
+        this(environment, new SplittableRandom(), ItemCatalogue.loadDefault());
+    }
+
+    /**
+     * Constructor to simulate an environment with a fixed seed, which makes
+     * scripted sessions reproducible.
+     *
+     * @param environment the environment to simulate
+     * @param seed        the seed used for item spawning
+     */
+    public Simulation(Environment environment, long seed) {
+        this(environment, new SplittableRandom(seed), ItemCatalogue.loadDefault());
+    }
+
+    /**
+     * Constructor to simulate an environment with a given random generator and
+     * item catalogue.
+     *
+     * @param environment the environment to simulate
+     * @param random      the generator used for item spawning
+     * @param catalogue   the item types and their spawn weights
+     */
+    public Simulation(Environment environment, SplittableRandom random, ItemCatalogue catalogue) {
+        this.environment = environment;
+        this.random = random;
+        this.catalogue = catalogue;
+        this.agentScheduler = new AgentScheduler(environment, AGENT_BUDGET);
+    }
+
+    /**
+     * Creates the default environment with the protagonist, the enemy and the
+     * interface images, a few screens wide with the camera on the protagonist.
+     * When {@code -Dchon.level} names a level file, its tile map is drawn
+     * instead of the background image and sets the width of the world. With
+     * {@code -Dchon.bullethell=true} Jinx fires projectile patterns at the
+     * protagonist.
+     *
+     * @return the environment ready to be simulated
+     */
+    public static Environment createDefaultEnvironment() {
+        /* -Dchon.world.screens sets how many screens wide the level is */
+        int screens = Math.max(1, Integer.getInteger("chon.world.screens", 3));
+        Environment environment = new Environment(0, 0, SCREEN_WIDTH * screens, SCREEN_HEIGHT,
+                "/images/environment/zaun.png");
+        /* -Dchon.level draws a tile-map level file instead, as wide as the level */
+        String levelPath = System.getProperty("chon.level");
+        if (levelPath != null) {
+            try {
+                Level level = Level.open(Paths.get(levelPath));
+                environment.setLevel(level);
+                environment.setWidth(Math.max(SCREEN_WIDTH, level.getWidth()));
+            } catch (IOException e) {
+                System.out.println("Erro ao carregar nível: " + e.getMessage());
+            }
+        }
+        Agent vi = new Agent(400, 630, 140, 84, 2, 1000, "/images/agents/vi.png", false);
+        Agent jinx = new Agent(920, 35, 145, 135, 2, 3, "/images/agents/jinx.png", true);
+        vi.setAnimator(new SpriteAnimator(Sprites.character("/images/agents/vi.png", 84, 140), false));
+        jinx.setAnimator(new SpriteAnimator(Sprites.character("/images/agents/jinx.png", 135, 145), true));
+        environment.setProtagonist(vi);
+        jinx.setBehaviour(new PatrolBehaviour(50, environment.getWidth() - 50));
+        environment.getAgents().add(jinx);
+        if (Boolean.getBoolean("chon.bullethell")) {
+            environment.getEmitters().add(createBulletHellEmitter(jinx));
+        }
+        /* -Dchon.enemies adds more Jinx-style enemies along the world */
+        addEnemies(environment, jinx, Integer.getInteger("chon.enemies", 0));
+        environment.setCamera(new Camera(SCREEN_WIDTH, SCREEN_HEIGHT));
+        environment.getCamera().centerOn(vi, environment.getWidth(), environment.getHeight());
+        environment.setPauseImage("/images/environment/pause.png");
+        environment.setScoreImage("/images/environment/score.png");
+        return environment;
+    }
+
+    /**
+     * Adds enemies copied from a prototype at random places along the world,
+     * each patrolling, hovering or chasing the protagonist around where it
+     * starts. The layout is the same on every run.
+     *
+     * @param environment the environment receiving the enemies
+     * @param prototype   the enemy to copy
+     * @param count       the number of enemies to add
+     */
+    public static void addEnemies(Environment environment, Agent prototype, int count) {
+        SplittableRandom layout = new SplittableRandom(count);
+        int worldWidth = environment.getWidth();
+        for (int i = 0; i < count; i++) {
+            int posX = layout.nextInt(Math.max(1, worldWidth - prototype.getWidth()));
+            int posY = 35 + layout.nextInt(200);
+            int minX = Math.max(0, posX - 300 - layout.nextInt(300));
+            int maxX = Math.min(worldWidth, posX + prototype.getWidth() + 300 + layout.nextInt(300));
+            Agent enemy = new Agent(prototype, posX, posY);
+            switch (layout.nextInt(3)) {
+                case 0:
+                    enemy.setBehaviour(new PatrolBehaviour(minX, maxX));
+                    break;
+                case 1:
+                    enemy.setBehaviour(new HoverBehaviour(minX, maxX, posY, 10 + layout.nextInt(30),
+                            60 + layout.nextInt(120)));
+                    break;
+                default:
+                    enemy.setBehaviour(new ChaseBehaviour(environment.getProtagonist(), 400, minX, maxX));
+                    break;
+            }
+            environment.getAgents().add(enemy);
+        }
+    }
+
+    /**
+     * Creates the emitter of the bullet-hell mode: fans of bullets, a
+     * turning spiral, a burst of aimed orbs and braided weaving pellets.
+     *
+     * @param source the agent firing
+     * @return the emitter
+     */
+    public static Emitter createBulletHellEmitter(Agent source) {
+        return new Emitter(source,
+                Pattern.spread(9, 70, 5f, 18, 5, ProjectileSystem.PINK),
+                Pattern.spiral(16, 7, 3f, 2, 180, ProjectileSystem.BLUE),
+                Pattern.aimed(9f, 5, 20, ProjectileSystem.YELLOW),
+                Pattern.wave(6, 50, 4f, 36f, 50, 14, 10, ProjectileSystem.PURPLE));
+    }
+
+    /**
+     * Gets the scheduler running the other agents' behaviours.
+     *
+     * @return the agent scheduler, which counts the agents updated per tick
+     */
+    public AgentScheduler getAgentScheduler() {
+        return agentScheduler;
+    }
+
+    /**
+     * Gets the environment being simulated.
+     *
+     * @return the environment
+     */
+    public Environment getEnvironment() {
+        return environment;
+    }
+
+    /**
+     * Gets if the game is over.
+     *
+     * @return true if the protagonist died
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Gets the number of items kept falling by a stress test.
+     *
+     * @return the number of items, or 0 when items spawn normally
+     */
+    public int getStressItems() {
+        return stressItems;
+    }
+
+    /**
+     * Keeps a number of items falling, spawning as many as needed on every
+     * tick regardless of the spawn delay and the item limit.
+     *
+     * @param stressItems the number of items, or 0 to spawn normally again
+     */
+    public void setStressItems(int stressItems) {
+        this.stressItems = Math.max(0, stressItems);
+    }
+
+    /**
+     * Gets the buffer recording the last ticks.
+     *
+     * @return the rewind buffer, or null when ticks are not recorded
+     */
+    public RewindBuffer getRewindBuffer() {
+        return rewindBuffer;
+    }
+
+    /**
+     * Sets the buffer recording the last ticks, which records every tick from
+     * then on.
+     *
+     * @param rewindBuffer the rewind buffer, or null to stop recording
+     */
+    public void setRewindBuffer(RewindBuffer rewindBuffer) {
+        this.rewindBuffer = rewindBuffer;
+    }
+
+    /**
+     * Goes back a number of recorded ticks, or to the oldest one still
+     * recorded. The ticks gone back over are forgotten.
+     *
+     * @param ticks the number of ticks to go back
+     * @return false when there is no older tick to go back to
+     */
+    public boolean rewind(int ticks) {
+        if (rewindBuffer == null)
+            return false;
+        long oldest = rewindBuffer.getOldestTick();
+        long newest = rewindBuffer.getNewestTick();
+        if (oldest < 0 || newest <= oldest)
+            return false;
+        rewindBuffer.restore(Math.max(oldest, newest - ticks));
+        gameOver = environment.getProtagonist().getHealth() <= 0;
+        lastItemSpawn = environment.getTime();
+        return true;
+    }
+
+    /**
+     * Resets health, score, items, projectiles and effects to start a new
+     * game.
+     */
+    public void restart() {
+        gameOver = false;
+        environment.getProtagonist().setHealth(environment.getProtagonist().getFullHealth());
+        environment.setScore(0);
+        environment.setRankText(null);
+        environment.clearFallingItems();
+        environment.getParticles().clear();
+        environment.getProjectiles().clear();
+        List<Emitter> emitters = environment.getEmitters();
+        for (int i = 0; i < emitters.size(); i++)
+            emitters.get(i).reset();
+        if (rewindBuffer != null)
+            rewindBuffer.clear();
+    }
+
+    /**
+     * Advances the game by one tick.
+     *
+     * @param input       the keys currently held
+     * @param currentTime the current time in milliseconds
+     */
+    public void tick(List<String> input, long currentTime) {
+        environment.setTime(currentTime);
+        // Verifique se o protagonista morreu
+        if (!gameOver && environment.getProtagonist().getHealth() <= 0) {
+            gameOver = true;
+            environment.notifyGameOver();
+        }
+        /* ChonBota Only Moves if the Player Press Something */
+        /* Update the protagonist's movements if input exists */
+        if (!input.isEmpty()) {
+            /* ChonBota's Movements */
+            environment.getProtagonist().move(input);
+            environment.checkBorders();
+            environment.getCamera().follow(environment.getProtagonist(),
+                    environment.getWidth(), environment.getHeight());
+        }
+
+        // Spawn new items, keeping the same density on every screen of the world
+        int screens = environment.getScreens();
+        if (stressItems > 0) {
+            while (environment.getFallingItems().size() < stressItems)
+                spawnItem();
+            lastItemSpawn = currentTime;
+        } else if (currentTime - lastItemSpawn > ITEM_SPAWN_DELAY / screens &&
+                environment.getFallingItems().size() < MAX_ITEMS * screens) {
+            spawnItem();
+            lastItemSpawn = currentTime;
+        }
+
+        // Update falling items, those away from the camera only every few ticks
+        updateFallingItems();
+        environment.detectFallingItemCollision();
+        environment.getParticles().update();
+
+        // Fire and move the enemies' projectiles, then test the ones near the protagonist
+        updateProjectiles();
+
+        /* ChonBot's Automatic Movements */
+        /* Update the other agents' movements */
+        agentScheduler.tick();
+        environment.animateAgents();
+
+        if (rewindBuffer != null)
+            rewindBuffer.record();
+    }
+
+    /**
+     * Fires the emitters' volleys, moves every projectile, culls the ones that
+     * left the world and removes the ones hitting the protagonist.
+     */
+    private void updateProjectiles() {
+        List<Emitter> emitters = environment.getEmitters();
+        ProjectileSystem projectiles = environment.getProjectiles();
+        for (int i = 0; i < emitters.size(); i++)
+            emitters.get(i).update(projectiles, environment.getProtagonist());
+        projectiles.update(environment.getWidth(), environment.getHeight());
+        environment.detectProjectileCollision();
+    }
+
+    /**
+     * Makes the items fall. Items near the camera fall every tick; the others
+     * skip ticks and catch up every {@link #OFFSCREEN_STRIDE} ticks, or as
+     * soon as the camera reaches them.
+     */
+    private void updateFallingItems() {
+        Camera camera = environment.getCamera();
+        List<FallingItem> items = environment.getFallingItems();
+        for (int i = 0; i < items.size(); i++) {
+            FallingItem item = items.get(i);
+            if (fallsOn(camera, item.getPosX(), item.getPosY(), item.getWidth(), item.getHeight(),
+                    item.getSkippedFalls())) {
+                item.fall();
+            } else {
+                item.skipFall();
+            }
+        }
+    }
+
+    /**
+     * Tells whether an item falls on a tick or skips it: items near the
+     * camera fall on every tick, the others once every
+     * {@link #OFFSCREEN_STRIDE} ticks.
+     *
+     * @param camera       the camera after the tick's movements
+     * @param x            the X (horizontal) position of the item
+     * @param y            the Y (vertical) position of the item
+     * @param width        the width of the item
+     * @param height       the height of the item
+     * @param skippedFalls the ticks the item skipped since its last fall
+     * @return true if the item falls, catching up the skipped ticks
+     */
+    public static boolean fallsOn(Camera camera, double x, double y, int width, int height, int skippedFalls) {
+        return skippedFalls + 1 >= OFFSCREEN_STRIDE || camera.isVisible(x, y, width, height);
+    }
+
+    /**
+     * Spawns a random item at the top of the environment, drawing its type
+     * from the catalogue's weights for the current difficulty phase.
+     */
+    private void spawnItem() {
+        int minGap = 140;
+        int spawnX = random.nextInt(environment.getWidth() - minGap);
+
+        ItemType type = catalogue.sample(environment.getScore(), random);
+        FallingItem item = type.create(spawnX);
+        environment.addFallingItem(item);
+
+        ItemSpawnEvent event = new ItemSpawnEvent();
+        if (event.isEnabled()) {
+            event.type = type.getId();
+            event.posX = spawnX;
+            event.speed = type.getSpeed();
+            event.items = environment.getFallingItems().size();
+            event.commit();
+        }
+    }
+}
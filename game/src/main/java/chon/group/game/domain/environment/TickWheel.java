@@ -0,0 +1,153 @@
+package chon.group.game.domain.environment;
+
+import java.util.Arrays;
+
+import chon.group.game.domain.item.FallingItem;
+
+/**
+ * A schedule of falling items by tick, so the items due on a tick are found
+ * without looking at the others.
+ * <p>
+ * Entries are kept in a ring of buckets, the tick modulo the number of
+ * buckets choosing the bucket. Advancing the wheel one tick visits a single
+ * bucket and hands out its entries due on that tick; entries for a later
+ * revolution stay where they are. Entries are never taken back: when an
+ * item is removed or rescheduled, its old entry expires all the same, and
+ * the owner of the wheel tells stale entries from live ones when they do.
+ * The buckets and the expired entries are arrays kept between ticks, so the
+ * wheel allocates nothing once its buckets have grown.
+ * </p>
+ */
+public class TickWheel {
+
+    /** Entries a bucket starts with room for. */
+    private static final int BUCKET_CAPACITY = 8;
+
+    /** The items of every bucket, the first {@link #counts} of them in use. */
+    private final FallingItem[][] items;
+
+    /** The tick every item of a bucket is due on. */
+    private final long[][] ticks;
+
+    /** Number of entries in every bucket. */
+    private final int[] counts;
+
+    /** Bucket count less one, the buckets being a power of two. */
+    private final int mask;
+
+    /** The last tick the wheel advanced to. */
+    private long tick;
+
+    /** The items due on the last tick, the first {@link #expiredCount} of them in use. */
+    private FallingItem[] expired = new FallingItem[BUCKET_CAPACITY];
+
+    /** Number of items due on the last tick. */
+    private int expiredCount;
+
+    /**
+     * Constructor to create a wheel at tick 0.
+     *
+     * @param buckets the number of buckets, rounded up to a power of two; a
+     *                wheel as long as most delays visits fewer entries that
+     *                are not due
+     */
+    public TickWheel(int buckets) {
+        if (buckets < 1)
+            throw new IllegalArgumentException("A tick wheel needs at least one bucket");
+        int size = Integer.highestOneBit(buckets);
+        if (size < buckets)
+            size <<= 1;
+        this.mask = size - 1;
+        this.items = new FallingItem[size][];
+        this.ticks = new long[size][];
+        this.counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            items[i] = new FallingItem[BUCKET_CAPACITY];
+            ticks[i] = new long[BUCKET_CAPACITY];
+        }
+    }
+
+    /**
+     * Gets the last tick the wheel advanced to.
+     *
+     * @return the tick, 0 before the first advance
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Schedules an item on a tick. Ticks already reached are moved to the
+     * next one.
+     *
+     * @param item the item
+     * @param due  the tick the item is due on
+     * @return the tick the item was scheduled on
+     */
+    public long schedule(FallingItem item, long due) {
+        due = Math.max(due, tick + 1);
+        int bucket = (int) (due & mask);
+        int count = counts[bucket];
+        if (count == items[bucket].length) {
+            items[bucket] = Arrays.copyOf(items[bucket], count * 2);
+            ticks[bucket] = Arrays.copyOf(ticks[bucket], count * 2);
+        }
+        items[bucket][count] = item;
+        ticks[bucket][count] = due;
+        counts[bucket] = count + 1;
+        return due;
+    }
+
+    /**
+     * Advances the wheel to the next tick and takes out the entries due on
+     * it, which {@link #getExpired(int)} gives until the next advance.
+     *
+     * @return the number of entries due
+     */
+    public int advance() {
+        Arrays.fill(expired, 0, expiredCount, null);
+        expiredCount = 0;
+        tick++;
+        int bucket = (int) (tick & mask);
+        FallingItem[] bucketItems = items[bucket];
+        long[] bucketTicks = ticks[bucket];
+        int count = counts[bucket];
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (bucketTicks[i] == tick) {
+                if (expiredCount == expired.length)
+                    expired = Arrays.copyOf(expired, expiredCount * 2);
+                expired[expiredCount++] = bucketItems[i];
+            } else {
+                bucketItems[kept] = bucketItems[i];
+                bucketTicks[kept] = bucketTicks[i];
+                kept++;
+            }
+        }
+        Arrays.fill(bucketItems, kept, count, null);
+        counts[bucket] = kept;
+        return expiredCount;
+    }
+
+    /**
+     * Gets an entry due on the last tick.
+     *
+     * @param index the entry, below the count returned by {@link #advance()}
+     * @return the item
+     */
+    public FallingItem getExpired(int index) {
+        return expired[index];
+    }
+
+    /**
+     * Removes every entry, keeping the tick.
+     */
+    public void clear() {
+        for (int i = 0; i < counts.length; i++) {
+            Arrays.fill(items[i], 0, counts[i], null);
+            counts[i] = 0;
+        }
+        Arrays.fill(expired, 0, expiredCount, null);
+        expiredCount = 0;
+    }
+}
@@ -0,0 +1,89 @@
+package chon.group.game.domain.item;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples an index from a discrete weighted distribution in constant time,
+ * using Vose's alias method.
+ * <p>
+ * Building the table costs O(n); every sample afterwards draws one column
+ * uniformly and flips one biased coin, whatever the number of outcomes.
+ * </p>
+ */
+public class AliasTable {
+
+    /** Probability of keeping each column instead of taking its alias. */
+    private final double[] probability;
+
+    /** Alternative outcome of each column. */
+    private final int[] alias;
+
+    /**
+     * Constructor to build the table from non-negative weights.
+     *
+     * @param weights the relative weight of each outcome
+     * @throws IllegalArgumentException if no weight is positive
+     */
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        double total = 0;
+        for (double weight : weights) {
+            if (weight < 0)
+                throw new IllegalArgumentException("Negative weight: " + weight);
+            total += weight;
+        }
+        if (n == 0 || total <= 0)
+            throw new IllegalArgumentException("At least one weight must be positive");
+
+        this.probability = new double[n];
+        this.alias = new int[n];
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1.0)
+                small[smallCount++] = i;
+            else
+                large[largeCount++] = i;
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0)
+                small[smallCount++] = more;
+            else
+                large[largeCount++] = more;
+        }
+        /* Whatever is left is 1 up to rounding errors. */
+        while (largeCount > 0)
+            probability[large[--largeCount]] = 1.0;
+        while (smallCount > 0)
+            probability[small[--smallCount]] = 1.0;
+    }
+
+    /**
+     * Gets the number of outcomes.
+     *
+     * @return the number of outcomes
+     */
+    public int size() {
+        return probability.length;
+    }
+
+    /**
+     * Draws an outcome.
+     *
+     * @param random the random generator to use
+     * @return the index of the drawn outcome
+     */
+    public int sample(SplittableRandom random) {
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+}
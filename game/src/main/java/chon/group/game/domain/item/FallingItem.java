@@ -1,8 +1,9 @@
 package chon.group.game.domain.item;
 
-import java.util.HashMap;
-import java.util.Map;
-
+import chon.group.game.asset.Texture;
+import chon.group.game.asset.TextureManager;
+import chon.group.game.domain.sprite.SpriteSheet;
+import chon.group.game.domain.sprite.Sprites;
 import javafx.scene.image.Image;
 
 /**
@@ -13,6 +14,12 @@ import javafx.scene.image.Image;
  * fall from above.
  */
 public class FallingItem {
+    /** Id given to the next item created. */
+    private static int nextId;
+
+    /** Number of the item, unique among the items created. */
+    private final int id;
+
     /** X position (horizontal) of the item. */
     private double posX;
 
@@ -34,8 +41,23 @@ public class FallingItem {
     /** Indicates if the item is a bomb (harmful) or not. */
     private boolean isBomb;
 
-    /** Cache for item images to optimize memory usage. */
-    private static final Map<String, Image> IMAGE_CACHE = new HashMap<>();
+    /** Ticks skipped while off screen, caught up by the next fall. */
+    private int skippedFalls;
+
+    /** Index of the item in its environment's list, or -1 when in none. */
+    private int index = -1;
+
+    /** Tick the item may reach the ground on, in its environment's schedule. */
+    private long despawnTick;
+
+    /** Tick the item may reach the protagonist's band on, or -1 once it did. */
+    private long bandTick = -1;
+
+    /** The item's animation, or null when the still image is drawn. */
+    private SpriteSheet sprite;
+
+    /** The item's image, shared by every item with the same path. */
+    private final Texture texture;
 
     /**
      * Constructor to initialize the falling item properties.
@@ -55,6 +77,40 @@ public class FallingItem {
         this.speed = speed;
         this.imagePath = imagePath;
         this.isBomb = isBomb;
+        this.texture = TextureManager.getDefault().texture(imagePath);
+        this.id = nextId++;
+    }
+
+    /**
+     * Constructor to copy an item's type at another position, sharing its
+     * image and animation.
+     *
+     * @param prototype    the item to copy
+     * @param posX         the item's X (horizontal) position
+     * @param posY         the item's Y (vertical) position
+     * @param skippedFalls the ticks skipped since the item's last fall
+     */
+    public FallingItem(FallingItem prototype, double posX, double posY, int skippedFalls) {
+        this.posX = posX;
+        this.posY = posY;
+        this.width = prototype.width;
+        this.height = prototype.height;
+        this.speed = prototype.speed;
+        this.imagePath = prototype.imagePath;
+        this.isBomb = prototype.isBomb;
+        this.skippedFalls = skippedFalls;
+        this.sprite = prototype.sprite;
+        this.texture = prototype.texture;
+        this.id = nextId++;
+    }
+
+    /**
+     * Gets the number of the item.
+     *
+     * @return the id, unique among the items created
+     */
+    public int getId() {
+        return id;
     }
 
     /**
@@ -111,6 +167,25 @@ public class FallingItem {
         return height;
     }
 
+    /**
+     * Gets the distance the item falls per tick.
+     *
+     * @return the falling speed
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Sets the item's falling speed. An item in an environment is changed
+     * with {@code Environment#setItemSpeed}, which reschedules its removal.
+     *
+     * @param speed the new falling speed
+     */
+    public void setSpeed(double speed) {
+        this.speed = speed;
+    }
+
     /**
      * Gets the path to the item's image.
      *
@@ -130,37 +205,135 @@ public class FallingItem {
     }
 
     /**
-     * Gets the image cache map.
+     * Gets the image for this item, loaded by the texture manager on first
+     * use and again if it was evicted.
      *
-     * @return the map containing cached images
+     * @return the image
      */
-    public static Map<String, Image> getImageCache() {
-        return IMAGE_CACHE;
+    public Image getCachedImage() {
+        return texture.get();
     }
 
     /**
-     * Gets the cached image for this item.
+     * Gets the handle of the image for this item, for renderers that draw its
+     * raster.
      *
-     * @return the cached Image instance
+     * @return the handle
      */
-    public Image getCachedImage() {
-        return getItemImage();
+    public Texture getTexture() {
+        return texture;
+    }
+
+    /**
+     * Gets the item's animation.
+     *
+     * @return the sprite sheet, or null when the still image is drawn
+     */
+    public SpriteSheet getSprite() {
+        return sprite;
+    }
+
+    /**
+     * Sets the item's animation, a sheet with the {@link Sprites#SPIN} clip.
+     *
+     * @param sprite the sprite sheet, or null to draw the still image
+     */
+    public void setSprite(SpriteSheet sprite) {
+        this.sprite = sprite;
     }
 
     /**
-     * Retrieves or creates a cached image for this item.
-     * Uses computeIfAbsent to optimize image loading.
+     * Gets the frame of the item's animation to draw. Items start their turn
+     * at different angles, depending on where they spawned.
      *
-     * @return the Image instance from cache or newly created
+     * @param time the simulation time, in milliseconds
+     * @return the index of the frame in the sprite sheet
      */
-    private Image getItemImage() {
-        return IMAGE_CACHE.computeIfAbsent(imagePath, path -> new Image(getClass().getResource(path).toExternalForm()));
+    public int frameAt(long time) {
+        return sprite.frameAt(Sprites.SPIN, time + (long) posX * 7, false);
     }
 
     /**
-     * Updates the item's position by moving it downward based on its speed.
+     * Gets the index of the item in its environment's list.
+     *
+     * @return the index, or -1 when the item is in no environment
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Sets the index of the item in its environment's list, kept by the
+     * environment.
+     *
+     * @param index the index, or -1 when the item leaves the environment
+     */
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * Gets the tick the item may reach the ground on.
+     *
+     * @return the tick of the environment's despawn schedule
+     */
+    public long getDespawnTick() {
+        return despawnTick;
+    }
+
+    /**
+     * Sets the tick the item may reach the ground on, kept by the
+     * environment.
+     *
+     * @param despawnTick the tick of the environment's despawn schedule
+     */
+    public void setDespawnTick(long despawnTick) {
+        this.despawnTick = despawnTick;
+    }
+
+    /**
+     * Gets the tick the item may reach the protagonist's band on.
+     *
+     * @return the tick of the environment's band schedule, or -1 once the
+     *         item reached the band
+     */
+    public long getBandTick() {
+        return bandTick;
+    }
+
+    /**
+     * Sets the tick the item may reach the protagonist's band on, kept by
+     * the environment.
+     *
+     * @param bandTick the tick of the environment's band schedule, or -1
+     *                 once the item reached the band
+     */
+    public void setBandTick(long bandTick) {
+        this.bandTick = bandTick;
+    }
+
+    /**
+     * Updates the item's position by moving it downward based on its speed,
+     * including the ticks skipped since the last fall.
      */
     public void fall() {
-        posY += speed;
+        posY += speed * (skippedFalls + 1);
+        skippedFalls = 0;
+    }
+
+    /**
+     * Skips the fall of one tick; the next call to {@link #fall()} catches up.
+     */
+    public void skipFall() {
+        skippedFalls++;
+    }
+
+    /**
+     * Gets how many ticks were skipped since the last fall.
+     *
+     * @return the number of skipped ticks
+     */
+    public int getSkippedFalls() {
+        return skippedFalls;
     }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package chon.group.game.domain.item;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+/**
+ * The catalogue of falling item types and their spawn weights per difficulty
+ * phase, loaded from a properties resource.
+ * <p>
+ * Each phase owns an {@link AliasTable}, so picking the next item to spawn
+ * costs the same whatever the number of item types.
+ * </p>
+ */
+public class ItemCatalogue {
+
+    /** Classpath location of the default catalogue. */
+    public static final String DEFAULT_RESOURCE = "/config/items.properties";
+
+    /** Item types, in declaration order. */
+    private final List<ItemType> types;
+
+    /** Score at which each phase starts, in ascending order. */
+    private final int[] phaseMinScores;
+
+    /** Weighted sampling table of each phase. */
+    private final AliasTable[] phaseTables;
+
+    /**
+     * Constructor to build the catalogue from its properties.
+     *
+     * @param properties the catalogue definition
+     * @throws IllegalArgumentException if the definition is incomplete
+     */
+    public ItemCatalogue(Properties properties) {
+        List<String> ids = new ArrayList<>();
+        TreeSet<Integer> phases = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            String[] parts = key.split("\\.");
+            if (parts.length == 3 && parts[0].equals("item") && parts[2].equals("image"))
+                ids.add(parts[1]);
+            if (parts.length >= 3 && parts[0].equals("phase"))
+                phases.add(Integer.parseInt(parts[1]));
+        }
+        Collections.sort(ids);
+        if (ids.isEmpty() || phases.isEmpty())
+            throw new IllegalArgumentException("The catalogue needs at least one item and one phase");
+
+        List<ItemType> loaded = new ArrayList<>();
+        for (String id : ids) {
+            String prefix = "item." + id + ".";
+            loaded.add(new ItemType(id,
+                    required(properties, prefix + "image"),
+                    Integer.parseInt(required(properties, prefix + "width")),
+                    Integer.parseInt(required(properties, prefix + "height")),
+                    Double.parseDouble(required(properties, prefix + "speed")),
+                    Boolean.parseBoolean(required(properties, prefix + "bomb"))));
+        }
+        this.types = Collections.unmodifiableList(loaded);
+
+        this.phaseMinScores = new int[phases.size()];
+        this.phaseTables = new AliasTable[phases.size()];
+        int index = 0;
+        for (int phase : phases) {
+            String prefix = "phase." + phase + ".";
+            phaseMinScores[index] = Integer.parseInt(properties.getProperty(prefix + "minScore", "0"));
+            double[] weights = new double[loaded.size()];
+            for (int i = 0; i < loaded.size(); i++) {
+                weights[i] = Double.parseDouble(
+                        properties.getProperty(prefix + "weight." + loaded.get(i).getId(), "0"));
+            }
+            phaseTables[index++] = new AliasTable(weights);
+        }
+        for (int i = 1; i < phaseMinScores.length; i++) {
+            if (phaseMinScores[i] < phaseMinScores[i - 1])
+                throw new IllegalArgumentException("Phase minScore values must be ascending");
+        }
+    }
+
+    /**
+     * Loads the catalogue from the file named by the {@code chon.items} system
+     * property, or from the bundled resource when the property is not set.
+     *
+     * @return the loaded catalogue
+     */
+    public static ItemCatalogue loadDefault() {
+        String file = System.getProperty("chon.items");
+        try (InputStream stream = file != null
+                ? new FileInputStream(file)
+                : ItemCatalogue.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (stream == null)
+                throw new IllegalStateException("Missing item catalogue " + DEFAULT_RESOURCE);
+            return load(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads a catalogue from a properties stream.
+     *
+     * @param stream the stream to read
+     * @return the loaded catalogue
+     * @throws IOException if the stream cannot be read
+     */
+    public static ItemCatalogue load(InputStream stream) throws IOException {
+        Properties properties = new Properties();
+        properties.load(stream);
+        return new ItemCatalogue(properties);
+    }
+
+    /**
+     * Gets the item types.
+     *
+     * @return the item types
+     */
+    public List<ItemType> getTypes() {
+        return types;
+    }
+
+    /**
+     * Draws the type of the next item to spawn for the current score.
+     *
+     * @param score  the current score, which selects the difficulty phase
+     * @param random the random generator of the simulation
+     * @return the drawn item type
+     */
+    public ItemType sample(int score, SplittableRandom random) {
+        int phase = 0;
+        while (phase + 1 < phaseMinScores.length && phaseMinScores[phase + 1] <= score)
+            phase++;
+        return types.get(phaseTables[phase].sample(random));
+    }
+
+    /**
+     * Reads a mandatory property.
+     */
+    private static String required(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null)
+            throw new IllegalArgumentException("Missing item catalogue entry " + key);
+        return value.trim();
+    }
+}
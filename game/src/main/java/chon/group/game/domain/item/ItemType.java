@@ -0,0 +1,128 @@
+package chon.group.game.domain.item;
+
+import chon.group.game.domain.sprite.SpriteSheet;
+import chon.group.game.domain.sprite.Sprites;
+
+/**
+ * Describes a kind of falling item, as declared in the item catalogue.
+ */
+public class ItemType {
+
+    /** Identifier of the type in the catalogue. */
+    private final String id;
+
+    /** Path to the item's image resource. */
+    private final String imagePath;
+
+    /** Width of the item. */
+    private final int width;
+
+    /** Height of the item. */
+    private final int height;
+
+    /** Item falling speed. */
+    private final double speed;
+
+    /** Indicates if the item is a bomb (harmful) or not. */
+    private final boolean bomb;
+
+    /** The spinning animation of bombs, built with the first bomb of this type. */
+    private SpriteSheet sprite;
+
+    /**
+     * Constructor to initialize the item type properties.
+     *
+     * @param id        the identifier of the type
+     * @param imagePath the path to the item's image
+     * @param width     the item's width
+     * @param height    the item's height
+     * @param speed     the item's falling speed
+     * @param bomb      whether the item is a bomb or not
+     */
+    public ItemType(String id, String imagePath, int width, int height, double speed, boolean bomb) {
+        this.id = id;
+        this.imagePath = imagePath;
+        this.width = width;
+        this.height = height;
+        this.speed = speed;
+        this.bomb = bomb;
+    }
+
+    /**
+     * Gets the identifier of the type.
+     *
+     * @return the identifier
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the path to the item's image.
+     *
+     * @return the image path
+     */
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    /**
+     * Gets the width of the item.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the item.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the falling speed of the item.
+     *
+     * @return the speed
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Checks if the item is a bomb.
+     *
+     * @return true if the item is a bomb, false otherwise
+     */
+    public boolean isBomb() {
+        return bomb;
+    }
+
+    /**
+     * Gets the animation of items of this type: bombs spin, other items are
+     * drawn still.
+     *
+     * @return the spinning animation, or null for items drawn still
+     */
+    public SpriteSheet getSprite() {
+        if (bomb && sprite == null)
+            sprite = Sprites.spinning(imagePath, width, height);
+        return sprite;
+    }
+
+    /**
+     * Creates a new item of this type.
+     *
+     * @param posX the item's initial X (horizontal) position
+     * @return the new falling item
+     */
+    public FallingItem create(double posX) {
+        FallingItem item = new FallingItem(posX, width, height, speed, imagePath, bomb);
+        item.setSprite(getSprite());
+        return item;
+    }
+}
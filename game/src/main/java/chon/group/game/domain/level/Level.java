@@ -0,0 +1,127 @@
+package chon.group.game.domain.level;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A tile-map level: the tile ids of a {@link LevelFile} drawn with the tiles
+ * of a {@link TileAtlas}.
+ * <p>
+ * The atlas is the image next to the level file with the same name and a
+ * {@code .png} extension, so {@code zaun.chl} is drawn with {@code zaun.png}.
+ * </p>
+ */
+public class Level {
+
+    /** The tile ids. */
+    private final LevelFile file;
+
+    /** The tile images. */
+    private final TileAtlas atlas;
+
+    /** Scratch ids of the chunk being composed. */
+    private final short[] chunkIds;
+
+    /**
+     * Constructor to combine a level file with its atlas.
+     *
+     * @param file  the tile ids
+     * @param atlas the tile images, with the same tile size as the file
+     */
+    public Level(LevelFile file, TileAtlas atlas) {
+        this.file = file;
+        this.atlas = atlas;
+        this.chunkIds = new short[file.getChunkTiles() * file.getChunkTiles()];
+    }
+
+    /**
+     * Opens a level file and the atlas next to it.
+     *
+     * @param path the level file
+     * @return the level
+     * @throws IOException if the level or its atlas cannot be read
+     */
+    public static Level open(Path path) throws IOException {
+        LevelFile file = new LevelFile(path);
+        return new Level(file, TileAtlas.load(atlasPath(path), file.getTileSize()));
+    }
+
+    /**
+     * Gets the atlas image used by a level file.
+     *
+     * @param path the level file
+     * @return the image with the same name and a {@code .png} extension
+     */
+    public static Path atlasPath(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return path.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".png");
+    }
+
+    /**
+     * Composes the pixels of a chunk.
+     *
+     * @param chunkX the column of the chunk
+     * @param chunkY the row of the chunk
+     * @param out    receives the premultiplied ARGB pixels, at least
+     *               {@link #getChunkPixels()} squared long
+     */
+    public void composeChunk(int chunkX, int chunkY, int[] out) {
+        file.readChunk(chunkX, chunkY, chunkIds);
+        atlas.compose(chunkIds, file.getChunkTiles(), out);
+    }
+
+    /**
+     * Gets the tile ids of the level.
+     *
+     * @return the level file
+     */
+    public LevelFile getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the width of the level.
+     *
+     * @return the width in pixels
+     */
+    public int getWidth() {
+        return file.getWidthTiles() * file.getTileSize();
+    }
+
+    /**
+     * Gets the height of the level.
+     *
+     * @return the height in pixels
+     */
+    public int getHeight() {
+        return file.getHeightTiles() * file.getTileSize();
+    }
+
+    /**
+     * Gets the size of a chunk.
+     *
+     * @return the chunk side in pixels
+     */
+    public int getChunkPixels() {
+        return file.getChunkTiles() * file.getTileSize();
+    }
+
+    /**
+     * Gets the number of chunk columns.
+     *
+     * @return the chunks across the level
+     */
+    public int getChunksX() {
+        return file.getChunksX();
+    }
+
+    /**
+     * Gets the number of chunk rows.
+     *
+     * @return the chunks down the level
+     */
+    public int getChunksY() {
+        return file.getChunksY();
+    }
+}
@@ -0,0 +1,230 @@
+package chon.group.game.domain.level;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The tile ids of a level, read from a memory-mapped file.
+ * <p>
+ * The level is split into square chunks and the tiles of each chunk are
+ * stored together, so loading a chunk reads one contiguous run of the file.
+ * The mapping is read-only and paged in by the operating system on demand, so
+ * the heap does not grow with the size of the level.
+ * </p>
+ * <p>
+ * Layout: a 32-byte header (magic, version, width and height in tiles, tile
+ * size in pixels, chunk size in tiles) followed by the chunks, row by row,
+ * each holding its tiles row by row as 16-bit ids. Chunks on the right and
+ * bottom edges are padded with empty tiles.
+ * </p>
+ */
+public class LevelFile {
+
+    /** Id of an empty tile, drawn as transparent. */
+    public static final int EMPTY = 0;
+
+    /** Identifies level files ("CHLV"). */
+    private static final int MAGIC = 0x43484C56;
+
+    /** Version of the file layout. */
+    private static final int VERSION = 1;
+
+    /** Size of the file header. */
+    private static final int HEADER_BYTES = 32;
+
+    /**
+     * Chooses the tile at each position of a level being written.
+     */
+    public interface TileSource {
+
+        /**
+         * Gets the id of a tile.
+         *
+         * @param tileX the column of the tile
+         * @param tileY the row of the tile
+         * @return the tile id, {@link #EMPTY} for no tile
+         */
+        int tileAt(int tileX, int tileY);
+    }
+
+    /** The mapped file. */
+    private final MappedByteBuffer map;
+
+    /** Width of the level in tiles. */
+    private final int widthTiles;
+
+    /** Height of the level in tiles. */
+    private final int heightTiles;
+
+    /** Size of a tile in pixels. */
+    private final int tileSize;
+
+    /** Size of a chunk in tiles. */
+    private final int chunkTiles;
+
+    /** Number of chunk columns. */
+    private final int chunksX;
+
+    /** Number of chunk rows. */
+    private final int chunksY;
+
+    /**
+     * Constructor to map an existing level file.
+     *
+     * @param path the level file
+     * @throws IOException if the file cannot be read or is not a level file
+     */
+    public LevelFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES)
+                throw new IOException("Truncated level file: " + path);
+            this.map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        map.order(ByteOrder.LITTLE_ENDIAN);
+        if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION)
+            throw new IOException("Not a level file: " + path);
+        this.widthTiles = map.getInt(8);
+        this.heightTiles = map.getInt(12);
+        this.tileSize = map.getInt(16);
+        this.chunkTiles = map.getInt(20);
+        if (widthTiles <= 0 || heightTiles <= 0 || tileSize <= 0 || chunkTiles <= 0)
+            throw new IOException("Invalid level header: " + path);
+        this.chunksX = (widthTiles + chunkTiles - 1) / chunkTiles;
+        this.chunksY = (heightTiles + chunkTiles - 1) / chunkTiles;
+        long expected = HEADER_BYTES + (long) chunksX * chunksY * chunkTiles * chunkTiles * 2;
+        if (map.capacity() < expected)
+            throw new IOException("Truncated level file: " + path);
+    }
+
+    /**
+     * Writes a level file, one chunk at a time.
+     *
+     * @param path        the file to create or replace
+     * @param widthTiles  the width of the level in tiles
+     * @param heightTiles the height of the level in tiles
+     * @param tileSize    the size of a tile in pixels
+     * @param chunkTiles  the size of a chunk in tiles
+     * @param source      chooses the tile at each position
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, int widthTiles, int heightTiles, int tileSize, int chunkTiles,
+            TileSource source) throws IOException {
+        int chunksX = (widthTiles + chunkTiles - 1) / chunkTiles;
+        int chunksY = (heightTiles + chunkTiles - 1) / chunkTiles;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(widthTiles).putInt(heightTiles)
+                    .putInt(tileSize).putInt(chunkTiles).rewind();
+            while (header.hasRemaining())
+                channel.write(header);
+
+            ByteBuffer chunk = ByteBuffer.allocate(chunkTiles * chunkTiles * 2).order(ByteOrder.LITTLE_ENDIAN);
+            for (int cy = 0; cy < chunksY; cy++) {
+                for (int cx = 0; cx < chunksX; cx++) {
+                    chunk.clear();
+                    for (int y = 0; y < chunkTiles; y++) {
+                        for (int x = 0; x < chunkTiles; x++) {
+                            int tileX = cx * chunkTiles + x;
+                            int tileY = cy * chunkTiles + y;
+                            boolean inside = tileX < widthTiles && tileY < heightTiles;
+                            chunk.putShort((short) (inside ? source.tileAt(tileX, tileY) : EMPTY));
+                        }
+                    }
+                    chunk.flip();
+                    while (chunk.hasRemaining())
+                        channel.write(chunk);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the tile ids of a chunk.
+     *
+     * @param chunkX the column of the chunk
+     * @param chunkY the row of the chunk
+     * @param tiles  receives the ids row by row, at least
+     *               {@code chunkTiles * chunkTiles} long
+     */
+    public void readChunk(int chunkX, int chunkY, short[] tiles) {
+        int count = chunkTiles * chunkTiles;
+        int offset = HEADER_BYTES + (chunkY * chunksX + chunkX) * count * 2;
+        for (int i = 0; i < count; i++)
+            tiles[i] = map.getShort(offset + i * 2);
+    }
+
+    /**
+     * Gets the id of a single tile.
+     *
+     * @param tileX the column of the tile
+     * @param tileY the row of the tile
+     * @return the tile id, {@link #EMPTY} outside the level
+     */
+    public int getTile(int tileX, int tileY) {
+        if (tileX < 0 || tileY < 0 || tileX >= widthTiles || tileY >= heightTiles)
+            return EMPTY;
+        int chunk = (tileY / chunkTiles) * chunksX + tileX / chunkTiles;
+        int inChunk = (tileY % chunkTiles) * chunkTiles + tileX % chunkTiles;
+        return map.getShort(HEADER_BYTES + (chunk * chunkTiles * chunkTiles + inChunk) * 2) & 0xFFFF;
+    }
+
+    /**
+     * Gets the width of the level in tiles.
+     *
+     * @return the number of tile columns
+     */
+    public int getWidthTiles() {
+        return widthTiles;
+    }
+
+    /**
+     * Gets the height of the level in tiles.
+     *
+     * @return the number of tile rows
+     */
+    public int getHeightTiles() {
+        return heightTiles;
+    }
+
+    /**
+     * Gets the size of a tile.
+     *
+     * @return the tile size in pixels
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Gets the size of a chunk.
+     *
+     * @return the chunk size in tiles
+     */
+    public int getChunkTiles() {
+        return chunkTiles;
+    }
+
+    /**
+     * Gets the number of chunk columns.
+     *
+     * @return the chunks across the level
+     */
+    public int getChunksX() {
+        return chunksX;
+    }
+
+    /**
+     * Gets the number of chunk rows.
+     *
+     * @return the chunks down the level
+     */
+    public int getChunksY() {
+        return chunksY;
+    }
+}
@@ -0,0 +1,129 @@
+package chon.group.game.domain.level;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+import chon.group.game.jfr.AssetLoadEvent;
+
+/**
+ * The tile images of a level, packed in a grid inside one image.
+ * <p>
+ * Tile id 1 is the top left cell, and ids grow left to right, then top to
+ * bottom; id {@link LevelFile#EMPTY} has no image. The atlas is kept as
+ * premultiplied ARGB integers, so chunks can be composed by copying rows.
+ * </p>
+ */
+public class TileAtlas {
+
+    /** Size of a tile in pixels. */
+    private final int tileSize;
+
+    /** Number of tile columns in the atlas. */
+    private final int columns;
+
+    /** Number of tiles in the atlas. */
+    private final int tiles;
+
+    /** Width of the atlas in pixels. */
+    private final int width;
+
+    /** Premultiplied ARGB pixels of the atlas, row by row. */
+    private final int[] pixels;
+
+    /**
+     * Constructor to wrap decoded atlas pixels.
+     *
+     * @param width    the width of the atlas in pixels
+     * @param height   the height of the atlas in pixels
+     * @param pixels   the premultiplied ARGB pixels
+     * @param tileSize the size of a tile in pixels
+     */
+    public TileAtlas(int width, int height, int[] pixels, int tileSize) {
+        this.width = width;
+        this.pixels = pixels;
+        this.tileSize = tileSize;
+        this.columns = width / tileSize;
+        this.tiles = columns * (height / tileSize);
+    }
+
+    /**
+     * Reads an atlas image from a file.
+     *
+     * @param path     the atlas image
+     * @param tileSize the size of a tile in pixels
+     * @return the decoded atlas
+     * @throws IOException if the image cannot be read
+     */
+    public static TileAtlas load(Path path, int tileSize) throws IOException {
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        BufferedImage source = ImageIO.read(path.toFile());
+        if (source == null)
+            throw new IOException("Not an image: " + path);
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BufferedImage decoded = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = decoded.createGraphics();
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        int[] pixels = ((DataBufferInt) decoded.getRaster().getDataBuffer()).getData();
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path.toString();
+            event.bytes = (long) width * height * 4;
+            event.commit();
+        }
+        return new TileAtlas(width, height, pixels, tileSize);
+    }
+
+    /**
+     * Composes the pixels of a chunk from its tile ids. Empty tiles and ids
+     * missing from the atlas are left transparent.
+     *
+     * @param ids        the tile ids of the chunk, row by row
+     * @param chunkTiles the size of the chunk in tiles
+     * @param out        receives the premultiplied ARGB pixels, at least
+     *                   {@code (chunkTiles * tileSize)} squared long
+     */
+    public void compose(short[] ids, int chunkTiles, int[] out) {
+        int chunkPixels = chunkTiles * tileSize;
+        for (int ty = 0; ty < chunkTiles; ty++) {
+            for (int tx = 0; tx < chunkTiles; tx++) {
+                int id = ids[ty * chunkTiles + tx] & 0xFFFF;
+                int dst = ty * tileSize * chunkPixels + tx * tileSize;
+                if (id == LevelFile.EMPTY || id > tiles) {
+                    for (int row = 0; row < tileSize; row++)
+                        Arrays.fill(out, dst + row * chunkPixels, dst + row * chunkPixels + tileSize, 0);
+                    continue;
+                }
+                int src = ((id - 1) / columns) * tileSize * width + ((id - 1) % columns) * tileSize;
+                for (int row = 0; row < tileSize; row++)
+                    System.arraycopy(pixels, src + row * width, out, dst + row * chunkPixels, tileSize);
+            }
+        }
+    }
+
+    /**
+     * Gets the size of a tile.
+     *
+     * @return the tile size in pixels
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Gets the number of tiles in the atlas.
+     *
+     * @return the highest valid tile id
+     */
+    public int getTiles() {
+        return tiles;
+    }
+}
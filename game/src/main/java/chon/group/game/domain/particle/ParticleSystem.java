@@ -0,0 +1,251 @@
+package chon.group.game.domain.particle;
+
+/**
+ * A fixed-capacity particle engine used for the explosion and sparkle effects.
+ * <p>
+ * Particles are stored as a structure of primitive arrays organised as a ring
+ * buffer: new particles are written at the head and the tail advances past
+ * expired particles. When the buffer is full the oldest particles are
+ * overwritten, so emitting never allocates and the memory footprint is fixed
+ * when the system is created.
+ * </p>
+ */
+public class ParticleSystem {
+
+    /** Particle kind for the bomb explosion effect. */
+    public static final int EXPLOSION = 0;
+
+    /** Particle kind for the hextech pickup sparkle effect. */
+    public static final int SPARKLE = 1;
+
+    /** Number of colour steps in each kind's palette. */
+    private static final int PALETTE_STEPS = 16;
+
+    /** Gravity applied to the vertical velocity on every update. */
+    private static final float GRAVITY = 0.12f;
+
+    /** Velocity damping applied on every update. */
+    private static final float DRAG = 0.97f;
+
+    /** Maximum number of live particles. */
+    private final int capacity;
+
+    /** X (horizontal) positions. */
+    private final float[] posX;
+
+    /** Y (vertical) positions. */
+    private final float[] posY;
+
+    /** Horizontal velocities. */
+    private final float[] velX;
+
+    /** Vertical velocities. */
+    private final float[] velY;
+
+    /** Remaining life of each particle, in ticks. */
+    private final short[] life;
+
+    /** Initial life of each particle, in ticks. */
+    private final short[] maxLife;
+
+    /** Kind of each particle. */
+    private final byte[] kind;
+
+    /** Opaque ARGB colours indexed by kind and remaining life fraction. */
+    private final int[] palette;
+
+    /** Index where the next particle will be written. */
+    private int head;
+
+    /** Index of the oldest particle that may still be alive. */
+    private int tail;
+
+    /** Number of slots between tail and head. */
+    private int size;
+
+    /** State of the xorshift generator used for emission. */
+    private int seed = 0x2545F491;
+
+    /**
+     * Constructor to initialize the particle system with a fixed capacity.
+     *
+     * @param capacity the maximum number of live particles
+     */
+    public ParticleSystem(int capacity) {
+        this.capacity = capacity;
+        this.posX = new float[capacity];
+        this.posY = new float[capacity];
+        this.velX = new float[capacity];
+        this.velY = new float[capacity];
+        this.life = new short[capacity];
+        this.maxLife = new short[capacity];
+        this.kind = new byte[capacity];
+        this.palette = new int[2 * PALETTE_STEPS];
+        for (int i = 0; i < PALETTE_STEPS; i++) {
+            double t = (double) i / (PALETTE_STEPS - 1);
+            /* Explosions fade from deep red to bright yellow as life remains. */
+            palette[EXPLOSION * PALETTE_STEPS + i] = argb(120 + 135 * t, 30 + 200 * t * t, 20 * t);
+            /* Sparkles fade from blue to white. */
+            palette[SPARKLE * PALETTE_STEPS + i] = argb(60 + 195 * t, 140 + 115 * t, 255);
+        }
+    }
+
+    /**
+     * Gets the maximum number of live particles.
+     *
+     * @return the capacity of the system
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of slots currently in use, including particles that have
+     * expired but were not reclaimed yet.
+     *
+     * @return the number of used slots
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Emits a radial burst of explosion particles.
+     *
+     * @param x     the X (horizontal) position of the burst centre
+     * @param y     the Y (vertical) position of the burst centre
+     * @param count the number of particles to emit
+     */
+    public void emitExplosion(double x, double y, int count) {
+        for (int i = 0; i < count; i++) {
+            float angle = nextFloat() * 6.2831855f;
+            float speed = 1.0f + nextFloat() * 6.0f;
+            emit((float) x, (float) y,
+                    (float) Math.cos(angle) * speed,
+                    (float) Math.sin(angle) * speed - 2.0f,
+                    30 + (int) (nextFloat() * 40), EXPLOSION);
+        }
+    }
+
+    /**
+     * Emits a slow upward sparkle of pickup particles.
+     *
+     * @param x     the X (horizontal) position of the sparkle centre
+     * @param y     the Y (vertical) position of the sparkle centre
+     * @param count the number of particles to emit
+     */
+    public void emitSparkle(double x, double y, int count) {
+        for (int i = 0; i < count; i++) {
+            float angle = nextFloat() * 6.2831855f;
+            float speed = 0.5f + nextFloat() * 2.5f;
+            emit((float) x, (float) y,
+                    (float) Math.cos(angle) * speed,
+                    (float) Math.sin(angle) * speed - 3.0f,
+                    40 + (int) (nextFloat() * 30), SPARKLE);
+        }
+    }
+
+    /**
+     * Writes a single particle at the head of the ring buffer, overwriting the
+     * oldest particle when the buffer is full.
+     */
+    private void emit(float x, float y, float vx, float vy, int ticks, int particleKind) {
+        posX[head] = x;
+        posY[head] = y;
+        velX[head] = vx;
+        velY[head] = vy;
+        life[head] = (short) ticks;
+        maxLife[head] = (short) ticks;
+        kind[head] = (byte) particleKind;
+        head = (head + 1) % capacity;
+        if (size == capacity) {
+            tail = head;
+        } else {
+            size++;
+        }
+    }
+
+    /**
+     * Advances every live particle by one tick and reclaims expired particles
+     * at the tail of the buffer.
+     */
+    public void update() {
+        int index = tail;
+        for (int n = 0; n < size; n++) {
+            if (life[index] > 0) {
+                posX[index] += velX[index];
+                posY[index] += velY[index];
+                velX[index] *= DRAG;
+                velY[index] = velY[index] * DRAG + GRAVITY;
+                life[index]--;
+            }
+            if (++index == capacity)
+                index = 0;
+        }
+        while (size > 0 && life[tail] <= 0) {
+            tail = (tail + 1) % capacity;
+            size--;
+        }
+    }
+
+    /**
+     * Removes every particle.
+     */
+    public void clear() {
+        head = 0;
+        tail = 0;
+        size = 0;
+    }
+
+    /**
+     * Visits every live particle in a single pass, handing its integer position
+     * and colour to the visitor.
+     *
+     * @param visitor the consumer of the particle data
+     */
+    public void forEachLive(ParticleVisitor visitor) {
+        int index = tail;
+        for (int n = 0; n < size; n++) {
+            int remaining = life[index];
+            if (remaining > 0) {
+                int step = remaining * (PALETTE_STEPS - 1) / maxLife[index];
+                visitor.visit((int) posX[index], (int) posY[index],
+                        palette[kind[index] * PALETTE_STEPS + step]);
+            }
+            if (++index == capacity)
+                index = 0;
+        }
+    }
+
+    /**
+     * Returns a pseudo-random float in [0, 1) without allocating.
+     */
+    private float nextFloat() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return (seed >>> 8) * 0x1.0p-24f;
+    }
+
+    /**
+     * Packs an opaque colour into an ARGB integer.
+     */
+    private static int argb(double r, double g, double b) {
+        return 0xFF000000 | ((int) r << 16) | ((int) g << 8) | (int) b;
+    }
+
+    /**
+     * Receives particle data while iterating the live particles.
+     */
+    public interface ParticleVisitor {
+
+        /**
+         * Visits one live particle.
+         *
+         * @param x    the X (horizontal) position
+         * @param y    the Y (vertical) position
+         * @param argb the opaque ARGB colour of the particle
+         */
+        void visit(int x, int y, int argb);
+    }
+}
@@ -0,0 +1,127 @@
+package chon.group.game.domain.projectile;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the world that finds the projectiles near a box
+ * without testing every one of them.
+ * <p>
+ * The grid is rebuilt from scratch after every update with a counting sort:
+ * one pass counts the projectiles in each cell, a prefix sum turns the counts
+ * into where each cell starts, and a second pass writes the projectile
+ * indices cell by cell. Every array is sized once, so building and querying
+ * never allocate.
+ * </p>
+ */
+final class CollisionGrid {
+
+    /** Side of a cell in pixels, as a shift. */
+    private static final int CELL_SHIFT = 6;
+
+    /** Cell of each projectile, by projectile index. */
+    private final int[] cellOf;
+
+    /** Projectile indices ordered by cell. */
+    private final int[] items;
+
+    /** Index in {@link #items} where each cell starts, one more than the cells. */
+    private int[] cellStart = new int[1];
+
+    /** Number of cell columns. */
+    private int columns;
+
+    /** Number of cell rows. */
+    private int rows;
+
+    /** Number of projectiles indexed by the last build. */
+    private int count;
+
+    /**
+     * Constructor of a grid for a number of projectiles.
+     *
+     * @param capacity the largest number of projectiles indexed
+     */
+    CollisionGrid(int capacity) {
+        this.cellOf = new int[capacity];
+        this.items = new int[capacity];
+    }
+
+    /**
+     * Indexes the projectiles by the cell holding their centre. Centres
+     * outside the world are put in the nearest edge cell.
+     *
+     * @param posX   the X of each projectile
+     * @param posY   the Y of each projectile
+     * @param count  the number of projectiles
+     * @param width  the width of the world
+     * @param height the height of the world
+     */
+    void build(float[] posX, float[] posY, int count, int width, int height) {
+        int newColumns = Math.max(1, (width >> CELL_SHIFT) + 1);
+        int newRows = Math.max(1, (height >> CELL_SHIFT) + 1);
+        if (newColumns != columns || newRows != rows) {
+            columns = newColumns;
+            rows = newRows;
+            cellStart = new int[columns * rows + 1];
+        } else {
+            Arrays.fill(cellStart, 0);
+        }
+        this.count = count;
+        int cells = columns * rows;
+        for (int i = 0; i < count; i++) {
+            int cell = row((int) posY[i]) * columns + column((int) posX[i]);
+            cellOf[i] = cell;
+            cellStart[cell]++;
+        }
+        /* Running totals give where each cell ends */
+        for (int cell = 1; cell < cells; cell++)
+            cellStart[cell] += cellStart[cell - 1];
+        cellStart[cells] = count;
+        /* Fill each cell from its end, leaving cellStart at the cell's start */
+        for (int i = count - 1; i >= 0; i--)
+            items[--cellStart[cellOf[i]]] = i;
+    }
+
+    /**
+     * Finds the projectiles whose centre is in a cell overlapping a box.
+     *
+     * @param minX the left edge of the box
+     * @param minY the top edge of the box
+     * @param maxX the right edge of the box
+     * @param maxY the bottom edge of the box
+     * @param out  receives the projectile indices, as long as the capacity
+     * @return the number of projectiles found
+     */
+    int query(float minX, float minY, float maxX, float maxY, int[] out) {
+        if (count == 0)
+            return 0;
+        int column0 = column((int) minX);
+        int column1 = column((int) maxX);
+        int row0 = row((int) minY);
+        int row1 = row((int) maxY);
+        int found = 0;
+        for (int row = row0; row <= row1; row++) {
+            int first = row * columns;
+            int from = cellStart[first + column0];
+            int to = cellStart[first + column1 + 1];
+            /* The cells of a row are contiguous in the sorted order */
+            for (int n = from; n < to; n++)
+                out[found++] = items[n];
+        }
+        return found;
+    }
+
+    /**
+     * Gets the column of an X, clamped to the grid.
+     */
+    private int column(int x) {
+        return Math.max(0, Math.min(columns - 1, x >> CELL_SHIFT));
+    }
+
+    /**
+     * Gets the row of a Y, clamped to the grid.
+     */
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, y >> CELL_SHIFT));
+    }
+}
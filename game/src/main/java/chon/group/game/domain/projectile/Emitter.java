@@ -0,0 +1,116 @@
+package chon.group.game.domain.projectile;
+
+import chon.group.game.domain.agent.Agent;
+
+/**
+ * Fires projectiles from an agent, playing a sequence of {@link Pattern}s
+ * over and over.
+ * <p>
+ * Each pattern fires its volleys from the centre of the agent, aimed at a
+ * target where it aims at all, then the emitter rests for a moment and moves
+ * to the next pattern.
+ * </p>
+ */
+public class Emitter {
+
+    /** Ticks of rest between two patterns. */
+    private static final int REST = 45;
+
+    /** The agent firing. */
+    private final Agent source;
+
+    /** The patterns played in turn. */
+    private final Pattern[] patterns;
+
+    /** Index of the pattern being played. */
+    private int current;
+
+    /** Volleys left in the pattern being played. */
+    private int volleysLeft;
+
+    /** Ticks until the next volley. */
+    private int cooldown;
+
+    /** Angle the pattern being played has turned by, in angle steps. */
+    private int turn;
+
+    /** Volleys fired so far. */
+    private long fired;
+
+    /**
+     * Constructor to fire from an agent.
+     *
+     * @param source   the agent firing
+     * @param patterns the patterns played in turn, at least one
+     */
+    public Emitter(Agent source, Pattern... patterns) {
+        if (patterns.length == 0)
+            throw new IllegalArgumentException("An emitter needs at least one pattern");
+        this.source = source;
+        this.patterns = patterns.clone();
+        reset();
+    }
+
+    /**
+     * Starts again from the first pattern, after a rest.
+     */
+    public void reset() {
+        current = 0;
+        volleysLeft = patterns[0].getVolleys();
+        cooldown = REST;
+        turn = 0;
+    }
+
+    /**
+     * Advances the emitter by one tick, firing a volley when one is due.
+     *
+     * @param projectiles the system receiving the projectiles
+     * @param target      the agent aimed at
+     */
+    public void update(ProjectileSystem projectiles, Agent target) {
+        if (--cooldown > 0)
+            return;
+        Pattern pattern = patterns[current];
+        float x = source.getPosX() + source.getWidth() / 2f;
+        float y = source.getPosY() + source.getHeight() / 2f;
+        int aim = TrigTable.ofDirection(target.getPosX() + target.getWidth() / 2.0 - x,
+                target.getPosY() + target.getHeight() / 2.0 - y);
+        pattern.fire(projectiles, x, y, aim, turn);
+        fired++;
+        turn += pattern.getSpin();
+        cooldown = pattern.getInterval();
+        if (--volleysLeft == 0) {
+            current = (current + 1) % patterns.length;
+            volleysLeft = patterns[current].getVolleys();
+            cooldown = REST;
+            turn = 0;
+        }
+    }
+
+    /**
+     * Gets the agent firing.
+     *
+     * @return the source
+     */
+    public Agent getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the pattern being played.
+     *
+     * @return the pattern
+     */
+    public Pattern getPattern() {
+        return patterns[current];
+    }
+
+    /**
+     * Gets the volleys fired so far.
+     *
+     * @return the volleys
+     */
+    public long getFired() {
+        return fired;
+    }
+}
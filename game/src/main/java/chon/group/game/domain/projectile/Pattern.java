@@ -0,0 +1,206 @@
+package chon.group.game.domain.projectile;
+
+/**
+ * A way of firing projectiles: how many each volley fires, in which
+ * directions, how fast and how often.
+ * <p>
+ * Patterns are immutable and built with the factory methods; an
+ * {@link Emitter} plays them one after the other.
+ * </p>
+ */
+public class Pattern {
+
+    /** A fan of projectiles aimed at the target. */
+    public static final int SPREAD = 0;
+
+    /** Arms evenly spread around the emitter, turning a little every volley. */
+    public static final int SPIRAL = 1;
+
+    /** Single shots aimed at the target. */
+    public static final int AIMED = 2;
+
+    /** A fan of projectiles aimed at the target, each weaving from side to side. */
+    public static final int WAVE = 3;
+
+    /** Ticks a projectile lives for, long enough to cross the screen. */
+    private static final int LIFE = 600;
+
+    /** The kind of pattern. */
+    private final int kind;
+
+    /** Projectiles fired per volley. */
+    private final int shots;
+
+    /** Angle between neighbouring projectiles of a volley, in angle steps. */
+    private final int gap;
+
+    /** Angle the volley turns by after firing, in angle steps. */
+    private final int spin;
+
+    /** Distance travelled per tick. */
+    private final float speed;
+
+    /** Ticks between volleys. */
+    private final int interval;
+
+    /** Volleys fired before the emitter moves to its next pattern. */
+    private final int volleys;
+
+    /** Largest distance of a weaving projectile from its line. */
+    private final float amplitude;
+
+    /** Ticks taken by one full wave of a weaving projectile. */
+    private final int waveLength;
+
+    /** Style the projectiles are drawn with. */
+    private final int style;
+
+    private Pattern(int kind, int shots, int gap, int spin, float speed, int interval, int volleys,
+            float amplitude, int waveLength, int style) {
+        this.kind = kind;
+        this.shots = Math.max(1, shots);
+        this.gap = gap;
+        this.spin = spin;
+        this.speed = speed;
+        this.interval = Math.max(1, interval);
+        this.volleys = Math.max(1, volleys);
+        this.amplitude = amplitude;
+        this.waveLength = waveLength;
+        this.style = style;
+    }
+
+    /**
+     * Creates a fan of projectiles aimed at the target.
+     *
+     * @param shots    the projectiles per volley
+     * @param arc      the angle covered by the fan, in degrees
+     * @param speed    the distance travelled per tick
+     * @param interval the ticks between volleys
+     * @param volleys  the volleys fired
+     * @param style    the style of the projectiles
+     * @return the pattern
+     */
+    public static Pattern spread(int shots, double arc, float speed, int interval, int volleys, int style) {
+        return new Pattern(SPREAD, shots, shots > 1 ? TrigTable.ofDegrees(arc / (shots - 1)) : 0, 0,
+                speed, interval, volleys, 0, 0, style);
+    }
+
+    /**
+     * Creates arms evenly spread around the emitter, turning every volley.
+     *
+     * @param arms     the projectiles per volley
+     * @param spin     the angle turned after every volley, in degrees
+     * @param speed    the distance travelled per tick
+     * @param interval the ticks between volleys
+     * @param volleys  the volleys fired
+     * @param style    the style of the projectiles
+     * @return the pattern
+     */
+    public static Pattern spiral(int arms, double spin, float speed, int interval, int volleys, int style) {
+        return new Pattern(SPIRAL, arms, TrigTable.ANGLES / Math.max(1, arms), TrigTable.ofDegrees(spin),
+                speed, interval, volleys, 0, 0, style);
+    }
+
+    /**
+     * Creates a burst of single shots aimed at the target.
+     *
+     * @param speed    the distance travelled per tick
+     * @param interval the ticks between shots
+     * @param volleys  the shots fired
+     * @param style    the style of the projectiles
+     * @return the pattern
+     */
+    public static Pattern aimed(float speed, int interval, int volleys, int style) {
+        return new Pattern(AIMED, 1, 0, 0, speed, interval, volleys, 0, 0, style);
+    }
+
+    /**
+     * Creates a fan of weaving projectiles aimed at the target.
+     *
+     * @param shots      the projectiles per volley
+     * @param arc        the angle covered by the fan, in degrees
+     * @param speed      the distance travelled along the line per tick
+     * @param amplitude  the largest distance from the line
+     * @param waveLength the ticks taken by one full wave
+     * @param interval   the ticks between volleys
+     * @param volleys    the volleys fired
+     * @param style      the style of the projectiles
+     * @return the pattern
+     */
+    public static Pattern wave(int shots, double arc, float speed, float amplitude, int waveLength,
+            int interval, int volleys, int style) {
+        return new Pattern(WAVE, shots, shots > 1 ? TrigTable.ofDegrees(arc / (shots - 1)) : 0, 0,
+                speed, interval, volleys, amplitude, waveLength, style);
+    }
+
+    /**
+     * Fires one volley.
+     *
+     * @param projectiles the system receiving the projectiles
+     * @param x           the X the volley is fired from
+     * @param y           the Y the volley is fired from
+     * @param aim         the angle towards the target, in angle steps
+     * @param turn        the angle the pattern has turned by so far, in angle
+     *                    steps
+     */
+    void fire(ProjectileSystem projectiles, float x, float y, int aim, int turn) {
+        /* Fans are centred on the target; spirals start from where they have turned to */
+        int first = kind == SPIRAL ? turn : aim - gap * (shots - 1) / 2;
+        for (int shot = 0; shot < shots; shot++) {
+            int angle = first + gap * shot;
+            if (kind == WAVE) {
+                /* Neighbours weave in opposite directions, so the fan braids */
+                projectiles.fireWave(x, y, angle, speed, (shot & 1) == 0 ? amplitude : -amplitude, waveLength,
+                        LIFE, style);
+            } else {
+                projectiles.fire(x, y, angle, speed, LIFE, style);
+            }
+        }
+    }
+
+    /**
+     * Gets the kind of pattern.
+     *
+     * @return one of {@link #SPREAD}, {@link #SPIRAL}, {@link #AIMED} and
+     *         {@link #WAVE}
+     */
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the projectiles fired per volley.
+     *
+     * @return the shots
+     */
+    public int getShots() {
+        return shots;
+    }
+
+    /**
+     * Gets the angle the volley turns by after firing.
+     *
+     * @return the spin, in angle steps
+     */
+    public int getSpin() {
+        return spin;
+    }
+
+    /**
+     * Gets the ticks between volleys.
+     *
+     * @return the interval
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Gets the volleys fired before the emitter moves on.
+     *
+     * @return the volleys
+     */
+    public int getVolleys() {
+        return volleys;
+    }
+}
@@ -0,0 +1,402 @@
+package chon.group.game.domain.projectile;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-capacity store of the enemies' projectiles.
+ * <p>
+ * Projectiles are kept as a structure of primitive arrays, packed at the
+ * front: a projectile that expires or leaves the world is replaced by the
+ * last one, so a single pass moves and culls them all and the live ones are
+ * always contiguous. Each projectile travels along a straight centre line
+ * and is offset from it by a sine wave; straight shots are waves of zero
+ * amplitude, so every projectile takes the same branch-free update. Sines
+ * are read from a {@link TrigTable}.
+ * </p>
+ * <p>
+ * After the update the projectiles are indexed in a {@link CollisionGrid},
+ * so a collision test only looks at the projectiles near the box it tests.
+ * </p>
+ */
+public class ProjectileSystem {
+
+    /** Small pink bullet. */
+    public static final int PINK = 0;
+
+    /** Small blue bullet. */
+    public static final int BLUE = 1;
+
+    /** Large yellow orb. */
+    public static final int YELLOW = 2;
+
+    /** Tiny purple pellet. */
+    public static final int PURPLE = 3;
+
+    /** Number of projectile styles. */
+    public static final int STYLES = 4;
+
+    /** Radius of each style, in pixels. */
+    private static final int[] RADII = { 6, 6, 10, 4 };
+
+    /** Opaque ARGB colour of each style. */
+    private static final int[] COLORS = { 0xFFFF4FB8, 0xFF4FC8FF, 0xFFFFD23F, 0xFFB36BFF };
+
+    /** Largest radius of every style, by which collision boxes are widened. */
+    private static final int MAX_RADIUS = 10;
+
+    /** Distance beyond the world's edges at which projectiles are culled. */
+    private static final int CULL_MARGIN = 32;
+
+    /** Maximum number of live projectiles. */
+    private final int capacity;
+
+    /** X (horizontal) positions. */
+    private final float[] posX;
+
+    /** Y (vertical) positions. */
+    private final float[] posY;
+
+    /** X of the point on the centre line. */
+    private final float[] lineX;
+
+    /** Y of the point on the centre line. */
+    private final float[] lineY;
+
+    /** Horizontal velocity along the centre line. */
+    private final float[] velX;
+
+    /** Vertical velocity along the centre line. */
+    private final float[] velY;
+
+    /** Horizontal offset from the centre line at the crest of the wave. */
+    private final float[] waveX;
+
+    /** Vertical offset from the centre line at the crest of the wave. */
+    private final float[] waveY;
+
+    /** Phase of the wave, in {@link TrigTable} angle steps. */
+    private final int[] phase;
+
+    /** Phase advanced every tick, in angle steps. */
+    private final int[] phaseStep;
+
+    /** Remaining life of each projectile, in ticks. */
+    private final short[] life;
+
+    /** Style of each projectile. */
+    private final byte[] style;
+
+    /** Indexes the projectiles by position after every update. */
+    private final CollisionGrid grid;
+
+    /** Projectiles found by the grid for a collision test. */
+    private final int[] candidates;
+
+    /** X of the projectiles that hit during the last collision test. */
+    private final float[] hitX;
+
+    /** Y of the projectiles that hit during the last collision test. */
+    private final float[] hitY;
+
+    /** Indices of the projectiles that hit during the last collision test. */
+    private final int[] hitIndex;
+
+    /** Number of live projectiles. */
+    private int size;
+
+    /** Whether the grid still matches the projectiles' indices. */
+    private boolean indexed;
+
+    /** Projectiles not fired because the system was full. */
+    private long dropped;
+
+    /**
+     * Constructor to initialize the projectile system with a fixed capacity.
+     *
+     * @param capacity the maximum number of live projectiles
+     */
+    public ProjectileSystem(int capacity) {
+        this.capacity = capacity;
+        this.posX = new float[capacity];
+        this.posY = new float[capacity];
+        this.lineX = new float[capacity];
+        this.lineY = new float[capacity];
+        this.velX = new float[capacity];
+        this.velY = new float[capacity];
+        this.waveX = new float[capacity];
+        this.waveY = new float[capacity];
+        this.phase = new int[capacity];
+        this.phaseStep = new int[capacity];
+        this.life = new short[capacity];
+        this.style = new byte[capacity];
+        this.grid = new CollisionGrid(capacity);
+        this.candidates = new int[capacity];
+        this.hitX = new float[capacity];
+        this.hitY = new float[capacity];
+        this.hitIndex = new int[capacity];
+    }
+
+    /**
+     * Gets the maximum number of live projectiles.
+     *
+     * @return the capacity of the system
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of live projectiles.
+     *
+     * @return the number of projectiles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of projectiles not fired because the system was full.
+     *
+     * @return the dropped projectiles
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Gets the radius of a style.
+     *
+     * @param style the style
+     * @return the radius in pixels
+     */
+    public static int radiusOf(int style) {
+        return RADII[style];
+    }
+
+    /**
+     * Gets the colour of a style.
+     *
+     * @param style the style
+     * @return the opaque ARGB colour
+     */
+    public static int colorOf(int style) {
+        return COLORS[style];
+    }
+
+    /**
+     * Fires a projectile in a straight line.
+     *
+     * @param x     the X (horizontal) position it starts at
+     * @param y     the Y (vertical) position it starts at
+     * @param angle the direction, in {@link TrigTable} angle steps
+     * @param speed the distance travelled per tick
+     * @param ticks the ticks it lives for, unless it leaves the world first
+     * @param style the style it is drawn with
+     */
+    public void fire(float x, float y, int angle, float speed, int ticks, int style) {
+        fireWave(x, y, angle, speed, 0, 0, ticks, style);
+    }
+
+    /**
+     * Fires a projectile that weaves from side to side of a straight line.
+     *
+     * @param x          the X (horizontal) position it starts at
+     * @param y          the Y (vertical) position it starts at
+     * @param angle      the direction, in {@link TrigTable} angle steps
+     * @param speed      the distance travelled along the line per tick
+     * @param amplitude  the largest distance from the line
+     * @param waveLength the ticks taken by one full wave, 0 for none
+     * @param ticks      the ticks it lives for, unless it leaves the world first
+     * @param style      the style it is drawn with
+     */
+    public void fireWave(float x, float y, int angle, float speed, float amplitude, int waveLength,
+            int ticks, int style) {
+        if (size == capacity) {
+            dropped++;
+            return;
+        }
+        int i = size++;
+        float cos = TrigTable.cos(angle);
+        float sin = TrigTable.sin(angle);
+        posX[i] = x;
+        posY[i] = y;
+        lineX[i] = x;
+        lineY[i] = y;
+        velX[i] = cos * speed;
+        velY[i] = sin * speed;
+        /* The wave swings across the line, a quarter turn from its direction */
+        waveX[i] = -sin * amplitude;
+        waveY[i] = cos * amplitude;
+        phase[i] = 0;
+        phaseStep[i] = waveLength > 0 ? TrigTable.ANGLES / waveLength : 0;
+        life[i] = (short) Math.min(ticks, Short.MAX_VALUE);
+        this.style[i] = (byte) style;
+        indexed = false;
+    }
+
+    /**
+     * Moves every projectile by one tick, culls the ones that expired or left
+     * the world and indexes the rest for collision tests.
+     *
+     * @param width  the width of the world
+     * @param height the height of the world
+     */
+    public void update(int width, int height) {
+        float minX = -CULL_MARGIN;
+        float minY = -CULL_MARGIN;
+        float maxX = width + CULL_MARGIN;
+        float maxY = height + CULL_MARGIN;
+        int i = 0;
+        while (i < size) {
+            float x = lineX[i] + velX[i];
+            float y = lineY[i] + velY[i];
+            int p = (phase[i] + phaseStep[i]) & TrigTable.MASK;
+            float wave = TrigTable.sin(p);
+            float drawnX = x + waveX[i] * wave;
+            float drawnY = y + waveY[i] * wave;
+            if (--life[i] <= 0 || drawnX < minX || drawnX > maxX || drawnY < minY || drawnY > maxY) {
+                remove(i);
+                continue;
+            }
+            lineX[i] = x;
+            lineY[i] = y;
+            phase[i] = p;
+            posX[i] = drawnX;
+            posY[i] = drawnY;
+            i++;
+        }
+        grid.build(posX, posY, size, width, height);
+        indexed = true;
+    }
+
+    /**
+     * Removes the projectiles touching a box, such as an agent's bounds. The
+     * positions of the projectiles removed can be read with
+     * {@link #getHitX(int)} and {@link #getHitY(int)}.
+     *
+     * @param x      the left edge of the box
+     * @param y      the top edge of the box
+     * @param width  the width of the box
+     * @param height the height of the box
+     * @return the number of projectiles removed
+     */
+    public int collide(float x, float y, float width, float height) {
+        float maxX = x + width;
+        float maxY = y + height;
+        int found;
+        if (indexed) {
+            found = grid.query(x - MAX_RADIUS, y - MAX_RADIUS, maxX + MAX_RADIUS, maxY + MAX_RADIUS, candidates);
+        } else {
+            /* Fired since the last update, so test them all */
+            found = size;
+            for (int i = 0; i < size; i++)
+                candidates[i] = i;
+        }
+        int hits = 0;
+        for (int n = 0; n < found; n++) {
+            int i = candidates[n];
+            /* Distance from the centre to the closest point of the box */
+            float dx = posX[i] - Math.max(x, Math.min(posX[i], maxX));
+            float dy = posY[i] - Math.max(y, Math.min(posY[i], maxY));
+            int radius = RADII[style[i]];
+            if (dx * dx + dy * dy <= radius * radius)
+                hitIndex[hits++] = i;
+        }
+        if (hits == 0)
+            return 0;
+        /* Remove from the highest index down, so no hit is moved before its turn */
+        Arrays.sort(hitIndex, 0, hits);
+        for (int n = hits - 1; n >= 0; n--) {
+            int i = hitIndex[n];
+            hitX[n] = posX[i];
+            hitY[n] = posY[i];
+            remove(i);
+        }
+        indexed = false;
+        return hits;
+    }
+
+    /**
+     * Gets the X of a projectile removed by the last collision test.
+     *
+     * @param hit the hit, below the number of projectiles removed
+     * @return the X where it hit
+     */
+    public float getHitX(int hit) {
+        return hitX[hit];
+    }
+
+    /**
+     * Gets the Y of a projectile removed by the last collision test.
+     *
+     * @param hit the hit, below the number of projectiles removed
+     * @return the Y where it hit
+     */
+    public float getHitY(int hit) {
+        return hitY[hit];
+    }
+
+    /**
+     * Removes every projectile.
+     */
+    public void clear() {
+        size = 0;
+        indexed = false;
+    }
+
+    /**
+     * Visits the live projectiles whose bounds touch a rectangle.
+     *
+     * @param x       the left edge of the rectangle
+     * @param y       the top edge of the rectangle
+     * @param width   the width of the rectangle
+     * @param height  the height of the rectangle
+     * @param visitor the consumer of the projectile data
+     */
+    public void forEachVisible(int x, int y, int width, int height, ProjectileVisitor visitor) {
+        float minX = x - MAX_RADIUS;
+        float minY = y - MAX_RADIUS;
+        float maxX = x + width + MAX_RADIUS;
+        float maxY = y + height + MAX_RADIUS;
+        for (int i = 0; i < size; i++) {
+            float px = posX[i];
+            float py = posY[i];
+            if (px >= minX && px <= maxX && py >= minY && py <= maxY)
+                visitor.visitProjectile((int) px, (int) py, style[i]);
+        }
+    }
+
+    /**
+     * Replaces a projectile by the last one.
+     */
+    private void remove(int i) {
+        int last = --size;
+        posX[i] = posX[last];
+        posY[i] = posY[last];
+        lineX[i] = lineX[last];
+        lineY[i] = lineY[last];
+        velX[i] = velX[last];
+        velY[i] = velY[last];
+        waveX[i] = waveX[last];
+        waveY[i] = waveY[last];
+        phase[i] = phase[last];
+        phaseStep[i] = phaseStep[last];
+        life[i] = life[last];
+        style[i] = style[last];
+    }
+
+    /**
+     * Receives projectile data while iterating the live projectiles.
+     */
+    public interface ProjectileVisitor {
+
+        /**
+         * Visits one live projectile.
+         *
+         * @param x     the X (horizontal) position of its centre
+         * @param y     the Y (vertical) position of its centre
+         * @param style the style it is drawn with
+         */
+        void visitProjectile(int x, int y, int style);
+    }
+}
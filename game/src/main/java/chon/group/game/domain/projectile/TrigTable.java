@@ -0,0 +1,73 @@
+package chon.group.game.domain.projectile;
+
+/**
+ * Sines and cosines looked up from a precomputed table.
+ * <p>
+ * Angles are integers counted in {@link #ANGLES} steps per turn, so they wrap
+ * with a mask instead of a division and index the table directly. The
+ * cosine table is the sine table read a quarter turn ahead.
+ * </p>
+ */
+public final class TrigTable {
+
+    /** Number of angle steps in a full turn, a power of two. */
+    public static final int ANGLES = 4096;
+
+    /** Mask wrapping an angle into one turn. */
+    public static final int MASK = ANGLES - 1;
+
+    /** Angle steps in a quarter turn. */
+    private static final int QUARTER = ANGLES / 4;
+
+    /** Sine of every angle step, followed by a quarter turn more for the cosines. */
+    private static final float[] SINES = new float[ANGLES + QUARTER];
+
+    static {
+        for (int i = 0; i < SINES.length; i++)
+            SINES[i] = (float) Math.sin(2 * Math.PI * i / ANGLES);
+    }
+
+    private TrigTable() {
+    }
+
+    /**
+     * Gets the sine of an angle.
+     *
+     * @param angle the angle in steps, of any sign
+     * @return the sine
+     */
+    public static float sin(int angle) {
+        return SINES[angle & MASK];
+    }
+
+    /**
+     * Gets the cosine of an angle.
+     *
+     * @param angle the angle in steps, of any sign
+     * @return the cosine
+     */
+    public static float cos(int angle) {
+        return SINES[(angle & MASK) + QUARTER];
+    }
+
+    /**
+     * Converts degrees into angle steps.
+     *
+     * @param degrees the angle in degrees
+     * @return the nearest angle in steps
+     */
+    public static int ofDegrees(double degrees) {
+        return (int) Math.round(degrees * ANGLES / 360);
+    }
+
+    /**
+     * Gets the angle of a direction.
+     *
+     * @param dx the horizontal component
+     * @param dy the vertical component, growing downwards
+     * @return the angle in steps, wrapped into one turn
+     */
+    public static int ofDirection(double dx, double dy) {
+        return (int) Math.round(Math.atan2(dy, dx) * ANGLES / (2 * Math.PI)) & MASK;
+    }
+}
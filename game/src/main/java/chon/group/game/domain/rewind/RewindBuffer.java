@@ -0,0 +1,703 @@
+package chon.group.game.domain.rewind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import chon.group.game.domain.agent.Agent;
+import chon.group.game.domain.environment.AgentScheduler;
+import chon.group.game.domain.environment.Camera;
+import chon.group.game.domain.environment.Environment;
+import chon.group.game.domain.environment.EnvironmentListener;
+import chon.group.game.domain.environment.Simulation;
+import chon.group.game.domain.item.FallingItem;
+
+/**
+ * Remembers the last seconds of an environment, so any recent tick can be
+ * rebuilt: to rewind the game, or to step backwards through the state while
+ * debugging.
+ * <p>
+ * Every tick is recorded as its difference from the tick before, and every
+ * few ticks as a keyframe holding the whole state, in a ring of records
+ * reused forever. The oldest records are overwritten, so memory stays
+ * bounded, and a tick is rebuilt from the keyframe before it and at most an
+ * interval of differences.
+ * </p>
+ * <p>
+ * A difference holds the change of the time, the score and the camera; for
+ * each agent a byte telling which fields changed, then their changes, a
+ * position changing by how much it differs from the agent's last step, so an
+ * agent walking steadily writes its byte alone; and the items spawned,
+ * removed or changing speed, which the buffer hears of as a listener of the
+ * environment. Given the {@link AgentScheduler}, only the
+ * protagonist and the agents the scheduler updated on the tick are looked
+ * at, the others being left alone by the tick. Falling is not written at
+ * all: rebuilding a tick replays {@link Simulation#fallsOn} with the
+ * recorded camera and moves the items as {@link FallingItem#fall()} does, so
+ * recording costs the same whatever the number of items. Items are therefore
+ * expected to move only by falling, as the {@link Simulation} moves them, to
+ * change speed through {@link Environment#setItemSpeed(FallingItem, double)}
+ * and to leave through {@link Environment#removeFallingItem(FallingItem)},
+ * and other agents to change only through their behaviours; a change made
+ * otherwise is only caught by the next keyframe. Particles and projectiles
+ * are not recorded and are cleared by a restore.
+ * </p>
+ */
+public class RewindBuffer implements EnvironmentListener {
+
+    /* Fields of an agent that changed, a position when its step did */
+    private static final int X = 1;
+    private static final int Y = 2;
+    private static final int HEALTH = 4;
+    private static final int FLAGS = 8;
+    private static final int LAST_HIT = 16;
+
+    /* Where each field of an agent sits in its row of the agent fields */
+    private static final int ROW_X = 0;
+    private static final int ROW_Y = 1;
+    private static final int ROW_STEP_X = 2;
+    private static final int ROW_STEP_Y = 3;
+    private static final int ROW_HEALTH = 4;
+    private static final int ROW_FLAGS = 5;
+    private static final int ROW_LAST_HIT = 6;
+    private static final int ROW = 8;
+
+    /** The environment recorded. */
+    private final Environment environment;
+
+    /** The scheduler updating the agents, or null to look at every agent. */
+    private final AgentScheduler scheduler;
+
+    /** The records, tick {@code t} in slot {@code t % records.length}. */
+    private final TickRecord[] records;
+
+    /** Ticks between keyframes. */
+    private final int keyframeInterval;
+
+    /** The state of the newest tick, which the next difference is taken from. */
+    private final RewindFrame latest = new RewindFrame();
+
+    /**
+     * The fields of the agents at the newest tick, kept here instead of in
+     * {@link #latest}: a row of {@link #ROW} for each, so recording an agent
+     * reads and writes one place in memory.
+     */
+    private long[] agentRows = new long[16 * ROW];
+
+    /** The state rebuilt by the last call to {@link #reconstruct(long)}. */
+    private final RewindFrame rebuilt = new RewindFrame();
+
+    /** The camera the recorded falls are replayed with. */
+    private Camera camera;
+
+    /** An item of every kind seen, copied when items are restored. */
+    private final List<FallingItem> kinds = new ArrayList<>();
+
+    /** The kind found last, tried first for the next item. */
+    private int lastKind;
+
+    /** Items spawned since the newest tick. */
+    private FallingItem[] spawned = new FallingItem[16];
+
+    /** Number of items spawned since the newest tick. */
+    private int spawnedCount;
+
+    /** Ids of the items removed since the newest tick. */
+    private int[] removed = new int[16];
+
+    /** Number of items removed since the newest tick. */
+    private int removedCount;
+
+    /** Items whose speed changed since the newest tick. */
+    private FallingItem[] speedChanged = new FallingItem[16];
+
+    /** Number of items whose speed changed since the newest tick. */
+    private int speedChangedCount;
+
+    /** The newest tick recorded, or -1 when nothing was. */
+    private long newestTick = -1;
+
+    /** The newest keyframe recorded, or -1 when the next tick must be one. */
+    private long lastKeyframe = -1;
+
+    /**
+     * Constructor to remember a number of ticks of an environment. The
+     * buffer listens to the environment from now on.
+     *
+     * @param environment      the environment recorded
+     * @param historyTicks     the ticks that can always be rebuilt
+     * @param keyframeInterval the ticks between keyframes; longer intervals
+     *                         take less memory and longer to rebuild a tick
+     */
+    public RewindBuffer(Environment environment, int historyTicks, int keyframeInterval) {
+        this(environment, null, historyTicks, keyframeInterval);
+    }
+
+    /**
+     * Constructor to remember a number of ticks of an environment whose
+     * agents are updated by a scheduler, recording only the agents it
+     * updated on each tick. The buffer listens to the environment from now
+     * on.
+     *
+     * @param environment      the environment recorded
+     * @param scheduler        the scheduler updating the environment's
+     *                         agents, or null to look at every agent
+     * @param historyTicks     the ticks that can always be rebuilt
+     * @param keyframeInterval the ticks between keyframes; longer intervals
+     *                         take less memory and longer to rebuild a tick
+     */
+    public RewindBuffer(Environment environment, AgentScheduler scheduler, int historyTicks, int keyframeInterval) {
+        if (historyTicks < 1 || keyframeInterval < 1)
+            throw new IllegalArgumentException("History and keyframe interval must be positive");
+        this.environment = environment;
+        this.scheduler = scheduler;
+        this.keyframeInterval = keyframeInterval;
+        /* A keyframe interval more, so the oldest keyframe kept is never newer than the history */
+        this.records = new TickRecord[historyTicks + keyframeInterval];
+        for (int i = 0; i < records.length; i++)
+            records[i] = new TickRecord();
+        environment.addListener(this);
+    }
+
+    /**
+     * Gets the newest tick recorded.
+     *
+     * @return the tick, or -1 when nothing was recorded
+     */
+    public long getNewestTick() {
+        return newestTick;
+    }
+
+    /**
+     * Gets the oldest tick that can still be rebuilt.
+     *
+     * @return the tick, or -1 when nothing was recorded
+     */
+    public long getOldestTick() {
+        long oldest = -1;
+        long first = Math.max(0, newestTick - records.length + 1);
+        for (long tick = newestTick; tick >= first; tick--) {
+            TickRecord record = records[slot(tick)];
+            /* Slots of a discarded future may hold ticks overwritten before the rewind */
+            if (record.tick != tick)
+                break;
+            if (record.keyframe)
+                oldest = tick;
+        }
+        return oldest;
+    }
+
+    /**
+     * Gets the ticks between keyframes.
+     *
+     * @return the keyframe interval
+     */
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * Gets the memory held by the records.
+     *
+     * @return the bytes allocated for the encoded ticks
+     */
+    public long getRetainedBytes() {
+        long bytes = 0;
+        for (int i = 0; i < records.length; i++)
+            bytes += records[i].capacity();
+        return bytes;
+    }
+
+    /**
+     * Forgets every tick; the next one recorded is a keyframe.
+     */
+    public void clear() {
+        for (int i = 0; i < records.length; i++)
+            records[i].tick = -1;
+        clearEvents();
+        latest.clear();
+        newestTick = -1;
+        lastKeyframe = -1;
+    }
+
+    /**
+     * Remembers an item spawned, written with the next tick.
+     *
+     * @param item the item spawned
+     */
+    @Override
+    public void onItemSpawned(FallingItem item) {
+        if (spawnedCount == spawned.length)
+            spawned = Arrays.copyOf(spawned, spawned.length * 2);
+        spawned[spawnedCount++] = item;
+    }
+
+    /**
+     * Remembers an item removed, written with the next tick.
+     *
+     * @param item the item removed
+     */
+    @Override
+    public void onItemRemoved(FallingItem item) {
+        if (removedCount == removed.length)
+            removed = Arrays.copyOf(removed, removed.length * 2);
+        removed[removedCount++] = item.getId();
+    }
+
+    /**
+     * Remembers an item changing speed, written with the next tick.
+     *
+     * @param item the item
+     */
+    @Override
+    public void onItemSpeedChanged(FallingItem item) {
+        if (speedChangedCount == speedChanged.length)
+            speedChanged = Arrays.copyOf(speedChanged, speedChanged.length * 2);
+        speedChanged[speedChangedCount++] = item;
+    }
+
+    /**
+     * Forgets the items spawned and removed since the newest tick, which
+     * were replaced; the next tick recorded is a keyframe.
+     */
+    @Override
+    public void onItemsRestored() {
+        clearEvents();
+        lastKeyframe = -1;
+    }
+
+    /**
+     * Records the state of the environment as the next tick. Given a
+     * scheduler, the buffer is recorded after each of its ticks.
+     */
+    public void record() {
+        long tick = newestTick + 1;
+        boolean keyframe = lastKeyframe < 0 || tick - lastKeyframe >= keyframeInterval;
+        TickRecord record = records[slot(tick)];
+        record.reset(tick, keyframe);
+        if (keyframe) {
+            /* A keyframe is the difference from nothing */
+            latest.clear();
+            lastKeyframe = tick;
+        }
+        latest.tick = tick;
+        /* Seven varints at most */
+        record.ensure(70);
+        long time = environment.getTime();
+        record.putVarLong(time - latest.time);
+        latest.time = time;
+        int score = environment.getScore();
+        record.putVarLong(score - latest.score);
+        latest.score = score;
+        Camera current = environment.getCamera();
+        record.putVarLong(current.getPosX() - latest.cameraX);
+        record.putVarLong(current.getPosY() - latest.cameraY);
+        latest.cameraX = current.getPosX();
+        latest.cameraY = current.getPosY();
+        if (keyframe) {
+            record.putVarLong(current.getWidth());
+            record.putVarLong(current.getHeight());
+            record.putVarLong(current.getMargin());
+        }
+        recordAgents(record, keyframe);
+        if (keyframe)
+            recordAllItems(record);
+        else
+            recordEvents(record);
+        clearEvents();
+        newestTick = tick;
+    }
+
+    /**
+     * Rebuilds the state of a recorded tick.
+     *
+     * @param tick the tick, from {@link #getOldestTick()} to
+     *             {@link #getNewestTick()}
+     * @return the state, overwritten by the next call
+     * @throws IllegalArgumentException if the tick is not recorded
+     */
+    public RewindFrame reconstruct(long tick) {
+        long oldest = getOldestTick();
+        if (oldest < 0 || tick < oldest || tick > newestTick)
+            throw new IllegalArgumentException("Tick " + tick + " is not recorded");
+        long keyframe = tick;
+        while (!records[slot(keyframe)].keyframe)
+            keyframe--;
+        for (long t = keyframe; t <= tick; t++)
+            apply(records[slot(t)], rebuilt);
+        return rebuilt;
+    }
+
+    /**
+     * Puts the environment back in the state of a recorded tick and forgets
+     * the ticks after it, so recording goes on from there. Items are
+     * replaced by copies through
+     * {@link Environment#restoreFallingItems(List)}, the listeners hearing
+     * of a restore rather than of items removed and spawned; the copies
+     * have new ids, so the next tick recorded is a keyframe.
+     *
+     * @param tick the tick, from {@link #getOldestTick()} to
+     *             {@link #getNewestTick()}
+     * @throws IllegalArgumentException if the tick is not recorded
+     */
+    public void restore(long tick) {
+        RewindFrame frame = reconstruct(tick);
+        environment.setTime(frame.time);
+        environment.setScore(frame.score);
+        environment.getCamera().moveTo(frame.cameraX, frame.cameraY, environment.getWidth(),
+                environment.getHeight());
+        List<Agent> agents = environment.getAgents();
+        int count = Math.min(frame.agentCount, 1 + agents.size());
+        for (int i = 0; i < count; i++) {
+            Agent agent = i == 0 ? environment.getProtagonist() : agents.get(i - 1);
+            agent.setPosX(frame.agentX[i]);
+            agent.setPosY(frame.agentY[i]);
+            agent.setHealth(frame.agentHealth[i]);
+            agent.face((frame.agentFlags[i] & RewindFrame.FLIPPED) != 0);
+            agent.setInvulnerable((frame.agentFlags[i] & RewindFrame.INVULNERABLE) != 0);
+            agent.setlastHitTime(frame.agentLastHit[i]);
+        }
+        List<FallingItem> items = new ArrayList<>(frame.itemCount);
+        for (int i = 0; i < frame.itemCount; i++) {
+            FallingItem item = new FallingItem(kinds.get(frame.itemKind[i]), frame.itemX[i], frame.itemY[i],
+                    frame.itemSkipped[i]);
+            item.setSpeed(frame.itemSpeed[i]);
+            items.add(item);
+        }
+        environment.restoreFallingItems(items);
+        environment.getParticles().clear();
+        environment.getProjectiles().clear();
+        clearEvents();
+        latest.copyFrom(frame);
+        loadAgentRows(frame);
+        newestTick = tick;
+        lastKeyframe = -1;
+    }
+
+    /**
+     * Writes which fields of the agents changed, and their changes: the
+     * protagonist, then the agents updated by the scheduler on the tick, each
+     * after its index, or every agent when the tick is a keyframe, there is
+     * no scheduler or the number of agents changed.
+     */
+    private void recordAgents(TickRecord record, boolean keyframe) {
+        List<Agent> agents = environment.getAgents();
+        int count = 1 + agents.size();
+        boolean every = keyframe || scheduler == null || count != latest.agentCount;
+        record.writeVarLong(count);
+        if (count * ROW > agentRows.length)
+            agentRows = Arrays.copyOf(agentRows, Math.max(count, 2 * agentRows.length / ROW) * ROW);
+        if (count > latest.agentCount)
+            Arrays.fill(agentRows, latest.agentCount * ROW, count * ROW, 0);
+        latest.resizeAgents(count);
+        recordAgent(record, 0, environment.getProtagonist());
+        if (every) {
+            record.writeVarLong(-1);
+            for (int i = 1; i < count; i++)
+                recordAgent(record, i, agents.get(i - 1));
+            return;
+        }
+        int updated = scheduler.getUpdated();
+        record.writeVarLong(updated);
+        for (int n = 0; n < updated; n++) {
+            int index = scheduler.getUpdatedAgent(n);
+            record.writeVarLong(index + 1);
+            recordAgent(record, index + 1, agents.get(index));
+        }
+    }
+
+    /**
+     * Writes which fields of an agent changed, and their changes.
+     */
+    private void recordAgent(TickRecord record, int i, Agent agent) {
+        /* The byte and, for a changed agent, five varints at most */
+        record.ensure(51);
+        long[] rows = agentRows;
+        int row = i * ROW;
+        int x = agent.getPosX();
+        int y = agent.getPosY();
+        int stepX = x - (int) rows[row + ROW_X];
+        int stepY = y - (int) rows[row + ROW_Y];
+        int turnX = stepX - (int) rows[row + ROW_STEP_X];
+        int turnY = stepY - (int) rows[row + ROW_STEP_Y];
+        int dhealth = agent.getHealth() - (int) rows[row + ROW_HEALTH];
+        int dflags = ((agent.isFlipped() ? RewindFrame.FLIPPED : 0)
+                | (agent.isInvulnerable() ? RewindFrame.INVULNERABLE : 0)) - (int) rows[row + ROW_FLAGS];
+        long dlastHit = agent.getlastHitTime() - rows[row + ROW_LAST_HIT];
+        int changed = (turnX != 0 ? X : 0) | (turnY != 0 ? Y : 0) | (dhealth != 0 ? HEALTH : 0)
+                | (dflags != 0 ? FLAGS : 0) | (dlastHit != 0 ? LAST_HIT : 0);
+        record.putByte(changed);
+        rows[row + ROW_X] = x;
+        rows[row + ROW_Y] = y;
+        rows[row + ROW_STEP_X] = stepX;
+        rows[row + ROW_STEP_Y] = stepY;
+        if (changed == 0)
+            return;
+        if (turnX != 0)
+            record.putVarLong(turnX);
+        if (turnY != 0)
+            record.putVarLong(turnY);
+        if (dhealth != 0) {
+            record.putVarLong(dhealth);
+            rows[row + ROW_HEALTH] += dhealth;
+        }
+        if (dflags != 0) {
+            record.putVarLong(dflags);
+            rows[row + ROW_FLAGS] += dflags;
+        }
+        if (dlastHit != 0) {
+            record.putVarLong(dlastHit);
+            rows[row + ROW_LAST_HIT] += dlastHit;
+        }
+    }
+
+    /**
+     * Copies the fields of the agents of a state into their rows.
+     */
+    private void loadAgentRows(RewindFrame frame) {
+        if (frame.agentCount * ROW > agentRows.length)
+            agentRows = new long[frame.agentCount * ROW];
+        for (int i = 0; i < frame.agentCount; i++) {
+            int row = i * ROW;
+            agentRows[row + ROW_X] = frame.agentX[i];
+            agentRows[row + ROW_Y] = frame.agentY[i];
+            agentRows[row + ROW_STEP_X] = frame.agentStepX[i];
+            agentRows[row + ROW_STEP_Y] = frame.agentStepY[i];
+            agentRows[row + ROW_HEALTH] = frame.agentHealth[i];
+            agentRows[row + ROW_FLAGS] = frame.agentFlags[i];
+            agentRows[row + ROW_LAST_HIT] = frame.agentLastHit[i];
+        }
+    }
+
+    /**
+     * Writes every item in full, for a keyframe.
+     */
+    private void recordAllItems(TickRecord record) {
+        List<FallingItem> items = environment.getFallingItems();
+        record.writeVarLong(items.size());
+        for (int i = 0; i < items.size(); i++)
+            recordItem(items.get(i), record);
+    }
+
+    /**
+     * Writes the items spawned, the items that changed speed and the ids of
+     * the items removed since the tick before. Spawned items are written as
+     * they are now, after the tick, so they are not replayed falling on it;
+     * items changing speed are written with their speed, position and
+     * skipped falls now, which replace the replayed ones.
+     */
+    private void recordEvents(TickRecord record) {
+        record.writeVarLong(spawnedCount);
+        for (int i = 0; i < spawnedCount; i++)
+            recordItem(spawned[i], record);
+        record.writeVarLong(speedChangedCount);
+        for (int i = 0; i < speedChangedCount; i++) {
+            FallingItem item = speedChanged[i];
+            record.writeVarLong(item.getId());
+            record.writeDouble(item.getSpeed());
+            record.writeDouble(item.getPosY());
+            record.writeVarLong(item.getSkippedFalls());
+        }
+        record.writeVarLong(removedCount);
+        for (int i = 0; i < removedCount; i++)
+            record.writeVarLong(removed[i]);
+    }
+
+    /**
+     * Writes the id, the kind, the speed, the position and the skipped falls
+     * of an item.
+     */
+    private void recordItem(FallingItem item, TickRecord record) {
+        int kind = kindOf(item);
+        /* Three varints and three doubles at most */
+        record.ensure(54);
+        record.putVarLong(item.getId());
+        record.putVarLong(kind);
+        record.putDouble(item.getSpeed());
+        record.putDouble(item.getPosX());
+        record.putDouble(item.getPosY());
+        record.putVarLong(item.getSkippedFalls());
+    }
+
+    /**
+     * Forgets the items spawned, removed or changing speed since the newest
+     * tick.
+     */
+    private void clearEvents() {
+        Arrays.fill(spawned, 0, spawnedCount, null);
+        spawnedCount = 0;
+        Arrays.fill(speedChanged, 0, speedChangedCount, null);
+        speedChangedCount = 0;
+        removedCount = 0;
+    }
+
+    /**
+     * Applies a record to the state of the tick before it, or to any state
+     * when the record is a keyframe.
+     */
+    private void apply(TickRecord record, RewindFrame frame) {
+        record.rewind();
+        if (record.keyframe)
+            frame.clear();
+        frame.tick = record.tick;
+        frame.time += record.readVarLong();
+        frame.score += (int) record.readVarLong();
+        frame.cameraX += (int) record.readVarLong();
+        frame.cameraY += (int) record.readVarLong();
+        if (record.keyframe) {
+            frame.cameraWidth = (int) record.readVarLong();
+            frame.cameraHeight = (int) record.readVarLong();
+            frame.cameraMargin = (int) record.readVarLong();
+        }
+        frame.resizeAgents((int) record.readVarLong());
+        applyAgent(record, frame, 0);
+        int listed = (int) record.readVarLong();
+        if (listed < 0) {
+            for (int i = 1; i < frame.agentCount; i++)
+                applyAgent(record, frame, i);
+        } else {
+            for (int n = 0; n < listed; n++)
+                applyAgent(record, frame, (int) record.readVarLong());
+        }
+        if (record.keyframe) {
+            readItems(record, frame);
+            return;
+        }
+        replayFalls(frame);
+        readItems(record, frame);
+        int changes = (int) record.readVarLong();
+        for (int c = 0; c < changes; c++) {
+            int id = (int) record.readVarLong();
+            double speed = record.readDouble();
+            double y = record.readDouble();
+            int skipped = (int) record.readVarLong();
+            for (int i = 0; i < frame.itemCount; i++) {
+                if (frame.itemId[i] == id) {
+                    frame.itemSpeed[i] = speed;
+                    frame.itemY[i] = y;
+                    frame.itemSkipped[i] = skipped;
+                    break;
+                }
+            }
+        }
+        int removals = (int) record.readVarLong();
+        for (int r = 0; r < removals; r++) {
+            int id = (int) record.readVarLong();
+            for (int i = 0; i < frame.itemCount; i++) {
+                if (frame.itemId[i] == id) {
+                    removeItem(frame, i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the changes of an agent to a state.
+     */
+    private static void applyAgent(TickRecord record, RewindFrame frame, int i) {
+        int changed = record.readByte();
+        if ((changed & X) != 0)
+            frame.agentStepX[i] += (int) record.readVarLong();
+        if ((changed & Y) != 0)
+            frame.agentStepY[i] += (int) record.readVarLong();
+        frame.agentX[i] += frame.agentStepX[i];
+        frame.agentY[i] += frame.agentStepY[i];
+        if ((changed & HEALTH) != 0)
+            frame.agentHealth[i] += (int) record.readVarLong();
+        if ((changed & FLAGS) != 0)
+            frame.agentFlags[i] += (int) record.readVarLong();
+        if ((changed & LAST_HIT) != 0)
+            frame.agentLastHit[i] += record.readVarLong();
+    }
+
+    /**
+     * Moves the items of a state as the simulation did on the tick after it,
+     * with the camera of that tick.
+     */
+    private void replayFalls(RewindFrame frame) {
+        if (camera == null || camera.getWidth() != frame.cameraWidth || camera.getHeight() != frame.cameraHeight
+                || camera.getMargin() != frame.cameraMargin)
+            camera = new Camera(frame.cameraWidth, frame.cameraHeight, frame.cameraMargin);
+        /* The recorded position is already within the world */
+        camera.moveTo(frame.cameraX, frame.cameraY, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        for (int i = 0; i < frame.itemCount; i++) {
+            FallingItem kind = kinds.get(frame.itemKind[i]);
+            if (Simulation.fallsOn(camera, frame.itemX[i], frame.itemY[i], kind.getWidth(), kind.getHeight(),
+                    frame.itemSkipped[i])) {
+                frame.itemY[i] = frame.itemY[i] + frame.itemSpeed[i] * (frame.itemSkipped[i] + 1);
+                frame.itemSkipped[i] = 0;
+            } else {
+                frame.itemSkipped[i]++;
+            }
+        }
+    }
+
+    /**
+     * Reads a count of items written in full and appends them to a state.
+     */
+    private void readItems(TickRecord record, RewindFrame frame) {
+        int count = (int) record.readVarLong();
+        frame.ensureItems(frame.itemCount + count);
+        for (int i = frame.itemCount; i < frame.itemCount + count; i++) {
+            frame.itemId[i] = (int) record.readVarLong();
+            int kind = (int) record.readVarLong();
+            frame.itemKind[i] = kind;
+            frame.itemSpeed[i] = record.readDouble();
+            frame.itemX[i] = record.readDouble();
+            frame.itemY[i] = record.readDouble();
+            frame.itemSkipped[i] = (int) record.readVarLong();
+        }
+        frame.itemCount += count;
+    }
+
+    /**
+     * Removes an item of a state, the last item taking its place as in
+     * {@link Environment#removeFallingItem(FallingItem)}.
+     */
+    private static void removeItem(RewindFrame frame, int index) {
+        int last = --frame.itemCount;
+        frame.itemId[index] = frame.itemId[last];
+        frame.itemKind[index] = frame.itemKind[last];
+        frame.itemSpeed[index] = frame.itemSpeed[last];
+        frame.itemX[index] = frame.itemX[last];
+        frame.itemY[index] = frame.itemY[last];
+        frame.itemSkipped[index] = frame.itemSkipped[last];
+    }
+
+    /**
+     * Gets the index of an item's kind, remembering the kind the first time
+     * it is seen. Items of a kind share their image, whose texture the
+     * texture manager keeps one of, their size and their animation; the
+     * speed is written for each item.
+     */
+    private int kindOf(FallingItem item) {
+        if (lastKind < kinds.size() && sameKind(kinds.get(lastKind), item))
+            return lastKind;
+        for (int k = 0; k < kinds.size(); k++) {
+            if (sameKind(kinds.get(k), item)) {
+                lastKind = k;
+                return k;
+            }
+        }
+        kinds.add(new FallingItem(item, 0, 0, 0));
+        lastKind = kinds.size() - 1;
+        return lastKind;
+    }
+
+    /**
+     * Tells whether an item is of the kind of another.
+     */
+    private static boolean sameKind(FallingItem kind, FallingItem item) {
+        return kind.isBomb() == item.isBomb()
+                && kind.getWidth() == item.getWidth() && kind.getHeight() == item.getHeight()
+                && kind.getSprite() == item.getSprite() && kind.getTexture() == item.getTexture();
+    }
+
+    /**
+     * Gets the slot of a tick.
+     */
+    private int slot(long tick) {
+        return (int) (tick % records.length);
+    }
+}
@@ -0,0 +1,335 @@
+package chon.group.game.domain.rewind;
+
+import java.util.Arrays;
+
+/**
+ * The state of the environment on one recorded tick, as rebuilt by a
+ * {@link RewindBuffer}: the time, the score, the camera, the agents and the
+ * falling items.
+ * <p>
+ * Agents are numbered with the protagonist first, then the environment's
+ * agents in order. Items are numbered in the order of the environment's list
+ * and keep the id and the kind they were recorded with, which the buffer
+ * turns back into an item.
+ * </p>
+ */
+public class RewindFrame {
+
+    /** Flag of an agent facing the other way. */
+    static final int FLIPPED = 1;
+
+    /** Flag of an agent that cannot be hurt. */
+    static final int INVULNERABLE = 2;
+
+    /** The tick of the state. */
+    long tick = -1;
+
+    /** Simulation time of the tick, in milliseconds. */
+    long time;
+
+    /** Game score. */
+    int score;
+
+    /** X (horizontal) world position of the camera. */
+    int cameraX;
+
+    /** Y (vertical) world position of the camera. */
+    int cameraY;
+
+    /** Width of the camera's viewport. */
+    int cameraWidth;
+
+    /** Height of the camera's viewport. */
+    int cameraHeight;
+
+    /** Margin of the camera's viewport. */
+    int cameraMargin;
+
+    /** Number of agents, the protagonist included. */
+    int agentCount;
+
+    /** X (horizontal) position of each agent. */
+    int[] agentX = new int[8];
+
+    /** Y (vertical) position of each agent. */
+    int[] agentY = new int[8];
+
+    /** Move of each agent along X on the last tick it was recorded. */
+    int[] agentStepX = new int[8];
+
+    /** Move of each agent along Y on the last tick it was recorded. */
+    int[] agentStepY = new int[8];
+
+    /** Health of each agent. */
+    int[] agentHealth = new int[8];
+
+    /** {@link #FLIPPED} and {@link #INVULNERABLE} flags of each agent. */
+    int[] agentFlags = new int[8];
+
+    /** Time of each agent's last hit, in milliseconds. */
+    long[] agentLastHit = new long[8];
+
+    /** Number of falling items. */
+    int itemCount;
+
+    /** Id of each item. */
+    int[] itemId = new int[64];
+
+    /** Kind of each item, its index among the kinds the buffer has seen. */
+    int[] itemKind = new int[64];
+
+    /** Falling speed of each item. */
+    double[] itemSpeed = new double[64];
+
+    /** X (horizontal) position of each item. */
+    double[] itemX = new double[64];
+
+    /** Y (vertical) position of each item. */
+    double[] itemY = new double[64];
+
+    /** Ticks each item skipped since its last fall. */
+    int[] itemSkipped = new int[64];
+
+    /**
+     * Empties the state, as the base a keyframe is written against.
+     */
+    void clear() {
+        time = 0;
+        score = 0;
+        cameraX = 0;
+        cameraY = 0;
+        agentCount = 0;
+        itemCount = 0;
+    }
+
+    /**
+     * Sets the number of agents, the new ones starting at zero.
+     *
+     * @param count the number of agents
+     */
+    void resizeAgents(int count) {
+        if (count > agentX.length) {
+            int capacity = Math.max(count, agentX.length * 2);
+            agentX = Arrays.copyOf(agentX, capacity);
+            agentY = Arrays.copyOf(agentY, capacity);
+            agentStepX = Arrays.copyOf(agentStepX, capacity);
+            agentStepY = Arrays.copyOf(agentStepY, capacity);
+            agentHealth = Arrays.copyOf(agentHealth, capacity);
+            agentFlags = Arrays.copyOf(agentFlags, capacity);
+            agentLastHit = Arrays.copyOf(agentLastHit, capacity);
+        }
+        for (int i = agentCount; i < count; i++) {
+            agentX[i] = 0;
+            agentY[i] = 0;
+            agentStepX[i] = 0;
+            agentStepY[i] = 0;
+            agentHealth[i] = 0;
+            agentFlags[i] = 0;
+            agentLastHit[i] = 0;
+        }
+        agentCount = count;
+    }
+
+    /**
+     * Makes room for a number of items.
+     *
+     * @param count the number of items
+     */
+    void ensureItems(int count) {
+        if (count > itemKind.length) {
+            int capacity = Math.max(count, itemKind.length * 2);
+            itemId = Arrays.copyOf(itemId, capacity);
+            itemKind = Arrays.copyOf(itemKind, capacity);
+            itemSpeed = Arrays.copyOf(itemSpeed, capacity);
+            itemX = Arrays.copyOf(itemX, capacity);
+            itemY = Arrays.copyOf(itemY, capacity);
+            itemSkipped = Arrays.copyOf(itemSkipped, capacity);
+        }
+    }
+
+    /**
+     * Copies another state.
+     *
+     * @param other the state to copy
+     */
+    void copyFrom(RewindFrame other) {
+        tick = other.tick;
+        time = other.time;
+        score = other.score;
+        cameraX = other.cameraX;
+        cameraY = other.cameraY;
+        cameraWidth = other.cameraWidth;
+        cameraHeight = other.cameraHeight;
+        cameraMargin = other.cameraMargin;
+        agentCount = 0;
+        resizeAgents(other.agentCount);
+        System.arraycopy(other.agentX, 0, agentX, 0, agentCount);
+        System.arraycopy(other.agentY, 0, agentY, 0, agentCount);
+        System.arraycopy(other.agentStepX, 0, agentStepX, 0, agentCount);
+        System.arraycopy(other.agentStepY, 0, agentStepY, 0, agentCount);
+        System.arraycopy(other.agentHealth, 0, agentHealth, 0, agentCount);
+        System.arraycopy(other.agentFlags, 0, agentFlags, 0, agentCount);
+        System.arraycopy(other.agentLastHit, 0, agentLastHit, 0, agentCount);
+        ensureItems(other.itemCount);
+        itemCount = other.itemCount;
+        System.arraycopy(other.itemId, 0, itemId, 0, itemCount);
+        System.arraycopy(other.itemKind, 0, itemKind, 0, itemCount);
+        System.arraycopy(other.itemSpeed, 0, itemSpeed, 0, itemCount);
+        System.arraycopy(other.itemX, 0, itemX, 0, itemCount);
+        System.arraycopy(other.itemY, 0, itemY, 0, itemCount);
+        System.arraycopy(other.itemSkipped, 0, itemSkipped, 0, itemCount);
+    }
+
+    /**
+     * Gets the tick of the state.
+     *
+     * @return the tick, counted from the start of the recording
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the simulation time of the tick.
+     *
+     * @return the time in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Gets the game score.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the X (horizontal) world position of the camera.
+     *
+     * @return the world X of the viewport's left edge
+     */
+    public int getCameraX() {
+        return cameraX;
+    }
+
+    /**
+     * Gets the Y (vertical) world position of the camera.
+     *
+     * @return the world Y of the viewport's top edge
+     */
+    public int getCameraY() {
+        return cameraY;
+    }
+
+    /**
+     * Gets the number of agents, the protagonist included.
+     *
+     * @return the number of agents
+     */
+    public int getAgentCount() {
+        return agentCount;
+    }
+
+    /**
+     * Gets the X (horizontal) position of an agent.
+     *
+     * @param agent the agent, 0 for the protagonist
+     * @return the X position
+     */
+    public int getAgentX(int agent) {
+        return agentX[agent];
+    }
+
+    /**
+     * Gets the Y (vertical) position of an agent.
+     *
+     * @param agent the agent, 0 for the protagonist
+     * @return the Y position
+     */
+    public int getAgentY(int agent) {
+        return agentY[agent];
+    }
+
+    /**
+     * Gets the health of an agent.
+     *
+     * @param agent the agent, 0 for the protagonist
+     * @return the health
+     */
+    public int getAgentHealth(int agent) {
+        return agentHealth[agent];
+    }
+
+    /**
+     * Gets if an agent is flipped.
+     *
+     * @param agent the agent, 0 for the protagonist
+     * @return if the agent is flipped
+     */
+    public boolean isAgentFlipped(int agent) {
+        return (agentFlags[agent] & FLIPPED) != 0;
+    }
+
+    /**
+     * Gets the number of falling items.
+     *
+     * @return the number of items
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Gets the id of an item.
+     *
+     * @param item the item
+     * @return the id the item had when recorded
+     */
+    public int getItemId(int item) {
+        return itemId[item];
+    }
+
+    /**
+     * Gets the X (horizontal) position of an item.
+     *
+     * @param item the item
+     * @return the X position
+     */
+    public double getItemX(int item) {
+        return itemX[item];
+    }
+
+    /**
+     * Gets the Y (vertical) position of an item.
+     *
+     * @param item the item
+     * @return the Y position
+     */
+    public double getItemY(int item) {
+        return itemY[item];
+    }
+
+    /**
+     * Gets the falling speed of an item.
+     *
+     * @param item the item
+     * @return the speed
+     */
+    public double getItemSpeed(int item) {
+        return itemSpeed[item];
+    }
+
+    /**
+     * Gets the ticks an item skipped since its last fall.
+     *
+     * @param item the item
+     * @return the number of skipped ticks
+     */
+    public int getItemSkipped(int item) {
+        return itemSkipped[item];
+    }
+}
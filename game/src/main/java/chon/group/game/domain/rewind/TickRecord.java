@@ -0,0 +1,177 @@
+package chon.group.game.domain.rewind;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * The encoded state of one tick in a {@link RewindBuffer}: either a
+ * keyframe, holding the whole state, or the difference from the tick before.
+ * <p>
+ * The bytes are kept between uses, growing to the largest tick recorded, so
+ * recording allocates nothing once the game has been running for a while.
+ * Numbers are written as zigzag varints, positions of items as the raw bits
+ * of their doubles, stored at once through a view of the bytes as longs.
+ * </p>
+ */
+class TickRecord {
+
+    /** The bytes seen as big-endian longs, at any offset. */
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.BIG_ENDIAN);
+
+    /** The encoded bytes, the first {@link #length} of them in use. */
+    private byte[] data = new byte[256];
+
+    /** Number of bytes written. */
+    private int length;
+
+    /** Next byte to read. */
+    private int position;
+
+    /** The tick recorded, or -1 when the record is unused. */
+    long tick = -1;
+
+    /** Whether the record holds the whole state rather than a difference. */
+    boolean keyframe;
+
+    /**
+     * Empties the record to write another tick.
+     *
+     * @param tick     the tick recorded
+     * @param keyframe whether the whole state is written
+     */
+    void reset(long tick, boolean keyframe) {
+        this.tick = tick;
+        this.keyframe = keyframe;
+        length = 0;
+        position = 0;
+    }
+
+    /**
+     * Moves back to the first byte to read the record.
+     */
+    void rewind() {
+        position = 0;
+    }
+
+    /**
+     * Gets the number of bytes held, written or not.
+     *
+     * @return the capacity in bytes
+     */
+    int capacity() {
+        return data.length;
+    }
+
+    /**
+     * Makes room for a number of bytes.
+     *
+     * @param bytes the bytes about to be written
+     */
+    void ensure(int bytes) {
+        if (length + bytes > data.length) {
+            byte[] grown = new byte[Math.max(data.length * 2, length + bytes)];
+            System.arraycopy(data, 0, grown, 0, length);
+            data = grown;
+        }
+    }
+
+    /**
+     * Appends a byte, without checking for room.
+     *
+     * @param value the byte
+     */
+    void putByte(int value) {
+        data[length++] = (byte) value;
+    }
+
+    /**
+     * Appends a byte.
+     *
+     * @param value the byte
+     */
+    void writeByte(int value) {
+        ensure(1);
+        data[length++] = (byte) value;
+    }
+
+    /**
+     * Appends a zigzag varint.
+     *
+     * @param value the number
+     */
+    void writeVarLong(long value) {
+        ensure(10);
+        putVarLong(value);
+    }
+
+    /**
+     * Appends a zigzag varint, without checking for room.
+     *
+     * @param value the number
+     */
+    void putVarLong(long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            data[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        data[length++] = (byte) zigzag;
+    }
+
+    /**
+     * Appends the bits of a double.
+     *
+     * @param value the number
+     */
+    void writeDouble(double value) {
+        ensure(8);
+        putDouble(value);
+    }
+
+    /**
+     * Appends the bits of a double, without checking for room.
+     *
+     * @param value the number
+     */
+    void putDouble(double value) {
+        LONGS.set(data, length, Double.doubleToRawLongBits(value));
+        length += 8;
+    }
+
+    /**
+     * Reads a byte.
+     *
+     * @return the byte, from 0 to 255
+     */
+    int readByte() {
+        return data[position++] & 0xFF;
+    }
+
+    /**
+     * Reads a zigzag varint.
+     *
+     * @return the number
+     */
+    long readVarLong() {
+        long zigzag = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = data[position++];
+            zigzag |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+    }
+
+    /**
+     * Reads the bits of a double.
+     *
+     * @return the number
+     */
+    double readDouble() {
+        long bits = (long) LONGS.get(data, position);
+        position += 8;
+        return Double.longBitsToDouble(bits);
+    }
+}
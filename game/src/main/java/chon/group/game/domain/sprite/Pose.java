@@ -0,0 +1,139 @@
+package chon.group.game.domain.sprite;
+
+/**
+ * How a sprite is transformed and coloured in one frame of an animation.
+ * <p>
+ * The sprite is scaled, rotated and sheared around a pivot, given as a
+ * fraction of the frame, then moved by an offset in pixels. Poses are only
+ * used while a {@link SpriteSheet} is built, which reads their fields
+ * directly; each {@code with} method returns a new pose.
+ * </p>
+ */
+public final class Pose {
+
+    /** The pose that draws the sprite unchanged. */
+    public static final Pose IDENTITY = new Pose(1, 1, 0, 0, 0, 0, 0, 0, 1, 0.5, 0.5);
+
+    /** Horizontal scale around the pivot. */
+    final double scaleX;
+
+    /** Vertical scale around the pivot. */
+    final double scaleY;
+
+    /** Horizontal offset in pixels. */
+    final double offsetX;
+
+    /** Vertical offset in pixels. */
+    final double offsetY;
+
+    /** Clockwise rotation around the pivot, in radians. */
+    final double rotation;
+
+    /** Horizontal shear around the pivot. */
+    final double shear;
+
+    /** Colour blended into the sprite, as 0xRRGGBB. */
+    final int tint;
+
+    /** How much of the tint replaces the sprite's colour, from 0 to 1. */
+    final double tintAmount;
+
+    /** Opacity, from 0 to 1. */
+    final double alpha;
+
+    /** X of the pivot as a fraction of the frame width. */
+    final double pivotX;
+
+    /** Y of the pivot as a fraction of the frame height. */
+    final double pivotY;
+
+    private Pose(double scaleX, double scaleY, double offsetX, double offsetY, double rotation, double shear,
+            int tint, double tintAmount, double alpha, double pivotX, double pivotY) {
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.rotation = rotation;
+        this.shear = shear;
+        this.tint = tint;
+        this.tintAmount = tintAmount;
+        this.alpha = alpha;
+        this.pivotX = pivotX;
+        this.pivotY = pivotY;
+    }
+
+    /**
+     * Gets a copy of this pose scaled around the pivot.
+     *
+     * @param scaleX the horizontal scale
+     * @param scaleY the vertical scale
+     * @return the new pose
+     */
+    public Pose withScale(double scaleX, double scaleY) {
+        return new Pose(scaleX, scaleY, offsetX, offsetY, rotation, shear, tint, tintAmount, alpha, pivotX, pivotY);
+    }
+
+    /**
+     * Gets a copy of this pose moved by an offset.
+     *
+     * @param offsetX the horizontal offset in pixels
+     * @param offsetY the vertical offset in pixels
+     * @return the new pose
+     */
+    public Pose withOffset(double offsetX, double offsetY) {
+        return new Pose(scaleX, scaleY, offsetX, offsetY, rotation, shear, tint, tintAmount, alpha, pivotX, pivotY);
+    }
+
+    /**
+     * Gets a copy of this pose rotated around the pivot.
+     *
+     * @param rotation the clockwise rotation in radians
+     * @return the new pose
+     */
+    public Pose withRotation(double rotation) {
+        return new Pose(scaleX, scaleY, offsetX, offsetY, rotation, shear, tint, tintAmount, alpha, pivotX, pivotY);
+    }
+
+    /**
+     * Gets a copy of this pose sheared horizontally: each row above the pivot
+     * moves by the shear times its height over the pivot.
+     *
+     * @param shear the horizontal shear
+     * @return the new pose
+     */
+    public Pose withShear(double shear) {
+        return new Pose(scaleX, scaleY, offsetX, offsetY, rotation, shear, tint, tintAmount, alpha, pivotX, pivotY);
+    }
+
+    /**
+     * Gets a copy of this pose blended towards a colour.
+     *
+     * @param rgb    the colour as {@code 0xRRGGBB}
+     * @param amount how much of the colour replaces the sprite's, from 0 to 1
+     * @return the new pose
+     */
+    public Pose withTint(int rgb, double amount) {
+        return new Pose(scaleX, scaleY, offsetX, offsetY, rotation, shear, rgb, amount, alpha, pivotX, pivotY);
+    }
+
+    /**
+     * Gets a copy of this pose with an opacity.
+     *
+     * @param alpha the opacity, from 0 to 1
+     * @return the new pose
+     */
+    public Pose withAlpha(double alpha) {
+        return new Pose(scaleX, scaleY, offsetX, offsetY, rotation, shear, tint, tintAmount, alpha, pivotX, pivotY);
+    }
+
+    /**
+     * Gets a copy of this pose transformed around another pivot.
+     *
+     * @param pivotX the pivot's X as a fraction of the frame width
+     * @param pivotY the pivot's Y as a fraction of the frame height
+     * @return the new pose
+     */
+    public Pose withPivot(double pivotX, double pivotY) {
+        return new Pose(scaleX, scaleY, offsetX, offsetY, rotation, shear, tint, tintAmount, alpha, pivotX, pivotY);
+    }
+}
@@ -0,0 +1,87 @@
+package chon.group.game.domain.sprite;
+
+/**
+ * Plays the clips of a {@link SpriteSheet} for one sprite.
+ * <p>
+ * The animator only remembers which clip is playing and when it started;
+ * sprites sharing a sheet each have their own animator. The frame shown is
+ * worked out from the simulation time whenever it is drawn.
+ * </p>
+ */
+public class SpriteAnimator {
+
+    /** The frames played. */
+    private final SpriteSheet sheet;
+
+    /** Whether the sheet's unmirrored frames face left. */
+    private final boolean facingLeft;
+
+    /** The clip playing. */
+    private int clip;
+
+    /** Simulation time at which the clip started, in milliseconds. */
+    private long clipStart;
+
+    /**
+     * Constructor to play a sheet, starting with its first clip.
+     *
+     * @param sheet      the frames to play
+     * @param facingLeft true if the sheet's unmirrored frames face left
+     */
+    public SpriteAnimator(SpriteSheet sheet, boolean facingLeft) {
+        this.sheet = sheet;
+        this.facingLeft = facingLeft;
+    }
+
+    /**
+     * Constructor to play the same sheet as another animator, from the start
+     * of its first clip.
+     *
+     * @param other the animator to copy
+     */
+    public SpriteAnimator(SpriteAnimator other) {
+        this(other.sheet, other.facingLeft);
+    }
+
+    /**
+     * Plays a clip. Playing the clip that is already playing keeps it going.
+     *
+     * @param clip the index of the clip
+     * @param time the simulation time, in milliseconds
+     */
+    public void play(int clip, long time) {
+        if (clip != this.clip) {
+            this.clip = clip;
+            this.clipStart = time;
+        }
+    }
+
+    /**
+     * Gets the frame to draw.
+     *
+     * @param time       the simulation time, in milliseconds
+     * @param facingLeft true if the sprite faces left
+     * @return the index of the frame in the sheet
+     */
+    public int frameAt(long time, boolean facingLeft) {
+        return sheet.frameAt(clip, time - clipStart, facingLeft != this.facingLeft);
+    }
+
+    /**
+     * Gets the frames played.
+     *
+     * @return the sprite sheet
+     */
+    public SpriteSheet getSheet() {
+        return sheet;
+    }
+
+    /**
+     * Gets the clip playing.
+     *
+     * @return the index of the clip
+     */
+    public int getClip() {
+        return clip;
+    }
+}
@@ -0,0 +1,444 @@
+package chon.group.game.domain.sprite;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import chon.group.game.asset.RasterImage;
+import chon.group.game.asset.Texture;
+import chon.group.game.asset.TextureManager;
+import javafx.scene.image.Image;
+
+/**
+ * The frames of a sprite's animations, rendered once into a single atlas
+ * image.
+ * <p>
+ * Each animation is a clip of frames shown for a fixed time each. Every frame
+ * is a region of the atlas, rendered from one source image with a
+ * {@link Pose} when the sheet is built, and every frame also has a mirrored
+ * copy for sprites facing the other way. Drawing a frame is drawing a region
+ * of an image that already exists, so animating creates no images and
+ * choosing a frame is arithmetic on the elapsed time.
+ * </p>
+ */
+public class SpriteSheet {
+
+    /**
+     * Gives the pose of each frame of a clip.
+     */
+    public interface PoseFunction {
+
+        /**
+         * Gets the pose of a frame.
+         *
+         * @param frame  the index of the frame in the clip
+         * @param frames the number of frames in the clip
+         * @return the pose of the frame
+         */
+        Pose pose(int frame, int frames);
+    }
+
+    /** The atlas holding every frame, mirrored frames included. */
+    private final Texture atlas;
+
+    /** Width of a frame in pixels. */
+    private final int frameWidth;
+
+    /** Height of a frame in pixels. */
+    private final int frameHeight;
+
+    /** Number of frames, not counting the mirrored copies. */
+    private final int frameCount;
+
+    /** X of each frame's region in the atlas, mirrored frames after the others. */
+    private final int[] regionX;
+
+    /** Y of each frame's region in the atlas, mirrored frames after the others. */
+    private final int[] regionY;
+
+    /** First frame of each clip. */
+    private final int[] clipFirst;
+
+    /** Number of frames of each clip. */
+    private final int[] clipLength;
+
+    /** Time each frame of a clip is shown, in milliseconds. */
+    private final int[] clipFrameMillis;
+
+    /** Whether each clip starts over after its last frame instead of holding it. */
+    private final boolean[] clipLoops;
+
+    /**
+     * Constructor used by the {@link Builder} once the atlas is rendered.
+     */
+    private SpriteSheet(Texture atlas, int frameWidth, int frameHeight, int[] regionX, int[] regionY,
+            int[] clipFirst, int[] clipLength, int[] clipFrameMillis, boolean[] clipLoops) {
+        this.atlas = atlas;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.frameCount = regionX.length / 2;
+        this.regionX = regionX;
+        this.regionY = regionY;
+        this.clipFirst = clipFirst;
+        this.clipLength = clipLength;
+        this.clipFrameMillis = clipFrameMillis;
+        this.clipLoops = clipLoops;
+    }
+
+    /**
+     * Gets the frame of a clip shown after some time.
+     *
+     * @param clip     the index of the clip
+     * @param elapsed  the time since the clip started, in milliseconds
+     * @param mirrored true for the mirrored copy of the frame
+     * @return the index of the frame, for {@link #getRegionX(int)} and
+     *         {@link #getRegionY(int)}
+     */
+    public int frameAt(int clip, long elapsed, boolean mirrored) {
+        int length = clipLength[clip];
+        long step = Math.max(0, elapsed) / clipFrameMillis[clip];
+        int frame = clipLoops[clip] ? (int) (step % length) : (int) Math.min(step, length - 1);
+        return clipFirst[clip] + frame + (mirrored ? frameCount : 0);
+    }
+
+    /**
+     * Gets the handle of the atlas holding the frames.
+     *
+     * @return the atlas handle
+     */
+    public Texture getAtlas() {
+        return atlas;
+    }
+
+    /**
+     * Gets the atlas holding the frames, for the JavaFX renderer.
+     *
+     * @return the atlas image
+     */
+    public Image getImage() {
+        return atlas.get();
+    }
+
+    /**
+     * Gets the atlas holding the frames, for the software renderer.
+     *
+     * @return the atlas raster
+     */
+    public RasterImage getRaster() {
+        return atlas.getRaster();
+    }
+
+    /**
+     * Gets the X of a frame's region in the atlas.
+     *
+     * @param frame the index of the frame
+     * @return the X in pixels
+     */
+    public int getRegionX(int frame) {
+        return regionX[frame];
+    }
+
+    /**
+     * Gets the Y of a frame's region in the atlas.
+     *
+     * @param frame the index of the frame
+     * @return the Y in pixels
+     */
+    public int getRegionY(int frame) {
+        return regionY[frame];
+    }
+
+    /**
+     * Gets the width of every frame.
+     *
+     * @return the width in pixels
+     */
+    public int getFrameWidth() {
+        return frameWidth;
+    }
+
+    /**
+     * Gets the height of every frame.
+     *
+     * @return the height in pixels
+     */
+    public int getFrameHeight() {
+        return frameHeight;
+    }
+
+    /**
+     * Gets the number of frames, not counting the mirrored copies.
+     *
+     * @return the frame count
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Gets the number of clips.
+     *
+     * @return the clip count
+     */
+    public int getClipCount() {
+        return clipFirst.length;
+    }
+
+    /**
+     * Renders the frames of a sprite's clips into a sheet. Clips are numbered
+     * in the order they are added.
+     */
+    public static class Builder {
+
+        /** Samples per axis averaged into one pixel of a frame. */
+        private static final int SAMPLES = 2;
+
+        /** The image the frames are rendered from. */
+        private final RasterImage source;
+
+        /** Width of a frame in pixels. */
+        private final int frameWidth;
+
+        /** Height of a frame in pixels. */
+        private final int frameHeight;
+
+        /** Poses of the frames of each clip. */
+        private final List<Pose[]> clips = new ArrayList<>();
+
+        /** Time each frame of each clip is shown. */
+        private final List<Integer> frameMillis = new ArrayList<>();
+
+        /** Whether each clip loops. */
+        private final List<Boolean> loops = new ArrayList<>();
+
+        /**
+         * Constructor to render frames of a given size from an image.
+         *
+         * @param source      the image the frames are rendered from, scaled to
+         *                    the frame size
+         * @param frameWidth  the width of a frame in pixels
+         * @param frameHeight the height of a frame in pixels
+         */
+        public Builder(RasterImage source, int frameWidth, int frameHeight) {
+            this.source = source;
+            this.frameWidth = frameWidth;
+            this.frameHeight = frameHeight;
+        }
+
+        /**
+         * Adds a clip.
+         *
+         * @param frames      the number of frames
+         * @param frameMillis the time each frame is shown, in milliseconds
+         * @param loop        true to start over after the last frame, false to
+         *                    hold it
+         * @param poses       the pose of each frame
+         * @return this builder
+         */
+        public Builder clip(int frames, int frameMillis, boolean loop, PoseFunction poses) {
+            Pose[] clip = new Pose[frames];
+            for (int i = 0; i < frames; i++)
+                clip[i] = poses.pose(i, frames);
+            this.clips.add(clip);
+            this.frameMillis.add(Math.max(1, frameMillis));
+            this.loops.add(loop);
+            return this;
+        }
+
+        /**
+         * Renders every frame and its mirrored copy into an atlas no manager
+         * owns.
+         *
+         * @return the sprite sheet
+         */
+        public SpriteSheet build() {
+            return build(null, null);
+        }
+
+        /**
+         * Renders every frame and its mirrored copy into the atlas. Each clip
+         * takes a row of the atlas, and the mirrored clips take the rows
+         * below.
+         *
+         * @param manager the manager counting the atlas, or null
+         * @param key     the key the atlas is pinned under
+         * @return the sprite sheet
+         */
+        public SpriteSheet build(TextureManager manager, String key) {
+            int clipCount = clips.size();
+            int columns = 1;
+            int frameCount = 0;
+            for (Pose[] clip : clips) {
+                columns = Math.max(columns, clip.length);
+                frameCount += clip.length;
+            }
+            int atlasWidth = columns * frameWidth;
+            int[] atlas = new int[atlasWidth * clipCount * 2 * frameHeight];
+            int sourceWidth = source.getWidth();
+            int sourceHeight = source.getHeight();
+            int[] pixels = source.getPixels();
+            /* Shrink the source once, so each frame only samples an image close to its size */
+            int scaledWidth = Math.min(sourceWidth, frameWidth * SAMPLES);
+            int scaledHeight = Math.min(sourceHeight, frameHeight * SAMPLES);
+            pixels = shrink(pixels, sourceWidth, sourceHeight, scaledWidth, scaledHeight);
+
+            int[] regionX = new int[frameCount * 2];
+            int[] regionY = new int[frameCount * 2];
+            int[] clipFirst = new int[clipCount];
+            int[] clipLength = new int[clipCount];
+            int[] clipFrameMillis = new int[clipCount];
+            boolean[] clipLoops = new boolean[clipCount];
+            int frame = 0;
+            for (int c = 0; c < clipCount; c++) {
+                Pose[] clip = clips.get(c);
+                clipFirst[c] = frame;
+                clipLength[c] = clip.length;
+                clipFrameMillis[c] = frameMillis.get(c);
+                clipLoops[c] = loops.get(c);
+                for (int i = 0; i < clip.length; i++, frame++) {
+                    int x = i * frameWidth;
+                    int y = c * frameHeight;
+                    int mirrorY = (clipCount + c) * frameHeight;
+                    render(clip[i], pixels, scaledWidth, scaledHeight, atlas, atlasWidth, x, y);
+                    mirror(atlas, atlasWidth, x, y, mirrorY);
+                    regionX[frame] = x;
+                    regionY[frame] = y;
+                    regionX[frameCount + frame] = x;
+                    regionY[frameCount + frame] = mirrorY;
+                }
+            }
+
+            RasterImage raster = new RasterImage(atlasWidth, clipCount * 2 * frameHeight, atlas);
+            Texture texture = manager != null ? manager.pin(key, raster) : Texture.of(raster);
+            return new SpriteSheet(texture, frameWidth, frameHeight, regionX, regionY,
+                    clipFirst, clipLength, clipFrameMillis, clipLoops);
+        }
+
+        /**
+         * Shrinks premultiplied pixels by averaging the source pixels under
+         * each target pixel.
+         */
+        private static int[] shrink(int[] pixels, int width, int height, int targetWidth, int targetHeight) {
+            if (targetWidth == width && targetHeight == height)
+                return pixels;
+            int[] out = new int[targetWidth * targetHeight];
+            for (int y = 0; y < targetHeight; y++) {
+                int y0 = y * height / targetHeight;
+                int y1 = Math.max(y0 + 1, (y + 1) * height / targetHeight);
+                for (int x = 0; x < targetWidth; x++) {
+                    int x0 = x * width / targetWidth;
+                    int x1 = Math.max(x0 + 1, (x + 1) * width / targetWidth);
+                    long a = 0, r = 0, g = 0, b = 0;
+                    for (int sy = y0; sy < y1; sy++) {
+                        for (int sx = x0; sx < x1; sx++) {
+                            int argb = pixels[sy * width + sx];
+                            a += argb >>> 24;
+                            r += (argb >> 16) & 0xFF;
+                            g += (argb >> 8) & 0xFF;
+                            b += argb & 0xFF;
+                        }
+                    }
+                    int count = (y1 - y0) * (x1 - x0);
+                    out[y * targetWidth + x] = (int) (a / count) << 24 | (int) (r / count) << 16
+                            | (int) (g / count) << 8 | (int) (b / count);
+                }
+            }
+            return out;
+        }
+
+        /**
+         * Renders the source image in a pose into a frame of the atlas. Each
+         * pixel maps back through the pose into the source, averaging a grid
+         * of bilinear samples. The pose is affine, so the source position
+         * moves by the same step from one sample to the next.
+         */
+        private void render(Pose pose, int[] pixels, int sourceWidth, int sourceHeight,
+                int[] atlas, int atlasWidth, int frameX, int frameY) {
+            if (sourceWidth == 0 || sourceHeight == 0)
+                return;
+            double toSourceX = (double) sourceWidth / frameWidth / pose.scaleX;
+            double toSourceY = (double) sourceHeight / frameHeight / pose.scaleY;
+            double cos = Math.cos(-pose.rotation);
+            double sin = Math.sin(-pose.rotation);
+            /* Source position per frame pixel: undo the offset, shear, rotation and scale around the pivot */
+            double uPerX = cos * toSourceX;
+            double uPerY = -(pose.shear * cos + sin) * toSourceX;
+            double vPerX = sin * toSourceY;
+            double vPerY = (cos - pose.shear * sin) * toSourceY;
+            double pivotX = pose.pivotX * frameWidth;
+            double pivotY = pose.pivotY * frameHeight;
+            double startX = 0.5 / SAMPLES - pivotX - pose.offsetX;
+            double startY = 0.5 / SAMPLES - pivotY - pose.offsetY;
+            double u0 = startX * uPerX + startY * uPerY + pose.pivotX * sourceWidth - 0.5;
+            double v0 = startX * vPerX + startY * vPerY + pose.pivotY * sourceHeight - 0.5;
+            double step = 1.0 / SAMPLES;
+            double weight = 1.0 / (SAMPLES * SAMPLES);
+            double t = pose.tintAmount;
+            double tintR = ((pose.tint >> 16) & 0xFF) / 255.0 * t;
+            double tintG = ((pose.tint >> 8) & 0xFF) / 255.0 * t;
+            double tintB = (pose.tint & 0xFF) / 255.0 * t;
+            for (int y = 0; y < frameHeight; y++) {
+                for (int x = 0; x < frameWidth; x++) {
+                    double a = 0, r = 0, g = 0, b = 0;
+                    for (int sy = 0; sy < SAMPLES; sy++) {
+                        double py = y + sy * step;
+                        for (int sx = 0; sx < SAMPLES; sx++) {
+                            double px = x + sx * step;
+                            double u = u0 + px * uPerX + py * uPerY;
+                            double v = v0 + px * vPerX + py * vPerY;
+                            if (u <= -1 || v <= -1 || u >= sourceWidth || v >= sourceHeight)
+                                continue;
+                            /* Bilinear sample, with transparency outside the source */
+                            int x0 = u < 0 ? -1 : (int) u;
+                            int y0 = v < 0 ? -1 : (int) v;
+                            double fx = u - x0;
+                            double fy = v - y0;
+                            for (int j = 0; j < 2; j++) {
+                                int row = y0 + j;
+                                if (row < 0 || row >= sourceHeight)
+                                    continue;
+                                double wy = j == 0 ? 1 - fy : fy;
+                                for (int i = 0; i < 2; i++) {
+                                    int column = x0 + i;
+                                    if (column < 0 || column >= sourceWidth)
+                                        continue;
+                                    double w = wy * (i == 0 ? 1 - fx : fx);
+                                    int argb = pixels[row * sourceWidth + column];
+                                    a += (argb >>> 24) * w;
+                                    r += ((argb >> 16) & 0xFF) * w;
+                                    g += ((argb >> 8) & 0xFF) * w;
+                                    b += (argb & 0xFF) * w;
+                                }
+                            }
+                        }
+                    }
+                    if (a == 0)
+                        continue;
+                    a *= weight;
+                    /* Premultiplied tint: blend towards the colour at the pixel's own coverage */
+                    r = r * weight * (1 - t) + tintR * a;
+                    g = g * weight * (1 - t) + tintG * a;
+                    b = b * weight * (1 - t) + tintB * a;
+                    a *= pose.alpha;
+                    r *= pose.alpha;
+                    g *= pose.alpha;
+                    b *= pose.alpha;
+                    atlas[(frameY + y) * atlasWidth + frameX + x] = (int) (a + 0.5) << 24
+                            | (int) (r + 0.5) << 16 | (int) (g + 0.5) << 8 | (int) (b + 0.5);
+                }
+            }
+        }
+
+        /**
+         * Copies a rendered frame, flipped horizontally, into the frame of the
+         * same column in the mirrored rows.
+         */
+        private void mirror(int[] atlas, int atlasWidth, int frameX, int frameY, int mirrorY) {
+            for (int y = 0; y < frameHeight; y++) {
+                int from = (frameY + y) * atlasWidth + frameX;
+                int to = (mirrorY + y) * atlasWidth + frameX + frameWidth - 1;
+                for (int x = 0; x < frameWidth; x++)
+                    atlas[to - x] = atlas[from + x];
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package chon.group.game.domain.sprite;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import chon.group.game.asset.RasterImage;
+import chon.group.game.asset.Texture;
+import chon.group.game.asset.TextureManager;
+import chon.group.game.jfr.AssetLoadEvent;
+
+/**
+ * The animations of the game's sprites, generated from their still images.
+ * <p>
+ * Characters get idle, walk, hit and death clips; spinning items get one
+ * looping rotation. Sheets are built on first use and shared by every sprite
+ * with the same image and size.
+ * </p>
+ */
+public final class Sprites {
+
+    /** Clip of a character standing still, breathing. */
+    public static final int IDLE = 0;
+
+    /** Clip of a character walking. */
+    public static final int WALK = 1;
+
+    /** Clip of a character flashing after a hit. */
+    public static final int HIT = 2;
+
+    /** Clip of a character collapsing, holding its last frame. */
+    public static final int DEATH = 3;
+
+    /** Clip of a spinning item. */
+    public static final int SPIN = 0;
+
+    /** Frames of a full turn of a spinning item. */
+    private static final int SPIN_FRAMES = 16;
+
+    /** Time a full turn of a spinning item takes, in milliseconds. */
+    private static final int SPIN_MILLIS = 800;
+
+    /** Sheets built so far, by kind, image path and size. */
+    private static final Map<String, SpriteSheet> SHEETS = new HashMap<>();
+
+    /**
+     * Not instantiable: the sheets are reached through the static methods.
+     */
+    private Sprites() {
+    }
+
+    /**
+     * Gets the idle, walk, hit and death clips of a character.
+     *
+     * @param path   the classpath path of the character's image
+     * @param width  the width the character is drawn at
+     * @param height the height the character is drawn at
+     * @return the sprite sheet, with clips {@link #IDLE}, {@link #WALK},
+     *         {@link #HIT} and {@link #DEATH}
+     */
+    public static SpriteSheet character(String path, int width, int height) {
+        return SHEETS.computeIfAbsent("character:" + path + "@" + width + "x" + height,
+                key -> record(key, path, new SpriteSheet.Builder(source(path), width, height)
+                        /* Breathing: a slight stretch from the feet up */
+                        .clip(4, 180, true, (i, n) -> Pose.IDENTITY.withPivot(0.5, 1)
+                                .withScale(1, 1 + 0.02 * Math.sin(2 * Math.PI * i / n)))
+                        /* Walking: bobbing on each step, leaning into the walk */
+                        .clip(6, 90, true, (i, n) -> Pose.IDENTITY.withPivot(0.5, 1)
+                                .withOffset(0, -4 * Math.abs(Math.sin(2 * Math.PI * i / n)))
+                                .withShear(-0.05 - 0.02 * Math.sin(4 * Math.PI * i / n)))
+                        /* Hit: flashing red and white, shaking */
+                        .clip(4, 60, true, (i, n) -> Pose.IDENTITY.withPivot(0.5, 1)
+                                .withOffset(i % 2 == 0 ? -3 : 3, 0)
+                                .withTint(i % 2 == 0 ? 0xFF3030 : 0xFFFFFF, 0.6))
+                        /* Death: sinking to the ground, greying and fading */
+                        .clip(8, 110, false, (i, n) -> {
+                            double t = (i + 1.0) / n;
+                            return Pose.IDENTITY.withPivot(0.5, 1)
+                                    .withScale(1 + 0.2 * t, 1 - 0.6 * t)
+                                    .withTint(0x505050, 0.7 * t)
+                                    .withAlpha(1 - 0.6 * t);
+                        })));
+    }
+
+    /**
+     * Gets the looping rotation of an item.
+     *
+     * @param path   the classpath path of the item's image
+     * @param width  the width the item is drawn at
+     * @param height the height the item is drawn at
+     * @return the sprite sheet, with the clip {@link #SPIN}
+     */
+    public static SpriteSheet spinning(String path, int width, int height) {
+        return SHEETS.computeIfAbsent("spinning:" + path + "@" + width + "x" + height,
+                key -> record(key, path, new SpriteSheet.Builder(source(path), width, height)
+                        .clip(SPIN_FRAMES, SPIN_MILLIS / SPIN_FRAMES, true,
+                                (i, n) -> Pose.IDENTITY.withRotation(2 * Math.PI * i / n))));
+    }
+
+    /**
+     * Gets the still image a sheet is generated from, shared with the agents
+     * and items drawing it. The JavaFX renderer only draws the image, so its
+     * pixels are read once instead of keeping a raster next to it.
+     */
+    private static RasterImage source(String path) {
+        TextureManager manager = TextureManager.getDefault();
+        Texture texture = manager.texture(path);
+        return manager.isImageIo() ? texture.getRaster() : RasterImage.fromImage(texture.get());
+    }
+
+    /**
+     * Records the building of a sheet as the load of an asset, so its time and
+     * memory show next to the images', and counts its atlas in the texture
+     * budget.
+     */
+    private static SpriteSheet record(String key, String path, SpriteSheet.Builder builder) {
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        SpriteSheet sheet = builder.build(TextureManager.getDefault(), key);
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path + "#sprites";
+            event.bytes = sheet.getAtlas().getBytes();
+            event.commit();
+        }
+        return sheet;
+    }
+}
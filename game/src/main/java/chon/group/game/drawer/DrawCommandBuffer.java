@@ -0,0 +1,385 @@
+package chon.group.game.drawer;
+
+import java.util.Arrays;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+
+/**
+ * Records the drawing commands of a frame and submits them to a
+ * {@link GraphicsContext} in one batch.
+ * <p>
+ * Commands are stored in reusable primitive arrays. Before submission they are
+ * sorted by layer and, inside the sprite and rectangle layers, by texture or
+ * paint, so consecutive commands share state. Fill, font and transform changes
+ * that would not change anything are dropped while submitting. Text layers keep
+ * their recording order, since shadows must be drawn before their text.
+ * </p>
+ * <p>
+ * Textures, paints and fonts are numbered per frame and forgotten once the
+ * frame is submitted, so the buffer never keeps an image or font alive after
+ * it stops being drawn.
+ * </p>
+ */
+public class DrawCommandBuffer {
+
+    /** Layer of the clear command. */
+    public static final int LAYER_CLEAR = 0;
+
+    /** Layer of the environment background. */
+    public static final int LAYER_BACKGROUND = 1;
+
+    /** Layer of the agent sprites. */
+    public static final int LAYER_AGENTS = 2;
+
+    /** Layer of the falling item sprites. */
+    public static final int LAYER_ITEMS = 3;
+
+    /** Layer of the particle effects. */
+    public static final int LAYER_PARTICLES = 4;
+
+    /** Layer of the life bar borders. */
+    public static final int LAYER_BAR_BORDER = 5;
+
+    /** Layer of the life bar fills. */
+    public static final int LAYER_BAR_FILL = 6;
+
+    /** Layer of the interface panels. */
+    public static final int LAYER_HUD = 7;
+
+    /** Layer of the interface text. */
+    public static final int LAYER_TEXT = 8;
+
+    /** Layer of full screen overlays, such as the pause and game over screens. */
+    public static final int LAYER_OVERLAY = 9;
+
+    /** Layer of the text drawn over the overlays. */
+    public static final int LAYER_OVERLAY_TEXT = 10;
+
+    /** Command clearing a rectangle. */
+    private static final byte CLEAR = 0;
+
+    /** Command drawing an image. */
+    private static final byte IMAGE = 1;
+
+    /** Command filling a rectangle. */
+    private static final byte FILL_RECT = 2;
+
+    /** Command drawing text. */
+    private static final byte TEXT = 3;
+
+    /** Command drawing skewed text, simulating italics. */
+    private static final byte SKEWED_TEXT = 4;
+
+    /** Command drawing a region of an image, such as a frame of a sprite sheet. */
+    private static final byte REGION = 5;
+
+    /** Command kinds. */
+    private byte[] kinds = new byte[256];
+
+    /** Texture or paint state of each command. */
+    private int[] states = new int[256];
+
+    /** Font state of each text command. */
+    private int[] fonts = new int[256];
+
+    /** Geometry of each command, four values per command. */
+    private double[] geometry = new double[256 * 4];
+
+    /** Source rectangle of each region command, four values per command. */
+    private double[] sources = new double[256 * 4];
+
+    /** Text of each text command. */
+    private String[] texts = new String[256];
+
+    /** Sort keys carrying the command index in the low bits. */
+    private long[] keys = new long[256];
+
+    /** Number of recorded commands. */
+    private int count;
+
+    /** Textures, paints and fonts of the frame, in an open addressing table. */
+    private Object[] stateKeys = new Object[64];
+
+    /** Id of each texture, paint or font in the table. */
+    private int[] stateSlots = new int[64];
+
+    /** Textures, paints and fonts of the frame indexed by their id. */
+    private Object[] stateValues = new Object[32];
+
+    /** Number of textures, paints and fonts used by the frame. */
+    private int stateCount;
+
+    /** Frames submitted so far. */
+    private long frames;
+
+    /** Draw calls issued by every submission. */
+    private long totalDrawCalls;
+
+    /** State changes issued by every submission. */
+    private long totalStateChanges;
+
+    /** Most draw calls issued by a single submission. */
+    private int maxDrawCalls;
+
+    /**
+     * Gets the number of frames submitted so far.
+     *
+     * @return the number of frames
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Gets the average number of draw calls issued per submitted frame.
+     *
+     * @return the average number of draw calls, or 0 before the first frame
+     */
+    public double getAverageDrawCalls() {
+        return frames == 0 ? 0 : (double) totalDrawCalls / frames;
+    }
+
+    /**
+     * Gets the average number of state changes issued per submitted frame.
+     *
+     * @return the average number of state changes, or 0 before the first frame
+     */
+    public double getAverageStateChanges() {
+        return frames == 0 ? 0 : (double) totalStateChanges / frames;
+    }
+
+    /**
+     * Gets the most draw calls issued by a single submitted frame.
+     *
+     * @return the largest number of draw calls
+     */
+    public int getMaxDrawCalls() {
+        return maxDrawCalls;
+    }
+
+    /**
+     * Gets the number of commands recorded for the current frame.
+     *
+     * @return the number of commands
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Records the clearing of a rectangle.
+     */
+    public void clear(double x, double y, double width, double height) {
+        record(CLEAR, LAYER_CLEAR, 0, 0, false, x, y, width, height);
+    }
+
+    /**
+     * Records an image drawn at the given size.
+     */
+    public void image(int layer, Image image, double x, double y, double width, double height) {
+        record(IMAGE, layer, stateId(image), 0, true, x, y, width, height);
+    }
+
+    /**
+     * Records a region of an image drawn at the given size. Regions of the same
+     * image are sorted together like whole images.
+     */
+    public void region(int layer, Image image, double sourceX, double sourceY, double sourceWidth,
+            double sourceHeight, double x, double y, double width, double height) {
+        int index = record(REGION, layer, stateId(image), 0, true, x, y, width, height);
+        int g = index * 4;
+        sources[g] = sourceX;
+        sources[g + 1] = sourceY;
+        sources[g + 2] = sourceWidth;
+        sources[g + 3] = sourceHeight;
+    }
+
+    /**
+     * Records a filled rectangle.
+     */
+    public void fillRect(int layer, Paint paint, double x, double y, double width, double height) {
+        record(FILL_RECT, layer, stateId(paint), 0, true, x, y, width, height);
+    }
+
+    /**
+     * Records a line of text.
+     *
+     * @param skewed whether the text is skewed to simulate italics
+     */
+    public void text(int layer, String text, Font font, Paint paint, double x, double y, boolean skewed) {
+        int index = record(skewed ? SKEWED_TEXT : TEXT, layer, stateId(paint), stateId(font), false, x, y, 0, 0);
+        texts[index] = text;
+    }
+
+    /**
+     * Sorts the recorded commands, submits them to the graphics context and
+     * resets the buffer for the next frame.
+     *
+     * @param gc the graphics context receiving the commands
+     */
+    public void submit(GraphicsContext gc) {
+        Arrays.sort(keys, 0, count);
+        int calls = 0;
+        int changes = 0;
+        int currentPaint = -1;
+        int currentFont = -1;
+        boolean skewed = false;
+        int savedPaint = -1;
+        int savedFont = -1;
+        for (int n = 0; n < count; n++) {
+            int i = (int) keys[n];
+            byte kind = kinds[i];
+            boolean needsSkew = kind == SKEWED_TEXT;
+            if (needsSkew != skewed) {
+                if (needsSkew) {
+                    gc.save();
+                    gc.transform(1, 0, -0.2, 1, 0, 0);
+                    savedPaint = currentPaint;
+                    savedFont = currentFont;
+                    changes += 2;
+                } else {
+                    gc.restore();
+                    currentPaint = savedPaint;
+                    currentFont = savedFont;
+                    changes++;
+                }
+                skewed = needsSkew;
+            }
+            int g = i * 4;
+            switch (kind) {
+                case CLEAR:
+                    gc.clearRect(geometry[g], geometry[g + 1], geometry[g + 2], geometry[g + 3]);
+                    break;
+                case IMAGE:
+                    gc.drawImage((Image) stateValues[states[i]],
+                            geometry[g], geometry[g + 1], geometry[g + 2], geometry[g + 3]);
+                    break;
+                case REGION:
+                    gc.drawImage((Image) stateValues[states[i]],
+                            sources[g], sources[g + 1], sources[g + 2], sources[g + 3],
+                            geometry[g], geometry[g + 1], geometry[g + 2], geometry[g + 3]);
+                    break;
+                case FILL_RECT:
+                    if (currentPaint != states[i]) {
+                        gc.setFill((Paint) stateValues[states[i]]);
+                        currentPaint = states[i];
+                        changes++;
+                    }
+                    gc.fillRect(geometry[g], geometry[g + 1], geometry[g + 2], geometry[g + 3]);
+                    break;
+                case TEXT:
+                case SKEWED_TEXT:
+                    if (currentPaint != states[i]) {
+                        gc.setFill((Paint) stateValues[states[i]]);
+                        currentPaint = states[i];
+                        changes++;
+                    }
+                    if (currentFont != fonts[i]) {
+                        gc.setFont((Font) stateValues[fonts[i]]);
+                        currentFont = fonts[i];
+                        changes++;
+                    }
+                    gc.fillText(texts[i], geometry[g], geometry[g + 1]);
+                    texts[i] = null;
+                    break;
+                default:
+                    break;
+            }
+            calls++;
+        }
+        if (skewed) {
+            gc.restore();
+            changes++;
+        }
+        frames++;
+        totalDrawCalls += calls;
+        totalStateChanges += changes;
+        maxDrawCalls = Math.max(maxDrawCalls, calls);
+        count = 0;
+        /* Ids are numbered again each frame, so no texture, paint or font outlives it here */
+        Arrays.fill(stateKeys, null);
+        Arrays.fill(stateValues, 0, stateCount, null);
+        stateCount = 0;
+    }
+
+    /**
+     * Appends a command and its sort key, growing the arrays when needed.
+     */
+    private int record(byte kind, int layer, int state, int font, boolean sortByState,
+            double x, double y, double width, double height) {
+        if (count == kinds.length)
+            grow();
+        int index = count++;
+        kinds[index] = kind;
+        states[index] = state;
+        fonts[index] = font;
+        int g = index * 4;
+        geometry[g] = x;
+        geometry[g + 1] = y;
+        geometry[g + 2] = width;
+        geometry[g + 3] = height;
+        long sortState = sortByState ? state : 0;
+        keys[index] = ((long) layer << 56) | (sortState << 32) | index;
+        return index;
+    }
+
+    /**
+     * Gets the id of a texture, paint or font in the current frame, registering
+     * it on first use. Equal paints and fonts share an id.
+     */
+    private int stateId(Object value) {
+        int mask = stateKeys.length - 1;
+        int slot = (value.hashCode() * 0x9E3779B9) >>> 16 & mask;
+        while (stateKeys[slot] != null) {
+            if (stateKeys[slot].equals(value))
+                return stateSlots[slot];
+            slot = (slot + 1) & mask;
+        }
+        int id = stateCount++;
+        stateKeys[slot] = value;
+        stateSlots[slot] = id;
+        if (id == stateValues.length)
+            stateValues = Arrays.copyOf(stateValues, id * 2);
+        stateValues[id] = value;
+        if (stateCount * 2 > stateKeys.length)
+            growStates();
+        return id;
+    }
+
+    /**
+     * Doubles the capacity of the state table, keeping the ids of the frame.
+     */
+    private void growStates() {
+        Object[] oldKeys = stateKeys;
+        int[] oldSlots = stateSlots;
+        stateKeys = new Object[oldKeys.length * 2];
+        stateSlots = new int[oldKeys.length * 2];
+        int mask = stateKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null)
+                continue;
+            int slot = (oldKeys[i].hashCode() * 0x9E3779B9) >>> 16 & mask;
+            while (stateKeys[slot] != null)
+                slot = (slot + 1) & mask;
+            stateKeys[slot] = oldKeys[i];
+            stateSlots[slot] = oldSlots[i];
+        }
+    }
+
+    /**
+     * Doubles the capacity of every command array.
+     */
+    private void grow() {
+        int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        states = Arrays.copyOf(states, capacity);
+        fonts = Arrays.copyOf(fonts, capacity);
+        geometry = Arrays.copyOf(geometry, capacity * 4);
+        sources = Arrays.copyOf(sources, capacity * 4);
+        texts = Arrays.copyOf(texts, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+    }
+}
@@ -18,4 +18,9 @@ public interface EnvironmentDrawer {
 
     void drawScorePanel(); // New method added
 
+    void drawParticles();
+
+    /* Called once the frame is complete, so buffered backends can submit it. */
+    void presentFrame();
+
 }
\ No newline at end of file
@@ -0,0 +1,240 @@
+package chon.group.game.drawer;
+
+import java.awt.Graphics2D;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+import chon.group.game.asset.RasterImage;
+
+/**
+ * A premultiplied ARGB framebuffer backed by a plain {@code int[]}.
+ * <p>
+ * Every drawing primitive takes a vertical clip band so the frame can be split
+ * in horizontal tiles and rasterized by several threads at once. The same
+ * array is also exposed as a {@link BufferedImage}, which is used for text and
+ * for encoding captured frames.
+ * </p>
+ */
+public class Framebuffer {
+
+    /** Width of the framebuffer in pixels. */
+    private final int width;
+
+    /** Height of the framebuffer in pixels. */
+    private final int height;
+
+    /** Premultiplied ARGB pixels, row by row. */
+    private final int[] pixels;
+
+    /** A Java2D view sharing the pixel array. */
+    private final BufferedImage view;
+
+    /**
+     * Constructor to allocate a framebuffer.
+     *
+     * @param width  the width in pixels
+     * @param height the height in pixels
+     */
+    public Framebuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+        this.view = wrap(pixels, width, height);
+    }
+
+    /**
+     * Wraps premultiplied ARGB pixels in a Java2D image without copying them.
+     *
+     * @param pixels the premultiplied ARGB pixels
+     * @param width  the image width
+     * @param height the image height
+     * @return a buffered image sharing the pixel array
+     */
+    public static BufferedImage wrap(int[] pixels, int width, int height) {
+        DirectColorModel model = new DirectColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), 32,
+                0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000, true, DataBuffer.TYPE_INT);
+        WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(pixels, pixels.length),
+                width, height, width, model.getMasks(), null);
+        return new BufferedImage(model, raster, true, null);
+    }
+
+    /**
+     * Gets the width of the framebuffer.
+     *
+     * @return the width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the framebuffer.
+     *
+     * @return the height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the premultiplied ARGB pixels.
+     *
+     * @return the pixel array
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Gets a Java2D image sharing this framebuffer's pixels.
+     *
+     * @return the buffered image view
+     */
+    public BufferedImage asBufferedImage() {
+        return view;
+    }
+
+    /**
+     * Creates a Java2D graphics context drawing into this framebuffer.
+     *
+     * @return a new graphics context
+     */
+    public Graphics2D createGraphics() {
+        return view.createGraphics();
+    }
+
+    /**
+     * Fills the rows of a band with a single colour.
+     *
+     * @param argb  the premultiplied colour
+     * @param clipY0 the first row of the band
+     * @param clipY1 the row after the last row of the band
+     */
+    public void clear(int argb, int clipY0, int clipY1) {
+        Arrays.fill(pixels, clipY0 * width, clipY1 * width, argb);
+    }
+
+    /**
+     * Fills a rectangle, blending it when the colour is translucent.
+     *
+     * @param x      the left edge
+     * @param y      the top edge
+     * @param w      the rectangle width
+     * @param h      the rectangle height
+     * @param argb   the premultiplied colour
+     * @param clipY0 the first row of the band
+     * @param clipY1 the row after the last row of the band
+     */
+    public void fillRect(int x, int y, int w, int h, int argb, int clipY0, int clipY1) {
+        int x0 = Math.max(x, 0);
+        int x1 = Math.min(x + w, width);
+        int y0 = Math.max(y, clipY0);
+        int y1 = Math.min(y + h, clipY1);
+        if (x0 >= x1 || y0 >= y1)
+            return;
+        int alpha = argb >>> 24;
+        for (int row = y0; row < y1; row++) {
+            int offset = row * width;
+            if (alpha == 0xFF) {
+                Arrays.fill(pixels, offset + x0, offset + x1, argb);
+            } else {
+                for (int i = offset + x0; i < offset + x1; i++)
+                    pixels[i] = blend(argb, pixels[i]);
+            }
+        }
+    }
+
+    /**
+     * Copies an image into the framebuffer with source-over blending.
+     * Opaque rows are copied with {@link System#arraycopy}.
+     *
+     * @param image  the image to draw
+     * @param x      the left edge
+     * @param y      the top edge
+     * @param clipY0 the first row of the band
+     * @param clipY1 the row after the last row of the band
+     */
+    public void blit(RasterImage image, int x, int y, int clipY0, int clipY1) {
+        int x0 = Math.max(x, 0);
+        int x1 = Math.min(x + image.getWidth(), width);
+        int y0 = Math.max(y, clipY0);
+        int y1 = Math.min(y + image.getHeight(), clipY1);
+        if (x0 >= x1 || y0 >= y1)
+            return;
+        int[] src = image.getPixels();
+        int srcWidth = image.getWidth();
+        int span = x1 - x0;
+        for (int row = y0; row < y1; row++) {
+            int srcOffset = (row - y) * srcWidth + (x0 - x);
+            int dstOffset = row * width + x0;
+            if (image.isOpaque()) {
+                System.arraycopy(src, srcOffset, pixels, dstOffset, span);
+                continue;
+            }
+            for (int i = 0; i < span; i++) {
+                int s = src[srcOffset + i];
+                int alpha = s >>> 24;
+                if (alpha == 0xFF) {
+                    pixels[dstOffset + i] = s;
+                } else if (alpha != 0) {
+                    pixels[dstOffset + i] = blend(s, pixels[dstOffset + i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Plots a small opaque square.
+     *
+     * @param x      the left edge
+     * @param y      the top edge
+     * @param size   the side of the square
+     * @param argb   the opaque colour
+     * @param clipY0 the first row of the band
+     * @param clipY1 the row after the last row of the band
+     */
+    public void plot(int x, int y, int size, int argb, int clipY0, int clipY1) {
+        if (x < 0 || x + size > width)
+            return;
+        int y0 = Math.max(y, clipY0);
+        int y1 = Math.min(y + size, clipY1);
+        for (int row = y0; row < y1; row++) {
+            int offset = row * width + x;
+            for (int i = 0; i < size; i++)
+                pixels[offset + i] = argb;
+        }
+    }
+
+    /**
+     * Converts a straight alpha ARGB colour into premultiplied form.
+     *
+     * @param argb the straight alpha colour
+     * @return the premultiplied colour
+     */
+    public static int premultiply(int argb) {
+        int alpha = argb >>> 24;
+        if (alpha == 0xFF)
+            return argb;
+        int r = ((argb >> 16) & 0xFF) * alpha / 255;
+        int g = ((argb >> 8) & 0xFF) * alpha / 255;
+        int b = (argb & 0xFF) * alpha / 255;
+        return (alpha << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Blends a premultiplied source over a premultiplied destination,
+     * processing two channels per multiplication.
+     */
+    private static int blend(int src, int dst) {
+        int inverse = 255 - (src >>> 24);
+        int rb = (((dst & 0x00FF00FF) * inverse) >>> 8) & 0x00FF00FF;
+        int ag = (((dst >>> 8) & 0x00FF00FF) * inverse) & 0xFF00FF00;
+        return src + (rb | ag);
+    }
+}
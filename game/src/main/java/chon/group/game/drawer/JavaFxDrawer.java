@@ -1,8 +1,15 @@
 package chon.group.game.drawer;
 
+import java.util.Arrays;
 import java.util.List;
 
+import chon.group.game.domain.environment.Camera;
 import chon.group.game.domain.item.FallingItem;
+import chon.group.game.domain.particle.ParticleSystem;
+import chon.group.game.domain.projectile.ProjectileSystem;
+import chon.group.game.domain.sprite.SpriteSheet;
+import chon.group.game.asset.Texture;
+import chon.group.game.asset.TextureManager;
 import javafx.scene.canvas.GraphicsContext;
 
 import javafx.scene.control.Button;
@@ -10,9 +17,10 @@ import javafx.scene.layout.VBox;
 import javafx.application.Platform;
 
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import javafx.scene.text.FontPosture;
 import javafx.scene.text.FontWeight;
 
 public class JavaFxDrawer {
@@ -36,6 +44,120 @@ public class JavaFxDrawer {
      */
     private VBox buttonContainer;
 
+    /** Size in pixels of the square drawn for each particle. */
+    private static final int PARTICLE_SIZE = 2;
+
+    /** Pixels of the particle layer, as large as the canvas and transparent where no particle is. */
+    private int[] particlePixels = new int[0];
+
+    /** Image the particle layer is uploaded to, drawn over the items once a frame. */
+    private WritableImage particleImage;
+
+    /** Width of the particle layer in canvas pixels. */
+    private int particleLayerWidth;
+
+    /** Height of the particle layer in canvas pixels. */
+    private int particleLayerHeight;
+
+    /** Width of the area where particles may be plotted. */
+    private int particleClipWidth;
+
+    /** Height of the area where particles may be plotted. */
+    private int particleClipHeight;
+
+    /** Horizontal ratio between the canvas resolution and the logical drawing space. */
+    private double particleScaleX = 1;
+
+    /** Vertical ratio between the canvas resolution and the logical drawing space. */
+    private double particleScaleY = 1;
+
+    /* Canvas pixels holding particles this frame, the right and bottom edges excluded */
+    private int particleMinX;
+    private int particleMinY;
+    private int particleMaxX;
+    private int particleMaxY;
+
+    /* Canvas pixels that held particles last frame, cleared in the image by the next upload */
+    private int lastParticleMinX;
+    private int lastParticleMinY;
+    private int lastParticleMaxX;
+    private int lastParticleMaxY;
+
+    /** World X shown at the left edge of the screen when particles are plotted. */
+    private int particleOriginX;
+
+    /** World Y shown at the top edge of the screen when particles are plotted. */
+    private int particleOriginY;
+
+    /** Reusable visitor that plots one particle, so drawing does not allocate. */
+    private final ParticleSystem.ParticleVisitor particlePlotter = this::plotParticle;
+
+    /** World X shown at the left edge of the screen when projectiles are drawn. */
+    private int projectileOriginX;
+
+    /** World Y shown at the top edge of the screen when projectiles are drawn. */
+    private int projectileOriginY;
+
+    /** Sprite of each projectile style, created on first use. */
+    private WritableImage[] projectileSprites;
+
+    /** Reusable visitor that records one projectile, so drawing does not allocate. */
+    private final ProjectileSystem.ProjectileVisitor projectileRecorder = this::recordProjectile;
+
+    /** Images resampled to the canvas pixels they cover. */
+    private final ScaledImageCache scaledImages = new ScaledImageCache(TextureManager.getDefault());
+
+    /** Commands recorded during the frame, submitted by {@link #flush()}. */
+    private final DrawCommandBuffer commands = new DrawCommandBuffer();
+
+    /** Font used by the status panel. */
+    private final Font statusFont = Font.font("Verdana", FontWeight.BOLD, 14);
+
+    /** Texts of the status panel's X coordinate, so they are not rebuilt every frame. */
+    private final NumberText xLabels = new NumberText("X: ");
+
+    /** Texts of the status panel's Y coordinate. */
+    private final NumberText yLabels = new NumberText("Y: ");
+
+    /** Texts of the fallback game over score. */
+    private final NumberText finalScoreLabels = new NumberText("Final Score: ");
+
+    /** Custom font used by the score panel, or null when it failed to load. */
+    private Font scoreFont;
+
+    /** Custom font used by the game over score, or null when it failed to load. */
+    private Font gameOverFont;
+
+    /** Background of the game over screen, loaded by the texture manager on first use. */
+    private Texture gameOverImage;
+
+    /** Whether loading the game over background already failed. */
+    private boolean gameOverImageFailed;
+
+    /** Translucent black used by the score shadow. */
+    private static final Color SCORE_SHADOW = Color.rgb(0, 0, 0, 0.5);
+
+    /** Path to the game over background. */
+    private static final String GAME_OVER_IMAGE_PATH = "/images/environment/gameover.png";
+
+    /** Farthest layer of the game over score shadow. */
+    private static final Color GAME_OVER_SHADOW_FAR = Color.rgb(0, 0, 0, 0.2);
+
+    /** Middle layer of the game over score shadow. */
+    private static final Color GAME_OVER_SHADOW_MID = Color.rgb(0, 0, 0, 0.4);
+
+    /** Nearest layer of the game over score shadow, darker and more opaque. */
+    private static final Color GAME_OVER_SHADOW_NEAR = Color.rgb(0, 0, 0, 0.6);
+
+    /** Backdrop of the fallback game over screen. */
+    private static final Color GAME_OVER_BACKDROP = new Color(0, 0, 0, 0.7);
+
+    /** Title font of the fallback game over screen. */
+    private static final Font FALLBACK_TITLE_FONT = Font.font("Verdana", FontWeight.BOLD, 50);
+
+    /** Score font of the fallback game over screen. */
+    private static final Font FALLBACK_SCORE_FONT = Font.font("Verdana", FontWeight.NORMAL, 30);
+
     /**
      * Constructor to initialize the JavaFx Drawer.
      *
@@ -44,6 +166,7 @@ public class JavaFxDrawer {
     public JavaFxDrawer(GraphicsContext gc, EnvironmentDrawer mediator) {
         this.gc = gc;
         this.mediator = mediator;
+        loadCustomFonts();
 
         // Inicializa os botões
         this.restartButton = new Button("Jogar Novamente");
@@ -72,18 +195,118 @@ public class JavaFxDrawer {
         exitButton.setOnAction(e -> Platform.exit());
     }
 
+    /**
+     * Gets the command buffer holding the current frame.
+     *
+     * @return the command buffer, including its per-frame counters
+     */
+    public DrawCommandBuffer getCommands() {
+        return commands;
+    }
+
+    /**
+     * Gets the cache of images resampled to the canvas resolution.
+     *
+     * @return the cache, including the bytes it holds
+     */
+    public ScaledImageCache getScaledImages() {
+        return scaledImages;
+    }
+
+    /**
+     * Sorts the commands recorded for this frame and submits them to the
+     * graphics context.
+     */
+    public void flush() {
+        commands.submit(this.gc);
+    }
+
     /**
      * Clears the canvas area, removing previously drawn elements.
      */
     public void clearScreen(int width, int height) {
-        this.gc.clearRect(0, 0, width, height);
+        scaledImages.setScale(this.gc.getCanvas().getWidth() / width);
+        commands.clear(0, 0, width, height);
     }
 
     /**
      * Renders the environment's background on the graphics context.
      */
+    public void drawBackground(Image image, int posX, int posY, int width, int height) {
+        blit(DrawCommandBuffer.LAYER_BACKGROUND, image, posX, posY, width, height);
+    }
+
+    /**
+     * Renders a chunk of the tile-map level as it is. Chunk images are
+     * refilled when evicted, so they are never resampled or cached.
+     */
+    public void drawChunk(Image chunk, int posX, int posY, int width, int height) {
+        commands.image(DrawCommandBuffer.LAYER_BACKGROUND, chunk, posX, posY, width, height);
+    }
+
+    /**
+     * Copies the pixels of a tile-map chunk into an image, reusing the image of
+     * an evicted chunk when there is one.
+     *
+     * @param pixels the premultiplied ARGB pixels of the chunk
+     * @param size   the side of the chunk in pixels
+     * @param reuse  the image to refill, or null to create one
+     * @return the chunk image
+     */
+    public static WritableImage uploadChunk(int[] pixels, int size, WritableImage reuse) {
+        WritableImage image = reuse != null ? reuse : new WritableImage(size, size);
+        image.getPixelWriter().setPixels(0, 0, size, size, PixelFormat.getIntArgbPreInstance(), pixels, 0, size);
+        return image;
+    }
+
+    /**
+     * Renders an agent's image on the graphics context.
+     */
     public void drawImage(Image image, int posX, int posY, int width, int height) {
-        this.gc.drawImage(image, posX, posY, width, height);
+        blit(DrawCommandBuffer.LAYER_AGENTS, image, posX, posY, width, height);
+    }
+
+    /**
+     * Records an image resampled to the canvas pixels it covers, placed on
+     * whole canvas pixels so it is drawn without filtering. Images refilled
+     * after they are drawn, such as the tile-map chunks and the particle
+     * layer, are recorded without it.
+     */
+    private void blit(int layer, Image image, double posX, double posY, double width, double height) {
+        commands.image(layer, scaledImages.get(image, width, height),
+                scaledImages.snap(posX), scaledImages.snap(posY), scaledImages.fit(width), scaledImages.fit(height));
+    }
+
+    /**
+     * Records a frame of a sprite sheet from its atlas resampled to the canvas
+     * pixels the frame covers.
+     */
+    private void blitFrame(int layer, SpriteSheet sheet, int frame, double posX, double posY,
+            double width, double height) {
+        int frameWidth = sheet.getFrameWidth();
+        int frameHeight = sheet.getFrameHeight();
+        int pixelWidth = scaledImages.toPixels(width);
+        int pixelHeight = scaledImages.toPixels(height);
+        commands.region(layer,
+                scaledImages.getAtlas(sheet.getImage(), frameWidth, frameHeight, pixelWidth, pixelHeight),
+                sheet.getRegionX(frame) / frameWidth * pixelWidth,
+                sheet.getRegionY(frame) / frameHeight * pixelHeight,
+                pixelWidth, pixelHeight,
+                scaledImages.snap(posX), scaledImages.snap(posY), scaledImages.fit(width), scaledImages.fit(height));
+    }
+
+    /**
+     * Renders a frame of a sprite sheet on the graphics context.
+     *
+     * @param sheet  the sprite sheet
+     * @param frame  the index of the frame
+     * @param posX   the X on the screen
+     * @param posY   the Y on the screen
+     * @param width  the width drawn
+     * @param height the height drawn
+     */
+    public void drawSprite(SpriteSheet sheet, int frame, int posX, int posY, int width, int height) {
+        blitFrame(DrawCommandBuffer.LAYER_AGENTS, sheet, frame, posX, posY, width, height);
     }
 
     /**
@@ -101,9 +324,8 @@ public class JavaFxDrawer {
         /* Int points before the agent's y position. The initial bar's position. */
         int barY = 15;
         /* The outside background of the health bar. */
-        this.gc.setFill(Color.BLACK);
         /* The height is a little bit bigger to give a border experience. */
-        this.gc.fillRect(posX,
+        commands.fillRect(DrawCommandBuffer.LAYER_BAR_BORDER, Color.BLACK, posX,
                 posY - barY,
                 width,
                 barHeight + (borderThickness * 2));
@@ -112,13 +334,12 @@ public class JavaFxDrawer {
          * The border height plus the thickness multiplied by two (beggining and end at
          * X).
          */
-        this.gc.setFill(color);
         /**
          * The initial position considering the border from both X and Y points.
          * The life span less the border thickness multiplied by two (beggining and end
          * at Y).
          */
-        this.gc.fillRect(posX + borderThickness,
+        commands.fillRect(DrawCommandBuffer.LAYER_BAR_FILL, color, posX + borderThickness,
                 posY - (barY - borderThickness),
                 (lifeSpan - (borderThickness * 2)),
                 barHeight);
@@ -127,14 +348,16 @@ public class JavaFxDrawer {
     /**
      * Displays a status panel showing the protagonist's coordinates.
      *
-     * @param agent the protagonist whose information will be displayed
+     * @param posX    the protagonist's world X, written on the panel
+     * @param posY    the protagonist's world Y, written on the panel
+     * @param screenX the protagonist's X on the screen
+     * @param screenY the protagonist's Y on the screen
      */
-    public void drawStatusPanel(int posX, int posY) {
-        Font theFont = Font.font("Verdana", FontWeight.BOLD, 14);
-        this.gc.setFont(theFont);
-        this.gc.setFill(Color.BLACK);
-        this.gc.fillText("X: " + posX, posX + 10, posY - 40);
-        this.gc.fillText("Y: " + posY, posX + 10, posY - 25);
+    public void drawStatusPanel(int posX, int posY, int screenX, int screenY) {
+        commands.text(DrawCommandBuffer.LAYER_TEXT, xLabels.format(posX), statusFont, Color.BLACK,
+                screenX + 10, screenY - 40, false);
+        commands.text(DrawCommandBuffer.LAYER_TEXT, yLabels.format(posY), statusFont, Color.BLACK,
+                screenX + 10, screenY - 25, false);
     }
 
     /**
@@ -145,73 +368,221 @@ public class JavaFxDrawer {
             double centerX = (width - imageWidth) / 2;
             double centerY = (height - imageHeight) / 2;
             /* Draw image on the center of screen */
-            this.gc.drawImage(image, centerX, centerY);
+            blit(DrawCommandBuffer.LAYER_OVERLAY, image, centerX, centerY, imageWidth, imageHeight);
         }
     }
 
     // metodos novos adicionados a partir daqui
     /**
-     * Draws falling items on the screen.
+     * Draws the falling items near the camera on the screen, animated ones
+     * at their current frame.
      * 
-     * @param items List of falling items to be rendered
+     * @param items  List of falling items to be rendered
+     * @param camera The camera whose viewport is drawn
+     * @param time   The simulation time the animations are at
      */
-    public void drawFallingItems(List<FallingItem> items) {
-        for (FallingItem item : items) {
-            this.gc.drawImage(item.getCachedImage(),
-                    item.getPosX(),
-                    item.getPosY(),
+    public void drawFallingItems(List<FallingItem> items, Camera camera, long time) {
+        for (int i = 0; i < items.size(); i++) {
+            FallingItem item = items.get(i);
+            if (!camera.isVisible(item.getPosX(), item.getPosY(), item.getWidth(), item.getHeight()))
+                continue;
+            SpriteSheet sprite = item.getSprite();
+            if (sprite != null) {
+                blitFrame(DrawCommandBuffer.LAYER_ITEMS, sprite, item.frameAt(time),
+                        item.getPosX() - camera.getPosX(),
+                        item.getPosY() - camera.getPosY(),
+                        item.getWidth(),
+                        item.getHeight());
+                continue;
+            }
+            blit(DrawCommandBuffer.LAYER_ITEMS, item.getCachedImage(),
+                    item.getPosX() - camera.getPosX(),
+                    item.getPosY() - camera.getPosY(),
                     item.getWidth(),
                     item.getHeight());
         }
     }
 
+    /**
+     * Draws the projectiles near the camera on the screen, sharing one sprite
+     * per style, so consecutive draws use the same texture.
+     *
+     * @param projectiles the projectile system to render
+     * @param camera      the camera whose viewport is drawn
+     */
+    public void drawProjectiles(ProjectileSystem projectiles, Camera camera) {
+        if (projectiles.size() == 0)
+            return;
+        if (projectileSprites == null)
+            projectileSprites = ProjectileSprites.createAll();
+        this.projectileOriginX = camera.getPosX();
+        this.projectileOriginY = camera.getPosY();
+        projectiles.forEachVisible(camera.getPosX(), camera.getPosY(), camera.getWidth(), camera.getHeight(),
+                projectileRecorder);
+    }
+
+    /**
+     * Records a single projectile sprite centred on its position.
+     */
+    private void recordProjectile(int x, int y, int style) {
+        WritableImage sprite = projectileSprites[style];
+        int offset = ProjectileSprites.offsetOf(style);
+        blit(DrawCommandBuffer.LAYER_ITEMS, sprite, x - offset - projectileOriginX, y - offset - projectileOriginY,
+                sprite.getWidth(), sprite.getHeight());
+    }
+
+    /**
+     * Draws every live particle: the particles are plotted into a layer of
+     * the canvas' size, the part of it that changed is uploaded to an image
+     * at once, and the part holding particles is drawn with a single image
+     * command.
+     *
+     * @param particles the particle system to render
+     * @param width     the width of the drawable area
+     * @param height    the height of the drawable area
+     * @param originX   the world X at the left edge of the drawable area
+     * @param originY   the world Y at the top edge of the drawable area
+     */
+    public void drawParticles(ParticleSystem particles, int width, int height, int originX, int originY) {
+        int layerWidth = (int) this.gc.getCanvas().getWidth();
+        int layerHeight = (int) this.gc.getCanvas().getHeight();
+        if (layerWidth <= 0 || layerHeight <= 0)
+            return;
+        if (particleImage == null || layerWidth != particleLayerWidth || layerHeight != particleLayerHeight) {
+            particleImage = new WritableImage(layerWidth, layerHeight);
+            particlePixels = new int[layerWidth * layerHeight];
+            particleLayerWidth = layerWidth;
+            particleLayerHeight = layerHeight;
+            lastParticleMinX = 0;
+            lastParticleMinY = 0;
+            lastParticleMaxX = 0;
+            lastParticleMaxY = 0;
+        }
+        /* The canvas transform scales each axis on its own, so map the logical space onto the layer per axis */
+        this.particleScaleX = (double) layerWidth / width;
+        this.particleScaleY = (double) layerHeight / height;
+        this.particleOriginX = originX;
+        this.particleOriginY = originY;
+        this.particleClipWidth = Math.min((int) (width * particleScaleX), layerWidth) - PARTICLE_SIZE;
+        this.particleClipHeight = Math.min((int) (height * particleScaleY), layerHeight) - PARTICLE_SIZE;
+        particleMinX = layerWidth;
+        particleMinY = layerHeight;
+        particleMaxX = 0;
+        particleMaxY = 0;
+        particles.forEachLive(particlePlotter);
+        boolean plotted = particleMaxX > particleMinX;
+
+        /* Upload the squares of this frame and the cleared squares of the last one together */
+        int minX = plotted ? particleMinX : layerWidth;
+        int minY = plotted ? particleMinY : layerHeight;
+        int maxX = plotted ? particleMaxX : 0;
+        int maxY = plotted ? particleMaxY : 0;
+        if (lastParticleMaxX > lastParticleMinX) {
+            minX = Math.min(minX, lastParticleMinX);
+            minY = Math.min(minY, lastParticleMinY);
+            maxX = Math.max(maxX, lastParticleMaxX);
+            maxY = Math.max(maxY, lastParticleMaxY);
+        }
+        if (maxX > minX)
+            particleImage.getPixelWriter().setPixels(minX, minY, maxX - minX, maxY - minY,
+                    PixelFormat.getIntArgbInstance(), particlePixels, minY * layerWidth + minX, layerWidth);
+
+        if (plotted) {
+            int plottedWidth = particleMaxX - particleMinX;
+            int plottedHeight = particleMaxY - particleMinY;
+            commands.region(DrawCommandBuffer.LAYER_PARTICLES, particleImage,
+                    particleMinX, particleMinY, plottedWidth, plottedHeight,
+                    particleMinX / particleScaleX, particleMinY / particleScaleY,
+                    plottedWidth / particleScaleX, plottedHeight / particleScaleY);
+            /* The image keeps this frame's squares; the layer starts the next frame transparent */
+            for (int y = particleMinY; y < particleMaxY; y++)
+                Arrays.fill(particlePixels, y * layerWidth + particleMinX, y * layerWidth + particleMaxX, 0);
+        }
+        lastParticleMinX = particleMinX;
+        lastParticleMinY = particleMinY;
+        lastParticleMaxX = particleMaxX;
+        lastParticleMaxY = particleMaxY;
+    }
+
+    /**
+     * Plots a single particle as a small opaque square in the particle layer.
+     */
+    private void plotParticle(int logicalX, int logicalY, int argb) {
+        int x = (int) ((logicalX - particleOriginX) * particleScaleX);
+        int y = (int) ((logicalY - particleOriginY) * particleScaleY);
+        if (x < 0 || y < 0 || x > particleClipWidth || y > particleClipHeight)
+            return;
+        int[] pixels = particlePixels;
+        int stride = particleLayerWidth;
+        for (int dy = 0; dy < PARTICLE_SIZE; dy++) {
+            int row = (y + dy) * stride + x;
+            for (int dx = 0; dx < PARTICLE_SIZE; dx++) {
+                pixels[row + dx] = argb;
+            }
+        }
+        particleMinX = Math.min(particleMinX, x);
+        particleMinY = Math.min(particleMinY, y);
+        particleMaxX = Math.max(particleMaxX, x + PARTICLE_SIZE);
+        particleMaxY = Math.max(particleMaxY, y + PARTICLE_SIZE);
+    }
+
     /**
      * Draws the game over screen with final score and control buttons.
      *
      * @param width  The width of the screen
      * @param height The height of the screen
      * @param score  The final score to display
+     * @param ranks  The ranks of the game on the leaderboards, or null
      */
-    public void drawGameOverScreen(int width, int height, int score) {
-        String gameOverImagePath = "/images/environment/gameover.png";
-
-        try {
-            // Carrega e desenha a imagem de game over
-            Image gameOverImage = new Image(getClass().getResource(gameOverImagePath).toExternalForm());
-            this.gc.drawImage(gameOverImage, 0, 0, width, height);
+    public void drawGameOverScreen(int width, int height, int score, String ranks) {
+        Image background = null;
+        if (!gameOverImageFailed) {
+            try {
+                // Carrega a imagem de game over uma única vez
+                if (gameOverImage == null)
+                    gameOverImage = TextureManager.getDefault().texture(GAME_OVER_IMAGE_PATH);
+                background = gameOverImage.get();
+            } catch (Exception e) {
+                System.out.println("Erro ao carregar imagem de game over: " + e.getMessage());
+                gameOverImageFailed = true;
+            }
+        }
 
-            // Carrega a fonte personalizada
-            Font customFont = Font.loadFont(
-                    getClass().getResourceAsStream("/fonts/rittswoodProfile.ttf"),
-                    30);
+        if (background != null && gameOverFont != null) {
+            // Desenha a imagem de game over
+            blit(DrawCommandBuffer.LAYER_OVERLAY, background, 0, 0, width, height);
 
             // Configurações do score
-            String scoreText = "" + score;
+            String scoreText = NumberText.of(score);
             double scoreX = 600; // posição X fixa
             double scoreY = height - 300; // posição Y fixa
 
             // Configurações da sombra
             int shadowOffset = 4; // offset da sombra
-            Color shadowColor = Color.rgb(0, 0, 0, 0.6); // sombra mais escura e mais opaca
-
-            // Desenha múltiplas camadas de sombra para criar profundidade
-            this.gc.setFont(Font.font(customFont.getFamily(), 120));
 
             // Camada 1 da sombra (mais distante)
-            this.gc.setFill(Color.rgb(0, 0, 0, 0.2));
-            this.gc.fillText(scoreText, scoreX + shadowOffset * 2, scoreY + shadowOffset * 2);
+            commands.text(DrawCommandBuffer.LAYER_OVERLAY_TEXT, scoreText, gameOverFont, GAME_OVER_SHADOW_FAR,
+                    scoreX + shadowOffset * 2, scoreY + shadowOffset * 2, false);
 
             // Camada 2 da sombra (média)
-            this.gc.setFill(Color.rgb(0, 0, 0, 0.4));
-            this.gc.fillText(scoreText, scoreX + shadowOffset * 1.5, scoreY + shadowOffset * 1.5);
+            commands.text(DrawCommandBuffer.LAYER_OVERLAY_TEXT, scoreText, gameOverFont, GAME_OVER_SHADOW_MID,
+                    scoreX + shadowOffset * 1.5, scoreY + shadowOffset * 1.5, false);
 
             // Camada 3 da sombra (próxima)
-            this.gc.setFill(shadowColor);
-            this.gc.fillText(scoreText, scoreX + shadowOffset, scoreY + shadowOffset);
+            commands.text(DrawCommandBuffer.LAYER_OVERLAY_TEXT, scoreText, gameOverFont, GAME_OVER_SHADOW_NEAR,
+                    scoreX + shadowOffset, scoreY + shadowOffset, false);
 
             // Desenha o texto principal
-            this.gc.setFill(Color.WHITE);
-            this.gc.fillText(scoreText, scoreX, scoreY);
+            commands.text(DrawCommandBuffer.LAYER_OVERLAY_TEXT, scoreText, gameOverFont, Color.WHITE,
+                    scoreX, scoreY, false);
+
+            // Posição nos placares, abaixo do score
+            if (ranks != null) {
+                commands.text(DrawCommandBuffer.LAYER_OVERLAY_TEXT, ranks, scoreFont, GAME_OVER_SHADOW_NEAR,
+                        scoreX + 2, scoreY + 52, false);
+                commands.text(DrawCommandBuffer.LAYER_OVERLAY_TEXT, ranks, scoreFont, Color.WHITE,
+                        scoreX, scoreY + 50, false);
+            }
 
             // Posiciona os botões
             restartButton.setTranslateX(292);
@@ -220,24 +591,25 @@ public class JavaFxDrawer {
             exitButton.setTranslateX(595);
             exitButton.setTranslateY(385);
 
-        } catch (Exception e) {
+        } else {
             // Fallback para o layout anterior caso a imagem não seja encontrada
-            System.out.println("Erro ao carregar imagem de game over: " + e.getMessage());
-
-            this.gc.setFill(new Color(0, 0, 0, 0.7));
-            this.gc.fillRect(0, 0, width, height);
+            commands.fillRect(DrawCommandBuffer.LAYER_OVERLAY, GAME_OVER_BACKDROP, 0, 0, width, height);
 
-            this.gc.setFill(Color.RED);
-            this.gc.setFont(Font.font("Verdana", FontWeight.BOLD, 50));
             String gameOverText = "GAME OVER";
-            double textWidth = this.gc.getFont().getSize() * gameOverText.length() * 0.5;
-            this.gc.fillText(gameOverText, (width - textWidth) / 2, height / 2 - 50);
+            double textWidth = FALLBACK_TITLE_FONT.getSize() * gameOverText.length() * 0.5;
+            commands.text(DrawCommandBuffer.LAYER_OVERLAY_TEXT, gameOverText, FALLBACK_TITLE_FONT, Color.RED,
+                    (width - textWidth) / 2, height / 2 - 50, false);
 
-            this.gc.setFill(Color.WHITE);
-            this.gc.setFont(Font.font("Verdana", FontWeight.NORMAL, 30));
-            String scoreText = "Final Score: " + score;
-            double scoreWidth = this.gc.getFont().getSize() * scoreText.length() * 0.4;
-            this.gc.fillText(scoreText, (width - scoreWidth) / 2, height / 2 + 20);
+            String scoreText = finalScoreLabels.format(score);
+            double scoreWidth = FALLBACK_SCORE_FONT.getSize() * scoreText.length() * 0.4;
+            commands.text(DrawCommandBuffer.LAYER_OVERLAY_TEXT, scoreText, FALLBACK_SCORE_FONT, Color.WHITE,
+                    (width - scoreWidth) / 2, height / 2 + 20, false);
+
+            if (ranks != null) {
+                double ranksWidth = statusFont.getSize() * ranks.length() * 0.6;
+                commands.text(DrawCommandBuffer.LAYER_OVERLAY_TEXT, ranks, statusFont, Color.WHITE,
+                        (width - ranksWidth) / 2, height / 2 + 45, false);
+            }
 
             buttonContainer.setTranslateX((width - 150) / 2);
             buttonContainer.setTranslateY(height / 2 + 50);
@@ -285,38 +657,38 @@ public class JavaFxDrawer {
         int panelHeight = 67;
 
         // Desenha o fundo do score
-        this.gc.drawImage(scoreImage, panelX, panelY, panelWidth, panelHeight);
-
-        try {
-            // Carrega a fonte personalizada
-            Font customFont = Font.loadFont(
-                    getClass().getResourceAsStream("/fonts/rittswoodProfile.ttf"),
-                    30);
+        blit(DrawCommandBuffer.LAYER_HUD, scoreImage, panelX, panelY, panelWidth, panelHeight);
 
+        if (scoreFont != null) {
             // Posição do texto do score
             int scoreTextX = panelX + 197;
             int scoreTextY = panelY + 45;
 
-            // Aplica a transformação para simular itálico
-            this.gc.save();
-            this.gc.transform(1, 0, -0.2, 1, 0, 0);
-
-            String scoreText = String.valueOf(score);
+            String scoreText = NumberText.of(score);
 
-            // Desenha a sombra
-            this.gc.setFill(Color.rgb(0, 0, 0, 0.5)); // Cor preta semi-transparente para sombra
-            this.gc.setFont(Font.font(customFont.getFamily(), 30));
-            this.gc.fillText(scoreText, scoreTextX + 2, scoreTextY + 2); // Offset da sombra
+            // Desenha a sombra, com a transformação que simula itálico
+            commands.text(DrawCommandBuffer.LAYER_TEXT, scoreText, scoreFont, SCORE_SHADOW,
+                    scoreTextX + 2, scoreTextY + 2, true); // Offset da sombra
 
             // Desenha o texto principal
-            this.gc.setFill(Color.WHITE);
-            this.gc.setFont(Font.font(customFont.getFamily(), 30));
-            this.gc.fillText(scoreText, scoreTextX, scoreTextY);
+            commands.text(DrawCommandBuffer.LAYER_TEXT, scoreText, scoreFont, Color.WHITE,
+                    scoreTextX, scoreTextY, true);
+        }
+    }
 
-            this.gc.restore();
+    /**
+     * Loads the custom font once, instead of on every frame.
+     */
+    private void loadCustomFonts() {
+        try {
+            // Carrega a fonte personalizada
+            Font customFont = Font.loadFont(
+                    getClass().getResourceAsStream("/fonts/rittswoodProfile.ttf"),
+                    30);
+            this.scoreFont = Font.font(customFont.getFamily(), 30);
+            this.gameOverFont = Font.font(customFont.getFamily(), 120);
         } catch (Exception e) {
             System.out.println("Erro ao carregar fonte personalizada: " + e.getMessage());
-            this.gc.setFont(Font.font("Verdana", FontPosture.ITALIC, 30));
         }
     }
-}
\ No newline at end of file
+}
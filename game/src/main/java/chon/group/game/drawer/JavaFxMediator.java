@@ -1,9 +1,13 @@
 package chon.group.game.drawer;
 
 import chon.group.game.domain.agent.Agent;
+import chon.group.game.domain.environment.Camera;
 import chon.group.game.domain.environment.Environment;
+import chon.group.game.domain.level.Level;
+import chon.group.game.domain.sprite.SpriteAnimator;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 
@@ -12,6 +16,9 @@ public class JavaFxMediator implements EnvironmentDrawer {
     private final Environment environment;
     private final JavaFxDrawer drawer;
 
+    /** Rendered chunks of the tile-map level, created when a level is drawn. */
+    private TileChunkCache<WritableImage> tileChunks;
+
     public JavaFxMediator(Environment environment, GraphicsContext gc) {
         this.environment = environment;
         this.drawer = new JavaFxDrawer(gc, this);
@@ -19,68 +26,147 @@ public class JavaFxMediator implements EnvironmentDrawer {
 
     @Override
     public void clearEnvironment() {
-        drawer.clearScreen(this.environment.getWidth(), this.environment.getHeight());
+        Camera camera = this.environment.getCamera();
+        drawer.clearScreen(camera.getWidth(), camera.getHeight());
     }
 
+    /**
+     * Renders the part of the background under the camera: the chunks of the
+     * tile-map level, or else the background image, which covers one screen
+     * and repeats along the world.
+     */
     @Override
     public void drawBackground() {
-        drawer.drawImage(this.environment.getImage(),
-                this.environment.getPosX(),
-                this.environment.getPosY(),
-                this.environment.getWidth(),
-                this.environment.getHeight());
+        Camera camera = this.environment.getCamera();
+        Level level = this.environment.getLevel();
+        if (level != null) {
+            if (tileChunks == null || tileChunks.getLevel() != level)
+                tileChunks = new TileChunkCache<>(level, camera.getWidth(), camera.getHeight(),
+                        JavaFxDrawer::uploadChunk);
+            tileChunks.prepare(camera);
+            int size = tileChunks.getChunkPixels();
+            for (int cy = tileChunks.getVisibleY0(); cy <= tileChunks.getVisibleY1(); cy++) {
+                for (int cx = tileChunks.getVisibleX0(); cx <= tileChunks.getVisibleX1(); cx++) {
+                    drawer.drawChunk(tileChunks.get(cx, cy),
+                            cx * size - camera.getPosX(),
+                            cy * size - camera.getPosY(),
+                            size,
+                            size);
+                }
+            }
+            return;
+        }
+        int screenWidth = Math.max(1, camera.getWidth());
+        int first = camera.getPosX() / screenWidth;
+        int last = (camera.getPosX() + screenWidth - 1) / screenWidth;
+        for (int screen = first; screen <= last; screen++) {
+            drawer.drawBackground(this.environment.getImage(),
+                    this.environment.getPosX() + screen * screenWidth - camera.getPosX(),
+                    this.environment.getPosY() - camera.getPosY(),
+                    screenWidth,
+                    camera.getHeight());
+        }
     }
 
     /**
-     * Renders all agents and the protagonist in the environment.
+     * Renders the agents, the protagonist, the falling items and the
+     * projectiles near the camera, in screen coordinates, animated ones at
+     * their current frame.
      */
     @Override
     public void drawAgents() {
+        Camera camera = this.environment.getCamera();
         for (Agent agent : this.environment.getAgents()) {
-            drawer.drawImage(agent.getImage(),
-                    agent.getPosX(),
-                    agent.getPosY(),
-                    agent.getWidth(),
-                    agent.getHeight());
+            if (!camera.isVisible(agent.getPosX(), agent.getPosY(), agent.getWidth(), agent.getHeight()))
+                continue;
+            drawAgent(agent, camera);
             drawer.drawLifeBar(agent.getHealth(),
                     agent.getFullHealth(),
                     agent.getWidth(),
-                    agent.getPosX(),
-                    agent.getPosY(),
+                    agent.getPosX() - camera.getPosX(),
+                    agent.getPosY() - camera.getPosY(),
                     Color.DARKRED);
         }
-        drawer.drawImage(this.environment.getProtagonist().getImage(),
-                this.environment.getProtagonist().getPosX(),
-                this.environment.getProtagonist().getPosY(),
-                this.environment.getProtagonist().getWidth(),
-                this.environment.getProtagonist().getHeight());
-        drawer.drawLifeBar(this.environment.getProtagonist().getHealth(),
-                this.environment.getProtagonist().getFullHealth(),
-                this.environment.getProtagonist().getWidth(),
-                this.environment.getProtagonist().getPosX(),
-                this.environment.getProtagonist().getPosY(),
-                Color.GREEN);
-        drawer.drawStatusPanel(this.environment.getProtagonist().getPosX(),
-                this.environment.getProtagonist().getPosY());
+        drawAgent(this.environment.getProtagonist(), camera);
+        drawLifeBar();
+        drawStatusPanel();
+
+        drawer.drawFallingItems(this.environment.getFallingItems(), camera, this.environment.getTime());
+        drawer.drawProjectiles(this.environment.getProjectiles(), camera);
+    }
+
+    /**
+     * Renders an agent's current animation frame, or its still image when it
+     * is not animated.
+     */
+    private void drawAgent(Agent agent, Camera camera) {
+        SpriteAnimator animator = agent.getAnimator();
+        if (animator != null) {
+            drawer.drawSprite(animator.getSheet(),
+                    animator.frameAt(this.environment.getTime(), agent.isFlipped()),
+                    agent.getPosX() - camera.getPosX(),
+                    agent.getPosY() - camera.getPosY(),
+                    agent.getWidth(),
+                    agent.getHeight());
+            return;
+        }
+        drawer.drawImage(agent.getImage(),
+                agent.getPosX() - camera.getPosX(),
+                agent.getPosY() - camera.getPosY(),
+                agent.getWidth(),
+                agent.getHeight());
+    }
 
-        drawer.drawFallingItems(this.environment.getFallingItems());
+    /**
+     * Renders the particle effects spawned by item collisions.
+     */
+    @Override
+    public void drawParticles() {
+        Camera camera = this.environment.getCamera();
+        drawer.drawParticles(this.environment.getParticles(),
+                camera.getWidth(),
+                camera.getHeight(),
+                camera.getPosX(),
+                camera.getPosY());
+    }
+
+    /**
+     * Submits the commands recorded during the frame to the canvas.
+     */
+    @Override
+    public void presentFrame() {
+        drawer.flush();
+    }
+
+    /**
+     * Retrieves the command buffer, whose counters report the draw calls and
+     * state changes of the last frame.
+     *
+     * @return the draw command buffer
+     */
+    public DrawCommandBuffer getCommands() {
+        return drawer.getCommands();
     }
 
     @Override
     public void drawLifeBar() {
+        Camera camera = this.environment.getCamera();
         drawer.drawLifeBar(
                 this.environment.getProtagonist().getHealth(),
                 this.environment.getProtagonist().getFullHealth(),
                 this.environment.getProtagonist().getWidth(),
-                this.environment.getProtagonist().getPosX(),
-                this.environment.getProtagonist().getPosY(),
+                this.environment.getProtagonist().getPosX() - camera.getPosX(),
+                this.environment.getProtagonist().getPosY() - camera.getPosY(),
                 Color.GREEN);
     }
 
     @Override
     public void drawStatusPanel() {
+        Camera camera = this.environment.getCamera();
         drawer.drawStatusPanel(this.environment.getProtagonist().getPosX(),
-                this.environment.getProtagonist().getPosY());
+                this.environment.getProtagonist().getPosY(),
+                this.environment.getProtagonist().getPosX() - camera.getPosX(),
+                this.environment.getProtagonist().getPosY() - camera.getPosY());
     }
 
     @Override
@@ -88,8 +174,8 @@ public class JavaFxMediator implements EnvironmentDrawer {
         drawer.drawPauseScreen(this.environment.getPauseImage(),
                 (int) this.environment.getPauseImage().getWidth(),
                 (int) this.environment.getPauseImage().getHeight(),
-                this.environment.getWidth(),
-                this.environment.getHeight());
+                this.environment.getCamera().getWidth(),
+                this.environment.getCamera().getHeight());
     }
 
     // novos
@@ -98,9 +184,10 @@ public class JavaFxMediator implements EnvironmentDrawer {
      */
     public void drawGameOverScreen() {
         drawer.drawGameOverScreen(
-                this.environment.getWidth(),
-                this.environment.getHeight(),
-                this.environment.getScore());
+                this.environment.getCamera().getWidth(),
+                this.environment.getCamera().getHeight(),
+                this.environment.getScore(),
+                this.environment.getRankText());
     }
 
     /**
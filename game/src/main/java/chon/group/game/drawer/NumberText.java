@@ -0,0 +1,69 @@
+package chon.group.game.drawer;
+
+/**
+ * Caches the text of small numbers, optionally after a fixed label such as
+ * {@code "X: "}, so drawing a score or a coordinate every frame does not
+ * build a new string each time. Numbers outside the cached range are
+ * formatted normally.
+ */
+public class NumberText {
+
+    /** Numbers cached by default, from 0 to one less than this. */
+    private static final int DEFAULT_SIZE = 4096;
+
+    /** Texts of unlabelled numbers, shared by every drawer. */
+    private static final NumberText PLAIN = new NumberText("", DEFAULT_SIZE);
+
+    /** The label written before the number. */
+    private final String label;
+
+    /** Texts built so far, indexed by number. */
+    private final String[] texts;
+
+    /**
+     * Constructor to create a cache for a label.
+     *
+     * @param label the text written before the number
+     * @param size  how many numbers, starting at 0, are cached
+     */
+    public NumberText(String label, int size) {
+        this.label = label;
+        this.texts = new String[size];
+    }
+
+    /**
+     * Constructor to create a cache for a label with the default size.
+     *
+     * @param label the text written before the number
+     */
+    public NumberText(String label) {
+        this(label, DEFAULT_SIZE);
+    }
+
+    /**
+     * Gets the text of a number without a label.
+     *
+     * @param value the number
+     * @return the cached text
+     */
+    public static String of(int value) {
+        return PLAIN.format(value);
+    }
+
+    /**
+     * Gets the label followed by the number.
+     *
+     * @param value the number
+     * @return the text, cached when the number is in range
+     */
+    public String format(int value) {
+        if (value < 0 || value >= texts.length)
+            return label + value;
+        String text = texts[value];
+        if (text == null) {
+            text = label + value;
+            texts[value] = text;
+        }
+        return text;
+    }
+}
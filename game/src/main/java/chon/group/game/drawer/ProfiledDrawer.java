@@ -0,0 +1,129 @@
+package chon.group.game.drawer;
+
+import chon.group.game.jfr.DrawPhaseEvent;
+
+/**
+ * Wraps an {@link EnvironmentDrawer} and emits a {@link DrawPhaseEvent} for
+ * every call. When the event is disabled in the running recording, or no
+ * recording is running, each call only costs a check of the event's enabled
+ * flag.
+ */
+public class ProfiledDrawer implements EnvironmentDrawer {
+
+    /** The drawer doing the work. */
+    private final EnvironmentDrawer delegate;
+
+    /** Name of the wrapped implementation, reported with each event. */
+    private final String renderer;
+
+    /**
+     * Constructor to wrap a drawer.
+     *
+     * @param delegate the drawer doing the work
+     */
+    public ProfiledDrawer(EnvironmentDrawer delegate) {
+        this.delegate = delegate;
+        this.renderer = delegate.getClass().getSimpleName();
+    }
+
+    /**
+     * Gets the wrapped drawer.
+     *
+     * @return the drawer doing the work
+     */
+    public EnvironmentDrawer getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void clearEnvironment() {
+        DrawPhaseEvent event = new DrawPhaseEvent();
+        event.begin();
+        delegate.clearEnvironment();
+        commit(event, "clearEnvironment");
+    }
+
+    @Override
+    public void drawBackground() {
+        DrawPhaseEvent event = new DrawPhaseEvent();
+        event.begin();
+        delegate.drawBackground();
+        commit(event, "drawBackground");
+    }
+
+    @Override
+    public void drawAgents() {
+        DrawPhaseEvent event = new DrawPhaseEvent();
+        event.begin();
+        delegate.drawAgents();
+        commit(event, "drawAgents");
+    }
+
+    @Override
+    public void drawLifeBar() {
+        DrawPhaseEvent event = new DrawPhaseEvent();
+        event.begin();
+        delegate.drawLifeBar();
+        commit(event, "drawLifeBar");
+    }
+
+    @Override
+    public void drawStatusPanel() {
+        DrawPhaseEvent event = new DrawPhaseEvent();
+        event.begin();
+        delegate.drawStatusPanel();
+        commit(event, "drawStatusPanel");
+    }
+
+    @Override
+    public void drawPauseScreen() {
+        DrawPhaseEvent event = new DrawPhaseEvent();
+        event.begin();
+        delegate.drawPauseScreen();
+        commit(event, "drawPauseScreen");
+    }
+
+    @Override
+    public void drawGameOverScreen() {
+        DrawPhaseEvent event = new DrawPhaseEvent();
+        event.begin();
+        delegate.drawGameOverScreen();
+        commit(event, "drawGameOverScreen");
+    }
+
+    @Override
+    public void drawScorePanel() {
+        DrawPhaseEvent event = new DrawPhaseEvent();
+        event.begin();
+        delegate.drawScorePanel();
+        commit(event, "drawScorePanel");
+    }
+
+    @Override
+    public void drawParticles() {
+        DrawPhaseEvent event = new DrawPhaseEvent();
+        event.begin();
+        delegate.drawParticles();
+        commit(event, "drawParticles");
+    }
+
+    @Override
+    public void presentFrame() {
+        DrawPhaseEvent event = new DrawPhaseEvent();
+        event.begin();
+        delegate.presentFrame();
+        commit(event, "presentFrame");
+    }
+
+    /**
+     * Ends the event and commits it if the recording wants it.
+     */
+    private void commit(DrawPhaseEvent event, String phase) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.renderer = renderer;
+            event.commit();
+        }
+    }
+}
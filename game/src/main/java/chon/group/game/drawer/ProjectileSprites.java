@@ -0,0 +1,96 @@
+package chon.group.game.drawer;
+
+import chon.group.game.asset.RasterImage;
+import chon.group.game.domain.projectile.ProjectileSystem;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Draws the sprite of each projectile style once: a disc of the style's
+ * colour with a bright core and an anti-aliased edge. Every projectile of a
+ * style shares the sprite, so a frame of projectiles draws a single texture
+ * many times.
+ */
+final class ProjectileSprites {
+
+    private ProjectileSprites() {
+    }
+
+    /**
+     * Creates the sprites of every style.
+     *
+     * @return the sprites, indexed by style
+     */
+    static WritableImage[] createAll() {
+        WritableImage[] sprites = new WritableImage[ProjectileSystem.STYLES];
+        for (int style = 0; style < sprites.length; style++) {
+            int size = sizeOf(style);
+            sprites[style] = new WritableImage(size, size);
+            sprites[style].getPixelWriter().setPixels(0, 0, size, size, PixelFormat.getIntArgbInstance(),
+                    pixelsOf(style), 0, size);
+        }
+        return sprites;
+    }
+
+    /**
+     * Creates the sprites of every style for the software renderer, without
+     * the JavaFX toolkit.
+     *
+     * @return the sprites, premultiplied, indexed by style
+     */
+    static RasterImage[] createRasters() {
+        RasterImage[] sprites = new RasterImage[ProjectileSystem.STYLES];
+        for (int style = 0; style < sprites.length; style++) {
+            int[] pixels = pixelsOf(style);
+            for (int i = 0; i < pixels.length; i++)
+                pixels[i] = Framebuffer.premultiply(pixels[i]);
+            sprites[style] = new RasterImage(sizeOf(style), sizeOf(style), pixels);
+        }
+        return sprites;
+    }
+
+    /**
+     * Gets the offset from a projectile's centre to its sprite's corner.
+     *
+     * @param style the style of the projectile
+     * @return the offset in pixels
+     */
+    static int offsetOf(int style) {
+        return ProjectileSystem.radiusOf(style) + 1;
+    }
+
+    /**
+     * Gets the side of a style's sprite.
+     */
+    private static int sizeOf(int style) {
+        return ProjectileSystem.radiusOf(style) * 2 + 2;
+    }
+
+    /**
+     * Draws a disc with a core fading to white.
+     *
+     * @return the non-premultiplied ARGB pixels
+     */
+    private static int[] pixelsOf(int style) {
+        int radius = ProjectileSystem.radiusOf(style);
+        int argb = ProjectileSystem.colorOf(style);
+        int size = sizeOf(style);
+        int[] pixels = new int[size * size];
+        double centre = size / 2.0;
+        int red = (argb >> 16) & 0xFF;
+        int green = (argb >> 8) & 0xFF;
+        int blue = argb & 0xFF;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                double distance = Math.hypot(x + 0.5 - centre, y + 0.5 - centre);
+                double alpha = Math.max(0, Math.min(1, radius + 0.5 - distance));
+                double core = Math.max(0, 1 - distance / (radius * 0.6)) * 0.85;
+                pixels[y * size + x] = ((int) Math.round(alpha * 255) << 24)
+                        | ((int) (red + (255 - red) * core) << 16)
+                        | ((int) (green + (255 - green) * core) << 8)
+                        | (int) (blue + (255 - blue) * core);
+            }
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,393 @@
+package chon.group.game.drawer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import chon.group.game.asset.PixelCache;
+import chon.group.game.asset.TextureManager;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Copies of images resampled to the exact number of canvas pixels they cover.
+ * <p>
+ * The game is drawn in logical units and the canvas maps them onto its own
+ * pixels, so an image drawn at 60x60 on a 640x390 canvas covers 30x30 pixels
+ * and is filtered on every draw. This cache keeps a copy of each image at
+ * that size, which the canvas then draws pixel for pixel. The window itself
+ * is scaled by {@link WindowManager} after the canvas is composed, so the
+ * canvas resolution is the finest the images can be matched to.
+ * </p>
+ * <p>
+ * A copy is resampled from a mip level of its image: the image is halved
+ * while the half is still as large as the copy, so resampling never averages
+ * more than a few pixels for each one it writes. The levels are dropped once
+ * the copy is made, so the cache holds the copies alone; when the scale
+ * changes the copies are dropped too, and the next draw reads the image and
+ * halves it again. Copies are made on demand and looked up without
+ * allocating. The texture manager counts the copies with its images, and is
+ * told each time one is made or the copies are dropped.
+ * </p>
+ */
+public class ScaledImageCache implements PixelCache {
+
+    /** The manager counting the copies. */
+    private final TextureManager textures;
+
+    /** Canvas pixels per logical unit. */
+    private double scale = 1;
+
+    /** Resampled copies of still images. */
+    private final Map<Image, Entry> images = new WeakHashMap<>();
+
+    /** Resampled copies of sprite sheet atlases. */
+    private final Map<Image, Entry> atlases = new WeakHashMap<>();
+
+    /**
+     * The copies of one image.
+     */
+    private static final class Entry {
+
+        /** Number of copies held. */
+        private int count;
+
+        /** Bytes held by the copies. */
+        private long bytes;
+
+        /** Width in pixels of each copy. */
+        private int[] widths = new int[2];
+
+        /** Height in pixels of each copy. */
+        private int[] heights = new int[2];
+
+        /** The copies. */
+        private Image[] copies = new Image[2];
+
+        /**
+         * Finds the copy of a size.
+         *
+         * @return the copy, or null when there is none
+         */
+        private Image find(int width, int height) {
+            for (int i = 0; i < count; i++) {
+                if (widths[i] == width && heights[i] == height)
+                    return copies[i];
+            }
+            return null;
+        }
+
+        /**
+         * Adds a copy.
+         */
+        private void add(int width, int height, Image copy) {
+            bytes += 4L * width * height;
+            if (count == copies.length) {
+                widths = Arrays.copyOf(widths, count * 2);
+                heights = Arrays.copyOf(heights, count * 2);
+                copies = Arrays.copyOf(copies, count * 2);
+            }
+            widths[count] = width;
+            heights[count] = height;
+            copies[count] = copy;
+            count++;
+        }
+    }
+
+    /**
+     * Constructor of a cache counted by a texture manager.
+     *
+     * @param textures the manager counting the copies with its images
+     */
+    public ScaledImageCache(TextureManager textures) {
+        this.textures = textures;
+        textures.track(this);
+    }
+
+    /**
+     * Gets the number of canvas pixels per logical unit.
+     *
+     * @return the scale
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Sets the number of canvas pixels per logical unit. A new scale drops
+     * every copy.
+     *
+     * @param scale the new scale
+     */
+    public void setScale(double scale) {
+        if (scale == this.scale || scale <= 0)
+            return;
+        this.scale = scale;
+        clear();
+        textures.cacheChanged();
+    }
+
+    /**
+     * Gets the bytes held by the resampled copies, the texture memory they
+     * take once drawn. Copies of images no longer used are not counted.
+     *
+     * @return the size in bytes
+     */
+    @Override
+    public long getBytes() {
+        return bytes(images) + bytes(atlases);
+    }
+
+    /**
+     * Drops every copy; the next draw of each image makes it again.
+     */
+    @Override
+    public void clear() {
+        clear(images);
+        clear(atlases);
+    }
+
+    /**
+     * Gets the number of canvas pixels covered by a logical length.
+     *
+     * @param length the length in logical units
+     * @return the length in canvas pixels, at least one
+     */
+    public int toPixels(double length) {
+        return Math.max(1, (int) Math.round(length * scale));
+    }
+
+    /**
+     * Rounds a logical length to whole canvas pixels.
+     *
+     * @param length the length in logical units
+     * @return the rounded length in logical units
+     */
+    public double fit(double length) {
+        return toPixels(length) / scale;
+    }
+
+    /**
+     * Moves a logical coordinate to the nearest canvas pixel, so copies are
+     * not filtered by a fractional offset.
+     *
+     * @param position the position in logical units
+     * @return the snapped position in logical units
+     */
+    public double snap(double position) {
+        return Math.round(position * scale) / scale;
+    }
+
+    /**
+     * Gets a still image resampled to the canvas pixels it covers. Images
+     * whose pixels change after they are drawn must not be passed here, as
+     * their copies would keep the old pixels.
+     *
+     * @param source the image
+     * @param width  the width drawn, in logical units
+     * @param height the height drawn, in logical units
+     * @return the resampled copy, or the image itself when it already has the
+     *         size
+     */
+    public Image get(Image source, double width, double height) {
+        if (source == null)
+            return source;
+        int targetWidth = toPixels(width);
+        int targetHeight = toPixels(height);
+        if (targetWidth == (int) source.getWidth() && targetHeight == (int) source.getHeight())
+            return source;
+        Entry entry = images.get(source);
+        if (entry == null) {
+            entry = new Entry();
+            images.put(source, entry);
+        }
+        Image copy = entry.find(targetWidth, targetHeight);
+        if (copy == null) {
+            copy = resampleImage(source, targetWidth, targetHeight);
+            entry.add(targetWidth, targetHeight, copy);
+            textures.cacheChanged();
+        }
+        return copy;
+    }
+
+    /**
+     * Gets a sprite sheet atlas whose frames are each resampled to the canvas
+     * pixels they cover. The frames of the copy keep their order on a grid of
+     * the new size, so frame {@code (x, y)} of the atlas is at
+     * {@code (x / cellWidth * width, y / cellHeight * height)} of the copy,
+     * in canvas pixels. Frames are resampled one by one, so they never bleed
+     * into each other; they are built close to their drawn size, so atlases
+     * have no mip levels.
+     *
+     * @param atlas      the atlas
+     * @param cellWidth  the width of a frame in the atlas
+     * @param cellHeight the height of a frame in the atlas
+     * @param width      the width of a frame in the copy, in canvas pixels
+     * @param height     the height of a frame in the copy, in canvas pixels
+     * @return the resampled copy, or the atlas itself when it already has the
+     *         size
+     */
+    public Image getAtlas(Image atlas, int cellWidth, int cellHeight, int width, int height) {
+        if (width == cellWidth && height == cellHeight)
+            return atlas;
+        Entry entry = atlases.get(atlas);
+        if (entry == null) {
+            entry = new Entry();
+            atlases.put(atlas, entry);
+        }
+        Image copy = entry.find(width, height);
+        if (copy == null) {
+            copy = resampleAtlas(atlas, cellWidth, cellHeight, width, height);
+            entry.add(width, height, copy);
+            textures.cacheChanged();
+        }
+        return copy;
+    }
+
+    /**
+     * Resamples a still image from the smallest mip level at least as large
+     * as the target, halving the image until that level and no further.
+     */
+    private static Image resampleImage(Image source, int width, int height) {
+        int levelWidth = Math.max(1, (int) source.getWidth());
+        int levelHeight = Math.max(1, (int) source.getHeight());
+        int[] level = readPixels(source, levelWidth, levelHeight);
+        while ((levelWidth > 1 || levelHeight > 1)
+                && (levelWidth + 1) / 2 >= width && (levelHeight + 1) / 2 >= height) {
+            int w = (levelWidth + 1) / 2;
+            int h = (levelHeight + 1) / 2;
+            int[] half = new int[w * h];
+            resample(level, levelWidth, 0, 0, levelWidth, levelHeight, half, w, 0, 0, w, h);
+            level = half;
+            levelWidth = w;
+            levelHeight = h;
+        }
+        int[] out = new int[width * height];
+        resample(level, levelWidth, 0, 0, levelWidth, levelHeight, out, width, 0, 0, width, height);
+        return upload(out, width, height);
+    }
+
+    /**
+     * Resamples each frame of an atlas into a grid of the new frame size.
+     */
+    private static Image resampleAtlas(Image atlas, int cellWidth, int cellHeight, int width, int height) {
+        int atlasWidth = (int) atlas.getWidth();
+        int atlasHeight = (int) atlas.getHeight();
+        int columns = atlasWidth / cellWidth;
+        int rows = atlasHeight / cellHeight;
+        int[] pixels = readPixels(atlas, atlasWidth, atlasHeight);
+        int outWidth = columns * width;
+        int outHeight = rows * height;
+        int[] out = new int[outWidth * outHeight];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++)
+                resample(pixels, atlasWidth, column * cellWidth, row * cellHeight, cellWidth, cellHeight,
+                        out, outWidth, column * width, row * height, width, height);
+        }
+        return upload(out, outWidth, outHeight);
+    }
+
+    /**
+     * Resamples a rectangle of premultiplied pixels into another by averaging
+     * the area of the source under each target pixel, first along the rows
+     * and then along the columns.
+     */
+    private static void resample(int[] source, int sourceStride, int sourceX, int sourceY, int sourceWidth,
+            int sourceHeight, int[] target, int targetStride, int targetX, int targetY, int width, int height) {
+        float[] rows = new float[width * sourceHeight * 4];
+        float ratioX = (float) sourceWidth / width;
+        for (int x = 0; x < width; x++) {
+            float start = x * ratioX;
+            float end = start + ratioX;
+            int last = Math.min(sourceWidth - 1, (int) Math.ceil(end) - 1);
+            for (int s = (int) start; s <= last; s++) {
+                float weight = Math.min(end, s + 1) - Math.max(start, s);
+                if (weight <= 0)
+                    continue;
+                for (int y = 0; y < sourceHeight; y++) {
+                    int argb = source[(sourceY + y) * sourceStride + sourceX + s];
+                    int i = (y * width + x) * 4;
+                    rows[i] += weight * (argb >>> 24);
+                    rows[i + 1] += weight * ((argb >> 16) & 0xFF);
+                    rows[i + 2] += weight * ((argb >> 8) & 0xFF);
+                    rows[i + 3] += weight * (argb & 0xFF);
+                }
+            }
+        }
+        float ratioY = (float) sourceHeight / height;
+        float area = ratioX * ratioY;
+        float[] sum = new float[4];
+        for (int y = 0; y < height; y++) {
+            float start = y * ratioY;
+            float end = start + ratioY;
+            int last = Math.min(sourceHeight - 1, (int) Math.ceil(end) - 1);
+            for (int x = 0; x < width; x++) {
+                sum[0] = sum[1] = sum[2] = sum[3] = 0;
+                for (int s = (int) start; s <= last; s++) {
+                    float weight = Math.min(end, s + 1) - Math.max(start, s);
+                    if (weight <= 0)
+                        continue;
+                    int i = (s * width + x) * 4;
+                    for (int c = 0; c < 4; c++)
+                        sum[c] += weight * rows[i + c];
+                }
+                int a = channel(sum[0] / area);
+                target[(targetY + y) * targetStride + targetX + x] = a << 24
+                        | Math.min(a, channel(sum[1] / area)) << 16
+                        | Math.min(a, channel(sum[2] / area)) << 8
+                        | Math.min(a, channel(sum[3] / area));
+            }
+        }
+    }
+
+    /**
+     * Rounds a channel value into the range of a byte.
+     */
+    private static int channel(float value) {
+        return Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    /**
+     * Reads premultiplied pixels from an image; an image that cannot be read
+     * gives transparent pixels.
+     */
+    private static int[] readPixels(Image image, int width, int height) {
+        int[] pixels = new int[width * height];
+        PixelReader reader = image.getPixelReader();
+        if (reader != null)
+            reader.getPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+        return pixels;
+    }
+
+    /**
+     * Copies premultiplied pixels into a new image.
+     */
+    private static Image upload(int[] pixels, int width, int height) {
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+        return image;
+    }
+
+    /**
+     * Drops the copies of every entry of a map.
+     */
+    private static void clear(Map<Image, Entry> entries) {
+        for (Entry entry : entries.values()) {
+            Arrays.fill(entry.copies, 0, entry.count, null);
+            entry.count = 0;
+            entry.bytes = 0;
+        }
+    }
+
+    /**
+     * Adds up the bytes of the copies of every entry of a map.
+     */
+    private static long bytes(Map<Image, Entry> entries) {
+        long bytes = 0;
+        for (Entry entry : entries.values())
+            bytes += entry.bytes;
+        return bytes;
+    }
+}
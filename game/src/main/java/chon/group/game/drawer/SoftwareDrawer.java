@@ -0,0 +1,616 @@
+package chon.group.game.drawer;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import chon.group.game.domain.environment.Camera;
+import chon.group.game.domain.item.FallingItem;
+import chon.group.game.domain.particle.ParticleSystem;
+import chon.group.game.domain.projectile.ProjectileSystem;
+import chon.group.game.domain.sprite.SpriteSheet;
+import chon.group.game.asset.RasterImage;
+import chon.group.game.asset.Texture;
+import chon.group.game.asset.TextureManager;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.util.Callback;
+
+/**
+ * Renders the game into an {@code int[]} {@link Framebuffer} without going
+ * through Prism.
+ * <p>
+ * Drawing calls are recorded into a display list during the frame. When the
+ * frame is finished, the list is rasterized in horizontal tiles, one task per
+ * tile, so the work is spread across cores. Text is drawn with Java2D on the
+ * same pixels between tiled runs, which keeps the original drawing order.
+ * The result can be presented through a {@link PixelBuffer} backed
+ * {@link WritableImage}, or simply read back when running headless. Images
+ * are drawn from the rasters of their {@link Texture}s, so a headless run
+ * never builds a JavaFX image.
+ * </p>
+ */
+public class SoftwareDrawer {
+
+    /** Operation that fills the whole frame. */
+    private static final byte OP_CLEAR = 0;
+
+    /** Operation that blits an image. */
+    private static final byte OP_BLIT = 1;
+
+    /** Operation that fills a rectangle. */
+    private static final byte OP_FILL = 2;
+
+    /** Operation that plots every live particle. */
+    private static final byte OP_PARTICLES = 3;
+
+    /** Operation that draws a line of text. */
+    private static final byte OP_TEXT = 4;
+
+    /** Operation that draws a line of italic-like skewed text. */
+    private static final byte OP_SKEWED_TEXT = 5;
+
+    /** Operation that blits every projectile near the camera. */
+    private static final byte OP_PROJECTILES = 6;
+
+    /** Size in pixels of the square drawn for each particle. */
+    private static final int PARTICLE_SIZE = 2;
+
+    /** Path to the custom font used by the score and game over screens. */
+    private static final String CUSTOM_FONT_PATH = "/fonts/rittswoodProfile.ttf";
+
+    /** Path to the game over background. */
+    private static final String GAME_OVER_IMAGE_PATH = "/images/environment/gameover.png";
+
+    /** Shadow of the score panel text. */
+    private static final Color SCORE_SHADOW = new Color(0, 0, 0, 128);
+
+    /** Farthest layer of the game over score shadow. */
+    private static final Color GAME_OVER_SHADOW_FAR = new Color(0, 0, 0, 51);
+
+    /** Middle layer of the game over score shadow. */
+    private static final Color GAME_OVER_SHADOW_MID = new Color(0, 0, 0, 102);
+
+    /** Nearest layer of the game over score shadow. */
+    private static final Color GAME_OVER_SHADOW_NEAR = new Color(0, 0, 0, 153);
+
+    /** Transform of upright text. */
+    private static final AffineTransform UPRIGHT = new AffineTransform();
+
+    /** Transform of the italic-like skewed text. */
+    private static final AffineTransform SKEWED = new AffineTransform(1, 0, -0.2, 1, 0, 0);
+
+    /** Number of text colours remembered by {@link #colorOf(int)}. */
+    private static final int TEXT_COLORS = 8;
+
+    /** The framebuffer receiving the pixels. */
+    private final Framebuffer framebuffer;
+
+    /** Tiles rasterized in parallel. */
+    private final Tile[] tiles;
+
+    /** Decoded frames of each sprite sheet at the size drawn, counted by the texture manager. */
+    private final SpriteFrameCache spriteFrames = new SpriteFrameCache(TextureManager.getDefault());
+
+    /** Decoded sprite of each projectile style, created on first use. */
+    private RasterImage[] projectileSprites;
+
+    /** Font used by the status panel. */
+    private final Font statusFont;
+
+    /** Texts of the status panel's X coordinate. */
+    private final NumberText xLabels = new NumberText("X: ");
+
+    /** Texts of the status panel's Y coordinate. */
+    private final NumberText yLabels = new NumberText("Y: ");
+
+    /** Java2D context drawing text into the framebuffer, created on first use. */
+    private Graphics2D textGraphics;
+
+    /** Colours of the recently drawn text, by ARGB value. */
+    private final int[] textColorKeys = new int[TEXT_COLORS];
+
+    /** Colours of the recently drawn text. */
+    private final Color[] textColors = new Color[TEXT_COLORS];
+
+    /** Next slot replaced in the text colour cache. */
+    private int nextTextColor;
+
+    /** Font used by the score panel. */
+    private final Font scoreFont;
+
+    /** Font used by the game over score. */
+    private final Font gameOverFont;
+
+    /** Recorded operation codes. */
+    private byte[] ops = new byte[256];
+
+    /** Recorded integer arguments, five per operation. */
+    private int[] args = new int[256 * 5];
+
+    /** Recorded object arguments, two per operation. */
+    private Object[] refs = new Object[256 * 2];
+
+    /** Number of recorded operations. */
+    private int count;
+
+    /** Time spent in the last rasterization, in nanoseconds. */
+    private long lastRasterNanos;
+
+    /** Direct buffer shared with the presented image. */
+    private IntBuffer presentBuffer;
+
+    /** Pixel buffer backing the presented image. */
+    private PixelBuffer<IntBuffer> pixelBuffer;
+
+    /** Image showing the presented frame. */
+    private WritableImage presentImage;
+
+    /** Callback marking the whole presented image as dirty. */
+    private final Callback<PixelBuffer<IntBuffer>, Rectangle2D> fullUpdate = buffer -> null;
+
+    /**
+     * Constructor to initialize the software drawer.
+     *
+     * @param width     the framebuffer width
+     * @param height    the framebuffer height
+     * @param tileCount the number of horizontal tiles rasterized in parallel
+     */
+    public SoftwareDrawer(int width, int height, int tileCount) {
+        this.framebuffer = new Framebuffer(width, height);
+        int tileCountInRange = Math.max(1, Math.min(tileCount, height));
+        this.tiles = new Tile[tileCountInRange];
+        int band = (height + tileCountInRange - 1) / tileCountInRange;
+        for (int i = 0; i < tileCountInRange; i++) {
+            tiles[i] = new Tile(i * band, Math.min(height, (i + 1) * band));
+        }
+        Font custom = loadCustomFont();
+        this.statusFont = new Font("Verdana", Font.BOLD, 14);
+        this.scoreFont = custom.deriveFont(30f);
+        this.gameOverFont = custom.deriveFont(120f);
+    }
+
+    /**
+     * Gets the framebuffer receiving the pixels.
+     *
+     * @return the framebuffer
+     */
+    public Framebuffer getFramebuffer() {
+        return framebuffer;
+    }
+
+    /**
+     * Gets the time spent rasterizing the last frame.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getLastRasterNanos() {
+        return lastRasterNanos;
+    }
+
+    /**
+     * Clears the frame.
+     */
+    public void clearScreen() {
+        int op = record(OP_CLEAR, null, null);
+        args[op * 5] = 0;
+    }
+
+    /**
+     * Draws an image scaled to the given size.
+     */
+    public void drawImage(Texture texture, int posX, int posY, int width, int height) {
+        RasterImage raster = texture != null ? texture.getRaster() : null;
+        if (raster == null)
+            return;
+        raster = raster.scaled(width, height);
+        int op = record(OP_BLIT, raster, null);
+        args[op * 5] = posX;
+        args[op * 5 + 1] = posY;
+    }
+
+    /**
+     * Draws a frame of a sprite sheet scaled to the given size.
+     */
+    public void drawSprite(SpriteSheet sheet, int frame, int posX, int posY, int width, int height) {
+        int op = record(OP_BLIT, spriteFrames.get(sheet, frame, width, height), null);
+        args[op * 5] = posX;
+        args[op * 5 + 1] = posY;
+    }
+
+    /**
+     * Draws a decoded image at its own size.
+     */
+    public void drawRaster(RasterImage raster, int posX, int posY) {
+        int op = record(OP_BLIT, raster, null);
+        args[op * 5] = posX;
+        args[op * 5 + 1] = posY;
+    }
+
+    /**
+     * Copies the pixels of a tile-map chunk into a raster image, reusing the
+     * pixel array of an evicted chunk when there is one.
+     *
+     * @param pixels the premultiplied ARGB pixels of the chunk
+     * @param size   the side of the chunk in pixels
+     * @param reuse  the image whose array is refilled, or null to allocate one
+     * @return the chunk image
+     */
+    public static RasterImage uploadChunk(int[] pixels, int size, RasterImage reuse) {
+        int[] copy = reuse != null ? reuse.getPixels() : new int[size * size];
+        System.arraycopy(pixels, 0, copy, 0, size * size);
+        return new RasterImage(size, size, copy);
+    }
+
+    /**
+     * Draws a filled rectangle.
+     */
+    public void fillRect(int posX, int posY, int width, int height, int argb) {
+        int op = record(OP_FILL, null, null);
+        args[op * 5] = posX;
+        args[op * 5 + 1] = posY;
+        args[op * 5 + 2] = width;
+        args[op * 5 + 3] = height;
+        args[op * 5 + 4] = Framebuffer.premultiply(argb);
+    }
+
+    /**
+     * Renders an agent's life bar, matching the JavaFX backend's layout.
+     */
+    public void drawLifeBar(int health, int fullHealth, int width, int posX, int posY, int argb) {
+        int borderThickness = 2;
+        int barHeight = 5;
+        int lifeSpan = Math.round((float) ((health * 100 / fullHealth) * width) / 100);
+        int barY = 15;
+        fillRect(posX, posY - barY, width, barHeight + (borderThickness * 2), 0xFF000000);
+        fillRect(posX + borderThickness, posY - (barY - borderThickness),
+                lifeSpan - (borderThickness * 2), barHeight, argb);
+    }
+
+    /**
+     * Displays a status panel showing the protagonist's world coordinates
+     * above its position on the screen.
+     */
+    public void drawStatusPanel(int posX, int posY, int screenX, int screenY) {
+        drawText(xLabels.format(posX), screenX + 10, screenY - 40, statusFont, Color.BLACK, false);
+        drawText(yLabels.format(posY), screenX + 10, screenY - 25, statusFont, Color.BLACK, false);
+    }
+
+    /**
+     * Renders the pause image centred on the screen at its native size.
+     */
+    public void drawPauseScreen(Texture texture, int width, int height) {
+        RasterImage raster = texture != null ? texture.getRaster() : null;
+        if (raster == null)
+            return;
+        int op = record(OP_BLIT, raster, null);
+        args[op * 5] = (width - raster.getWidth()) / 2;
+        args[op * 5 + 1] = (height - raster.getHeight()) / 2;
+    }
+
+    /**
+     * Draws the falling items near the camera, animated ones at their current
+     * frame.
+     */
+    public void drawFallingItems(List<FallingItem> items, Camera camera, long time) {
+        for (int i = 0; i < items.size(); i++) {
+            FallingItem item = items.get(i);
+            if (!camera.isVisible(item.getPosX(), item.getPosY(), item.getWidth(), item.getHeight()))
+                continue;
+            if (item.getSprite() != null) {
+                drawSprite(item.getSprite(), item.frameAt(time), (int) item.getPosX() - camera.getPosX(),
+                        (int) item.getPosY() - camera.getPosY(), item.getWidth(), item.getHeight());
+                continue;
+            }
+            drawImage(item.getTexture(), (int) item.getPosX() - camera.getPosX(),
+                    (int) item.getPosY() - camera.getPosY(), item.getWidth(), item.getHeight());
+        }
+    }
+
+    /**
+     * Draws the projectiles near the camera. They are read from the system
+     * while rasterizing, so each tile blits the ones crossing its band.
+     */
+    public void drawProjectiles(ProjectileSystem projectiles, Camera camera) {
+        if (projectiles.size() == 0)
+            return;
+        if (projectileSprites == null)
+            projectileSprites = ProjectileSprites.createRasters();
+        int op = record(OP_PROJECTILES, projectiles, null);
+        args[op * 5] = camera.getPosX();
+        args[op * 5 + 1] = camera.getPosY();
+        args[op * 5 + 2] = camera.getWidth();
+        args[op * 5 + 3] = camera.getHeight();
+    }
+
+    /**
+     * Draws every live particle, shifted so the given world position is the
+     * top left corner of the frame.
+     */
+    public void drawParticles(ParticleSystem particles, int originX, int originY) {
+        int op = record(OP_PARTICLES, particles, null);
+        args[op * 5] = originX;
+        args[op * 5 + 1] = originY;
+    }
+
+    /**
+     * Draws the score panel with the current score.
+     */
+    public void drawScorePanel(Texture scoreImage, int score) {
+        int panelX = 1058;
+        int panelY = 120;
+        drawImage(scoreImage, panelX, panelY, 221, 67);
+        String scoreText = NumberText.of(score);
+        int scoreTextX = panelX + 197;
+        int scoreTextY = panelY + 45;
+        drawText(scoreText, scoreTextX + 2, scoreTextY + 2, scoreFont, SCORE_SHADOW, true);
+        drawText(scoreText, scoreTextX, scoreTextY, scoreFont, Color.WHITE, true);
+    }
+
+    /**
+     * Draws the game over screen with the final score and, when known, its
+     * ranks on the leaderboards.
+     */
+    public void drawGameOverScreen(Texture gameOverImage, int width, int height, int score, String ranks) {
+        if (gameOverImage != null) {
+            drawImage(gameOverImage, 0, 0, width, height);
+        } else {
+            fillRect(0, 0, width, height, 0xB3000000);
+        }
+        String scoreText = NumberText.of(score);
+        int scoreX = 600;
+        int scoreY = height - 300;
+        int shadowOffset = 4;
+        drawText(scoreText, scoreX + shadowOffset * 2, scoreY + shadowOffset * 2, gameOverFont,
+                GAME_OVER_SHADOW_FAR, false);
+        drawText(scoreText, scoreX + shadowOffset * 3 / 2, scoreY + shadowOffset * 3 / 2, gameOverFont,
+                GAME_OVER_SHADOW_MID, false);
+        drawText(scoreText, scoreX + shadowOffset, scoreY + shadowOffset, gameOverFont,
+                GAME_OVER_SHADOW_NEAR, false);
+        drawText(scoreText, scoreX, scoreY, gameOverFont, Color.WHITE, false);
+        if (ranks != null) {
+            drawText(ranks, scoreX + 2, scoreY + 52, scoreFont, GAME_OVER_SHADOW_NEAR, false);
+            drawText(ranks, scoreX, scoreY + 50, scoreFont, Color.WHITE, false);
+        }
+    }
+
+    /**
+     * Gets the handle of the game over background shared by every frame of
+     * that screen.
+     *
+     * @return the handle, or null when the image is missing
+     */
+    public Texture loadGameOverImage() {
+        if (getClass().getResource(GAME_OVER_IMAGE_PATH) == null)
+            return null;
+        return TextureManager.getDefault().texture(GAME_OVER_IMAGE_PATH);
+    }
+
+    /**
+     * Rasterizes every operation recorded since the last frame and resets the
+     * display list.
+     */
+    public void rasterize() {
+        long start = System.nanoTime();
+        int runStart = 0;
+        for (int op = 0; op < count; op++) {
+            if (ops[op] == OP_TEXT || ops[op] == OP_SKEWED_TEXT) {
+                rasterizeTiles(runStart, op);
+                rasterizeText(op);
+                runStart = op + 1;
+            }
+        }
+        rasterizeTiles(runStart, count);
+        Arrays.fill(refs, 0, count * 2, null);
+        count = 0;
+        lastRasterNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Copies the framebuffer into a JavaFX image and draws it on the canvas.
+     *
+     * @param gc the target graphics context
+     */
+    public void present(GraphicsContext gc) {
+        if (presentImage == null) {
+            int width = framebuffer.getWidth();
+            int height = framebuffer.getHeight();
+            presentBuffer = ByteBuffer.allocateDirect(width * height * 4)
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+            pixelBuffer = new PixelBuffer<>(width, height, presentBuffer, PixelFormat.getIntArgbPreInstance());
+            presentImage = new WritableImage(pixelBuffer);
+        }
+        presentBuffer.clear();
+        presentBuffer.put(framebuffer.getPixels());
+        pixelBuffer.updateBuffer(fullUpdate);
+        gc.drawImage(presentImage, 0, 0);
+    }
+
+    /**
+     * Rasterizes a run of non-text operations, one task per tile.
+     */
+    private void rasterizeTiles(int from, int to) {
+        if (from >= to)
+            return;
+        if (tiles.length == 1) {
+            tiles[0].render(from, to);
+            return;
+        }
+        for (Tile tile : tiles) {
+            tile.reinitialize();
+            tile.from = from;
+            tile.to = to;
+        }
+        ForkJoinTask.invokeAll(tiles);
+    }
+
+    /**
+     * Draws a recorded text operation with Java2D. The context is kept for
+     * the drawer's lifetime, since the framebuffer never changes.
+     */
+    private void rasterizeText(int op) {
+        Graphics2D g = textGraphics;
+        if (g == null) {
+            g = framebuffer.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            textGraphics = g;
+        }
+        g.setTransform(ops[op] == OP_SKEWED_TEXT ? SKEWED : UPRIGHT);
+        g.setFont((Font) refs[op * 2 + 1]);
+        g.setColor(colorOf(args[op * 5 + 2]));
+        g.drawString((String) refs[op * 2], args[op * 5], args[op * 5 + 1]);
+    }
+
+    /**
+     * Gets the Java2D colour of an ARGB value, reusing the few colours the
+     * screens draw text with.
+     */
+    private Color colorOf(int argb) {
+        for (int i = 0; i < TEXT_COLORS; i++) {
+            if (textColors[i] != null && textColorKeys[i] == argb)
+                return textColors[i];
+        }
+        Color color = new Color(argb, true);
+        textColorKeys[nextTextColor] = argb;
+        textColors[nextTextColor] = color;
+        nextTextColor = (nextTextColor + 1) % TEXT_COLORS;
+        return color;
+    }
+
+    /**
+     * Records a text operation.
+     */
+    private void drawText(String text, int x, int y, Font font, Color color, boolean skewed) {
+        int op = record(skewed ? OP_SKEWED_TEXT : OP_TEXT, text, font);
+        args[op * 5] = x;
+        args[op * 5 + 1] = y;
+        args[op * 5 + 2] = color.getRGB();
+    }
+
+    /**
+     * Appends an operation to the display list, growing it when needed.
+     */
+    private int record(byte code, Object first, Object second) {
+        if (count == ops.length) {
+            ops = Arrays.copyOf(ops, count * 2);
+            args = Arrays.copyOf(args, count * 2 * 5);
+            refs = Arrays.copyOf(refs, count * 2 * 2);
+        }
+        ops[count] = code;
+        refs[count * 2] = first;
+        refs[count * 2 + 1] = second;
+        return count++;
+    }
+
+    /**
+     * Loads the custom font, falling back to a logical font when unavailable.
+     */
+    private Font loadCustomFont() {
+        try (InputStream stream = getClass().getResourceAsStream(CUSTOM_FONT_PATH)) {
+            if (stream != null)
+                return Font.createFont(Font.TRUETYPE_FONT, stream);
+        } catch (Exception e) {
+            System.out.println("Erro ao carregar fonte personalizada: " + e.getMessage());
+        }
+        return new Font(Font.SANS_SERIF, Font.ITALIC, 30);
+    }
+
+    /**
+     * A horizontal band of the framebuffer rasterized by a single task. Tiles
+     * are reused as fork/join tasks every run, so rasterizing does not
+     * allocate.
+     */
+    private final class Tile extends RecursiveAction
+            implements ParticleSystem.ParticleVisitor, ProjectileSystem.ProjectileVisitor {
+
+        /** Tasks are never serialized; declared because fork/join tasks are serializable. */
+        private static final long serialVersionUID = 1L;
+
+        /** First row of the band. */
+        private final int y0;
+
+        /** Row after the last row of the band. */
+        private final int y1;
+
+        /** First operation of the current run. */
+        private int from;
+
+        /** Operation after the last one of the current run. */
+        private int to;
+
+        /** World X of the frame's left edge while plotting particles. */
+        private int originX;
+
+        /** World Y of the frame's top edge while plotting particles. */
+        private int originY;
+
+        Tile(int y0, int y1) {
+            this.y0 = y0;
+            this.y1 = y1;
+        }
+
+        /**
+         * Executes a run of operations clipped to this band.
+         */
+        void render(int from, int to) {
+            for (int op = from; op < to; op++) {
+                int base = op * 5;
+                switch (ops[op]) {
+                    case OP_CLEAR:
+                        framebuffer.clear(args[base], y0, y1);
+                        break;
+                    case OP_BLIT:
+                        framebuffer.blit((RasterImage) refs[op * 2], args[base], args[base + 1], y0, y1);
+                        break;
+                    case OP_FILL:
+                        framebuffer.fillRect(args[base], args[base + 1], args[base + 2], args[base + 3],
+                                args[base + 4], y0, y1);
+                        break;
+                    case OP_PARTICLES:
+                        originX = args[base];
+                        originY = args[base + 1];
+                        ((ParticleSystem) refs[op * 2]).forEachLive(this);
+                        break;
+                    case OP_PROJECTILES:
+                        originX = args[base];
+                        originY = args[base + 1];
+                        /* Only the rows of this band, widened by the largest sprite */
+                        ((ProjectileSystem) refs[op * 2]).forEachVisible(originX, originY + y0,
+                                args[base + 2], y1 - y0, this);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        @Override
+        protected void compute() {
+            render(from, to);
+        }
+
+        @Override
+        public void visit(int x, int y, int argb) {
+            framebuffer.plot(x - originX, y - originY, PARTICLE_SIZE, argb, y0, y1);
+        }
+
+        @Override
+        public void visitProjectile(int x, int y, int style) {
+            int offset = ProjectileSprites.offsetOf(style);
+            framebuffer.blit(projectileSprites[style], x - offset - originX, y - offset - originY, y0, y1);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package chon.group.game.drawer;
+
+import chon.group.game.asset.RasterImage;
+import chon.group.game.asset.Texture;
+import chon.group.game.domain.agent.Agent;
+import chon.group.game.domain.environment.Camera;
+import chon.group.game.domain.environment.Environment;
+import chon.group.game.domain.level.Level;
+import chon.group.game.domain.sprite.SpriteAnimator;
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * An {@link EnvironmentDrawer} that composites the environment into an
+ * {@code int[]} framebuffer through a {@link SoftwareDrawer}.
+ * <p>
+ * When a {@link GraphicsContext} is given the finished frame is presented on
+ * it; without one the mediator runs fully headless and the frame can be read
+ * back from {@link #getFramebuffer()}.
+ * </p>
+ */
+public class SoftwareMediator implements EnvironmentDrawer {
+
+    /** Life bar colour of the other agents (dark red). */
+    private static final int AGENT_BAR_COLOR = 0xFF8B0000;
+
+    /** Life bar colour of the protagonist (green). */
+    private static final int PROTAGONIST_BAR_COLOR = 0xFF008000;
+
+    private final Environment environment;
+    private final SoftwareDrawer drawer;
+    private final GraphicsContext gc;
+
+    /** Rendered chunks of the tile-map level, created when a level is drawn. */
+    private TileChunkCache<RasterImage> tileChunks;
+
+    /** Background of the game over screen, looked up on first use. */
+    private Texture gameOverImage;
+
+    /** Whether the game over image was already looked up. */
+    private boolean gameOverImageLoaded;
+
+    /**
+     * Constructor rasterizing with one tile per available processor.
+     *
+     * @param environment the environment to render
+     * @param gc          the graphics context to present on, or null to run
+     *                    headless
+     */
+    public SoftwareMediator(Environment environment, GraphicsContext gc) {
+        this(environment, gc, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor allowing the number of parallel tiles to be chosen.
+     *
+     * @param environment the environment to render
+     * @param gc          the graphics context to present on, or null to run
+     *                    headless
+     * @param tileCount   the number of horizontal tiles rasterized in parallel
+     */
+    public SoftwareMediator(Environment environment, GraphicsContext gc, int tileCount) {
+        this.environment = environment;
+        this.gc = gc;
+        this.drawer = new SoftwareDrawer(environment.getCamera().getWidth(), environment.getCamera().getHeight(),
+                tileCount);
+    }
+
+    /**
+     * Gets the framebuffer holding the last rasterized frame.
+     *
+     * @return the framebuffer
+     */
+    public Framebuffer getFramebuffer() {
+        return drawer.getFramebuffer();
+    }
+
+    /**
+     * Gets the software drawer used by this mediator.
+     *
+     * @return the software drawer
+     */
+    public SoftwareDrawer getDrawer() {
+        return drawer;
+    }
+
+    @Override
+    public void clearEnvironment() {
+        drawer.clearScreen();
+    }
+
+    /**
+     * Renders the part of the background under the camera: the chunks of the
+     * tile-map level, or else the background image, which covers one screen
+     * and repeats along the world.
+     */
+    @Override
+    public void drawBackground() {
+        Camera camera = this.environment.getCamera();
+        Level level = this.environment.getLevel();
+        if (level != null) {
+            if (tileChunks == null || tileChunks.getLevel() != level)
+                tileChunks = new TileChunkCache<>(level, camera.getWidth(), camera.getHeight(),
+                        SoftwareDrawer::uploadChunk);
+            tileChunks.prepare(camera);
+            int size = tileChunks.getChunkPixels();
+            for (int cy = tileChunks.getVisibleY0(); cy <= tileChunks.getVisibleY1(); cy++) {
+                for (int cx = tileChunks.getVisibleX0(); cx <= tileChunks.getVisibleX1(); cx++) {
+                    drawer.drawRaster(tileChunks.get(cx, cy),
+                            cx * size - camera.getPosX(),
+                            cy * size - camera.getPosY());
+                }
+            }
+            return;
+        }
+        int screenWidth = Math.max(1, camera.getWidth());
+        int first = camera.getPosX() / screenWidth;
+        int last = (camera.getPosX() + screenWidth - 1) / screenWidth;
+        for (int screen = first; screen <= last; screen++) {
+            drawer.drawImage(this.environment.getImageTexture(),
+                    this.environment.getPosX() + screen * screenWidth - camera.getPosX(),
+                    this.environment.getPosY() - camera.getPosY(),
+                    screenWidth,
+                    camera.getHeight());
+        }
+    }
+
+    /**
+     * Renders the agents, the protagonist, the falling items and the
+     * projectiles near the camera, animated ones at their current frame.
+     */
+    @Override
+    public void drawAgents() {
+        Camera camera = this.environment.getCamera();
+        for (Agent agent : this.environment.getAgents()) {
+            if (!camera.isVisible(agent.getPosX(), agent.getPosY(), agent.getWidth(), agent.getHeight()))
+                continue;
+            int screenX = agent.getPosX() - camera.getPosX();
+            int screenY = agent.getPosY() - camera.getPosY();
+            drawAgent(agent, screenX, screenY);
+            drawer.drawLifeBar(agent.getHealth(), agent.getFullHealth(), agent.getWidth(),
+                    screenX, screenY, AGENT_BAR_COLOR);
+        }
+        Agent protagonist = this.environment.getProtagonist();
+        drawAgent(protagonist, protagonist.getPosX() - camera.getPosX(), protagonist.getPosY() - camera.getPosY());
+        drawLifeBar();
+        drawStatusPanel();
+        drawer.drawFallingItems(this.environment.getFallingItems(), camera, this.environment.getTime());
+        drawer.drawProjectiles(this.environment.getProjectiles(), camera);
+    }
+
+    /**
+     * Renders an agent's current animation frame, or its still image when it
+     * is not animated.
+     */
+    private void drawAgent(Agent agent, int screenX, int screenY) {
+        SpriteAnimator animator = agent.getAnimator();
+        if (animator != null) {
+            drawer.drawSprite(animator.getSheet(), animator.frameAt(this.environment.getTime(), agent.isFlipped()),
+                    screenX, screenY, agent.getWidth(), agent.getHeight());
+        } else {
+            drawer.drawImage(agent.getTexture(), screenX, screenY, agent.getWidth(), agent.getHeight());
+        }
+    }
+
+    @Override
+    public void drawLifeBar() {
+        Agent protagonist = this.environment.getProtagonist();
+        Camera camera = this.environment.getCamera();
+        drawer.drawLifeBar(protagonist.getHealth(), protagonist.getFullHealth(), protagonist.getWidth(),
+                protagonist.getPosX() - camera.getPosX(), protagonist.getPosY() - camera.getPosY(),
+                PROTAGONIST_BAR_COLOR);
+    }
+
+    @Override
+    public void drawStatusPanel() {
+        Agent protagonist = this.environment.getProtagonist();
+        Camera camera = this.environment.getCamera();
+        drawer.drawStatusPanel(protagonist.getPosX(), protagonist.getPosY(),
+                protagonist.getPosX() - camera.getPosX(), protagonist.getPosY() - camera.getPosY());
+    }
+
+    @Override
+    public void drawPauseScreen() {
+        drawer.drawPauseScreen(this.environment.getPauseTexture(),
+                this.environment.getCamera().getWidth(),
+                this.environment.getCamera().getHeight());
+    }
+
+    @Override
+    public void drawGameOverScreen() {
+        if (!gameOverImageLoaded) {
+            gameOverImage = drawer.loadGameOverImage();
+            gameOverImageLoaded = true;
+        }
+        drawer.drawGameOverScreen(gameOverImage,
+                this.environment.getCamera().getWidth(),
+                this.environment.getCamera().getHeight(),
+                this.environment.getScore(),
+                this.environment.getRankText());
+    }
+
+    @Override
+    public void drawScorePanel() {
+        drawer.drawScorePanel(this.environment.getScoreTexture(), this.environment.getScore());
+    }
+
+    @Override
+    public void drawParticles() {
+        Camera camera = this.environment.getCamera();
+        drawer.drawParticles(this.environment.getParticles(), camera.getPosX(), camera.getPosY());
+    }
+
+    /**
+     * Rasterizes the recorded frame and presents it when a graphics context is
+     * available.
+     */
+    @Override
+    public void presentFrame() {
+        drawer.rasterize();
+        if (gc != null)
+            drawer.present(gc);
+    }
+}
@@ -0,0 +1,85 @@
+package chon.group.game.drawer;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import chon.group.game.asset.PixelCache;
+import chon.group.game.asset.RasterImage;
+import chon.group.game.asset.TextureManager;
+import chon.group.game.domain.sprite.SpriteSheet;
+
+/**
+ * The frames of the sprite sheets drawn by the software renderer, cut from
+ * their atlas and resampled to the size they are drawn at.
+ * <p>
+ * Each frame is cut on first use and keeps its last resampled copy. The
+ * texture manager counts the frames and their copies with its images, and
+ * is told each time a frame or a copy is made; getting a frame that is
+ * already at the size drawn does not allocate.
+ * </p>
+ */
+public class SpriteFrameCache implements PixelCache {
+
+    /** The manager counting the frames. */
+    private final TextureManager textures;
+
+    /** Frames of each sprite sheet, cut from the atlas on first use. */
+    private final Map<SpriteSheet, RasterImage[]> frames = new WeakHashMap<>();
+
+    /**
+     * Constructor of a cache counted by a texture manager.
+     *
+     * @param textures the manager counting the frames with its images
+     */
+    public SpriteFrameCache(TextureManager textures) {
+        this.textures = textures;
+        textures.track(this);
+    }
+
+    /**
+     * Gets a frame of a sprite sheet resampled to a size.
+     *
+     * @param sheet  the sprite sheet
+     * @param frame  the index of the frame
+     * @param width  the width drawn
+     * @param height the height drawn
+     * @return the frame at that size
+     */
+    public RasterImage get(SpriteSheet sheet, int frame, int width, int height) {
+        RasterImage[] sheetFrames = frames.get(sheet);
+        if (sheetFrames == null) {
+            sheetFrames = new RasterImage[sheet.getFrameCount() * 2];
+            frames.put(sheet, sheetFrames);
+        }
+        RasterImage raster = sheetFrames[frame];
+        long before = 0;
+        if (raster == null) {
+            raster = sheet.getRaster().region(sheet.getRegionX(frame), sheet.getRegionY(frame),
+                    sheet.getFrameWidth(), sheet.getFrameHeight());
+            sheetFrames[frame] = raster;
+        } else {
+            before = raster.getBytes();
+        }
+        RasterImage scaled = raster.scaled(width, height);
+        if (raster.getBytes() != before)
+            textures.cacheChanged();
+        return scaled;
+    }
+
+    @Override
+    public long getBytes() {
+        long bytes = 0;
+        for (RasterImage[] sheetFrames : frames.values()) {
+            for (RasterImage raster : sheetFrames) {
+                if (raster != null)
+                    bytes += raster.getBytes();
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void clear() {
+        frames.clear();
+    }
+}
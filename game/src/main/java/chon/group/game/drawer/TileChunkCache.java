@@ -0,0 +1,248 @@
+package chon.group.game.drawer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import chon.group.game.domain.environment.Camera;
+import chon.group.game.domain.level.Level;
+
+/**
+ * The rendered chunks of a tile-map level near the camera.
+ * <p>
+ * Chunks under the viewport are composed before they are drawn, and the ring
+ * of chunks around it is composed a few per frame ahead of time, so scrolling
+ * rarely has to wait for a chunk. The cache holds a fixed number of chunks,
+ * enough for the viewport, the ring and one more column; the least recently
+ * used chunk is evicted and its image reused for the next one, so memory
+ * stays the same whatever the size of the level.
+ * </p>
+ *
+ * @param <T> the image type the drawer draws chunks with
+ */
+public class TileChunkCache<T> {
+
+    /** Chunks of the ring around the viewport composed per frame. */
+    private static final int PREFETCH_PER_FRAME = 2;
+
+    /**
+     * Turns composed chunk pixels into an image a drawer can draw.
+     *
+     * @param <T> the image type
+     */
+    public interface ChunkUploader<T> {
+
+        /**
+         * Creates or refills a chunk image.
+         *
+         * @param pixels the premultiplied ARGB pixels of the chunk
+         * @param size   the side of the chunk in pixels
+         * @param reuse  the image of an evicted chunk to refill, or null
+         * @return the image holding the pixels
+         */
+        T upload(int[] pixels, int size, T reuse);
+    }
+
+    /** The level the chunks come from. */
+    private final Level level;
+
+    /** Turns composed pixels into images. */
+    private final ChunkUploader<T> uploader;
+
+    /** Side of a chunk in pixels. */
+    private final int chunkPixels;
+
+    /** Maximum number of chunks kept. */
+    private final int capacity;
+
+    /** Scratch pixels of the chunk being composed. */
+    private final int[] scratch;
+
+    /** Rendered chunks by key, least recently used first. */
+    private final LinkedHashMap<Integer, T> chunks;
+
+    /** Image of the last evicted chunk, reused by the next composition. */
+    private T recycled;
+
+    /** First chunk column under the viewport. */
+    private int visibleX0;
+
+    /** Last chunk column under the viewport. */
+    private int visibleX1;
+
+    /** First chunk row under the viewport. */
+    private int visibleY0;
+
+    /** Last chunk row under the viewport. */
+    private int visibleY1;
+
+    /** Number of chunks composed so far. */
+    private long composed;
+
+    /**
+     * Constructor to create a cache sized for a viewport.
+     *
+     * @param level          the level the chunks come from
+     * @param viewportWidth  the width of the viewport in pixels
+     * @param viewportHeight the height of the viewport in pixels
+     * @param uploader       turns composed pixels into images
+     */
+    public TileChunkCache(Level level, int viewportWidth, int viewportHeight, ChunkUploader<T> uploader) {
+        this.level = level;
+        this.uploader = uploader;
+        this.chunkPixels = level.getChunkPixels();
+        this.scratch = new int[chunkPixels * chunkPixels];
+        /* The viewport may straddle one more chunk than it covers; add the ring and one spare column */
+        int columns = (viewportWidth + chunkPixels - 1) / chunkPixels + 1;
+        int rows = (viewportHeight + chunkPixels - 1) / chunkPixels + 1;
+        this.capacity = (columns + 2) * (rows + 2) + rows + 2;
+        this.chunks = new LinkedHashMap<Integer, T>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                if (size() <= capacity)
+                    return false;
+                recycled = eldest.getValue();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Composes the chunks under the camera and a few of the ring around it.
+     * Called once per frame before the chunks are drawn.
+     *
+     * @param camera the camera whose viewport is drawn
+     */
+    public void prepare(Camera camera) {
+        visibleX0 = Math.max(0, camera.getPosX() / chunkPixels);
+        visibleY0 = Math.max(0, camera.getPosY() / chunkPixels);
+        visibleX1 = Math.min(level.getChunksX() - 1, (camera.getPosX() + camera.getWidth() - 1) / chunkPixels);
+        visibleY1 = Math.min(level.getChunksY() - 1, (camera.getPosY() + camera.getHeight() - 1) / chunkPixels);
+        for (int cy = visibleY0; cy <= visibleY1; cy++) {
+            for (int cx = visibleX0; cx <= visibleX1; cx++)
+                get(cx, cy);
+        }
+        int budget = PREFETCH_PER_FRAME;
+        for (int cy = visibleY0 - 1; cy <= visibleY1 + 1 && budget > 0; cy++) {
+            for (int cx = visibleX0 - 1; cx <= visibleX1 + 1 && budget > 0; cx++) {
+                if (cx < 0 || cy < 0 || cx >= level.getChunksX() || cy >= level.getChunksY())
+                    continue;
+                if (cx >= visibleX0 && cx <= visibleX1 && cy >= visibleY0 && cy <= visibleY1)
+                    continue;
+                if (!chunks.containsKey(key(cx, cy))) {
+                    get(cx, cy);
+                    budget--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the image of a chunk, composing it when it is not cached.
+     *
+     * @param chunkX the column of the chunk
+     * @param chunkY the row of the chunk
+     * @return the chunk image
+     */
+    public T get(int chunkX, int chunkY) {
+        Integer key = key(chunkX, chunkY);
+        T chunk = chunks.get(key);
+        if (chunk == null) {
+            level.composeChunk(chunkX, chunkY, scratch);
+            chunk = uploader.upload(scratch, chunkPixels, recycled);
+            recycled = null;
+            chunks.put(key, chunk);
+            composed++;
+        }
+        return chunk;
+    }
+
+    /**
+     * Gets the key of a chunk.
+     */
+    private Integer key(int chunkX, int chunkY) {
+        return chunkY * level.getChunksX() + chunkX;
+    }
+
+    /**
+     * Gets the level the chunks come from.
+     *
+     * @return the level
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the side of a chunk.
+     *
+     * @return the chunk side in pixels
+     */
+    public int getChunkPixels() {
+        return chunkPixels;
+    }
+
+    /**
+     * Gets the first chunk column under the viewport at the last
+     * {@link #prepare(Camera)}.
+     *
+     * @return the column index
+     */
+    public int getVisibleX0() {
+        return visibleX0;
+    }
+
+    /**
+     * Gets the last chunk column under the viewport.
+     *
+     * @return the column index
+     */
+    public int getVisibleX1() {
+        return visibleX1;
+    }
+
+    /**
+     * Gets the first chunk row under the viewport.
+     *
+     * @return the row index
+     */
+    public int getVisibleY0() {
+        return visibleY0;
+    }
+
+    /**
+     * Gets the last chunk row under the viewport.
+     *
+     * @return the row index
+     */
+    public int getVisibleY1() {
+        return visibleY1;
+    }
+
+    /**
+     * Gets the number of chunks currently held.
+     *
+     * @return the cached chunks
+     */
+    public int size() {
+        return chunks.size();
+    }
+
+    /**
+     * Gets the maximum number of chunks held.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets how many chunks were composed, including recompositions after
+     * eviction.
+     *
+     * @return the number of compositions
+     */
+    public long getComposed() {
+        return composed;
+    }
+}
@@ -1,22 +1,62 @@
 package chon.group.game.drawer;
 
 import javafx.stage.Stage;
+import javafx.scene.Group;
 import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.layout.StackPane;
 
 /**
  * Manages the game window properties and scaling.
  * Handles window resizing while maintaining aspect ratio.
+ * <p>
+ * The game is drawn in a 1280x780 logical space onto a canvas whose size is
+ * the internal render resolution, which may be smaller (e.g. 640x390 on weak
+ * GPUs). The root is scaled from the logical space to the window, as the
+ * interface laid over the game is positioned in logical coordinates, and only
+ * the canvas is scaled from the render resolution to the logical space,
+ * optionally by integer factors and without smoothing. Resize events only
+ * mark the layout as dirty; the aspect ratio and the scale are applied once
+ * per pulse.
+ * </p>
  */
 public class WindowManager {
     private static final double ASPECT_RATIO_WIDTH = 1280.0;
     private static final double ASPECT_RATIO_HEIGHT = 780.0;
-    
+
     private final double initialWidth;
     private final double initialHeight;
     private final double minWidth;
     private final double minHeight;
-    
+
+    /** Width of the canvas the game is rendered into. */
+    private int renderWidth = (int) ASPECT_RATIO_WIDTH;
+
+    /** Height of the canvas the game is rendered into. */
+    private int renderHeight = (int) ASPECT_RATIO_HEIGHT;
+
+    /** Whether the canvas is only upscaled by whole factors. */
+    private boolean integerScaling = false;
+
+    /** Whether images are smoothed when scaled (false means nearest neighbour). */
+    private boolean smoothing = true;
+
+    /** Group holding the canvas, scaled from the render resolution to the logical space. */
+    private final Group canvasLayer = new Group();
+
+    /** Whether a resize happened since the last pulse. */
+    private boolean layoutPending = false;
+
+    /** Whether the window size is being corrected by this manager. */
+    private boolean adjusting = false;
+
+    /** Window width seen on the last applied layout. */
+    private double lastWidth;
+
+    /** Window height seen on the last applied layout. */
+    private double lastHeight;
+
     /**
      * Constructor with default values.
      */
@@ -26,10 +66,10 @@ public class WindowManager {
         this.minWidth = 0;
         this.minHeight = 0;
     }
-    
+
     /**
      * Constructor that allows setting initial dimensions.
-     * 
+     *
      * @param initialWidth initial window width
      * @param initialHeight initial window height
      */
@@ -39,10 +79,10 @@ public class WindowManager {
         this.minWidth = 640;
         this.minHeight = 390;
     }
-    
+
     /**
      * Constructor that allows setting all dimensions.
-     * 
+     *
      * @param initialWidth initial window width
      * @param initialHeight initial window height
      * @param minWidth minimum window width
@@ -54,30 +94,112 @@ public class WindowManager {
         this.minWidth = minWidth;
         this.minHeight = minHeight;
     }
-    
+
+    /**
+     * Reads the render settings from system properties:
+     * {@code chon.render.width}, {@code chon.render.height},
+     * {@code chon.render.integerScale} and {@code chon.render.smooth}.
+     */
+    public void loadRenderSettings() {
+        this.renderWidth = Integer.getInteger("chon.render.width", renderWidth);
+        this.renderHeight = Integer.getInteger("chon.render.height", renderHeight);
+        this.integerScaling = Boolean.parseBoolean(
+                System.getProperty("chon.render.integerScale", String.valueOf(integerScaling)));
+        this.smoothing = Boolean.parseBoolean(
+                System.getProperty("chon.render.smooth", String.valueOf(smoothing)));
+    }
+
+    /**
+     * Sets the internal render resolution.
+     *
+     * @param renderWidth  the width of the canvas
+     * @param renderHeight the height of the canvas
+     */
+    public void setRenderResolution(int renderWidth, int renderHeight) {
+        this.renderWidth = renderWidth;
+        this.renderHeight = renderHeight;
+    }
+
+    /**
+     * Gets the width of the canvas the game is rendered into.
+     *
+     * @return the render width
+     */
+    public int getRenderWidth() {
+        return renderWidth;
+    }
+
+    /**
+     * Gets the height of the canvas the game is rendered into.
+     *
+     * @return the render height
+     */
+    public int getRenderHeight() {
+        return renderHeight;
+    }
+
+    /**
+     * Sets if the canvas is only upscaled by whole factors.
+     *
+     * @param integerScaling the new integer scaling status
+     */
+    public void setIntegerScaling(boolean integerScaling) {
+        this.integerScaling = integerScaling;
+    }
+
+    /**
+     * Sets if scaled images are smoothed.
+     *
+     * @param smoothing false to use nearest neighbour sampling
+     */
+    public void setSmoothing(boolean smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * Creates the canvas at the internal render resolution, mapping the
+     * logical 1280x780 space onto it. The canvas is placed in the
+     * {@link #getCanvasLayer() canvas layer}, which is added to the scene
+     * instead of it.
+     *
+     * @return the configured canvas
+     */
+    public Canvas createCanvas() {
+        Canvas canvas = new Canvas(renderWidth, renderHeight);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setTransform(renderWidth / ASPECT_RATIO_WIDTH, 0, 0, renderHeight / ASPECT_RATIO_HEIGHT, 0, 0);
+        gc.setImageSmoothing(smoothing);
+        canvasLayer.getChildren().setAll(canvas);
+        canvasLayer.setScaleX(ASPECT_RATIO_WIDTH / renderWidth);
+        canvasLayer.setScaleY(ASPECT_RATIO_HEIGHT / renderHeight);
+        return canvas;
+    }
+
+    /**
+     * Gets the node holding the canvas, scaled so the canvas covers the
+     * logical space whatever the render resolution.
+     *
+     * @return the canvas layer
+     */
+    public Group getCanvasLayer() {
+        return canvasLayer;
+    }
+
     /**
      * Sets up the window properties and scaling behavior.
      * Maintains 16:10 aspect ratio and handles window resizing.
-     * 
+     *
      * @param stage the primary stage of the application
      * @param scene the main scene containing game content
      * @param root the root StackPane of the scene
      */
     public void setupWindow(Stage stage, Scene scene, StackPane root) {
-        // Mantém proporção 16:10
-        stage.widthProperty().addListener((obs, oldVal, newVal) -> {
-            double newHeight = newVal.doubleValue() * (ASPECT_RATIO_HEIGHT / ASPECT_RATIO_WIDTH);
-            stage.setHeight(newHeight);
-        });
-
-        stage.heightProperty().addListener((obs, oldVal, newVal) -> {
-            double newWidth = newVal.doubleValue() * (ASPECT_RATIO_WIDTH / ASPECT_RATIO_HEIGHT);
-            stage.setWidth(newWidth);
-        });
-
-        // Configuração de escala
-        root.scaleXProperty().bind(scene.widthProperty().divide(ASPECT_RATIO_WIDTH));
-        root.scaleYProperty().bind(scene.heightProperty().divide(ASPECT_RATIO_HEIGHT));
+        // Mantém proporção 16:10, aplicada uma única vez por pulso
+        stage.widthProperty().addListener((obs, oldVal, newVal) -> requestLayout());
+        stage.heightProperty().addListener((obs, oldVal, newVal) -> requestLayout());
+        scene.widthProperty().addListener((obs, oldVal, newVal) -> requestLayout());
+        scene.heightProperty().addListener((obs, oldVal, newVal) -> requestLayout());
+        scene.addPreLayoutPulseListener(() -> applyLayout(stage, scene, root));
 
         // Configurações da janela
         stage.setTitle("Chon: The Learning Game");
@@ -85,5 +207,59 @@ public class WindowManager {
         stage.setHeight(initialHeight);
         stage.setMinWidth(minWidth);
         stage.setMinHeight(minHeight);
+        lastWidth = initialWidth;
+        lastHeight = initialHeight;
+        layoutPending = true;
+    }
+
+    /**
+     * Marks the layout as dirty, unless the change came from this manager.
+     */
+    private void requestLayout() {
+        if (!adjusting)
+            layoutPending = true;
+    }
+
+    /**
+     * Applies the aspect ratio and the canvas scale once per pulse, however
+     * many resize events arrived since the previous one.
+     */
+    private void applyLayout(Stage stage, Scene scene, StackPane root) {
+        if (!layoutPending)
+            return;
+        layoutPending = false;
+
+        double width = stage.getWidth();
+        double height = stage.getHeight();
+        /* Keep the dimension the user dragged and derive the other one. */
+        boolean widthChanged = Math.abs(width - lastWidth) >= Math.abs(height - lastHeight);
+        double targetWidth = widthChanged ? width : height * (ASPECT_RATIO_WIDTH / ASPECT_RATIO_HEIGHT);
+        double targetHeight = widthChanged ? width * (ASPECT_RATIO_HEIGHT / ASPECT_RATIO_WIDTH) : height;
+        adjusting = true;
+        if (Math.abs(targetWidth - width) >= 1)
+            stage.setWidth(targetWidth);
+        if (Math.abs(targetHeight - height) >= 1)
+            stage.setHeight(targetHeight);
+        adjusting = false;
+        lastWidth = stage.getWidth();
+        lastHeight = stage.getHeight();
+
+        // Configuração de escala
+        /* The root maps the logical space to the window; only the canvas layer undoes the render resolution */
+        double rootScaleX = scene.getWidth() / ASPECT_RATIO_WIDTH;
+        double rootScaleY = scene.getHeight() / ASPECT_RATIO_HEIGHT;
+        double scaleX = scene.getWidth() / renderWidth;
+        double scaleY = scene.getHeight() / renderHeight;
+        if (integerScaling) {
+            /* A window smaller than the render resolution falls back to the fractional fit */
+            double fit = Math.min(scaleX, scaleY);
+            double scale = fit >= 1 ? Math.floor(fit) : fit;
+            scaleX = scale;
+            scaleY = scale;
+        }
+        root.setScaleX(rootScaleX);
+        root.setScaleY(rootScaleY);
+        canvasLayer.setScaleX(scaleX / rootScaleX);
+        canvasLayer.setScaleY(scaleY / rootScaleY);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,388 @@
+package chon.group.game.harness;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import chon.group.game.audio.GameAudio;
+import chon.group.game.domain.environment.Environment;
+import chon.group.game.domain.environment.EnvironmentListener;
+import chon.group.game.domain.environment.Simulation;
+import chon.group.game.domain.item.FallingItem;
+import chon.group.game.drawer.SoftwareMediator;
+import chon.group.game.input.Autopilot;
+import chon.group.game.input.InputQueue;
+
+/**
+ * Drives the game loop headless and fails when it allocates or retains more
+ * memory than allowed.
+ * <p>
+ * In {@code mode=budget} the loop runs for a number of ticks after a warm-up,
+ * measuring the bytes allocated by each subsystem with
+ * {@code ThreadMXBean.getThreadAllocatedBytes}, and compares the average per
+ * tick with the budgets in {@code /harness/allocation-budget.properties}.
+ * In {@code mode=soak} it simulates hours of play on a virtual clock and
+ * checks that the heap left after full collections does not keep growing;
+ * with {@code bot=true} the protagonist is played by the {@link Autopilot}
+ * instead of the scripted keys, so games last as long as a good player's.
+ * The process exits with status 1 on any violation, which fails the build:
+ * the budgets are checked in the verify phase of every build, the soak in
+ * the {@code allocation} Maven profile.
+ * </p>
+ *
+ * <pre>
+ * java -cp game.jar chon.group.game.harness.AllocationHarness mode=budget ticks=20000 warmup=5000
+ * java -cp game.jar chon.group.game.harness.AllocationHarness mode=soak hours=1 render=4 maxGrowthMb=8
+ * java -cp game.jar chon.group.game.harness.AllocationHarness mode=soak hours=8 render=16 bot=true
+ * java -cp game.jar chon.group.game.harness.AllocationHarness mode=budget update=allocation-budget.properties
+ * </pre>
+ */
+public class AllocationHarness {
+
+    /** Subsystems measured separately, in the order they run each tick. */
+    static final String[] SUBSYSTEMS = { "input", "simulation", "audio", "draw", "present" };
+
+    /** Classpath path of the default budgets. */
+    private static final String BUDGET_PATH = "/harness/allocation-budget.properties";
+
+    /** Audio frames mixed per tick, as the mixer thread would over 16 ms. */
+    private static final int AUDIO_FRAMES_PER_TICK = 735;
+
+    /** Ticks spent on the game over screen before a scripted restart. */
+    private static final int GAME_OVER_TICKS = 60;
+
+    /** Ticks per simulated hour. */
+    private static final long TICKS_PER_HOUR = 3_600_000 / OffscreenCapture.TICK_MILLIS;
+
+    /** Number of heap samples taken during a soak. */
+    private static final int SOAK_CHECKPOINTS = 20;
+
+    /** Allocation counters of every live thread. */
+    private final com.sun.management.ThreadMXBean threads;
+
+    /** Bytes allocated by reading the counters themselves, subtracted from each reading. */
+    private final long probeCost;
+
+    /** The environment being played. */
+    private final Environment environment;
+
+    /** The simulation advancing the environment. */
+    private final Simulation simulation;
+
+    /** The software renderer, drawing into an in-memory framebuffer. */
+    private final SoftwareMediator mediator;
+
+    /** Queue fed with the scripted key events, as the key handlers would. */
+    private final InputQueue inputQueue = new InputQueue();
+
+    /** The scripted keys. */
+    private final ScriptedInput script;
+
+    /** Audio mixed offline, with a block per tick. */
+    private final GameAudio audio = new GameAudio();
+
+    /** Destination of the mixed audio. */
+    private final short[] audioBlock = new short[AUDIO_FRAMES_PER_TICK * 2];
+
+    /** Bot playing the protagonist instead of the script, or null. */
+    private final Autopilot autopilot;
+
+    /** Games finished so far. */
+    private int games;
+
+    /** Sum of the final scores of the finished games. */
+    private long totalScore;
+
+    /** Key held by the script on the previous tick, or null. */
+    private String scriptedKey;
+
+    /** Ticks spent on the current game over screen. */
+    private int gameOverTicks;
+
+    /**
+     * Constructor to set up a headless game.
+     *
+     * @param seed the seed of the simulation and of the scripted input
+     * @param bot  true to play with the autopilot instead of the script
+     */
+    AllocationHarness(long seed, boolean bot) {
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.threads.setThreadAllocatedMemoryEnabled(true);
+        this.environment = Simulation.createDefaultEnvironment();
+        this.simulation = new Simulation(environment, seed);
+        this.mediator = new SoftwareMediator(environment, null);
+        this.script = new ScriptedInput(seed);
+        environment.addListener(new EnvironmentListener() {
+            @Override
+            public void onItemCollision(FallingItem item) {
+                audio.playOffline(item.isBomb() ? audio.getExplosionClip() : audio.getPickupClip(), 220, 128);
+            }
+
+            @Override
+            public void onGameOver(int score) {
+                games++;
+                totalScore += score;
+            }
+        });
+        this.autopilot = bot ? new Autopilot(environment) : null;
+        long first = allocatedBytes();
+        long second = allocatedBytes();
+        this.probeCost = second - first;
+    }
+
+    /**
+     * Entry point of the harness.
+     *
+     * @param args {@code key=value} options: mode (budget or soak), seed;
+     *             for budgets ticks, warmup, budget (file), update (file);
+     *             for soaks hours, render (draw every Nth tick), maxGrowthMb,
+     *             bot (play with the autopilot)
+     * @throws IOException if a budget file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        String mode = OffscreenCapture.option(args, "mode", "budget");
+        long seed = Long.parseLong(OffscreenCapture.option(args, "seed", "42"));
+        boolean soak = "soak".equals(mode);
+        boolean bot = soak && Boolean.parseBoolean(OffscreenCapture.option(args, "bot", "false"));
+        AllocationHarness harness = new AllocationHarness(seed, bot);
+        boolean passed;
+        if (soak) {
+            double hours = Double.parseDouble(OffscreenCapture.option(args, "hours", "1"));
+            int render = Integer.parseInt(OffscreenCapture.option(args, "render", "4"));
+            double maxGrowthMb = Double.parseDouble(OffscreenCapture.option(args, "maxGrowthMb", "8"));
+            passed = harness.soak((long) (hours * TICKS_PER_HOUR), render, maxGrowthMb);
+        } else {
+            int ticks = Integer.parseInt(OffscreenCapture.option(args, "ticks", "20000"));
+            int warmup = Integer.parseInt(OffscreenCapture.option(args, "warmup", "5000"));
+            Properties budgets = loadBudgets(OffscreenCapture.option(args, "budget", null));
+            String update = OffscreenCapture.option(args, "update", null);
+            passed = harness.checkBudgets(ticks, warmup, budgets, update);
+        }
+        if (!passed)
+            System.exit(1);
+    }
+
+    /**
+     * Measures the average allocation per tick of each subsystem and compares
+     * it with the budgets.
+     *
+     * @param ticks   the number of measured ticks
+     * @param warmup  the number of ticks run first, so caches fill and the JIT
+     *                compiles the loop
+     * @param budgets the allowed bytes per tick, by subsystem
+     * @param update  a file to write budgets derived from this run to, or null
+     * @return true if every subsystem is within its budget
+     * @throws IOException if the updated budgets cannot be written
+     */
+    boolean checkBudgets(int ticks, int warmup, Properties budgets, String update) throws IOException {
+        long[] allocated = new long[SUBSYSTEMS.length];
+        for (int tick = 0; tick < warmup; tick++)
+            step(tick, true, allocated);
+        Arrays.fill(allocated, 0);
+        for (int tick = warmup; tick < warmup + ticks; tick++)
+            step(tick, true, allocated);
+
+        boolean passed = true;
+        Properties measured = new Properties();
+        System.out.printf("%-12s %14s %14s%n", "subsystem", "bytes/tick", "budget");
+        for (int i = 0; i < SUBSYSTEMS.length; i++) {
+            double perTick = (double) allocated[i] / ticks;
+            long budget = Long.parseLong(budgets.getProperty(SUBSYSTEMS[i] + ".bytesPerTick", "0"));
+            boolean over = perTick > budget;
+            passed &= !over;
+            System.out.printf("%-12s %14.1f %14d%s%n", SUBSYSTEMS[i], perTick, budget, over ? "  OVER BUDGET" : "");
+            /* Headroom for JIT and GC variation between machines */
+            measured.setProperty(SUBSYSTEMS[i] + ".bytesPerTick", String.valueOf((long) (perTick * 1.5) + 64));
+        }
+        if (update != null) {
+            try (OutputStream out = new FileOutputStream(update)) {
+                measured.store(out, "Allocation budgets in bytes per tick, measured over " + ticks + " ticks");
+            }
+            System.out.println("Orçamentos gravados em " + update);
+        }
+        System.out.println(passed ? "Alocação dentro do orçamento" : "Alocação acima do orçamento");
+        return passed;
+    }
+
+    /**
+     * Runs a long session and checks that the heap retained after full
+     * collections stops growing once the session has warmed up.
+     *
+     * @param ticks       the number of simulated ticks
+     * @param render      draw every Nth tick, to keep long soaks affordable
+     * @param maxGrowthMb the allowed growth of the retained heap
+     * @return true if the retained heap stayed within the allowed growth
+     */
+    boolean soak(long ticks, int render, double maxGrowthMb) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long[] allocated = new long[SUBSYSTEMS.length];
+        long interval = Math.max(1, ticks / SOAK_CHECKPOINTS);
+        long[] retained = new long[SOAK_CHECKPOINTS + 1];
+        int samples = 0;
+        long start = System.nanoTime();
+        for (long tick = 0; tick < ticks; tick++) {
+            step(tick, tick % render == 0, allocated);
+            if ((tick + 1) % interval == 0 && samples < retained.length) {
+                retained[samples] = retainedHeap(memory);
+                System.out.printf("tick=%d simulated=%.2fh retained=%.2fMB%n", tick + 1,
+                        (double) (tick + 1) / TICKS_PER_HOUR, retained[samples] / 1048576.0);
+                samples++;
+            }
+        }
+
+        /* The first samples include caches filling up; growth is measured after them */
+        int baseline = Math.min(samples - 1, Math.max(1, samples / 10));
+        double growth = retained[samples - 1] - retained[baseline];
+        double slope = slope(retained, baseline, samples);
+        double projected = slope * (samples - 1 - baseline);
+        double worst = Math.max(growth, projected) / 1048576.0;
+        long total = 0;
+        for (long bytes : allocated)
+            total += bytes;
+        System.out.printf("soak: %d ticks in %.1fs, %.1f bytes/tick allocated, retained growth %.2fMB (limit %.2fMB)%n",
+                ticks, (System.nanoTime() - start) / 1e9, (double) total / ticks, worst, maxGrowthMb);
+        if (games > 0)
+            System.out.printf("games: %d finished, %.1f average score%n", games, (double) totalScore / games);
+        if (autopilot != null)
+            System.out.printf("autopilot: %d plans, %.2fus average, %.2fus max, %d over 0.1ms, %d items tracked%n",
+                    autopilot.getPlans(), autopilot.getAveragePlanMicros(), autopilot.getMaxPlanMicros(),
+                    autopilot.getSlowPlans(), autopilot.getTrackedItems());
+        boolean passed = worst <= maxGrowthMb;
+        System.out.println(passed ? "Heap retido estável" : "Heap retido crescendo");
+        return passed;
+    }
+
+    /**
+     * Runs one tick of the game loop, adding each subsystem's allocations to
+     * the totals.
+     */
+    private void step(long tick, boolean draw, long[] allocated) {
+        long nanos = tick * OffscreenCapture.TICK_MILLIS * 1_000_000;
+
+        long before = allocatedBytes();
+        List<String> scripted = autopilot != null ? autopilot.decide() : script.inputAt(tick);
+        String key = scripted.isEmpty() ? null : scripted.get(0);
+        if (key != scriptedKey) {
+            if (scriptedKey != null)
+                inputQueue.release(scriptedKey, nanos);
+            if (key != null)
+                inputQueue.press(key, nanos);
+            scriptedKey = key;
+        }
+        List<String> input = inputQueue.sample(nanos);
+        long after = allocatedBytes();
+        allocated[0] += after - before - probeCost;
+
+        before = after;
+        if (simulation.isGameOver()) {
+            if (++gameOverTicks == GAME_OVER_TICKS) {
+                simulation.restart();
+                gameOverTicks = 0;
+            }
+        } else {
+            simulation.tick(input, tick * OffscreenCapture.TICK_MILLIS);
+        }
+        after = allocatedBytes();
+        allocated[1] += after - before - probeCost;
+
+        before = after;
+        audio.getMixer().mix(audioBlock, AUDIO_FRAMES_PER_TICK, nanos);
+        after = allocatedBytes();
+        allocated[2] += after - before - probeCost;
+
+        if (!draw)
+            return;
+        before = after;
+        mediator.clearEnvironment();
+        if (simulation.isGameOver()) {
+            mediator.drawGameOverScreen();
+        } else {
+            mediator.drawBackground();
+            mediator.drawAgents();
+            mediator.drawParticles();
+            mediator.drawScorePanel();
+        }
+        after = allocatedBytes();
+        allocated[3] += after - before - probeCost;
+
+        before = after;
+        mediator.presentFrame();
+        inputQueue.frameShown(nanos);
+        after = allocatedBytes();
+        allocated[4] += after - before - probeCost;
+    }
+
+    /**
+     * Gets the bytes allocated so far by every live thread, so work handed to
+     * the rasterizer's pool threads is counted too.
+     */
+    private long allocatedBytes() {
+        long[] counts = threads.getThreadAllocatedBytes(threads.getAllThreadIds());
+        long total = 0;
+        for (long count : counts) {
+            if (count > 0)
+                total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the heap still in use after full collections.
+     */
+    private static long retainedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Gets the least-squares slope of the samples from an index on, in bytes
+     * per sample.
+     */
+    private static double slope(long[] samples, int from, int to) {
+        int count = to - from;
+        if (count < 2)
+            return 0;
+        double meanX = (from + to - 1) / 2.0;
+        double meanY = 0;
+        for (int i = from; i < to; i++)
+            meanY += samples[i];
+        meanY /= count;
+        double covariance = 0;
+        double variance = 0;
+        for (int i = from; i < to; i++) {
+            covariance += (i - meanX) * (samples[i] - meanY);
+            variance += (i - meanX) * (i - meanX);
+        }
+        return covariance / variance;
+    }
+
+    /**
+     * Reads the budgets from a file, or from the bundled defaults.
+     */
+    private static Properties loadBudgets(String file) throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream in = file != null ? new FileInputStream(new File(file))
+                : AllocationHarness.class.getResourceAsStream(BUDGET_PATH)) {
+            if (in == null)
+                throw new IOException("Missing allocation budgets " + BUDGET_PATH);
+            budgets.load(in);
+        }
+        return budgets;
+    }
+}
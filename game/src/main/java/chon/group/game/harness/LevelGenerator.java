@@ -0,0 +1,153 @@
+package chon.group.game.harness;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import javax.imageio.ImageIO;
+
+import chon.group.game.domain.level.Level;
+import chon.group.game.domain.level.LevelFile;
+
+/**
+ * Generates a tile-map level and its atlas: a smoggy Zaun skyline of random
+ * buildings and pipes over a metal floor, as many screens wide as asked.
+ * The level is played with {@code -Dchon.level=<out>}.
+ *
+ * <pre>
+ * java -cp game.jar chon.group.game.harness.LevelGenerator out=levels/zaun.chl screens=50 tile=32 chunk=8 seed=42
+ * </pre>
+ */
+public class LevelGenerator {
+
+    /** Logical width of one screen. */
+    private static final int SCREEN_WIDTH = 1280;
+
+    /** Logical height of the screen and of the level. */
+    private static final int SCREEN_HEIGHT = 780;
+
+    /** World Y of the floor, just under the protagonist's feet. */
+    private static final int FLOOR_Y = 768;
+
+    /* Tile ids, in atlas order. */
+    private static final int SKY = 1;
+    private static final int SMOG = 2;
+    private static final int WALL = 3;
+    private static final int WINDOW = 4;
+    private static final int PIPE = 5;
+    private static final int FLOOR_TOP = 6;
+    private static final int FLOOR = 7;
+
+    /** Number of tiles in the atlas. */
+    private static final int TILE_COUNT = 7;
+
+    /**
+     * Entry point of the generator.
+     *
+     * @param args {@code key=value} options: out, screens, tile, chunk, seed
+     * @throws IOException if the level or the atlas cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        Path out = new File(OffscreenCapture.option(args, "out", "levels/zaun.chl")).toPath();
+        int screens = Integer.parseInt(OffscreenCapture.option(args, "screens", "50"));
+        int tileSize = Integer.parseInt(OffscreenCapture.option(args, "tile", "32"));
+        int chunkTiles = Integer.parseInt(OffscreenCapture.option(args, "chunk", "8"));
+        long seed = Long.parseLong(OffscreenCapture.option(args, "seed", "42"));
+        File parent = out.toAbsolutePath().getParent().toFile();
+        if (!parent.isDirectory() && !parent.mkdirs())
+            throw new IOException("Cannot create " + parent);
+
+        int widthTiles = SCREEN_WIDTH * screens / tileSize;
+        int heightTiles = (SCREEN_HEIGHT + tileSize - 1) / tileSize;
+        int floorRow = FLOOR_Y / tileSize;
+        SplittableRandom random = new SplittableRandom(seed);
+
+        /* Roof row of the building over each column, or the floor row for a gap */
+        int[] roofs = new int[widthTiles];
+        for (int x = 0; x < widthTiles;) {
+            int span = 3 + random.nextInt(6);
+            boolean gap = random.nextInt(4) == 0;
+            int roof = gap ? floorRow : floorRow / 3 + random.nextInt(floorRow / 2);
+            for (int i = 0; i < span && x < widthTiles; i++, x++)
+                roofs[x] = roof;
+        }
+        int pipeRow = floorRow - 4;
+
+        LevelFile.write(out, widthTiles, heightTiles, tileSize, chunkTiles, (tileX, tileY) -> {
+            if (tileY == floorRow)
+                return FLOOR_TOP;
+            if (tileY > floorRow)
+                return FLOOR;
+            int roof = roofs[tileX];
+            if (tileY >= roof)
+                return (hash(seed, tileX, tileY) & 7) == 0 ? WINDOW : WALL;
+            if (tileY == pipeRow && roof == floorRow)
+                return PIPE;
+            return (hash(seed, tileX, tileY) & 15) == 0 ? SMOG : SKY;
+        });
+        ImageIO.write(drawAtlas(tileSize), "png", Level.atlasPath(out).toFile());
+        System.out.println("Nível gerado: " + out + " (" + widthTiles + "x" + heightTiles + " tiles)");
+    }
+
+    /**
+     * Mixes a position into pseudo-random bits, so decorations do not depend
+     * on the order tiles are written in.
+     */
+    private static int hash(long seed, int x, int y) {
+        long h = seed * 0x9E3779B97F4A7C15L + x * 0xC2B2AE3D27D4EB4FL + y * 0x165667B19E3779F9L;
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Draws the atlas, one row of {@link #TILE_COUNT} tiles.
+     */
+    private static BufferedImage drawAtlas(int size) {
+        BufferedImage atlas = new BufferedImage(size * TILE_COUNT, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = atlas.createGraphics();
+        Color sky = new Color(28, 58, 56);
+        Color wall = new Color(52, 44, 50);
+
+        g.setColor(sky);
+        g.fillRect((SKY - 1) * size, 0, size, size);
+
+        g.setColor(sky);
+        g.fillRect((SMOG - 1) * size, 0, size, size);
+        g.setColor(new Color(90, 160, 120, 90));
+        g.fillOval((SMOG - 1) * size + size / 6, size / 4, size * 2 / 3, size / 2);
+
+        for (int id : new int[] { WALL, WINDOW }) {
+            int x = (id - 1) * size;
+            g.setColor(wall);
+            g.fillRect(x, 0, size, size);
+            g.setColor(wall.darker());
+            g.drawLine(x, size / 2, x + size, size / 2);
+            g.drawLine(x + size / 2, 0, x + size / 2, size / 2);
+            g.drawLine(x, size - 1, x + size, size - 1);
+        }
+        g.setColor(new Color(230, 190, 70));
+        g.fillRect((WINDOW - 1) * size + size / 4, size / 4, size / 2, size / 2);
+
+        g.setColor(sky);
+        g.fillRect((PIPE - 1) * size, 0, size, size);
+        g.setPaint(new GradientPaint(0, size / 4f, new Color(120, 110, 90), 0, size * 3 / 4f, new Color(60, 50, 40)));
+        g.fillRect((PIPE - 1) * size, size / 4, size, size / 2);
+
+        g.setColor(new Color(70, 74, 80));
+        g.fillRect((FLOOR_TOP - 1) * size, 0, size, size);
+        g.setColor(new Color(140, 150, 155));
+        g.fillRect((FLOOR_TOP - 1) * size, 0, size, size / 8 + 1);
+
+        g.setColor(new Color(40, 38, 36));
+        g.fillRect((FLOOR - 1) * size, 0, size, size);
+        g.dispose();
+        return atlas;
+    }
+}
@@ -0,0 +1,69 @@
+package chon.group.game.harness;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.SplittableRandom;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import chon.group.game.audio.GameAudio;
+import chon.group.game.audio.PcmClip;
+
+/**
+ * Renders a burst-heavy sound session into memory, without a sound card, and
+ * reports the mixing cost and the trigger-to-mix latency.
+ *
+ * <pre>
+ * java -cp game.jar chon.group.game.harness.OfflineAudioRender seconds=60 rate=20 out=mix.wav
+ * </pre>
+ */
+public class OfflineAudioRender {
+
+    /**
+     * Entry point of the offline render.
+     *
+     * @param args {@code key=value} options: seconds, rate (sounds per second),
+     *             out (optional WAV file)
+     * @throws Exception if the WAV file cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        int seconds = Integer.parseInt(OffscreenCapture.option(args, "seconds", "60"));
+        int rate = Integer.parseInt(OffscreenCapture.option(args, "rate", "20"));
+        String out = OffscreenCapture.option(args, "out", null);
+
+        GameAudio audio = new GameAudio();
+        SplittableRandom random = new SplittableRandom(42);
+        int blocks = (int) (seconds * PcmClip.SAMPLE_RATE / GameAudio.BLOCK_FRAMES);
+        double soundsPerBlock = rate * GameAudio.BLOCK_FRAMES / PcmClip.SAMPLE_RATE;
+        short[] samples = new short[blocks * GameAudio.BLOCK_FRAMES * PcmClip.CHANNELS];
+        for (int block = 0; block < blocks; block++) {
+            if (random.nextDouble() < soundsPerBlock) {
+                int clip = random.nextBoolean() ? audio.getExplosionClip() : audio.getPickupClip();
+                audio.playOffline(clip, 200, random.nextInt(256));
+            }
+            short[] mixed = audio.renderOffline(GameAudio.BLOCK_FRAMES);
+            System.arraycopy(mixed, 0, samples, block * mixed.length, mixed.length);
+        }
+
+        double blockMillis = GameAudio.BLOCK_FRAMES * 1000.0 / PcmClip.SAMPLE_RATE;
+        double mixMillis = audio.getMixer().getAverageMixNanos() / 1e6;
+        System.out.printf("blocks=%d mix=%.4fms/block (%.1fx real time) latency avg=%.4fms max=%.4fms%n",
+                audio.getMixer().getBlocks(), mixMillis, blockMillis / Math.max(mixMillis, 1e-9),
+                audio.getMixer().getAverageLatencyNanos() / 1e6, audio.getMixer().getMaxLatencyNanos() / 1e6);
+        System.out.printf("output latency with the line buffer: %.2fms%n", blockMillis * 4);
+
+        if (out != null) {
+            byte[] bytes = new byte[samples.length * 2];
+            for (int i = 0; i < samples.length; i++) {
+                bytes[2 * i] = (byte) samples[i];
+                bytes[2 * i + 1] = (byte) (samples[i] >> 8);
+            }
+            try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(bytes), PcmClip.FORMAT,
+                    samples.length / PcmClip.CHANNELS)) {
+                AudioSystem.write(stream, AudioFileFormat.Type.WAVE, new File(out));
+            }
+        }
+    }
+}
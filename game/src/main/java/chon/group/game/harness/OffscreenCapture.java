@@ -0,0 +1,168 @@
+package chon.group.game.harness;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import chon.group.game.domain.environment.Environment;
+import chon.group.game.domain.environment.Simulation;
+import chon.group.game.drawer.EnvironmentDrawer;
+import chon.group.game.drawer.Framebuffer;
+import chon.group.game.drawer.SoftwareMediator;
+
+/**
+ * Runs a scripted session without a window, rendering every frame into an
+ * in-memory framebuffer through the regular {@link EnvironmentDrawer} calls.
+ * <p>
+ * Every Nth frame is copied into a pooled buffer and encoded to PNG by a
+ * background worker pool, so encoding does not distort the measured frame
+ * times. A per-frame timing log is written next to the frames.
+ * </p>
+ *
+ * <pre>
+ * java -cp game.jar chon.group.game.harness.OffscreenCapture ticks=1800 every=60 out=capture workers=2 seed=42
+ * </pre>
+ */
+public class OffscreenCapture {
+
+    /** Duration of a simulated tick in milliseconds (60 ticks per second). */
+    static final long TICK_MILLIS = 16;
+
+    /** Ticks spent on the game over screen before a scripted restart. */
+    private static final int GAME_OVER_TICKS = 60;
+
+    /**
+     * Entry point of the capture session.
+     *
+     * @param args {@code key=value} options: ticks, every, out, workers, seed
+     * @throws Exception if the session cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        long ticks = Long.parseLong(option(args, "ticks", "1800"));
+        int every = Integer.parseInt(option(args, "every", "60"));
+        File out = new File(option(args, "out", "capture"));
+        int workers = Integer.parseInt(option(args, "workers", "2"));
+        long seed = Long.parseLong(option(args, "seed", "42"));
+        if (!out.isDirectory() && !out.mkdirs())
+            throw new IOException("Cannot create " + out);
+
+        Environment environment = Simulation.createDefaultEnvironment();
+        Simulation simulation = new Simulation(environment, seed);
+        SoftwareMediator mediator = new SoftwareMediator(environment, null);
+        ScriptedInput script = new ScriptedInput(seed);
+
+        Framebuffer framebuffer = mediator.getFramebuffer();
+        int width = framebuffer.getWidth();
+        int height = framebuffer.getHeight();
+        BlockingQueue<int[]> buffers = new ArrayBlockingQueue<>(workers * 2);
+        for (int i = 0; i < workers * 2; i++)
+            buffers.add(new int[width * height]);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService encoders = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "png-encoder-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long[] tickNanos = new long[(int) ticks];
+        long[] drawNanos = new long[(int) ticks];
+        long[] rasterNanos = new long[(int) ticks];
+        long[] waitNanos = new long[(int) ticks];
+        int gameOverTicks = 0;
+        for (int frame = 0; frame < ticks; frame++) {
+            long start = System.nanoTime();
+            long simulated;
+            mediator.clearEnvironment();
+            if (simulation.isGameOver()) {
+                simulated = System.nanoTime();
+                mediator.drawGameOverScreen();
+                if (++gameOverTicks == GAME_OVER_TICKS) {
+                    simulation.restart();
+                    gameOverTicks = 0;
+                }
+            } else {
+                simulation.tick(script.inputAt(frame), frame * TICK_MILLIS);
+                simulated = System.nanoTime();
+                mediator.drawBackground();
+                mediator.drawAgents();
+                mediator.drawParticles();
+                mediator.drawScorePanel();
+            }
+            mediator.presentFrame();
+            long drawn = System.nanoTime();
+            tickNanos[frame] = simulated - start;
+            drawNanos[frame] = drawn - simulated;
+            rasterNanos[frame] = mediator.getDrawer().getLastRasterNanos();
+
+            if (frame % every == 0) {
+                int[] copy = buffers.take();
+                waitNanos[frame] = System.nanoTime() - drawn;
+                System.arraycopy(framebuffer.getPixels(), 0, copy, 0, copy.length);
+                File file = new File(out, String.format("frame-%06d.png", frame));
+                encoders.execute(() -> {
+                    try {
+                        ImageIO.write(Framebuffer.wrap(copy, width, height), "png", file);
+                    } catch (IOException e) {
+                        System.out.println("Erro ao gravar " + file + ": " + e.getMessage());
+                    } finally {
+                        buffers.add(copy);
+                    }
+                });
+            }
+        }
+        encoders.shutdown();
+        encoders.awaitTermination(1, TimeUnit.MINUTES);
+
+        writeTimings(new File(out, "timings.csv"), every, tickNanos, drawNanos, rasterNanos, waitNanos);
+        long[] frameNanos = new long[(int) ticks];
+        for (int i = 0; i < ticks; i++)
+            frameNanos[i] = tickNanos[i] + drawNanos[i];
+        Arrays.sort(frameNanos);
+        System.out.printf("frames=%d p50=%.3fms p95=%.3fms p99=%.3fms max=%.3fms%n", ticks,
+                percentile(frameNanos, 0.50), percentile(frameNanos, 0.95),
+                percentile(frameNanos, 0.99), frameNanos[frameNanos.length - 1] / 1e6);
+    }
+
+    /**
+     * Writes the per-frame timing log as CSV.
+     */
+    private static void writeTimings(File file, int every, long[] tickNanos, long[] drawNanos,
+            long[] rasterNanos, long[] waitNanos) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            writer.println("frame,tick_ns,draw_ns,raster_ns,capture_wait_ns,captured");
+            for (int i = 0; i < tickNanos.length; i++) {
+                writer.println(i + "," + tickNanos[i] + "," + drawNanos[i] + "," + rasterNanos[i] + ","
+                        + waitNanos[i] + "," + (i % every == 0 ? 1 : 0));
+            }
+        }
+    }
+
+    /**
+     * Gets a percentile of sorted nanosecond samples, in milliseconds.
+     */
+    static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.min(sorted.length - 1, Math.round(fraction * (sorted.length - 1)));
+        return sorted[index] / 1e6;
+    }
+
+    /**
+     * Reads a {@code key=value} option, falling back to a default value.
+     */
+    static String option(String[] args, String key, String fallback) {
+        for (String arg : args) {
+            if (arg.startsWith(key + "="))
+                return arg.substring(key.length() + 1);
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,278 @@
+package chon.group.game.harness;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import chon.group.game.domain.agent.Agent;
+import chon.group.game.domain.environment.Environment;
+import chon.group.game.domain.environment.Simulation;
+import chon.group.game.domain.item.FallingItem;
+import chon.group.game.domain.rewind.RewindBuffer;
+import chon.group.game.domain.rewind.RewindFrame;
+
+/**
+ * Measures what recording the last ticks for a rewind costs, and checks that
+ * the ticks are rebuilt exactly.
+ * <p>
+ * A headless session keeps a number of items falling and enemies moving, as
+ * the {@link StressHarness} does, with an item changing speed now and then,
+ * and records every tick into a {@link RewindBuffer}, timing each call less
+ * the cost of reading the clock.
+ * Calls longer than a millisecond, far above any keyframe, are the process
+ * being interrupted; they are counted apart and left out of the average.
+ * Every few ticks a digest of the
+ * environment is kept; once the session ends, every tick still recorded with
+ * a digest is rebuilt and compared with it, then the environment is rewound
+ * and played on, and the ticks recorded after the rewind are checked too.
+ * The process exits with status 1 when the average recording time exceeds
+ * the budget or a tick is rebuilt wrong.
+ * </p>
+ *
+ * <pre>
+ * java -cp game.jar chon.group.game.harness.RewindHarness items=300 agents=30 budgetNs=1000
+ * </pre>
+ */
+public class RewindHarness {
+
+    /** Ticks between items changing speed. */
+    private static final int SPEED_CHANGE_STRIDE = 5;
+
+    /** Ticks between the digests kept for the check. */
+    private static final int DIGEST_STRIDE = 7;
+
+    /** Recording time beyond which a call was interrupted, in nanoseconds. */
+    private static final long INTERRUPTED_NANOS = 1_000_000;
+
+    /** The environment being played. */
+    private final Environment environment;
+
+    /** The simulation advancing the environment. */
+    private final Simulation simulation;
+
+    /** The scripted keys. */
+    private final ScriptedInput script;
+
+    /** Chooses the items changing speed and their new speed. */
+    private final Random random;
+
+    /** The buffer measured. */
+    private final RewindBuffer buffer;
+
+    /** Digest of the environment on each recorded tick with one, by tick. */
+    private final long[] digests;
+
+    /** Ticks played so far. */
+    private long tick;
+
+    /** Time taken by reading the clock twice, in nanoseconds. */
+    private long clockNanos;
+
+    /**
+     * Constructor to set up a headless session recorded for rewinds.
+     *
+     * @param args {@code key=value} options
+     */
+    RewindHarness(String[] args) {
+        long seed = Long.parseLong(OffscreenCapture.option(args, "seed", "42"));
+        int history = Integer.parseInt(OffscreenCapture.option(args, "history", "600"));
+        int keyframes = Integer.parseInt(OffscreenCapture.option(args, "keyframes", "60"));
+        this.environment = Simulation.createDefaultEnvironment();
+        this.simulation = new Simulation(environment, seed);
+        this.script = new ScriptedInput(seed);
+        this.random = new Random(seed);
+        this.buffer = new RewindBuffer(environment, simulation.getAgentScheduler(), history, keyframes);
+        this.digests = new long[history + keyframes];
+        simulation.setStressItems(Integer.parseInt(OffscreenCapture.option(args, "items", "300")));
+        Simulation.addEnemies(environment, environment.getAgents().get(0),
+                Integer.parseInt(OffscreenCapture.option(args, "agents", "30")));
+    }
+
+    /**
+     * Entry point of the harness.
+     *
+     * @param args {@code key=value} options: items, agents, history (ticks),
+     *             keyframes (interval), ticks, warmup, budgetNs, seed
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int ticks = Integer.parseInt(OffscreenCapture.option(args, "ticks", "10000"));
+        int warmup = Integer.parseInt(OffscreenCapture.option(args, "warmup", "60000"));
+        double budgetNanos = Double.parseDouble(OffscreenCapture.option(args, "budgetNs", "1000"));
+        RewindHarness harness = new RewindHarness(args);
+        boolean passed = harness.run(ticks, warmup, budgetNanos);
+        if (!passed)
+            System.exit(1);
+    }
+
+    /**
+     * Plays and records the session, then checks the ticks recorded.
+     *
+     * @param ticks       the number of measured ticks
+     * @param warmup      the number of ticks played first, so the JIT
+     *                    compiles the recording; called once a tick, it is
+     *                    only fully optimized after tens of thousands
+     * @param budgetNanos the average recording time allowed per tick
+     * @return true if the recording fits the budget and every tick checked
+     *         was rebuilt exactly
+     */
+    boolean run(int ticks, int warmup, double budgetNanos) {
+        for (int i = 0; i < warmup; i++)
+            play();
+        clockNanos = clockNanos();
+        long[] nanos = new long[ticks];
+        long total = 0;
+        int interrupted = 0;
+        for (int i = 0; i < ticks; i++) {
+            nanos[i] = play();
+            if (nanos[i] > INTERRUPTED_NANOS)
+                interrupted++;
+            else
+                total += nanos[i];
+        }
+        Arrays.sort(nanos);
+        double average = (double) total / Math.max(1, ticks - interrupted);
+        long oldest = buffer.getOldestTick();
+        long newest = buffer.getNewestTick();
+        long start = System.nanoTime();
+        buffer.reconstruct(oldest);
+        long rebuildNanos = System.nanoTime() - start;
+
+        int checked = check();
+        /* Rewind half the history, play on and check what was recorded since */
+        long target = (oldest + newest) / 2;
+        target -= target % DIGEST_STRIDE;
+        buffer.restore(target);
+        tick = target + 1;
+        boolean restored = digest(environment) == digests[slot(target)];
+        for (int i = 0; i < warmup / 4; i++)
+            play();
+        int checkedAfter = check();
+
+        boolean fast = average <= budgetNanos;
+        boolean exact = checked >= 0 && restored && checkedAfter >= 0;
+        System.out.printf("entities: %d items, %d agents%n", environment.getFallingItems().size(),
+                environment.getAgents().size() + 1);
+        System.out.printf("record: %.0fns average, %dns median, %dns p99 (budget %.0fns)%s%n", average,
+                nanos[ticks / 2], nanos[(int) (ticks * 0.99)], budgetNanos, fast ? "" : "  OVER BUDGET");
+        System.out.printf("clock: %dns per reading taken off, %d calls interrupted, %dns max%n", clockNanos,
+                interrupted, nanos[ticks - 1]);
+        System.out.printf("history: ticks %d to %d, %.1fKB retained, oldest rebuilt in %.1fus%n", oldest,
+                newest, buffer.getRetainedBytes() / 1024.0, rebuildNanos / 1e3);
+        System.out.printf("check: %d ticks rebuilt, restore %s, %d ticks rebuilt after the rewind%n", checked,
+                restored ? "exact" : "WRONG", checkedAfter);
+        if (!exact)
+            System.out.println("Reconstrução diferente do estado gravado");
+        System.out.println(fast && exact ? "Gravação dentro do orçamento" : "Gravação acima do orçamento");
+        return fast && exact;
+    }
+
+    /**
+     * Plays and records one tick, keeping a digest of it now and then.
+     *
+     * @return the time taken by the recording, in nanoseconds
+     */
+    private long play() {
+        Agent protagonist = environment.getProtagonist();
+        protagonist.setHealth(protagonist.getFullHealth());
+        simulation.tick(script.inputAt(tick), tick * OffscreenCapture.TICK_MILLIS);
+        List<FallingItem> items = environment.getFallingItems();
+        if (tick % SPEED_CHANGE_STRIDE == 0 && !items.isEmpty()) {
+            FallingItem item = items.get(random.nextInt(items.size()));
+            environment.setItemSpeed(item, item.getSpeed() * (0.5 + random.nextDouble()));
+        }
+        long start = System.nanoTime();
+        buffer.record();
+        long elapsed = Math.max(0, System.nanoTime() - start - clockNanos);
+        if (tick % DIGEST_STRIDE == 0)
+            digests[slot(tick)] = digest(environment);
+        tick++;
+        return elapsed;
+    }
+
+    /**
+     * Measures the time between two readings of the clock with nothing in
+     * between, as the median of many.
+     */
+    private static long clockNanos() {
+        long[] nanos = new long[10001];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[nanos.length / 2];
+    }
+
+    /**
+     * Rebuilds every recorded tick with a digest and compares them.
+     *
+     * @return the number of ticks checked, or -1 if one differs
+     */
+    private int check() {
+        int checked = 0;
+        long first = buffer.getOldestTick();
+        first += Math.floorMod(-first, DIGEST_STRIDE);
+        for (long t = first; t <= buffer.getNewestTick(); t += DIGEST_STRIDE) {
+            if (digest(buffer.reconstruct(t)) != digests[slot(t)]) {
+                System.out.println("tick " + t + " differs");
+                return -1;
+            }
+            checked++;
+        }
+        return checked;
+    }
+
+    /**
+     * Gets the slot of a tick's digest.
+     */
+    private int slot(long tick) {
+        return (int) (tick % digests.length);
+    }
+
+    /**
+     * Digests the time, score, agents and items of the environment.
+     */
+    private static long digest(Environment environment) {
+        long hash = mix(mix(17, environment.getTime()), environment.getScore());
+        List<Agent> agents = environment.getAgents();
+        for (int i = 0; i <= agents.size(); i++) {
+            Agent agent = i == 0 ? environment.getProtagonist() : agents.get(i - 1);
+            hash = mix(mix(mix(mix(hash, agent.getPosX()), agent.getPosY()), agent.getHealth()),
+                    agent.isFlipped() ? 1 : 0);
+        }
+        List<FallingItem> items = environment.getFallingItems();
+        for (int i = 0; i < items.size(); i++) {
+            FallingItem item = items.get(i);
+            hash = mix(mix(mix(mix(hash, Double.doubleToLongBits(item.getPosX())),
+                    Double.doubleToLongBits(item.getPosY())), Double.doubleToLongBits(item.getSpeed())),
+                    item.getSkippedFalls());
+        }
+        return hash;
+    }
+
+    /**
+     * Digests the same fields of a rebuilt tick.
+     */
+    private static long digest(RewindFrame frame) {
+        long hash = mix(mix(17, frame.getTime()), frame.getScore());
+        for (int i = 0; i < frame.getAgentCount(); i++) {
+            hash = mix(mix(mix(mix(hash, frame.getAgentX(i)), frame.getAgentY(i)), frame.getAgentHealth(i)),
+                    frame.isAgentFlipped(i) ? 1 : 0);
+        }
+        for (int i = 0; i < frame.getItemCount(); i++) {
+            hash = mix(mix(mix(mix(hash, Double.doubleToLongBits(frame.getItemX(i))),
+                    Double.doubleToLongBits(frame.getItemY(i))), Double.doubleToLongBits(frame.getItemSpeed(i))),
+                    frame.getItemSkipped(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes a value into a digest.
+     */
+    private static long mix(long hash, long value) {
+        long mixed = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return mixed ^ (mixed >>> 29);
+    }
+}
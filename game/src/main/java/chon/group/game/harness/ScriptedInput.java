@@ -0,0 +1,62 @@
+package chon.group.game.harness;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A reproducible stream of key presses used to drive unattended sessions.
+ * <p>
+ * The script is a looping sequence of segments, each holding LEFT, RIGHT or
+ * nothing for a number of ticks. Segments are generated from a seed once, and
+ * the same list instance is returned on every tick, so sampling the script
+ * does not allocate.
+ * </p>
+ */
+public class ScriptedInput {
+
+    /** Number of segments generated before the script loops. */
+    private static final int SEGMENTS = 64;
+
+    /** Keys held by each segment, null when nothing is held. */
+    private final String[] keys = new String[SEGMENTS];
+
+    /** Tick at which each segment ends, relative to the start of the loop. */
+    private final long[] ends = new long[SEGMENTS];
+
+    /** Keys held on the current tick. */
+    private final List<String> held = new ArrayList<>(1);
+
+    /**
+     * Constructor to generate a script from a seed.
+     *
+     * @param seed the seed of the script
+     */
+    public ScriptedInput(long seed) {
+        Random random = new Random(seed);
+        long end = 0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            int choice = random.nextInt(5);
+            keys[i] = choice < 2 ? "LEFT" : choice < 4 ? "RIGHT" : null;
+            end += 10 + random.nextInt(80);
+            ends[i] = end;
+        }
+    }
+
+    /**
+     * Gets the keys held at the given tick.
+     *
+     * @param tick the tick number
+     * @return the keys held, shared between calls
+     */
+    public List<String> inputAt(long tick) {
+        long position = tick % ends[SEGMENTS - 1];
+        int segment = 0;
+        while (ends[segment] <= position)
+            segment++;
+        held.clear();
+        if (keys[segment] != null)
+            held.add(keys[segment]);
+        return held;
+    }
+}
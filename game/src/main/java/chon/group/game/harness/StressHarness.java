@@ -0,0 +1,336 @@
+package chon.group.game.harness;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import chon.group.game.domain.agent.Agent;
+import chon.group.game.domain.environment.Environment;
+import chon.group.game.domain.environment.Simulation;
+import chon.group.game.drawer.EnvironmentDrawer;
+import chon.group.game.drawer.SoftwareMediator;
+
+/**
+ * Finds how many falling items and agents the game sustains within a frame
+ * budget on this machine and build.
+ * <p>
+ * The session runs headless through the regular {@link EnvironmentDrawer}
+ * calls, like {@link OffscreenCapture}, but spawns items regardless of the
+ * spawn delay and the item limit. Every step adds a number of items and of
+ * enemies, plays a few warm-up ticks and then measures the simulation tick and
+ * the whole frame on each tick. A step is sustained when the chosen
+ * percentile of its frame times fits in the budget; the ramp stops at the
+ * first step that does not, after measuring it again in case a collection
+ * or a compilation got in the way. Before the first step the game is played
+ * for a while at that step's load, so the JIT has compiled the loop. The
+ * protagonist is healed before every tick, so bombs never end the session.
+ * </p>
+ * <p>
+ * The result is written as JSON, with the machine and the options, every step
+ * measured and the largest sustained counts, so runs of different builds or
+ * machines can be compared by a script.
+ * </p>
+ *
+ * <pre>
+ * java -cp game.jar chon.group.game.harness.StressHarness items=250 agents=25 budgetMs=16.7 out=stress.json
+ * </pre>
+ */
+public class StressHarness {
+
+    /** Frame time allowed, in milliseconds. */
+    private final double budgetMillis;
+
+    /** Fraction of the frames of a step that must fit in the budget. */
+    private final double percentile;
+
+    /** Items added by every step. */
+    private final int itemStep;
+
+    /** Enemies added by every step. */
+    private final int agentStep;
+
+    /** Largest number of steps tried. */
+    private final int maxSteps;
+
+    /** Ticks played before measuring each step. */
+    private final int warmupTicks;
+
+    /** Ticks measured in each step. */
+    private final int measuredTicks;
+
+    /** Ticks played before the first step, while the JIT compiles the loop. */
+    private final int preheatTicks;
+
+    /** Times a step over the budget is measured again before the ramp stops. */
+    private final int retries;
+
+    /** Free text identifying the build, written to the result. */
+    private final String label;
+
+    /** The environment being played. */
+    private final Environment environment;
+
+    /** The simulation advancing the environment. */
+    private final Simulation simulation;
+
+    /** The software renderer, drawing into an in-memory framebuffer. */
+    private final SoftwareMediator mediator;
+
+    /** The scripted keys. */
+    private final ScriptedInput script;
+
+    /** The enemy copied when adding agents. */
+    private final Agent prototype;
+
+    /** Ticks played so far, across steps. */
+    private long tick;
+
+    /**
+     * Constructor to set up a headless stress session from the options.
+     *
+     * @param args {@code key=value} options
+     */
+    StressHarness(String[] args) {
+        this.budgetMillis = Double.parseDouble(OffscreenCapture.option(args, "budgetMs", "16.7"));
+        this.percentile = Double.parseDouble(OffscreenCapture.option(args, "percentile", "0.95"));
+        this.itemStep = Integer.parseInt(OffscreenCapture.option(args, "items", "250"));
+        this.agentStep = Integer.parseInt(OffscreenCapture.option(args, "agents", "25"));
+        this.maxSteps = Integer.parseInt(OffscreenCapture.option(args, "steps", "100"));
+        this.warmupTicks = Integer.parseInt(OffscreenCapture.option(args, "warmup", "120"));
+        this.measuredTicks = Integer.parseInt(OffscreenCapture.option(args, "ticks", "300"));
+        this.preheatTicks = Integer.parseInt(OffscreenCapture.option(args, "preheat", "1200"));
+        this.retries = Integer.parseInt(OffscreenCapture.option(args, "retries", "1"));
+        this.label = OffscreenCapture.option(args, "label", "");
+        long seed = Long.parseLong(OffscreenCapture.option(args, "seed", "42"));
+        this.environment = Simulation.createDefaultEnvironment();
+        this.simulation = new Simulation(environment, seed);
+        this.mediator = new SoftwareMediator(environment, null);
+        this.script = new ScriptedInput(seed);
+        this.prototype = environment.getAgents().get(0);
+    }
+
+    /**
+     * Entry point of the stress session.
+     *
+     * @param args {@code key=value} options: items, agents, budgetMs,
+     *             percentile, steps, warmup, ticks, preheat, retries, seed,
+     *             label, out
+     * @throws IOException if the result cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        File out = new File(OffscreenCapture.option(args, "out", "stress.json"));
+        StressHarness harness = new StressHarness(args);
+        String result = harness.run();
+        try (PrintWriter writer = new PrintWriter(out, "UTF-8")) {
+            writer.println(result);
+        }
+        System.out.println(result);
+    }
+
+    /**
+     * Ramps the load until a step misses the budget.
+     *
+     * @return the result as JSON
+     */
+    String run() {
+        List<Step> steps = new ArrayList<>();
+        Step best = null;
+        simulation.setStressItems(itemStep);
+        setEnemies(agentStep);
+        for (int i = 0; i < preheatTicks; i++)
+            frame();
+        for (int n = 1; n <= maxSteps; n++) {
+            Step step = measure(itemStep * n, agentStep * n);
+            for (int retry = 0; retry < retries && !step.sustained; retry++)
+                step = measure(itemStep * n, agentStep * n);
+            steps.add(step);
+            System.out.printf(Locale.ROOT, "Etapa %d: %d itens, %d agentes, quadro p%.0f %.2f ms (tick %.2f ms)%s%n",
+                    n, step.items, step.agents, percentile * 100, step.framePercentile, step.tickPercentile,
+                    step.sustained ? "" : " acima do orçamento");
+            if (!step.sustained)
+                break;
+            best = step;
+        }
+        return toJson(steps, best);
+    }
+
+    /**
+     * Plays one step with the given load.
+     */
+    private Step measure(int items, int agents) {
+        simulation.setStressItems(items);
+        setEnemies(agents);
+        System.gc();
+        for (int i = 0; i < warmupTicks; i++)
+            frame();
+        long[] tickNanos = new long[measuredTicks];
+        long[] frameNanos = new long[measuredTicks];
+        for (int i = 0; i < measuredTicks; i++) {
+            long start = System.nanoTime();
+            long simulated = frame();
+            long end = System.nanoTime();
+            tickNanos[i] = simulated - start;
+            frameNanos[i] = end - start;
+        }
+        Arrays.sort(tickNanos);
+        Arrays.sort(frameNanos);
+        Step step = new Step();
+        step.items = items;
+        step.agents = environment.getAgents().size();
+        step.tickMedian = OffscreenCapture.percentile(tickNanos, 0.5);
+        step.tickPercentile = OffscreenCapture.percentile(tickNanos, percentile);
+        step.frameMedian = OffscreenCapture.percentile(frameNanos, 0.5);
+        step.framePercentile = OffscreenCapture.percentile(frameNanos, percentile);
+        step.frameMax = frameNanos[frameNanos.length - 1] / 1e6;
+        step.sustained = step.framePercentile <= budgetMillis;
+        return step;
+    }
+
+    /**
+     * Replaces the added enemies by a new layout of the given number, so the
+     * enemies of successive steps do not pile on the same spots.
+     */
+    private void setEnemies(int count) {
+        List<Agent> agents = environment.getAgents();
+        agents.subList(1, agents.size()).clear();
+        Simulation.addEnemies(environment, prototype, count);
+    }
+
+    /**
+     * Plays and draws one frame.
+     *
+     * @return the time the simulation tick ended at, in nanoseconds
+     */
+    private long frame() {
+        Agent protagonist = environment.getProtagonist();
+        protagonist.setHealth(protagonist.getFullHealth());
+        simulation.tick(script.inputAt(tick), tick * OffscreenCapture.TICK_MILLIS);
+        tick++;
+        long simulated = System.nanoTime();
+        EnvironmentDrawer drawer = mediator;
+        drawer.clearEnvironment();
+        drawer.drawBackground();
+        drawer.drawAgents();
+        drawer.drawParticles();
+        drawer.drawScorePanel();
+        drawer.presentFrame();
+        return simulated;
+    }
+
+    /**
+     * Writes the machine, the options, the steps and the largest sustained
+     * load as JSON.
+     */
+    private String toJson(List<Step> steps, Step best) {
+        Runtime runtime = Runtime.getRuntime();
+        StringBuilder json = new StringBuilder(256 + steps.size() * 192);
+        json.append("{\n");
+        json.append("  \"label\": ").append(quote(label)).append(",\n");
+        json.append("  \"machine\": {");
+        json.append("\"java\": ").append(quote(System.getProperty("java.version")));
+        json.append(", \"vm\": ").append(quote(System.getProperty("java.vm.name")));
+        json.append(", \"os\": ").append(quote(System.getProperty("os.name")));
+        json.append(", \"arch\": ").append(quote(System.getProperty("os.arch")));
+        json.append(", \"cpus\": ").append(runtime.availableProcessors());
+        json.append(", \"maxHeapMb\": ").append(runtime.maxMemory() / (1024 * 1024));
+        json.append("},\n");
+        json.append("  \"options\": {");
+        json.append("\"budgetMs\": ").append(number(budgetMillis));
+        json.append(", \"percentile\": ").append(number(percentile));
+        json.append(", \"itemStep\": ").append(itemStep);
+        json.append(", \"agentStep\": ").append(agentStep);
+        json.append(", \"warmupTicks\": ").append(warmupTicks);
+        json.append(", \"measuredTicks\": ").append(measuredTicks);
+        json.append(", \"preheatTicks\": ").append(preheatTicks);
+        json.append(", \"retries\": ").append(retries);
+        json.append(", \"worldWidth\": ").append(environment.getWidth());
+        json.append("},\n");
+        json.append("  \"steps\": [");
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"items\": ").append(step.items);
+            json.append(", \"agents\": ").append(step.agents);
+            json.append(", \"tickMedianMs\": ").append(number(step.tickMedian));
+            json.append(", \"tickPercentileMs\": ").append(number(step.tickPercentile));
+            json.append(", \"frameMedianMs\": ").append(number(step.frameMedian));
+            json.append(", \"framePercentileMs\": ").append(number(step.framePercentile));
+            json.append(", \"frameMaxMs\": ").append(number(step.frameMax));
+            json.append(", \"sustained\": ").append(step.sustained).append('}');
+        }
+        json.append("\n  ],\n");
+        json.append("  \"maxSustainable\": ");
+        if (best == null) {
+            json.append("null");
+        } else {
+            json.append("{\"items\": ").append(best.items);
+            json.append(", \"agents\": ").append(best.agents);
+            json.append(", \"framePercentileMs\": ").append(number(best.framePercentile)).append('}');
+        }
+        json.append(",\n");
+        /* Without a failed step the true limit is higher than reported */
+        boolean limitReached = !steps.isEmpty() && !steps.get(steps.size() - 1).sustained;
+        json.append("  \"limitReached\": ").append(limitReached).append('\n');
+        json.append('}');
+        return json.toString();
+    }
+
+    /**
+     * Formats a number with a dot as the decimal separator.
+     */
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * Quotes a string for JSON.
+     */
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c < 0x20)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * The measurements of one step.
+     */
+    private static final class Step {
+
+        /** Falling items during the step. */
+        private int items;
+
+        /** Agents during the step, Jinx included. */
+        private int agents;
+
+        /** Median simulation tick, in milliseconds. */
+        private double tickMedian;
+
+        /** Simulation tick at the chosen percentile, in milliseconds. */
+        private double tickPercentile;
+
+        /** Median frame, in milliseconds. */
+        private double frameMedian;
+
+        /** Frame at the chosen percentile, in milliseconds. */
+        private double framePercentile;
+
+        /** Slowest frame, in milliseconds. */
+        private double frameMax;
+
+        /** Whether the frame percentile fits in the budget. */
+        private boolean sustained;
+    }
+}
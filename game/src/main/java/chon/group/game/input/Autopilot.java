@@ -0,0 +1,321 @@
+package chon.group.game.input;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import chon.group.game.domain.agent.Agent;
+import chon.group.game.domain.environment.Environment;
+import chon.group.game.domain.environment.EnvironmentListener;
+import chon.group.game.domain.item.FallingItem;
+
+/**
+ * A bot that plays the protagonist, used to soak-test builds without a
+ * player.
+ * <p>
+ * Items fall straight down at a constant speed and the protagonist only moves
+ * sideways, so when an item spawns the bot already knows which horizontal
+ * positions it will hit and when. The bot keeps a map of that danger and
+ * value over columns of the world and buckets of future ticks: each spawn
+ * adds its item to the cells it will cross and each removal takes it out
+ * again, so the map is never rebuilt; an item changing speed is taken out
+ * and added again along its new fall. The map is a ring of buckets; as time
+ * passes the oldest bucket is cleared and reused for the farthest future.
+ * </p>
+ * <p>
+ * A column is as wide as the protagonist walks in one bucket, so every
+ * bucket the protagonist moves at most one column. Each tick a dynamic
+ * program over the reachable columns and the buckets ahead finds the path
+ * with the best total, and the bot presses the key of that path's first
+ * step. Planning costs the same however many items are falling.
+ * </p>
+ */
+public class Autopilot implements EnvironmentListener {
+
+    /** Ticks in a bucket of the map. */
+    private static final int TICKS_PER_BUCKET = 8;
+
+    /** Buckets in the ring, covering the longest fall of an item. */
+    private static final int BUCKETS = 48;
+
+    /** Buckets looked ahead by the plan. */
+    private static final int PLAN_DEPTH = 32;
+
+    /** Value of a cell crossed by a bomb. */
+    private static final int BOMB_VALUE = -1000;
+
+    /** Value of a cell crossed by a hextech crystal. */
+    private static final int CRYSTAL_VALUE = 10;
+
+    /** Weight of each bucket relative to the one before it. */
+    private static final float DISCOUNT = 0.95f;
+
+    /* Movement commands, shared so deciding does not allocate. */
+    private static final List<String> MOVE_LEFT = List.of("LEFT");
+    private static final List<String> MOVE_RIGHT = List.of("RIGHT");
+    private static final List<String> STAND = List.of();
+
+    /** The environment being played. */
+    private final Environment environment;
+
+    /** Width of a column in pixels. */
+    private final int columnWidth;
+
+    /** Number of columns across the world. */
+    private final int columns;
+
+    /** Danger and value of each bucket and column, bucket by bucket. */
+    private final int[] cells;
+
+    /**
+     * Cells each falling item covers and was added to: first and last bucket,
+     * first and last column, value, then the first and last bucket that were
+     * in the ring and took the value.
+     */
+    private final Map<FallingItem, int[]> stamps = new IdentityHashMap<>();
+
+    /** Plan values of the next bucket, over the reachable columns. */
+    private float[] next;
+
+    /** Plan values of the current bucket, over the reachable columns. */
+    private float[] current;
+
+    /** Ticks played so far. */
+    private long tick;
+
+    /** Oldest bucket still held by the ring. */
+    private long firstBucket;
+
+    /** Number of plans made. */
+    private long plans;
+
+    /** Time spent planning, in nanoseconds. */
+    private long planNanos;
+
+    /** Longest plan, in nanoseconds. */
+    private long maxPlanNanos;
+
+    /** Plans that took longer than 0.1 ms. */
+    private long slowPlans;
+
+    /**
+     * Constructor to play an environment. The autopilot registers itself as a
+     * listener of the environment, so it must be created before the first
+     * item spawns.
+     *
+     * @param environment the environment to play
+     */
+    public Autopilot(Environment environment) {
+        this.environment = environment;
+        this.columnWidth = Math.max(1, environment.getProtagonist().getSpeed() * TICKS_PER_BUCKET);
+        this.columns = (environment.getWidth() + columnWidth - 1) / columnWidth;
+        this.cells = new int[BUCKETS * columns];
+        this.next = new float[2 * PLAN_DEPTH + 1];
+        this.current = new float[2 * PLAN_DEPTH + 1];
+        environment.addListener(this);
+    }
+
+    /**
+     * Chooses the keys to hold for the next tick. Called once per tick, before
+     * the simulation advances.
+     *
+     * @return the keys to hold, shared between calls
+     */
+    public List<String> decide() {
+        tick++;
+        advanceRing(tick / TICKS_PER_BUCKET);
+        long start = System.nanoTime();
+        List<String> keys = plan();
+        long nanos = System.nanoTime() - start;
+        plans++;
+        planNanos += nanos;
+        maxPlanNanos = Math.max(maxPlanNanos, nanos);
+        if (nanos > 100_000)
+            slowPlans++;
+        return keys;
+    }
+
+    /**
+     * Finds the best path through the buckets ahead and returns the key of
+     * its first step.
+     */
+    private List<String> plan() {
+        Agent protagonist = environment.getProtagonist();
+        int column = Math.min(columns - 1, Math.max(0, protagonist.getPosX() / columnWidth));
+        int lowest = Math.max(0, column - PLAN_DEPTH);
+        int highest = Math.min(columns - 1, column + PLAN_DEPTH);
+        int span = highest - lowest + 1;
+        long bucket = tick / TICKS_PER_BUCKET;
+
+        /* Backwards from the last bucket: the best total from each column onwards */
+        Arrays.fill(next, 0, span, 0f);
+        for (int depth = PLAN_DEPTH - 1; depth >= 1; depth--) {
+            int row = (int) ((bucket + depth) % BUCKETS) * columns;
+            for (int i = 0; i < span; i++) {
+                float best = next[i];
+                if (i > 0 && next[i - 1] > best)
+                    best = next[i - 1];
+                if (i < span - 1 && next[i + 1] > best)
+                    best = next[i + 1];
+                current[i] = cells[row + lowest + i] + DISCOUNT * best;
+            }
+            float[] swap = next;
+            next = current;
+            current = swap;
+        }
+
+        /* Standing still wins ties, then moving left */
+        int here = column - lowest;
+        float stay = next[here];
+        float left = here > 0 ? next[here - 1] : Float.NEGATIVE_INFINITY;
+        float right = here < span - 1 ? next[here + 1] : Float.NEGATIVE_INFINITY;
+        if (left > stay && left >= right)
+            return MOVE_LEFT;
+        if (right > stay)
+            return MOVE_RIGHT;
+        return STAND;
+    }
+
+    /**
+     * Clears the buckets that are now in the past, making room for the
+     * buckets entering the far end of the ring.
+     */
+    private void advanceRing(long bucket) {
+        while (firstBucket < bucket) {
+            int row = (int) (firstBucket % BUCKETS) * columns;
+            Arrays.fill(cells, row, row + columns, 0);
+            firstBucket++;
+        }
+    }
+
+    @Override
+    public void onItemSpawned(FallingItem item) {
+        Agent protagonist = environment.getProtagonist();
+        double speed = item.getSpeed();
+        if (speed <= 0)
+            return;
+        /* The item falls once more this tick, then once per tick */
+        double top = item.getPosY() + speed;
+        int bandTop = protagonist.getPosY();
+        int bandBottom = protagonist.getPosY() + protagonist.getHeight();
+        int ground = environment.getHeight() - Environment.GROUND_OFFSET;
+        long firstTick = tick + (long) Math.max(0, Math.floor((bandTop - item.getHeight() - top) / speed) + 1);
+        long lastTick = tick + (long) Math.min(Math.ceil((bandBottom - top) / speed) - 1,
+                Math.floor((ground - top) / speed) + 1);
+        if (lastTick < firstTick)
+            return;
+
+        boolean bomb = item.isBomb();
+        int pad = bomb ? 1 : 0;
+        int firstColumn = (int) Math.floor((item.getPosX() - protagonist.getWidth()) / columnWidth) - pad;
+        int lastColumn = (int) Math.floor((item.getPosX() + item.getWidth() - 1) / columnWidth) + pad;
+        int[] stamp = {
+                (int) (firstTick / TICKS_PER_BUCKET) - pad,
+                (int) (lastTick / TICKS_PER_BUCKET) + pad,
+                Math.max(0, firstColumn),
+                Math.min(columns - 1, lastColumn),
+                bomb ? BOMB_VALUE : CRYSTAL_VALUE,
+                0, -1 };
+        stamps.put(item, stamp);
+        add(stamp);
+    }
+
+    @Override
+    public void onItemRemoved(FallingItem item) {
+        int[] stamp = stamps.remove(item);
+        if (stamp != null)
+            remove(stamp);
+    }
+
+    @Override
+    public void onItemSpeedChanged(FallingItem item) {
+        onItemRemoved(item);
+        onItemSpawned(item);
+    }
+
+    @Override
+    public void onItemsRestored() {
+        stamps.clear();
+        Arrays.fill(cells, 0);
+        List<FallingItem> items = environment.getFallingItems();
+        for (int i = 0; i < items.size(); i++)
+            onItemSpawned(items.get(i));
+    }
+
+    /**
+     * Adds an item's value to the cells it covers that are in the ring,
+     * remembering which buckets took it.
+     */
+    private void add(int[] stamp) {
+        long from = Math.max(stamp[0], firstBucket);
+        long to = Math.min(stamp[1], firstBucket + BUCKETS - 1);
+        stamp[5] = (int) from;
+        stamp[6] = (int) to;
+        apply(stamp, from, to, stamp[4]);
+    }
+
+    /**
+     * Takes an item's value out of the buckets that took it and are still in
+     * the ring; the buckets that left the ring were cleared with it.
+     */
+    private void remove(int[] stamp) {
+        apply(stamp, Math.max(stamp[5], firstBucket), stamp[6], -stamp[4]);
+    }
+
+    /**
+     * Adds a value to the columns of an item in a range of buckets.
+     */
+    private void apply(int[] stamp, long from, long to, int value) {
+        for (long bucket = from; bucket <= to; bucket++) {
+            int row = (int) (bucket % BUCKETS) * columns;
+            for (int column = stamp[2]; column <= stamp[3]; column++)
+                cells[row + column] += value;
+        }
+    }
+
+    /**
+     * Gets the number of falling items in the map.
+     *
+     * @return the items tracked
+     */
+    public int getTrackedItems() {
+        return stamps.size();
+    }
+
+    /**
+     * Gets the number of plans made.
+     *
+     * @return the plans
+     */
+    public long getPlans() {
+        return plans;
+    }
+
+    /**
+     * Gets the average time spent planning a tick.
+     *
+     * @return the average in microseconds
+     */
+    public double getAveragePlanMicros() {
+        return plans == 0 ? 0 : planNanos / 1000.0 / plans;
+    }
+
+    /**
+     * Gets the longest time spent planning a tick.
+     *
+     * @return the maximum in microseconds
+     */
+    public double getMaxPlanMicros() {
+        return maxPlanNanos / 1000.0;
+    }
+
+    /**
+     * Gets the number of plans that took longer than 0.1 ms.
+     *
+     * @return the slow plans
+     */
+    public long getSlowPlans() {
+        return slowPlans;
+    }
+}
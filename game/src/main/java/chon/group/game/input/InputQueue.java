@@ -0,0 +1,207 @@
+package chon.group.game.input;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Queues timestamped key presses and releases between simulation ticks.
+ * <p>
+ * Key handlers only append events, so keys pressed together are never lost.
+ * Each tick drains the events in the order they happened and updates the
+ * keys held, most recent press first. A key pressed and released within the
+ * same tick is still held for that tick, so quick taps always move the
+ * protagonist. The queue also measures, for every tick that consumed events,
+ * the time from the oldest of those events to the frame that showed them:
+ * the wait for the tick, the tick, drawing the frame and the toolkit
+ * rendering it, up to the frame's hand-off to the screen.
+ * </p>
+ */
+public class InputQueue {
+
+    /** Capacity of the event ring; older events are dropped when it is full. */
+    private static final int CAPACITY = 256;
+
+    /** Width of a latency histogram bucket, in nanoseconds (0.5 ms). */
+    private static final long BUCKET_NANOS = 500_000;
+
+    /** Number of latency histogram buckets; the last one holds everything above. */
+    private static final int BUCKETS = 200;
+
+    /** Key of each event. */
+    private final String[] keys = new String[CAPACITY];
+
+    /** Whether each event is a press (true) or a release (false). */
+    private final boolean[] presses = new boolean[CAPACITY];
+
+    /** Time of each event, from {@link System#nanoTime()}. */
+    private final long[] times = new long[CAPACITY];
+
+    /** Number of events offered so far. */
+    private long head;
+
+    /** Number of events consumed so far. */
+    private long tail;
+
+    /** Keys currently held, most recent press first. */
+    private final List<String> held = new ArrayList<>();
+
+    /** Keys tapped during the last tick, released on the next one. */
+    private final List<String> pendingReleases = new ArrayList<>();
+
+    /** Keys pressed by the events consumed in the current tick. */
+    private final List<String> pressedThisTick = new ArrayList<>();
+
+    /** Time of the oldest event consumed by a tick not yet shown, or -1. */
+    private long unshownSince = -1;
+
+    /** Latency histogram. */
+    private final long[] histogram = new long[BUCKETS];
+
+    /** Number of latency samples. */
+    private long samples;
+
+    /** Sum of the latency samples, in nanoseconds. */
+    private long totalNanos;
+
+    /** Largest latency sample, in nanoseconds. */
+    private long maxNanos;
+
+    /**
+     * Records a key press.
+     *
+     * @param key   the key code name
+     * @param nanos the time of the event
+     */
+    public void press(String key, long nanos) {
+        offer(key, true, nanos);
+    }
+
+    /**
+     * Records a key release.
+     *
+     * @param key   the key code name
+     * @param nanos the time of the event
+     */
+    public void release(String key, long nanos) {
+        offer(key, false, nanos);
+    }
+
+    /**
+     * Appends an event, dropping the oldest one when the ring is full.
+     */
+    private void offer(String key, boolean press, long nanos) {
+        if (head - tail == CAPACITY)
+            tail++;
+        int slot = (int) (head % CAPACITY);
+        keys[slot] = key;
+        presses[slot] = press;
+        times[slot] = nanos;
+        head++;
+    }
+
+    /**
+     * Consumes the events that happened up to the tick time, in order, and
+     * returns the keys to apply on this tick.
+     *
+     * @param tickNanos the time of the tick
+     * @return the keys held on this tick, most recent press first; the list is
+     *         reused between ticks
+     */
+    public List<String> sample(long tickNanos) {
+        for (int i = 0; i < pendingReleases.size(); i++)
+            held.remove(pendingReleases.get(i));
+        pendingReleases.clear();
+        pressedThisTick.clear();
+
+        while (tail < head) {
+            int slot = (int) (tail % CAPACITY);
+            if (times[slot] > tickNanos)
+                break;
+            String key = keys[slot];
+            if (presses[slot]) {
+                held.remove(key);
+                held.add(0, key);
+                pendingReleases.remove(key);
+                if (!pressedThisTick.contains(key))
+                    pressedThisTick.add(key);
+            } else if (pressedThisTick.contains(key)) {
+                /* Pressed and released within this tick: keep it for one tick. */
+                if (!pendingReleases.contains(key))
+                    pendingReleases.add(key);
+            } else {
+                held.remove(key);
+            }
+            if (unshownSince < 0)
+                unshownSince = times[slot];
+            keys[slot] = null;
+            tail++;
+        }
+        return held;
+    }
+
+    /**
+     * Records that a frame reflecting the last ticks was shown. The time is
+     * taken once the frame is rendered, not when drawing it ends: the game
+     * loop passes the start of the next pulse, which the toolkit only begins
+     * after rendering the frame of the pulse before. The time the display
+     * takes to scan the frame out is not measured.
+     *
+     * @param frameNanos the time the frame was rendered, from
+     *                   {@link System#nanoTime()}
+     */
+    public void frameShown(long frameNanos) {
+        if (unshownSince < 0)
+            return;
+        long latency = Math.max(0, frameNanos - unshownSince);
+        unshownSince = -1;
+        histogram[(int) Math.min(BUCKETS - 1, latency / BUCKET_NANOS)]++;
+        samples++;
+        totalNanos += latency;
+        maxNanos = Math.max(maxNanos, latency);
+    }
+
+    /**
+     * Gets the number of latency samples.
+     *
+     * @return the number of samples
+     */
+    public long getLatencySamples() {
+        return samples;
+    }
+
+    /**
+     * Gets the average input-to-frame latency.
+     *
+     * @return the average latency in milliseconds
+     */
+    public double getAverageLatencyMillis() {
+        return samples == 0 ? 0 : totalNanos / 1e6 / samples;
+    }
+
+    /**
+     * Gets the largest input-to-frame latency.
+     *
+     * @return the maximum latency in milliseconds
+     */
+    public double getMaxLatencyMillis() {
+        return maxNanos / 1e6;
+    }
+
+    /**
+     * Gets a percentile of the input-to-frame latency, with half a millisecond
+     * resolution.
+     *
+     * @param fraction the percentile, between 0 and 1
+     * @return the upper bound of the percentile's bucket, in milliseconds
+     */
+    public double getLatencyPercentileMillis(double fraction) {
+        long target = (long) Math.ceil(samples * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= target && seen > 0)
+                return (i + 1) * BUCKET_NANOS / 1e6;
+        }
+        return 0;
+    }
+}
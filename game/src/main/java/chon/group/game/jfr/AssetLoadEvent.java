@@ -0,0 +1,56 @@
+package chon.group.game.jfr;
+
+import javafx.scene.image.Image;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An asset read and decoded from the classpath.
+ */
+@Name("chon.group.AssetLoad")
+@Label("Asset Load")
+@Category({ "Chon", "Assets" })
+@Description("Time spent loading and decoding an asset")
+public class AssetLoadEvent extends Event {
+
+    /** Classpath path of the asset. */
+    @Label("Path")
+    public String path;
+
+    /** Memory taken by the decoded asset. */
+    @Label("Decoded Size")
+    @DataAmount
+    public long bytes;
+
+    /** Whether the asset could not be loaded. */
+    @Label("Failed")
+    public boolean failed;
+
+    /**
+     * Loads an image resource, recording the load when the event is enabled.
+     *
+     * @param path the classpath path of the image
+     * @return the decoded image
+     */
+    public static Image loadImage(String path) {
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        Image image = null;
+        try {
+            image = new Image(AssetLoadEvent.class.getResource(path).toExternalForm());
+            return image;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = path;
+                event.failed = image == null || image.isError();
+                event.bytes = image == null ? 0 : (long) image.getWidth() * (long) image.getHeight() * 4;
+                event.commit();
+            }
+        }
+    }
+}
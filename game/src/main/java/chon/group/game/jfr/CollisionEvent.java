@@ -0,0 +1,37 @@
+package chon.group.game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The protagonist colliding with a falling item, and what came of it.
+ */
+@Name("chon.group.Collision")
+@Label("Collision")
+@Category({ "Chon", "Simulation" })
+@Description("The protagonist hit a falling item")
+@StackTrace(false)
+public class CollisionEvent extends Event {
+
+    /** The protagonist took damage from a bomb. */
+    public static final String DAMAGE = "damage";
+
+    /** The protagonist collected a hextech crystal. */
+    public static final String PICKUP = "pickup";
+
+    /** What the collision did. */
+    @Label("Outcome")
+    public String outcome;
+
+    /** Health of the protagonist after the collision. */
+    @Label("Health")
+    public int health;
+
+    /** Score after the collision. */
+    @Label("Score")
+    public int score;
+}
@@ -0,0 +1,28 @@
+package chon.group.game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One phase of drawing a frame, such as the background, the agents or
+ * presenting the finished frame.
+ */
+@Name("chon.group.DrawPhase")
+@Label("Draw Phase")
+@Category({ "Chon", "Rendering" })
+@Description("Duration of one EnvironmentDrawer call")
+@StackTrace(false)
+public class DrawPhaseEvent extends Event {
+
+    /** Name of the drawer method. */
+    @Label("Phase")
+    public String phase;
+
+    /** Name of the drawer implementation. */
+    @Label("Renderer")
+    public String renderer;
+}
@@ -0,0 +1,25 @@
+package chon.group.game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An agent mirroring its image after turning around.
+ */
+@Name("chon.group.FlipImage")
+@Label("Flip Image")
+@Category({ "Chon", "Rendering" })
+@Description("Cost of mirroring an agent's image")
+public class FlipImageEvent extends Event {
+
+    /** Width of the image in pixels. */
+    @Label("Width")
+    public int width;
+
+    /** Height of the image in pixels. */
+    @Label("Height")
+    public int height;
+}
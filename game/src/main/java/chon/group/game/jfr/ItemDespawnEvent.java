@@ -0,0 +1,38 @@
+package chon.group.game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A falling item leaving the environment, either hit by the protagonist or
+ * reaching the ground.
+ */
+@Name("chon.group.ItemDespawn")
+@Label("Item Despawn")
+@Category({ "Chon", "Simulation" })
+@Description("A falling item was removed")
+@StackTrace(false)
+public class ItemDespawnEvent extends Event {
+
+    /** Removed by a collision with the protagonist. */
+    public static final String COLLISION = "collision";
+
+    /** Removed after reaching the ground. */
+    public static final String GROUND = "ground";
+
+    /** Why the item was removed. */
+    @Label("Reason")
+    public String reason;
+
+    /** Whether the item was a bomb. */
+    @Label("Bomb")
+    public boolean bomb;
+
+    /** Vertical position of the item when removed. */
+    @Label("Y")
+    public int posY;
+}
@@ -0,0 +1,35 @@
+package chon.group.game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A falling item entering the environment.
+ */
+@Name("chon.group.ItemSpawn")
+@Label("Item Spawn")
+@Category({ "Chon", "Simulation" })
+@Description("A falling item was spawned")
+@StackTrace(false)
+public class ItemSpawnEvent extends Event {
+
+    /** Catalogue id of the item type. */
+    @Label("Type")
+    public String type;
+
+    /** Horizontal position of the item. */
+    @Label("X")
+    public int posX;
+
+    /** Falling speed of the item. */
+    @Label("Speed")
+    public double speed;
+
+    /** Number of falling items after the spawn. */
+    @Label("Falling Items")
+    public int items;
+}
@@ -0,0 +1,100 @@
+package chon.group.game.jfr;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Records a game session with the bundled {@code /jfr/chon.jfc} settings.
+ * <p>
+ * Start the game with {@code -Dchon.jfr=session.jfr} and the recording is
+ * written to that file when the game exits, ready to open in JDK Mission
+ * Control or {@code jfr print}. The same settings can be used without this
+ * class by extracting the profile and passing it to
+ * {@code -XX:StartFlightRecording=settings=chon.jfc}.
+ * </p>
+ */
+public class SessionRecorder implements AutoCloseable {
+
+    /** Classpath path of the bundled settings profile. */
+    public static final String SETTINGS_PATH = "/jfr/chon.jfc";
+
+    /** The running recording. */
+    private final Recording recording;
+
+    /** Where the recording is written when closed. */
+    private final Path destination;
+
+    /**
+     * Constructor to start a recording.
+     *
+     * @param destination where the recording is written when closed
+     * @throws IOException    if the settings profile cannot be read
+     * @throws ParseException if the settings profile is invalid
+     */
+    public SessionRecorder(Path destination) throws IOException, ParseException {
+        this.destination = destination;
+        this.recording = new Recording(loadSettings());
+        this.recording.setName("Chon session");
+        this.recording.setToDisk(true);
+        this.recording.start();
+    }
+
+    /**
+     * Starts a recording if {@code -Dchon.jfr} names an output file.
+     *
+     * @return the recorder, or null when no recording was requested or it
+     *         could not start
+     */
+    public static SessionRecorder startIfRequested() {
+        String output = System.getProperty("chon.jfr");
+        if (output == null || output.isEmpty())
+            return null;
+        try {
+            return new SessionRecorder(Paths.get(output));
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            System.out.println("Erro ao iniciar gravação JFR: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the bundled settings profile.
+     *
+     * @return the parsed settings
+     * @throws IOException    if the profile cannot be read
+     * @throws ParseException if the profile is invalid
+     */
+    public static Configuration loadSettings() throws IOException, ParseException {
+        InputStream resource = SessionRecorder.class.getResourceAsStream(SETTINGS_PATH);
+        if (resource == null)
+            throw new IOException("Missing JFR settings " + SETTINGS_PATH);
+        try (Reader reader = new InputStreamReader(resource, StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        }
+    }
+
+    /**
+     * Stops the recording and writes it to the destination file.
+     */
+    @Override
+    public void close() {
+        try {
+            recording.stop();
+            recording.dump(destination);
+            System.out.println("Gravação JFR salva em " + destination.toAbsolutePath());
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("Erro ao salvar gravação JFR: " + e.getMessage());
+        } finally {
+            recording.close();
+        }
+    }
+}
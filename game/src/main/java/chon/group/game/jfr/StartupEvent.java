@@ -0,0 +1,34 @@
+package chon.group.game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The time the game took to show its first frame.
+ */
+@Name("chon.group.Startup")
+@Label("Startup")
+@Category({ "Chon", "Startup" })
+@Description("Time from the start of the JVM to the first game loop frame")
+@StackTrace(false)
+public class StartupEvent extends Event {
+
+    /** Time from the start of the JVM to the start of main. */
+    @Label("To Main")
+    @Timespan(Timespan.MILLISECONDS)
+    public long toMain;
+
+    /** Time from the start of the JVM to the first frame. */
+    @Label("To First Frame")
+    @Timespan(Timespan.MILLISECONDS)
+    public long toFirstFrame;
+
+    /** The class-data sharing archive in use, or "none". */
+    @Label("CDS Archive")
+    public String archive;
+}
@@ -0,0 +1,44 @@
+package chon.group.game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One simulation tick of the game loop: input, spawning, falling, collisions,
+ * particles, projectiles and the other agents' movements.
+ */
+@Name("chon.group.Tick")
+@Label("Simulation Tick")
+@Category({ "Chon", "Simulation" })
+@Description("Duration of one simulation tick")
+@StackTrace(false)
+public class TickEvent extends Event {
+
+    /** Number of keys held during the tick. */
+    @Label("Keys Held")
+    public int keys;
+
+    /** Number of falling items after the tick. */
+    @Label("Falling Items")
+    public int items;
+
+    /** Number of live particles after the tick. */
+    @Label("Particles")
+    public int particles;
+
+    /** Number of live projectiles after the tick. */
+    @Label("Projectiles")
+    public int projectiles;
+
+    /** Number of agents whose behaviour ran during the tick. */
+    @Label("Agents Updated")
+    public int agents;
+
+    /** Score after the tick. */
+    @Label("Score")
+    public int score;
+}
@@ -0,0 +1,158 @@
+package chon.group.game.score;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * One board of best scores, such as all-time, today or a single player.
+ * <p>
+ * The best entries are kept in a sorted set bounded to the board size, so an
+ * insert costs O(log n) and listing the board needs no sorting. Every score
+ * ever recorded is also counted in a Fenwick tree indexed by score, which
+ * answers the rank of any score in O(log n) without scanning the history.
+ * </p>
+ */
+public class Leaderboard {
+
+    /** Initial number of distinct scores the rank tree can count. */
+    private static final int INITIAL_SCORES = 1024;
+
+    /** Highest score counted exactly; higher scores share its slot. */
+    private static final int MAX_COUNTED_SCORE = (1 << 24) - 1;
+
+    /** Number of entries listed by the board. */
+    private final int size;
+
+    /** The best entries, best first. */
+    private final TreeSet<ScoreEntry> top = new TreeSet<>();
+
+    /** Fenwick tree of the number of games per score. */
+    private long[] tree = new long[INITIAL_SCORES + 1];
+
+    /** Number of games per score, kept to rebuild the tree when it grows. */
+    private long[] counts = new long[INITIAL_SCORES];
+
+    /** Number of games counted by the board. */
+    private long total;
+
+    /**
+     * Constructor to create an empty board.
+     *
+     * @param size the number of entries listed
+     */
+    public Leaderboard(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Adds a game to the board.
+     *
+     * @param entry the finished game
+     * @return true if the entry made it to the listed entries
+     */
+    public boolean add(ScoreEntry entry) {
+        count(entry.getScore(), 1);
+        if (top.size() == size && entry.compareTo(top.last()) > 0)
+            return false;
+        top.add(entry);
+        if (top.size() > size)
+            top.pollLast();
+        return top.contains(entry);
+    }
+
+    /**
+     * Counts past games for ranking only, without listing them.
+     *
+     * @param score the score of the games
+     * @param games the number of games
+     */
+    public void addHistory(int score, long games) {
+        count(score, games);
+    }
+
+    /**
+     * Gets the rank a score has on this board: one plus the number of games
+     * with a strictly higher score.
+     *
+     * @param score the score to rank
+     * @return the rank, starting at 1
+     */
+    public long rankOf(int score) {
+        int index = Math.max(0, Math.min(score, MAX_COUNTED_SCORE));
+        if (index >= counts.length)
+            return 1;
+        return 1 + total - prefix(index);
+    }
+
+    /**
+     * Checks if an entry is listed by the board.
+     *
+     * @param entry the entry
+     * @return true if the entry is one of the best
+     */
+    public boolean isListed(ScoreEntry entry) {
+        return top.contains(entry);
+    }
+
+    /**
+     * Gets the listed entries.
+     *
+     * @return a copy of the best entries, best first
+     */
+    public List<ScoreEntry> getTop() {
+        return new ArrayList<>(top);
+    }
+
+    /**
+     * Gets the number of games counted by the board.
+     *
+     * @return the number of games
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Adds games to the count of a score, growing the tree when needed.
+     */
+    private void count(int score, long games) {
+        int index = Math.max(0, Math.min(score, MAX_COUNTED_SCORE));
+        if (index >= counts.length)
+            grow(index);
+        counts[index] += games;
+        total += games;
+        for (int i = index + 1; i < tree.length; i += i & -i)
+            tree[i] += games;
+    }
+
+    /**
+     * Gets the number of games with a score up to the index, inclusive.
+     */
+    private long prefix(int index) {
+        long sum = 0;
+        for (int i = index + 1; i > 0; i -= i & -i)
+            sum += tree[i];
+        return sum;
+    }
+
+    /**
+     * Doubles the score range until it covers the index and rebuilds the tree
+     * in linear time.
+     */
+    private void grow(int index) {
+        int length = counts.length;
+        while (length <= index)
+            length *= 2;
+        long[] grown = new long[length];
+        System.arraycopy(counts, 0, grown, 0, counts.length);
+        counts = grown;
+        tree = new long[length + 1];
+        for (int i = 1; i <= length; i++) {
+            tree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= length)
+                tree[parent] += tree[i];
+        }
+    }
+}
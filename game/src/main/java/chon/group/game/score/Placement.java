@@ -0,0 +1,88 @@
+package chon.group.game.score;
+
+/**
+ * Where a finished game ranks on each board, computed when it is submitted so
+ * the game over screen can show it without looking at the history.
+ */
+public class Placement {
+
+    /** Rank among every game ever recorded. */
+    private final long allTimeRank;
+
+    /** Number of games ever recorded. */
+    private final long allTimeTotal;
+
+    /** Rank among today's games. */
+    private final long dailyRank;
+
+    /** Rank among the player's games, 0 when the player has no tag. */
+    private final long tagRank;
+
+    /** The player tag, empty when the player did not identify. */
+    private final String tag;
+
+    /**
+     * Constructor to initialize the placement.
+     *
+     * @param allTimeRank  the rank among every game
+     * @param allTimeTotal the number of games ever recorded
+     * @param dailyRank    the rank among today's games
+     * @param tagRank      the rank among the player's games, 0 without a tag
+     * @param tag          the player tag
+     */
+    public Placement(long allTimeRank, long allTimeTotal, long dailyRank, long tagRank, String tag) {
+        this.allTimeRank = allTimeRank;
+        this.allTimeTotal = allTimeTotal;
+        this.dailyRank = dailyRank;
+        this.tagRank = tagRank;
+        this.tag = tag;
+    }
+
+    /**
+     * Gets the rank among every game ever recorded.
+     *
+     * @return the rank, starting at 1
+     */
+    public long getAllTimeRank() {
+        return allTimeRank;
+    }
+
+    /**
+     * Gets the number of games ever recorded.
+     *
+     * @return the number of games
+     */
+    public long getAllTimeTotal() {
+        return allTimeTotal;
+    }
+
+    /**
+     * Gets the rank among today's games.
+     *
+     * @return the rank, starting at 1
+     */
+    public long getDailyRank() {
+        return dailyRank;
+    }
+
+    /**
+     * Gets the rank among the player's games.
+     *
+     * @return the rank, starting at 1, or 0 when the player has no tag
+     */
+    public long getTagRank() {
+        return tagRank;
+    }
+
+    /**
+     * Builds the line shown on the game over screen.
+     *
+     * @return the ranks as text
+     */
+    public String describe() {
+        String text = "Rank #" + allTimeRank + "/" + allTimeTotal + "   Today #" + dailyRank;
+        if (tagRank > 0)
+            text += "   " + tag + " #" + tagRank;
+        return text;
+    }
+}
@@ -0,0 +1,346 @@
+package chon.group.game.score;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The local leaderboards: all-time, today and one per player tag.
+ * <p>
+ * Every finished game is appended to a {@link ScoreLog} and added to the
+ * in-memory boards on the caller's thread; the log is synced to the storage
+ * device by a background thread, so finishing a game never waits for the
+ * disk. The boards are rebuilt from the log when it is opened, and a log that
+ * has grown past {@link #COMPACTION_THRESHOLD} records is compacted then:
+ * games listed on some board are kept as they are and the rest are merged
+ * into one record per tag, score and day, which keeps every rank exact.
+ * </p>
+ */
+public class ScoreBoards implements AutoCloseable {
+
+    /** Number of entries listed by each board. */
+    public static final int BOARD_SIZE = 10;
+
+    /** Number of records in the log that triggers a compaction. */
+    private static final int COMPACTION_THRESHOLD = 50_000;
+
+    /** The log file. */
+    private final Path path;
+
+    /** Time zone deciding where a day starts. */
+    private final ZoneId zone;
+
+    /** The open log. */
+    private ScoreLog log;
+
+    /** Syncs the log after each game, off the thread finishing it. */
+    private final ExecutorService syncer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "score-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Every game ever recorded. */
+    private Leaderboard allTime;
+
+    /** Today's games. */
+    private Leaderboard daily;
+
+    /** The day the daily board counts, as an epoch day. */
+    private long today;
+
+    /** One board per player tag. */
+    private Map<String, Leaderboard> tags;
+
+    /**
+     * Constructor to open the boards stored in a log file, creating it when
+     * needed.
+     *
+     * @param path the log file
+     * @throws IOException if the log cannot be opened
+     */
+    public ScoreBoards(Path path) throws IOException {
+        this(path, ZoneId.systemDefault(), System.currentTimeMillis());
+    }
+
+    /**
+     * Constructor to open the boards with a given time zone and current time.
+     *
+     * @param path the log file
+     * @param zone the time zone deciding where a day starts
+     * @param now  the current time, in epoch milliseconds
+     * @throws IOException if the log cannot be opened
+     */
+    public ScoreBoards(Path path, ZoneId zone, long now) throws IOException {
+        this.path = path;
+        this.zone = zone;
+        this.today = epochDay(now);
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        this.log = new ScoreLog(path);
+        load();
+        if (log.getCount() >= COMPACTION_THRESHOLD)
+            compact();
+    }
+
+    /**
+     * Gets the log file used by the game, set with {@code -Dchon.scores} or
+     * kept in the user's home directory.
+     *
+     * @return the log file
+     */
+    public static Path defaultPath() {
+        String configured = System.getProperty("chon.scores");
+        if (configured != null)
+            return Paths.get(configured);
+        return Paths.get(System.getProperty("user.home"), ".chon", "scores.log");
+    }
+
+    /**
+     * Reduces a player tag to what the log can store: upper-case letters,
+     * digits, '-' and '_', at most {@link ScoreLog#TAG_LENGTH} characters.
+     *
+     * @param tag the tag typed by the player, may be null
+     * @return the normalized tag, empty when nothing is left
+     */
+    public static String normalizeTag(String tag) {
+        if (tag == null)
+            return "";
+        StringBuilder normalized = new StringBuilder();
+        for (int i = 0; i < tag.length() && normalized.length() < ScoreLog.TAG_LENGTH; i++) {
+            char c = Character.toUpperCase(tag.charAt(i));
+            if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_')
+                normalized.append(c);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Records a finished game and ranks it. The game is written to the log
+     * at once and synced to the storage device in the background.
+     *
+     * @param score     the final score
+     * @param tag       the player tag, normalized with {@link #normalizeTag(String)}
+     * @param timestamp the time the game ended, in epoch milliseconds
+     * @return the ranks of the game on each board
+     * @throws IOException if the game cannot be written to the log
+     */
+    public Placement submit(int score, String tag, long timestamp) throws IOException {
+        String normalized = normalizeTag(tag);
+        int index = log.append(ScoreLog.KIND_ENTRY, score, timestamp, 1, normalized);
+        /* Queued after the append, so the sync sees the record and the mapping holding it */
+        syncer.execute(log::sync);
+
+        long day = epochDay(timestamp);
+        if (day != today) {
+            today = day;
+            daily = new Leaderboard(BOARD_SIZE);
+        }
+        ScoreEntry entry = new ScoreEntry(score, timestamp, normalized, index);
+        allTime.add(entry);
+        daily.add(entry);
+        long tagRank = 0;
+        if (!normalized.isEmpty()) {
+            Leaderboard board = tagBoard(normalized);
+            board.add(entry);
+            tagRank = board.rankOf(score);
+        }
+        return new Placement(allTime.rankOf(score), allTime.getTotal(), daily.rankOf(score),
+                tagRank, normalized);
+    }
+
+    /**
+     * Gets the all-time board.
+     *
+     * @return the board
+     */
+    public Leaderboard getAllTime() {
+        return allTime;
+    }
+
+    /**
+     * Gets today's board.
+     *
+     * @return the board
+     */
+    public Leaderboard getDaily() {
+        return daily;
+    }
+
+    /**
+     * Gets a player's board.
+     *
+     * @param tag the player tag
+     * @return the board, or null if the player has no games
+     */
+    public Leaderboard getTag(String tag) {
+        return tags.get(normalizeTag(tag));
+    }
+
+    /**
+     * Gets the number of records in the log.
+     *
+     * @return the number of records
+     */
+    public int getLogRecords() {
+        return log.getCount();
+    }
+
+    /**
+     * Rewrites the log keeping the listed games and merging the others. The
+     * new log is written next to the old one and moved over it, so a crash
+     * during compaction leaves the old log intact. It is run when the boards
+     * are opened, before any game is submitted.
+     *
+     * @throws IOException if the log cannot be reopened
+     */
+    public void compact() throws IOException {
+        Set<Long> listed = new HashSet<>();
+        collectListed(allTime, listed);
+        collectListed(daily, listed);
+        for (Leaderboard board : tags.values())
+            collectListed(board, listed);
+
+        long todayStart = LocalDate.ofEpochDay(today).atStartOfDay(zone).toInstant().toEpochMilli();
+        List<ScoreEntry> kept = new ArrayList<>();
+        Map<String, Aggregate> merged = new LinkedHashMap<>();
+        log.forEach((index, kind, score, timestamp, games, tag) -> {
+            if (kind == ScoreLog.KIND_ENTRY && listed.contains((long) index)) {
+                kept.add(new ScoreEntry(score, timestamp, tag, index));
+                return;
+            }
+            long bucket = epochDay(timestamp) == today ? todayStart : 0;
+            merged.computeIfAbsent(tag + '|' + score + '|' + bucket, key -> new Aggregate(tag, score, bucket))
+                    .games += games;
+        });
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        Files.deleteIfExists(compacted);
+        try (ScoreLog target = new ScoreLog(compacted)) {
+            for (ScoreEntry entry : kept)
+                target.append(ScoreLog.KIND_ENTRY, entry.getScore(), entry.getTimestamp(), 1, entry.getTag());
+            for (Aggregate aggregate : merged.values()) {
+                for (long left = aggregate.games; left > 0; left -= Integer.MAX_VALUE) {
+                    target.append(ScoreLog.KIND_AGGREGATE, aggregate.score, aggregate.timestamp,
+                            (int) Math.min(left, Integer.MAX_VALUE), aggregate.tag);
+                }
+            }
+            target.sync();
+        }
+
+        log.close();
+        try {
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Erro ao compactar placares: " + e.getMessage());
+            Files.deleteIfExists(compacted);
+        }
+        log = new ScoreLog(path);
+        load();
+    }
+
+    /**
+     * Waits for the pending syncs, syncs the log a last time and closes it.
+     *
+     * @throws IOException if the log cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        syncer.shutdown();
+        try {
+            syncer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.sync();
+        log.close();
+    }
+
+    /**
+     * Rebuilds the boards from the log.
+     */
+    private void load() {
+        allTime = new Leaderboard(BOARD_SIZE);
+        daily = new Leaderboard(BOARD_SIZE);
+        tags = new HashMap<>();
+        log.forEach((index, kind, score, timestamp, games, tag) -> {
+            boolean isToday = epochDay(timestamp) == today;
+            if (kind == ScoreLog.KIND_ENTRY) {
+                ScoreEntry entry = new ScoreEntry(score, timestamp, tag, index);
+                allTime.add(entry);
+                if (isToday)
+                    daily.add(entry);
+                if (!tag.isEmpty())
+                    tagBoard(tag).add(entry);
+            } else {
+                allTime.addHistory(score, games);
+                if (isToday)
+                    daily.addHistory(score, games);
+                if (!tag.isEmpty())
+                    tagBoard(tag).addHistory(score, games);
+            }
+        });
+    }
+
+    /**
+     * Gets the board of a tag, creating it on first use.
+     */
+    private Leaderboard tagBoard(String tag) {
+        return tags.computeIfAbsent(tag, key -> new Leaderboard(BOARD_SIZE));
+    }
+
+    /**
+     * Adds the log positions of a board's listed entries to the set.
+     */
+    private static void collectListed(Leaderboard board, Set<Long> listed) {
+        for (ScoreEntry entry : board.getTop())
+            listed.add(entry.getSequence());
+    }
+
+    /**
+     * Converts a time to the day it falls on.
+     */
+    private long epochDay(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Games merged by compaction.
+     */
+    private static class Aggregate {
+
+        /** The player tag. */
+        private final String tag;
+
+        /** The score. */
+        private final int score;
+
+        /** Start of today for today's games, 0 for older ones. */
+        private final long timestamp;
+
+        /** Number of games merged. */
+        private long games;
+
+        private Aggregate(String tag, int score, long timestamp) {
+            this.tag = tag;
+            this.score = score;
+            this.timestamp = timestamp;
+        }
+    }
+}
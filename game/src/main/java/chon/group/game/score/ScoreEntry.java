@@ -0,0 +1,85 @@
+package chon.group.game.score;
+
+/**
+ * A finished game kept by a leaderboard: its score, when it ended and the tag
+ * of the player. Entries are ordered best first; ties go to the earliest game.
+ */
+public class ScoreEntry implements Comparable<ScoreEntry> {
+
+    /** The final score. */
+    private final int score;
+
+    /** The time the game ended, in epoch milliseconds. */
+    private final long timestamp;
+
+    /** The player tag, empty when the player did not identify. */
+    private final String tag;
+
+    /** Position of the entry in the score log, breaking the remaining ties. */
+    private final long sequence;
+
+    /**
+     * Constructor to initialize the entry.
+     *
+     * @param score     the final score
+     * @param timestamp the time the game ended, in epoch milliseconds
+     * @param tag       the player tag
+     * @param sequence  the position of the entry in the score log
+     */
+    public ScoreEntry(int score, long timestamp, String tag, long sequence) {
+        this.score = score;
+        this.timestamp = timestamp;
+        this.tag = tag;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Gets the final score.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the time the game ended.
+     *
+     * @return the time in epoch milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the player tag.
+     *
+     * @return the tag, empty when the player did not identify
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Gets the position of the entry in the score log.
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public int compareTo(ScoreEntry other) {
+        if (score != other.score)
+            return Integer.compare(other.score, score);
+        if (timestamp != other.timestamp)
+            return Long.compare(timestamp, other.timestamp);
+        return Long.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public String toString() {
+        return (tag.isEmpty() ? "---" : tag) + " " + score;
+    }
+}
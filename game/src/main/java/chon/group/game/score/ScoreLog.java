@@ -0,0 +1,218 @@
+package chon.group.game.score;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of fixed-size score records, mapped into memory.
+ * <p>
+ * Each record ends with a CRC32 of its fields, written last. When the file is
+ * opened, records are read until the first one whose checksum does not
+ * match, so a record torn by a crash or power loss is simply ignored and
+ * overwritten by the next append. The mapping grows by doubling; the unused
+ * tail of the file stays zeroed, which never passes the checksum.
+ * </p>
+ * <p>
+ * Layout: a 16-byte header (magic, version) followed by 32-byte records:
+ * score (int), timestamp (long), games (int), kind (byte), tag (11 ASCII
+ * bytes) and CRC32 (int).
+ * </p>
+ */
+public class ScoreLog implements AutoCloseable {
+
+    /** A single finished game. */
+    public static final byte KIND_ENTRY = 1;
+
+    /** Several past games with the same tag and score, merged by compaction. */
+    public static final byte KIND_AGGREGATE = 2;
+
+    /** Maximum length of a player tag, in ASCII characters. */
+    public static final int TAG_LENGTH = 11;
+
+    /** Identifies score log files ("CHSC"). */
+    private static final int MAGIC = 0x43485343;
+
+    /** Version of the record layout. */
+    private static final int VERSION = 1;
+
+    /** Size of the file header. */
+    private static final int HEADER_BYTES = 16;
+
+    /** Size of each record. */
+    private static final int RECORD_BYTES = 32;
+
+    /** Number of bytes covered by a record's checksum. */
+    private static final int CHECKED_BYTES = RECORD_BYTES - 4;
+
+    /** Number of records mapped when a new file is created. */
+    private static final int INITIAL_CAPACITY = 4096;
+
+    /**
+     * Receives the records of the log, in order.
+     */
+    public interface RecordVisitor {
+
+        /**
+         * Visits a record.
+         *
+         * @param index     the position of the record
+         * @param kind      {@link #KIND_ENTRY} or {@link #KIND_AGGREGATE}
+         * @param score     the score
+         * @param timestamp the time the game ended, in epoch milliseconds
+         * @param games     the number of games the record stands for
+         * @param tag       the player tag
+         */
+        void visit(int index, byte kind, int score, long timestamp, int games, String tag);
+    }
+
+    /** The file channel, kept open while the log is in use. */
+    private final FileChannel channel;
+
+    /** The mapped records. */
+    private MappedByteBuffer map;
+
+    /** Number of records the current mapping can hold. */
+    private int capacity;
+
+    /** Number of valid records. */
+    private int count;
+
+    /** Checksum calculator, reused between records. */
+    private final CRC32 crc = new CRC32();
+
+    /** Scratch space for the tag bytes. */
+    private final byte[] tagBytes = new byte[TAG_LENGTH];
+
+    /**
+     * Constructor to open or create a log and find its last valid record.
+     *
+     * @param path the log file
+     * @throws IOException if the file cannot be mapped or is not a score log
+     */
+    public ScoreLog(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean created = channel.size() < HEADER_BYTES;
+        int existing = (int) Math.max(0, (channel.size() - HEADER_BYTES) / RECORD_BYTES);
+        try {
+            remap(Math.max(INITIAL_CAPACITY, existing));
+            if (created) {
+                map.putInt(0, MAGIC);
+                map.putInt(4, VERSION);
+                map.force();
+            } else if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException("Not a score log: " + path);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        while (count < existing && isValid(count))
+            count++;
+    }
+
+    /**
+     * Appends a record. The record is visible to readers of this log at once
+     * but only durable after {@link #sync()}.
+     *
+     * @param kind      {@link #KIND_ENTRY} or {@link #KIND_AGGREGATE}
+     * @param score     the score
+     * @param timestamp the time the game ended, in epoch milliseconds
+     * @param games     the number of games the record stands for
+     * @param tag       the player tag, at most {@link #TAG_LENGTH} ASCII characters
+     * @return the position of the record
+     * @throws IOException if the mapping cannot grow
+     */
+    public int append(byte kind, int score, long timestamp, int games, String tag) throws IOException {
+        if (count == capacity)
+            remap(capacity * 2);
+        int offset = HEADER_BYTES + count * RECORD_BYTES;
+        map.putInt(offset, score);
+        map.putLong(offset + 4, timestamp);
+        map.putInt(offset + 12, games);
+        map.put(offset + 16, kind);
+        byte[] ascii = tag.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < TAG_LENGTH; i++)
+            map.put(offset + 17 + i, i < ascii.length ? ascii[i] : 0);
+        map.putInt(offset + CHECKED_BYTES, checksum(offset));
+        return count++;
+    }
+
+    /**
+     * Writes the appended records to the storage device.
+     */
+    public void sync() {
+        map.force();
+    }
+
+    /**
+     * Visits every valid record, in order.
+     *
+     * @param visitor the visitor
+     */
+    public void forEach(RecordVisitor visitor) {
+        for (int index = 0; index < count; index++) {
+            int offset = HEADER_BYTES + index * RECORD_BYTES;
+            int tagLength = 0;
+            while (tagLength < TAG_LENGTH && map.get(offset + 17 + tagLength) != 0) {
+                tagBytes[tagLength] = map.get(offset + 17 + tagLength);
+                tagLength++;
+            }
+            visitor.visit(index, map.get(offset + 16), map.getInt(offset), map.getLong(offset + 4),
+                    map.getInt(offset + 12), new String(tagBytes, 0, tagLength, StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * Gets the number of valid records.
+     *
+     * @return the number of records
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Closes the file. The mapping is released by the garbage collector.
+     *
+     * @throws IOException if the channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Maps the header and the given number of records, growing the file.
+     */
+    private void remap(int records) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) records * RECORD_BYTES);
+        capacity = records;
+    }
+
+    /**
+     * Checks the kind and checksum of a record.
+     */
+    private boolean isValid(int index) {
+        int offset = HEADER_BYTES + index * RECORD_BYTES;
+        byte kind = map.get(offset + 16);
+        if (kind != KIND_ENTRY && kind != KIND_AGGREGATE)
+            return false;
+        return map.getInt(offset + CHECKED_BYTES) == checksum(offset);
+    }
+
+    /**
+     * Computes the checksum of the record at the offset.
+     */
+    private int checksum(int offset) {
+        crc.reset();
+        for (int i = 0; i < CHECKED_BYTES; i++)
+            crc.update(map.get(offset + i));
+        return (int) crc.getValue();
+    }
+}
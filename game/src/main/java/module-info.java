@@ -2,6 +2,8 @@ module chon.group {
     requires transitive javafx.controls;
     requires transitive javafx.graphics;
     requires java.desktop;
+    requires jdk.jfr;
+    requires jdk.management;
     exports chon.group;
 }
 